@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.build.gradle
+
+import org.gradle.api.Plugin
+import org.gradle.api.Project
+import org.gradle.api.plugins.JavaPlugin
+import org.gradle.api.plugins.JavaPluginConvention
+import org.gradle.api.tasks.JavaExec
+import org.gradle.api.tasks.SourceSet
+import org.gradle.api.tasks.compile.JavaCompile
+
+/**
+ * Gradle plugin that adds a {@code jmh} source set for JMH benchmarks to
+ * projects that have a {@code src/jmh/java} directory, along with a
+ * {@code jmh} task that runs them.
+ *
+ * <p>Benchmarks can see the main and test classes of the project. The
+ * {@code jmh} task writes JSON results to {@code build/reports/jmh/results.json},
+ * so that runs from different commits can be compared with any JMH results
+ * viewer. The following project properties are supported:
+ * <ul>
+ * <li>{@code jmh.include}: regular expression for the benchmarks to run
+ * <li>{@code jmh.args}: further JMH command line arguments, e.g. "-f 2 -prof gc"
+ * <li>{@code jmh.resultFile}: the file to write results to
+ * </ul>
+ *
+ * <p>For example: {@code ./gradlew :spring-core:jmh -Pjmh.include=StringDecoder}
+ */
+class JmhSourceSetPlugin implements Plugin<Project> {
+
+	static final String JMH_VERSION = "1.21"
+
+	@Override
+	public void apply(Project project) {
+		project.plugins.withType(JavaPlugin) {
+			if (project.file("src/jmh/java").isDirectory()) {
+				configureJmh(project)
+			}
+		}
+	}
+
+	private void configureJmh(Project project) {
+		def sourceSets = project.convention.getPlugin(JavaPluginConvention).sourceSets
+		SourceSet main = sourceSets.getByName(SourceSet.MAIN_SOURCE_SET_NAME)
+		SourceSet test = sourceSets.getByName(SourceSet.TEST_SOURCE_SET_NAME)
+		SourceSet jmh = sourceSets.create("jmh")
+		jmh.compileClasspath += main.output + test.output + test.compileClasspath
+		jmh.runtimeClasspath += main.output + test.output + test.runtimeClasspath
+
+		project.dependencies.add(jmh.compileConfigurationName, "org.openjdk.jmh:jmh-core:${JMH_VERSION}")
+		project.dependencies.add(jmh.annotationProcessorConfigurationName,
+				"org.openjdk.jmh:jmh-generator-annprocess:${JMH_VERSION}")
+
+		project.tasks.getByName(jmh.compileJavaTaskName) { JavaCompile compile ->
+			compile.sourceCompatibility = 1.8
+			compile.targetCompatibility = 1.8
+			compile.options.encoding = "UTF-8"
+			compile.options.compilerArgs += "-parameters"
+		}
+
+		project.tasks.create("jmh", JavaExec) { JavaExec task ->
+			task.group = "verification"
+			task.description = "Runs the JMH benchmarks of the jmh source set."
+			task.dependsOn(jmh.classesTaskName)
+			task.main = "org.openjdk.jmh.Main"
+			task.classpath = jmh.runtimeClasspath
+			def resultFile = project.file(project.findProperty("jmh.resultFile") ?:
+					"${project.buildDir}/reports/jmh/results.json")
+			def jmhArgs = []
+			if (project.hasProperty("jmh.include")) {
+				jmhArgs += project.property("jmh.include").toString()
+			}
+			if (project.hasProperty("jmh.args")) {
+				jmhArgs += project.property("jmh.args").toString().tokenize()
+			}
+			jmhArgs += ["-rf", "json", "-rff", resultFile.absolutePath]
+			task.args = jmhArgs
+			task.doFirst {
+				resultFile.parentFile.mkdirs()
+			}
+		}
+	}
+
+}
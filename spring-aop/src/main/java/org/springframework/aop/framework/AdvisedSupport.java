@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -83,6 +83,12 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	/** Cache with Method as key and advisor chain List as value. */
 	private transient Map<MethodCacheKey, List<Object>> methodCache;
 
+	/**
+	 * Cache with the Method itself as key, consulted while this config is frozen:
+	 * avoids creating a MethodCacheKey per invocation.
+	 */
+	private transient Map<Method, List<Object>> frozenMethodCache;
+
 	/**
 	 * Interfaces to be implemented by the proxy. Held in List to keep the order
 	 * of registration, to create JDK proxy with specified order of interfaces.
@@ -107,6 +113,7 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	 */
 	public AdvisedSupport() {
 		this.methodCache = new ConcurrentHashMap<>(32);
+		this.frozenMethodCache = new ConcurrentHashMap<>(32);
 	}
 
 	/**
@@ -477,6 +484,15 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	 * @return a List of MethodInterceptors (may also include InterceptorAndDynamicMethodMatchers)
 	 */
 	public List<Object> getInterceptorsAndDynamicInterceptionAdvice(Method method, @Nullable Class<?> targetClass) {
+		if (isFrozen()) {
+			List<Object> cached = this.frozenMethodCache.get(method);
+			if (cached == null) {
+				cached = this.advisorChainFactory.getInterceptorsAndDynamicInterceptionAdvice(
+						this, method, targetClass);
+				this.frozenMethodCache.put(method, cached);
+			}
+			return cached;
+		}
 		// cacheKey用于缓存
 		MethodCacheKey cacheKey = new MethodCacheKey(method);
 		// 从缓存中获取
@@ -495,6 +511,7 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	 */
 	protected void adviceChanged() {
 		this.methodCache.clear();
+		this.frozenMethodCache.clear();
 	}
 
 	/**
@@ -555,6 +572,7 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 
 		// Initialize transient fields.
 		this.methodCache = new ConcurrentHashMap<>(32);
+		this.frozenMethodCache = new ConcurrentHashMap<>(32);
 	}
 
 
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.aop.AopInvocationException;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.core.GeneratedClassCache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link ReflectiveMethodInvocation} used by JDK proxies with a frozen
+ * configuration, invoking the joinpoint through a class generated with ASM
+ * rather than through reflection.
+ *
+ * <p>An invoker class is generated once per proxied method, on first use, and
+ * is defined in the class loader and package of the declaring interface. Methods
+ * that cannot be invoked from a generated class, e.g. methods declared on
+ * {@code java.lang.Object}, are invoked reflectively, as are targets which do
+ * not implement the declaring interface.
+ *
+ * @since 5.2
+ * @see JdkDynamicAopProxy
+ */
+class GeneratedMethodInvocation extends ReflectiveMethodInvocation {
+
+	private static final JoinpointInvoker REFLECTIVE_INVOKER = (target, args) -> {
+		throw new IllegalStateException("Not a generated invoker");
+	};
+
+	private static final GeneratedClassCache<Method, JoinpointInvoker> invokerCache =
+			new GeneratedClassCache<>("$$SpringJoinpoint$$");
+
+	private static final Log logger = LogFactory.getLog(GeneratedMethodInvocation.class);
+
+
+	/**
+	 * Construct a new GeneratedMethodInvocation with the given arguments.
+	 * @see ReflectiveMethodInvocation#ReflectiveMethodInvocation
+	 */
+	GeneratedMethodInvocation(Object proxy, @Nullable Object target, Method method,
+			@Nullable Object[] arguments, @Nullable Class<?> targetClass,
+			List<Object> interceptorsAndDynamicMethodMatchers) {
+
+		super(proxy, target, method, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+	}
+
+
+	@Override
+	@Nullable
+	protected Object invokeJoinpoint() throws Throwable {
+		return invokeJoinpoint(this.target, this.method, this.arguments);
+	}
+
+
+	/**
+	 * Invoke the given method on the target through a generated invoker,
+	 * falling back to reflection where no invoker can be generated.
+	 * @param target the target object
+	 * @param method the method to invoke
+	 * @param args the arguments for the method
+	 * @return the invocation result, if any
+	 * @throws Throwable if thrown by the target method
+	 * @see AopUtils#invokeJoinpointUsingReflection
+	 */
+	@Nullable
+	static Object invokeJoinpoint(@Nullable Object target, Method method, Object[] args) throws Throwable {
+		if (method.getDeclaringClass().isInstance(target) && args.length == method.getParameterCount()) {
+			JoinpointInvoker invoker = invokerCache.get(
+					method, method.getDeclaringClass(), GeneratedMethodInvocation::createInvoker);
+			if (invoker != REFLECTIVE_INVOKER) {
+				try {
+					return invoker.invoke(target, args);
+				}
+				catch (ClassCastException | NullPointerException ex) {
+					if (!isMatchingArguments(method, args)) {
+						// Counterpart of the IllegalArgumentException thrown by Method.invoke
+						throw new AopInvocationException("AOP configuration seems to be invalid: tried calling method [" +
+								method + "] on target [" + target + "]", ex);
+					}
+					throw ex;
+				}
+			}
+		}
+		return AopUtils.invokeJoinpointUsingReflection(target, method, args);
+	}
+
+	/**
+	 * Determine whether the given arguments match the parameter types of the
+	 * given method, i.e. whether an exception thrown by a generated invoker
+	 * comes from the invoked method rather than from the invoker's casts.
+	 */
+	private static boolean isMatchingArguments(Method method, Object[] args) {
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (!ClassUtils.isAssignableValue(parameterTypes[i], args[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static JoinpointInvoker createInvoker(Method method) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		ClassLoader classLoader = declaringClass.getClassLoader();
+		if (!isGeneratable(method, classLoader)) {
+			return REFLECTIVE_INVOKER;
+		}
+		try {
+			Class<?> invokerClass = invokerCache.defineClass(declaringClass,
+					method.getName() + Type.getMethodDescriptor(method),
+					className -> generateInvokerClass(className, method));
+			return (JoinpointInvoker) ReflectionUtils.accessibleConstructor(invokerClass).newInstance();
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to generate invoker for " + method + " - using reflection instead", ex);
+			}
+			return REFLECTIVE_INVOKER;
+		}
+	}
+
+	private static boolean isGeneratable(Method method, @Nullable ClassLoader classLoader) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		if (classLoader == null || !ClassUtils.isVisible(JoinpointInvoker.class, classLoader) ||
+				Modifier.isStatic(method.getModifiers()) || Modifier.isPrivate(method.getModifiers()) ||
+				declaringClass.getName().startsWith("java.")) {
+			return false;
+		}
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			if (!GeneratedClassCache.isAccessible(parameterType, declaringClass)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Generate a {@link JoinpointInvoker} implementation which invokes the given
+	 * method on the target, unboxing and casting the arguments and boxing the
+	 * return value as necessary.
+	 */
+	private static byte[] generateInvokerClass(String className, Method method) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+				className.replace('.', '/'), null, "java/lang/Object",
+				new String[] {Type.getInternalName(JoinpointInvoker.class)});
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		Class<?> declaringClass = method.getDeclaringClass();
+		String ownerType = Type.getInternalName(declaringClass);
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "invoke",
+				"(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitTypeInsn(Opcodes.CHECKCAST, ownerType);
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitLdcInsn(i);
+			mv.visitInsn(Opcodes.AALOAD);
+			Class<?> parameterType = parameterTypes[i];
+			if (parameterType.isPrimitive()) {
+				Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(parameterType);
+				mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(wrapperType));
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(wrapperType),
+						parameterType.getName() + "Value", "()" + Type.getDescriptor(parameterType), false);
+			}
+			else if (parameterType != Object.class) {
+				mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(parameterType));
+			}
+		}
+		boolean isInterface = declaringClass.isInterface();
+		mv.visitMethodInsn((isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL),
+				ownerType, method.getName(), Type.getMethodDescriptor(method), isInterface);
+		Class<?> returnType = method.getReturnType();
+		if (returnType == void.class) {
+			mv.visitInsn(Opcodes.ACONST_NULL);
+		}
+		else if (returnType.isPrimitive()) {
+			Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(returnType);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(wrapperType), "valueOf",
+					"(" + Type.getDescriptor(returnType) + ")" + Type.getDescriptor(wrapperType), false);
+		}
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+
+	/**
+	 * Contract for generated joinpoint invokers. Only public in order to
+	 * be implemented by classes generated in the packages of proxied interfaces.
+	 */
+	public interface JoinpointInvoker {
+
+		/**
+		 * Invoke the method on the given target.
+		 * @param target the target object, an instance of the declaring class
+		 * @param args the method arguments, matching the parameter types
+		 * @return the return value, or {@code null} for a void method
+		 * @throws Throwable if thrown by the target method
+		 */
+		@Nullable
+		Object invoke(Object target, Object[] args) throws Throwable;
+	}
+
+}
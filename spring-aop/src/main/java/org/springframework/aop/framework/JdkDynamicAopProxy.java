@@ -53,6 +53,9 @@ import org.springframework.util.ClassUtils;
  * <p>Proxies are serializable so long as all Advisors (including Advices
  * and Pointcuts) and the TargetSource are serializable.
  *
+ * <p>For a {@link ProxyConfig#isFrozen() frozen} configuration, the target
+ * method is invoked through a generated class rather than through reflection.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @author Rob Harrop
@@ -221,13 +224,20 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 				// nothing but a reflective operation on the target, and no hot swapping or fancy proxying.
 				// chain为空，直接进行invoke (Joinpoint --> 每一个方法调用都是连接点)
 				Object[] argsToUse = AopProxyUtils.adaptArgumentsIfNecessary(method, args);
-				retVal = AopUtils.invokeJoinpointUsingReflection(target, method, argsToUse);
+				if (this.advised.isFrozen()) {
+					retVal = GeneratedMethodInvocation.invokeJoinpoint(target, method, argsToUse);
+				}
+				else {
+					retVal = AopUtils.invokeJoinpointUsingReflection(target, method, argsToUse);
+				}
 			}
 			else {
 				// We need to create a method invocation...
 				// chain不为空，创建MethodInvocation来执行, 注意MethodInvocation实际上就是
-				MethodInvocation invocation =
-						new ReflectiveMethodInvocation(proxy, target, method, args, targetClass, chain);
+				// A frozen config cannot change anymore: invoke the target through a generated class.
+				MethodInvocation invocation = (this.advised.isFrozen() ?
+						new GeneratedMethodInvocation(proxy, target, method, args, targetClass, chain) :
+						new ReflectiveMethodInvocation(proxy, target, method, args, targetClass, chain));
 				// Proceed to the joinpoint through the interceptor chain.
 				retVal = invocation.proceed();
 			}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.io.IOException;
+
+import org.aopalliance.aop.Advice;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.Test;
+
+import org.springframework.aop.AopInvocationException;
+import org.springframework.tests.aop.interceptor.NopInterceptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+/**
+ * Tests for {@link GeneratedMethodInvocation} as used by frozen JDK proxies.
+ */
+public class GeneratedMethodInvocationTests {
+
+	private final CallerRecordingService target = new CallerRecordingService();
+
+
+	@Test
+	public void frozenProxyWithInterceptors() {
+		NopInterceptor nop = new NopInterceptor();
+		Service proxy = createProxy(true, nop);
+		assertThat(proxy.add(20, 22L)).isEqualTo(42L);
+		assertThat(this.target.caller).contains("$$SpringJoinpoint$$");
+		proxy.setName("name");
+		assertThat(proxy.getName()).isEqualTo("name");
+		assertThat(nop.getCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void frozenProxyWithoutInterceptors() {
+		Service proxy = createProxy(true);
+		assertThat(proxy.add(1, 2L)).isEqualTo(3L);
+		assertThat(this.target.caller).contains("$$SpringJoinpoint$$");
+	}
+
+	@Test
+	public void proxyInvokedReflectivelyWhenNotFrozen() {
+		Service proxy = createProxy(false, new NopInterceptor());
+		assertThat(proxy.add(1, 2L)).isEqualTo(3L);
+		assertThat(this.target.caller).doesNotContain("$$SpringJoinpoint$$");
+	}
+
+	@Test
+	public void frozenProxyWithObjectMethods() {
+		Service proxy = createProxy(true, new NopInterceptor());
+		assertThat(proxy.toString()).isEqualTo("service");
+	}
+
+	@Test
+	public void frozenProxyPropagatesCheckedException() {
+		Service proxy = createProxy(true, new NopInterceptor());
+		assertThatIOException().isThrownBy(proxy::fail).withMessage("Expected");
+	}
+
+	@Test
+	public void frozenProxyWithArgumentsChangedByInterceptor() {
+		Service proxy = createProxy(true, (MethodInterceptor) invocation -> {
+			invocation.getArguments()[0] = 40;
+			return invocation.proceed();
+		});
+		assertThat(proxy.add(1, 2L)).isEqualTo(42L);
+	}
+
+	@Test
+	public void frozenProxyWithArgumentsOfWrongTypeFromInterceptor() {
+		Service proxy = createProxy(true, (MethodInterceptor) invocation -> {
+			invocation.getArguments()[0] = "40";
+			return invocation.proceed();
+		});
+		assertThatExceptionOfType(AopInvocationException.class).isThrownBy(() ->
+				proxy.add(1, 2L))
+			.withCauseInstanceOf(ClassCastException.class);
+	}
+
+	@Test
+	public void frozenProxyWithNullPrimitiveArgumentFromInterceptor() {
+		Service proxy = createProxy(true, (MethodInterceptor) invocation -> {
+			invocation.getArguments()[1] = null;
+			return invocation.proceed();
+		});
+		assertThatExceptionOfType(AopInvocationException.class).isThrownBy(() ->
+				proxy.add(1, 2L));
+	}
+
+	@Test
+	public void frozenProxyPropagatesClassCastExceptionFromTarget() {
+		Service proxy = createProxy(true, new NopInterceptor());
+		assertThatExceptionOfType(ClassCastException.class).isThrownBy(() ->
+				proxy.length(42));
+	}
+
+	@Test
+	public void adviceChangesAppliedWhenFrozenAgain() {
+		ProxyFactory pf = new ProxyFactory(this.target);
+		pf.addInterface(Service.class);
+		pf.setFrozen(true);
+		Service proxy = (Service) pf.getProxy();
+		assertThat(proxy.add(1, 2L)).isEqualTo(3L);
+
+		NopInterceptor nop = new NopInterceptor();
+		pf.setFrozen(false);
+		pf.addAdvice(nop);
+		pf.setFrozen(true);
+		assertThat(proxy.add(1, 2L)).isEqualTo(3L);
+		assertThat(nop.getCount()).isEqualTo(1);
+	}
+
+
+	private Service createProxy(boolean frozen, Advice... advice) {
+		ProxyFactory pf = new ProxyFactory(this.target);
+		pf.addInterface(Service.class);
+		for (Advice element : advice) {
+			pf.addAdvice(element);
+		}
+		pf.setFrozen(frozen);
+		return (Service) pf.getProxy();
+	}
+
+
+	public interface Service {
+
+		long add(int a, long b);
+
+		void setName(String name);
+
+		String getName();
+
+		void fail() throws IOException;
+
+		int length(Object value);
+	}
+
+
+	static class CallerRecordingService implements Service {
+
+		String caller;
+
+		private String name;
+
+		@Override
+		public long add(int a, long b) {
+			this.caller = new Throwable().getStackTrace()[1].getClassName();
+			return a + b;
+		}
+
+		@Override
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public void fail() throws IOException {
+			throw new IOException("Expected");
+		}
+
+		@Override
+		public int length(Object value) {
+			return ((String) value).length();
+		}
+
+		@Override
+		public String toString() {
+			return "service";
+		}
+	}
+
+}
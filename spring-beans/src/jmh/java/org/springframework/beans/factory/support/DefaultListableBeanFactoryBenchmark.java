@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.tests.sample.beans.ITestBean;
+import org.springframework.tests.sample.beans.NestedTestBean;
+import org.springframework.tests.sample.beans.TestBean;
+
+/**
+ * Benchmarks for {@link DefaultListableBeanFactory#getBean} with singleton
+ * and prototype bean definitions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultListableBeanFactoryBenchmark {
+
+	@Benchmark
+	public Object getSingletonByName(BeanFactoryState state) {
+		return state.beanFactory.getBean("singleton");
+	}
+
+	@Benchmark
+	public Object getSingletonByType(BeanFactoryState state) {
+		return state.beanFactory.getBean(NestedTestBean.class);
+	}
+
+	@Benchmark
+	public Object getPrototype(BeanFactoryState state) {
+		return state.beanFactory.getBean("prototype");
+	}
+
+	@Benchmark
+	public Object getPrototypeWithProperties(BeanFactoryState state) {
+		return state.beanFactory.getBean("prototypeWithProperties");
+	}
+
+	@Benchmark
+	public Object getPrototypeWithConstructorArguments(BeanFactoryState state) {
+		return state.beanFactory.getBean("prototypeWithConstructorArguments");
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BeanFactoryState {
+
+		DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+
+			RootBeanDefinition singleton = new RootBeanDefinition(TestBean.class);
+			singleton.getPropertyValues().add("name", "singleton");
+			this.beanFactory.registerBeanDefinition("singleton", singleton);
+			this.beanFactory.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+
+			RootBeanDefinition prototype = new RootBeanDefinition(TestBean.class);
+			prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			this.beanFactory.registerBeanDefinition("prototype", prototype);
+
+			RootBeanDefinition withProperties = new RootBeanDefinition(TestBean.class);
+			withProperties.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			MutablePropertyValues pvs = withProperties.getPropertyValues();
+			pvs.add("name", "juergen");
+			pvs.add("age", "42");
+			pvs.add("spouse", new RuntimeBeanReference("singleton"));
+			this.beanFactory.registerBeanDefinition("prototypeWithProperties", withProperties);
+
+			RootBeanDefinition withArguments = new RootBeanDefinition(TestBean.class);
+			withArguments.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			withArguments.getConstructorArgumentValues().addGenericArgumentValue(
+					new RuntimeBeanReference("singleton"), ITestBean.class.getName());
+			this.beanFactory.registerBeanDefinition("prototypeWithConstructorArguments", withArguments);
+
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+}
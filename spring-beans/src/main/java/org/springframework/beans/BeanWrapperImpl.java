@@ -128,8 +128,9 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	 * @param object object wrapped by this BeanWrapper
 	 * @param nestedPath the nested path of the object
 	 * @param parent the containing BeanWrapper (must not be {@code null})
+	 * @since 5.2
 	 */
-	private BeanWrapperImpl(Object object, String nestedPath, BeanWrapperImpl parent) {
+	protected BeanWrapperImpl(Object object, String nestedPath, BeanWrapperImpl parent) {
 		super(object, nestedPath, parent);
 		setSecurityContext(parent.acc);
 	}
@@ -229,7 +230,17 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Nullable
 	protected BeanPropertyHandler getLocalPropertyHandler(String propertyName) {
 		PropertyDescriptor pd = getCachedIntrospectionResults().getPropertyDescriptor(propertyName);
-		return (pd != null ? new BeanPropertyHandler(pd) : null);
+		return (pd != null ? createPropertyHandler(pd) : null);
+	}
+
+	/**
+	 * Create a handler for the given property of the wrapped object.
+	 * @param pd the descriptor of the property
+	 * @return the property handler
+	 * @since 5.2
+	 */
+	protected BeanPropertyHandler createPropertyHandler(PropertyDescriptor pd) {
+		return new BeanPropertyHandler(pd);
 	}
 
 	@Override
@@ -262,7 +273,11 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	}
 
 
-	private class BeanPropertyHandler extends PropertyHandler {
+	/**
+	 * {@link PropertyHandler} for a JavaBeans property of the wrapped object,
+	 * invoking its read and write methods reflectively.
+	 */
+	protected class BeanPropertyHandler extends PropertyHandler {
 
 		private final PropertyDescriptor pd;
 
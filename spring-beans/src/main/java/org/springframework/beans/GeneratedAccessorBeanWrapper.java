@@ -0,0 +1,455 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.core.GeneratedClassCache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link BeanWrapperImpl} variant that reads and writes properties through
+ * classes generated with ASM, rather than through reflection.
+ *
+ * <p>A single accessor class is generated per bean class, on first use, with
+ * a read and a write operation covering all of its properties. It is defined
+ * in the class loader and package of the bean class, which allows for invoking
+ * non-private property methods directly. Nested property paths are resolved
+ * step by step as in {@code BeanWrapperImpl}, each step using the accessor
+ * class for the bean class at that step.
+ *
+ * <p>Property methods that cannot be invoked from a generated class (e.g.
+ * protected methods declared in another package) are invoked reflectively,
+ * as are all property methods when a {@link SecurityManager} is active.
+ *
+ * @since 5.2
+ * @see PropertyAccessorFactory#forGeneratedBeanPropertyAccess
+ */
+public class GeneratedAccessorBeanWrapper extends BeanWrapperImpl {
+
+	private static final PropertyAccessors NO_ACCESSORS =
+			new PropertyAccessors(null, new PropertyDescriptor[0], new boolean[0], new boolean[0]);
+
+	private static final GeneratedClassCache<Class<?>, PropertyAccessors> accessorsCache =
+			new GeneratedClassCache<>("$$SpringAccessor$$");
+
+	private static final Log logger = LogFactory.getLog(GeneratedAccessorBeanWrapper.class);
+
+
+	/**
+	 * Create a new empty GeneratedAccessorBeanWrapper. Wrapped instance needs
+	 * to be set afterwards. Registers default editors.
+	 * @see #setWrappedInstance
+	 */
+	public GeneratedAccessorBeanWrapper() {
+		super();
+	}
+
+	/**
+	 * Create a new GeneratedAccessorBeanWrapper for the given object.
+	 * @param object object wrapped by this BeanWrapper
+	 */
+	public GeneratedAccessorBeanWrapper(Object object) {
+		super(object);
+	}
+
+	/**
+	 * Create a new GeneratedAccessorBeanWrapper, wrapping a new instance of the specified class.
+	 * @param clazz class to instantiate and wrap
+	 */
+	public GeneratedAccessorBeanWrapper(Class<?> clazz) {
+		super(clazz);
+	}
+
+	/**
+	 * Create a new GeneratedAccessorBeanWrapper for the given object,
+	 * registering a nested path that the object is in.
+	 * @param object object wrapped by this BeanWrapper
+	 * @param nestedPath the nested path of the object
+	 * @param parent the containing BeanWrapper (must not be {@code null})
+	 */
+	protected GeneratedAccessorBeanWrapper(Object object, String nestedPath, GeneratedAccessorBeanWrapper parent) {
+		super(object, nestedPath, parent);
+	}
+
+
+	@Override
+	protected BeanPropertyHandler createPropertyHandler(PropertyDescriptor pd) {
+		if (System.getSecurityManager() == null) {
+			PropertyAccessors accessors = getPropertyAccessors(getWrappedClass());
+			Integer index = accessors.indexes.get(pd.getName());
+			if (index != null && isSameProperty(accessors.propertyDescriptors[index], pd)) {
+				return new GeneratedPropertyHandler(pd, accessors, index);
+			}
+		}
+		return super.createPropertyHandler(pd);
+	}
+
+	@Override
+	protected GeneratedAccessorBeanWrapper newNestedPropertyAccessor(Object object, String nestedPath) {
+		return new GeneratedAccessorBeanWrapper(object, nestedPath, this);
+	}
+
+
+	/**
+	 * Return the generated accessors for the given bean class,
+	 * generating them on first access.
+	 */
+	private static PropertyAccessors getPropertyAccessors(Class<?> beanClass) {
+		return accessorsCache.get(beanClass, beanClass, GeneratedAccessorBeanWrapper::createPropertyAccessors);
+	}
+
+	/**
+	 * Determine whether the given descriptors describe the same property,
+	 * not necessarily being the same instance (e.g. after the introspection
+	 * results for the bean class have been rebuilt).
+	 */
+	private static boolean isSameProperty(PropertyDescriptor generated, PropertyDescriptor pd) {
+		return (generated == pd || (generated.getName().equals(pd.getName()) &&
+				ObjectUtils.nullSafeEquals(generated.getPropertyType(), pd.getPropertyType())));
+	}
+
+	private static PropertyAccessors createPropertyAccessors(Class<?> beanClass) {
+		ClassLoader classLoader = beanClass.getClassLoader();
+		if (classLoader == null || !ClassUtils.isVisible(PropertyInvoker.class, classLoader) ||
+				beanClass.getName().startsWith("java.") || Proxy.isProxyClass(beanClass)) {
+			return NO_ACCESSORS;
+		}
+		PropertyDescriptor[] pds = CachedIntrospectionResults.forClass(beanClass).getPropertyDescriptors();
+		boolean[] readable = new boolean[pds.length];
+		boolean[] writable = new boolean[pds.length];
+		boolean generatable = false;
+		for (int i = 0; i < pds.length; i++) {
+			Method readMethod = pds[i].getReadMethod();
+			Method writeMethod = getWriteMethod(pds[i]);
+			readable[i] = (readMethod != null && isInvocable(readMethod, beanClass));
+			writable[i] = (writeMethod != null && isInvocable(writeMethod, beanClass) &&
+					GeneratedClassCache.isAccessible(writeMethod.getParameterTypes()[0], beanClass));
+			generatable |= (readable[i] || writable[i]);
+		}
+		if (!generatable) {
+			return NO_ACCESSORS;
+		}
+		try {
+			Class<?> invokerClass = accessorsCache.defineClass(beanClass, describeAccessors(pds, readable, writable),
+					className -> generateInvokerClass(className, beanClass, pds, readable, writable));
+			PropertyInvoker invoker = (PropertyInvoker) ReflectionUtils.accessibleConstructor(invokerClass).newInstance();
+			return new PropertyAccessors(invoker, pds, readable, writable);
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to generate property accessors for " + beanClass + " - using reflection instead", ex);
+			}
+			return NO_ACCESSORS;
+		}
+	}
+
+	@Nullable
+	private static Method getWriteMethod(PropertyDescriptor pd) {
+		if (pd.getWriteMethod() == null) {
+			return null;
+		}
+		return (pd instanceof GenericTypeAwarePropertyDescriptor ?
+				((GenericTypeAwarePropertyDescriptor) pd).getWriteMethodForActualAccess() : pd.getWriteMethod());
+	}
+
+	private static boolean isInvocable(Method method, Class<?> beanClass) {
+		int modifiers = method.getModifiers();
+		if (Modifier.isPrivate(modifiers) || Modifier.isStatic(modifiers)) {
+			return false;
+		}
+		return (Modifier.isPublic(modifiers) ||
+				GeneratedClassCache.isSamePackage(method.getDeclaringClass(), beanClass));
+	}
+
+	/**
+	 * Describe the property methods that a generated accessor class invokes,
+	 * by index, as a discriminator for the name of the generated class.
+	 */
+	private static String describeAccessors(PropertyDescriptor[] pds, boolean[] readable, boolean[] writable) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < pds.length; i++) {
+			builder.append(i).append(':');
+			if (readable[i]) {
+				Method readMethod = pds[i].getReadMethod();
+				builder.append(readMethod.getName()).append(Type.getMethodDescriptor(readMethod));
+			}
+			builder.append(',');
+			if (writable[i]) {
+				Method writeMethod = getWriteMethod(pds[i]);
+				builder.append(writeMethod.getName()).append(Type.getMethodDescriptor(writeMethod));
+			}
+			builder.append(';');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Generate a {@link PropertyInvoker} implementation which dispatches on the
+	 * property index to the read or write method of the property.
+	 */
+	private static byte[] generateInvokerClass(String className, Class<?> beanClass,
+			PropertyDescriptor[] pds, boolean[] readable, boolean[] writable) {
+
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES) {
+			@Override
+			protected String getCommonSuperClass(String type1, String type2) {
+				// All branches share the same frame, so no bean types need to be merged
+				return "java/lang/Object";
+			}
+		};
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+				className.replace('.', '/'), null, "java/lang/Object",
+				new String[] {Type.getInternalName(PropertyInvoker.class)});
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		String beanType = Type.getInternalName(beanClass);
+
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "getValue", "(Ljava/lang/Object;I)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		Label[] labels = visitSwitch(mv, readable);
+		for (int i = 0; i < pds.length; i++) {
+			if (readable[i]) {
+				Method readMethod = pds[i].getReadMethod();
+				mv.visitLabel(labels[i]);
+				mv.visitVarInsn(Opcodes.ALOAD, 1);
+				mv.visitTypeInsn(Opcodes.CHECKCAST, beanType);
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, beanType, readMethod.getName(),
+						Type.getMethodDescriptor(readMethod), false);
+				Class<?> returnType = readMethod.getReturnType();
+				if (returnType.isPrimitive()) {
+					Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(returnType);
+					mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(wrapperType), "valueOf",
+							"(" + Type.getDescriptor(returnType) + ")" + Type.getDescriptor(wrapperType), false);
+				}
+				mv.visitInsn(Opcodes.ARETURN);
+			}
+		}
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "setValue", "(Ljava/lang/Object;ILjava/lang/Object;)V", null, null);
+		mv.visitCode();
+		labels = visitSwitch(mv, writable);
+		for (int i = 0; i < pds.length; i++) {
+			if (writable[i]) {
+				Method writeMethod = getWriteMethod(pds[i]);
+				mv.visitLabel(labels[i]);
+				mv.visitVarInsn(Opcodes.ALOAD, 1);
+				mv.visitTypeInsn(Opcodes.CHECKCAST, beanType);
+				mv.visitVarInsn(Opcodes.ALOAD, 3);
+				Class<?> parameterType = writeMethod.getParameterTypes()[0];
+				if (parameterType.isPrimitive()) {
+					Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(parameterType);
+					mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(wrapperType));
+					mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(wrapperType),
+							parameterType.getName() + "Value", "()" + Type.getDescriptor(parameterType), false);
+				}
+				else if (parameterType != Object.class) {
+					mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(parameterType));
+				}
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, beanType, writeMethod.getName(),
+						Type.getMethodDescriptor(writeMethod), false);
+				Class<?> returnType = writeMethod.getReturnType();
+				if (returnType == long.class || returnType == double.class) {
+					mv.visitInsn(Opcodes.POP2);
+				}
+				else if (returnType != void.class) {
+					mv.visitInsn(Opcodes.POP);
+				}
+				mv.visitInsn(Opcodes.RETURN);
+			}
+		}
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Visit a switch on the property index argument, with a case for each
+	 * included property and a default case throwing an exception.
+	 * @return the labels for the included properties, to be visited by the caller
+	 */
+	private static Label[] visitSwitch(MethodVisitor mv, boolean[] included) {
+		Label[] labels = new Label[included.length];
+		int count = 0;
+		for (boolean include : included) {
+			count += (include ? 1 : 0);
+		}
+		int[] keys = new int[count];
+		Label[] caseLabels = new Label[count];
+		int caseIndex = 0;
+		for (int i = 0; i < included.length; i++) {
+			if (included[i]) {
+				labels[i] = new Label();
+				keys[caseIndex] = i;
+				caseLabels[caseIndex] = labels[i];
+				caseIndex++;
+			}
+		}
+		Label defaultLabel = new Label();
+		mv.visitVarInsn(Opcodes.ILOAD, 2);
+		mv.visitLookupSwitchInsn(defaultLabel, keys, caseLabels);
+		mv.visitLabel(defaultLabel);
+		mv.visitTypeInsn(Opcodes.NEW, "java/lang/IllegalArgumentException");
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitLdcInsn("No generated accessor for property index");
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/IllegalArgumentException",
+				"<init>", "(Ljava/lang/String;)V", false);
+		mv.visitInsn(Opcodes.ATHROW);
+		return labels;
+	}
+
+
+	/**
+	 * Contract for generated property accessors. Only public in order to
+	 * be implemented by classes generated in the packages of bean classes.
+	 */
+	public interface PropertyInvoker {
+
+		/**
+		 * Invoke the read method of a property.
+		 * @param target the target bean
+		 * @param index the index of the property
+		 * @return the property value
+		 */
+		@Nullable
+		Object getValue(Object target, int index);
+
+		/**
+		 * Invoke the write method of a property.
+		 * @param target the target bean
+		 * @param index the index of the property
+		 * @param value the new property value
+		 */
+		void setValue(Object target, int index, @Nullable Object value);
+	}
+
+
+	/**
+	 * The generated accessors for a bean class.
+	 */
+	private static final class PropertyAccessors {
+
+		@Nullable
+		final PropertyInvoker invoker;
+
+		final PropertyDescriptor[] propertyDescriptors;
+
+		final Map<String, Integer> indexes;
+
+		final boolean[] readable;
+
+		final boolean[] writable;
+
+		PropertyAccessors(@Nullable PropertyInvoker invoker, PropertyDescriptor[] pds,
+				boolean[] readable, boolean[] writable) {
+
+			this.invoker = invoker;
+			this.propertyDescriptors = pds;
+			this.indexes = new HashMap<>(pds.length * 2);
+			for (int i = 0; i < pds.length; i++) {
+				if (readable[i] || writable[i]) {
+					this.indexes.put(pds[i].getName(), i);
+				}
+			}
+			this.readable = readable;
+			this.writable = writable;
+		}
+	}
+
+
+	/**
+	 * {@link BeanPropertyHandler} using generated accessors where available.
+	 */
+	private class GeneratedPropertyHandler extends BeanPropertyHandler {
+
+		private final PropertyAccessors accessors;
+
+		private final int index;
+
+		@Nullable
+		private final Class<?> writeType;
+
+		public GeneratedPropertyHandler(PropertyDescriptor pd, PropertyAccessors accessors, int index) {
+			super(pd);
+			this.accessors = accessors;
+			this.index = index;
+			Method writeMethod = getWriteMethod(pd);
+			this.writeType = (writeMethod != null ? writeMethod.getParameterTypes()[0] : null);
+		}
+
+		@Override
+		@Nullable
+		public Object getValue() throws Exception {
+			PropertyInvoker invoker = this.accessors.invoker;
+			if (invoker == null || !this.accessors.readable[this.index]) {
+				return super.getValue();
+			}
+			try {
+				return invoker.getValue(getWrappedInstance(), this.index);
+			}
+			catch (Throwable ex) {
+				throw new InvocationTargetException(ex);
+			}
+		}
+
+		@Override
+		public void setValue(@Nullable Object value) throws Exception {
+			PropertyInvoker invoker = this.accessors.invoker;
+			if (invoker == null || !this.accessors.writable[this.index] || this.writeType == null ||
+					!ClassUtils.isAssignableValue(this.writeType, value)) {
+				// Let reflection reject values of a non-matching type, or null for a primitive
+				super.setValue(value);
+				return;
+			}
+			try {
+				invoker.setValue(getWrappedInstance(), this.index, value);
+			}
+			catch (Throwable ex) {
+				throw new InvocationTargetException(ex);
+			}
+		}
+	}
+
+}
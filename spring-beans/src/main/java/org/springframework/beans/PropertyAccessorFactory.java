@@ -41,6 +41,18 @@ public final class PropertyAccessorFactory {
 		return new BeanWrapperImpl(target);
 	}
 
+	/**
+	 * Obtain a BeanWrapper for the given target object,
+	 * accessing properties in JavaBeans style through generated accessors.
+	 * @param target the target object to wrap
+	 * @return the property accessor
+	 * @since 5.2
+	 * @see GeneratedAccessorBeanWrapper
+	 */
+	public static BeanWrapper forGeneratedBeanPropertyAccess(Object target) {
+		return new GeneratedAccessorBeanWrapper(target);
+	}
+
 	/**
 	 * Obtain a PropertyAccessor for the given target object,
 	 * accessing properties in direct field style.
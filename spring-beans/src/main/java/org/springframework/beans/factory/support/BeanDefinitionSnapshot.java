@@ -0,0 +1,1124 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.AutowiredPropertyMarker;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.core.AttributeAccessor;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.StandardMethodMetadata;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Compact binary snapshot of the bean definitions in a {@link BeanDefinitionRegistry},
+ * allowing for the registry state to be captured once, e.g. at build time, and to be
+ * restored at runtime without re-reading the original bean definition sources.
+ *
+ * <p>Bean classes and other types are recorded by name, and are not loaded when the
+ * snapshot is restored. Bean definitions with an
+ * {@linkplain AbstractBeanDefinition#getInstanceSupplier() instance supplier},
+ * with method overrides other than lookup methods, or with property or constructor
+ * argument values other than the usual metadata types (Strings, bean references,
+ * inner bean definitions, managed collections, primitive wrappers, classes, and
+ * enums) cannot be captured, and neither can attributes with values of other
+ * types than Strings, primitive wrappers, String arrays, classes, enums, Lists
+ * and Maps. {@linkplain AbstractBeanDefinition#getSource() Sources} and
+ * {@linkplain AbstractBeanDefinition#getResource() resources} are not captured,
+ * other than their description.
+ *
+ * <p>{@link AnnotatedBeanDefinition AnnotatedBeanDefinitions} are restored as
+ * annotated bean definitions as well, reading the annotation metadata of their
+ * class on first access.
+ *
+ * <p>Each snapshot carries a fingerprint of the environment that it has been
+ * captured in, e.g. of the class path, for the caller to decide whether the
+ * snapshot still applies.
+ *
+ * @since 5.2
+ * @see #capture(BeanDefinitionRegistry, String)
+ * @see #registerBeanDefinitions(BeanDefinitionRegistry, ClassLoader)
+ */
+public final class BeanDefinitionSnapshot {
+
+	private static final int MAGIC = 0x53424453;
+
+	private static final int VERSION = 3;
+
+	private static final byte ROOT_BEAN_DEFINITION = 1;
+
+	private static final byte GENERIC_BEAN_DEFINITION = 2;
+
+	private static final byte ANNOTATED_ROOT_BEAN_DEFINITION = 3;
+
+	private static final byte ANNOTATED_GENERIC_BEAN_DEFINITION = 4;
+
+	private static final byte NULL = 0;
+
+	private static final byte STRING = 1;
+
+	private static final byte TYPED_STRING_VALUE = 2;
+
+	private static final byte BEAN_REFERENCE = 3;
+
+	private static final byte BEAN_TYPE_REFERENCE = 4;
+
+	private static final byte BEAN_NAME_REFERENCE = 5;
+
+	private static final byte BEAN_DEFINITION_HOLDER = 6;
+
+	private static final byte BEAN_DEFINITION = 7;
+
+	private static final byte MANAGED_LIST = 8;
+
+	private static final byte MANAGED_ARRAY = 9;
+
+	private static final byte MANAGED_SET = 10;
+
+	private static final byte MANAGED_MAP = 11;
+
+	private static final byte MANAGED_PROPERTIES = 12;
+
+	private static final byte LIST = 13;
+
+	private static final byte MAP = 14;
+
+	private static final byte STRING_ARRAY = 15;
+
+	private static final byte BOOLEAN = 16;
+
+	private static final byte INTEGER = 17;
+
+	private static final byte LONG = 18;
+
+	private static final byte CLASS = 19;
+
+	private static final byte ENUM = 20;
+
+	private static final byte AUTOWIRED_MARKER = 21;
+
+
+	private final String fingerprint;
+
+	private final byte[] content;
+
+
+	private BeanDefinitionSnapshot(String fingerprint, byte[] content) {
+		this.fingerprint = fingerprint;
+		this.content = content;
+	}
+
+
+	/**
+	 * Return the fingerprint of the environment that this snapshot was captured in.
+	 */
+	public String getFingerprint() {
+		return this.fingerprint;
+	}
+
+	/**
+	 * Register the bean definitions and aliases of this snapshot with the given
+	 * registry. Existing bean definitions with the same names are replaced.
+	 * @param registry the registry to register the bean definitions with
+	 * @param classLoader the ClassLoader to resolve class values with
+	 * (can be {@code null} for the default ClassLoader)
+	 * @return the number of bean definitions registered
+	 * @throws BeanDefinitionStoreException if the snapshot is invalid
+	 */
+	public int registerBeanDefinitions(BeanDefinitionRegistry registry, @Nullable ClassLoader classLoader)
+			throws BeanDefinitionStoreException {
+
+		Assert.notNull(registry, "BeanDefinitionRegistry must not be null");
+		try {
+			Decoder decoder = new Decoder(new DataInputStream(new ByteArrayInputStream(this.content)), classLoader);
+			int count = decoder.readCount();
+			for (int i = 0; i < count; i++) {
+				String beanName = decoder.readRequiredString();
+				BeanDefinition beanDefinition = decoder.readBeanDefinition();
+				if (registry.containsBeanDefinition(beanName)) {
+					registry.removeBeanDefinition(beanName);
+				}
+				registry.registerBeanDefinition(beanName, beanDefinition);
+				int aliasCount = decoder.readCount();
+				for (int j = 0; j < aliasCount; j++) {
+					registry.registerAlias(beanName, decoder.readRequiredString());
+				}
+			}
+			return count;
+		}
+		catch (IOException | ClassNotFoundException | RuntimeException ex) {
+			if (ex instanceof BeanDefinitionStoreException) {
+				throw (BeanDefinitionStoreException) ex;
+			}
+			throw new BeanDefinitionStoreException("Invalid bean definition snapshot", ex);
+		}
+	}
+
+	/**
+	 * Write this snapshot to the given stream, leaving the stream open.
+	 * @param out the stream to write to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void write(OutputStream out) throws IOException {
+		DataOutputStream dataOut = new DataOutputStream(out);
+		dataOut.writeInt(MAGIC);
+		dataOut.writeInt(VERSION);
+		dataOut.writeUTF(this.fingerprint);
+		dataOut.writeInt(this.content.length);
+		dataOut.write(this.content);
+		dataOut.flush();
+	}
+
+
+	/**
+	 * Capture the bean definitions and aliases of the given registry, in
+	 * registration order.
+	 * @param registry the registry to capture
+	 * @param fingerprint the fingerprint of the current environment
+	 * @return the snapshot
+	 * @throws BeanDefinitionStoreException if a bean definition cannot be captured
+	 */
+	public static BeanDefinitionSnapshot capture(BeanDefinitionRegistry registry, String fingerprint)
+			throws BeanDefinitionStoreException {
+
+		Assert.notNull(registry, "BeanDefinitionRegistry must not be null");
+		Assert.notNull(fingerprint, "Fingerprint must not be null");
+		ByteArrayOutputStream content = new ByteArrayOutputStream(4096);
+		Encoder encoder = new Encoder(new DataOutputStream(content));
+		String[] beanNames = registry.getBeanDefinitionNames();
+		try {
+			encoder.writeCount(beanNames.length);
+			for (String beanName : beanNames) {
+				encoder.beanName = beanName;
+				encoder.writeString(beanName);
+				encoder.writeBeanDefinition(registry.getBeanDefinition(beanName));
+				String[] aliases = registry.getAliases(beanName);
+				encoder.writeCount(aliases.length);
+				for (String alias : aliases) {
+					encoder.writeString(alias);
+				}
+			}
+			encoder.out.flush();
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("Failed to capture bean definition snapshot", ex);
+		}
+		return new BeanDefinitionSnapshot(fingerprint, content.toByteArray());
+	}
+
+	/**
+	 * Read a snapshot from the given stream, as written by {@link #write}.
+	 * The bean definitions are only decoded when
+	 * {@linkplain #registerBeanDefinitions registered}.
+	 * @param in the stream to read from, left open
+	 * @return the snapshot
+	 * @throws IOException in case of I/O errors, or if the stream does not
+	 * contain a snapshot in a supported format
+	 */
+	public static BeanDefinitionSnapshot read(InputStream in) throws IOException {
+		DataInputStream dataIn = new DataInputStream(in);
+		if (dataIn.readInt() != MAGIC) {
+			throw new IOException("Not a bean definition snapshot");
+		}
+		int version = dataIn.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported bean definition snapshot version " + version);
+		}
+		String fingerprint = dataIn.readUTF();
+		byte[] content = new byte[dataIn.readInt()];
+		dataIn.readFully(content);
+		return new BeanDefinitionSnapshot(fingerprint, content);
+	}
+
+	/**
+	 * Return the signature of the given annotated method, including its parameter
+	 * types, as identified by the source of the given annotation: the method itself
+	 * for reflection-based metadata, or a description in the same format for
+	 * metadata read from class files.
+	 */
+	@Nullable
+	private static String getMethodSignature(MethodMetadata method, String annotationType) {
+		Object source = (method instanceof StandardMethodMetadata ?
+				((StandardMethodMetadata) method).getIntrospectedMethod() :
+				method.getAnnotations().get(annotationType).getSource());
+		if (source instanceof Method) {
+			Method introspectedMethod = (Method) source;
+			StringBuilder builder = new StringBuilder(introspectedMethod.getDeclaringClass().getName());
+			builder.append('.').append(introspectedMethod.getName()).append('(');
+			for (Class<?> parameterType : introspectedMethod.getParameterTypes()) {
+				builder.append(parameterType.getTypeName());
+			}
+			return builder.append(')').toString();
+		}
+		return (source != null ? source.toString() : null);
+	}
+
+
+	/**
+	 * Writes bean definitions, with repeated Strings written as back-references.
+	 */
+	private static class Encoder {
+
+		final DataOutputStream out;
+
+		private final Map<String, Integer> strings = new HashMap<>(256);
+
+		String beanName = "";
+
+		Encoder(DataOutputStream out) {
+			this.out = out;
+		}
+
+		void writeCount(int count) throws IOException {
+			// Variable-length encoding, since most counts and indexes are small
+			int value = count;
+			while ((value & ~0x7F) != 0) {
+				this.out.writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.out.writeByte(value);
+		}
+
+		void writeString(@Nullable String value) throws IOException {
+			if (value == null) {
+				writeCount(0);
+				return;
+			}
+			Integer index = this.strings.get(value);
+			if (index != null) {
+				writeCount(index + 2);
+			}
+			else {
+				this.strings.put(value, this.strings.size());
+				writeCount(1);
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				writeCount(bytes.length);
+				this.out.write(bytes);
+			}
+		}
+
+		void writeStrings(@Nullable String[] values) throws IOException {
+			if (values == null) {
+				writeCount(0);
+				return;
+			}
+			writeCount(values.length + 1);
+			for (String value : values) {
+				writeString(value);
+			}
+		}
+
+		void writeBeanDefinition(BeanDefinition beanDefinition) throws IOException {
+			if (!(beanDefinition instanceof AbstractBeanDefinition)) {
+				throw unsupported("bean definition of type " + beanDefinition.getClass().getName());
+			}
+			AbstractBeanDefinition bd = (AbstractBeanDefinition) beanDefinition;
+			if (bd.getInstanceSupplier() != null) {
+				throw unsupported("instance supplier");
+			}
+			boolean root = (bd instanceof RootBeanDefinition);
+			if (bd instanceof AnnotatedBeanDefinition) {
+				this.out.writeByte(root ? ANNOTATED_ROOT_BEAN_DEFINITION : ANNOTATED_GENERIC_BEAN_DEFINITION);
+				writeAnnotationMetadata((AnnotatedBeanDefinition) bd);
+			}
+			else {
+				this.out.writeByte(root ? ROOT_BEAN_DEFINITION : GENERIC_BEAN_DEFINITION);
+			}
+			writeString(bd.getParentName());
+			writeString(bd.getBeanClassName());
+			writeString(bd.getScope());
+			Boolean lazyInit = bd.getLazyInit();
+			this.out.writeByte(lazyInit == null ? 0 : (lazyInit ? 1 : 2));
+			int flags = (bd.isAbstract() ? 1 : 0) | (bd.isAutowireCandidate() ? 2 : 0) | (bd.isPrimary() ? 4 : 0) |
+					(bd.isNonPublicAccessAllowed() ? 8 : 0) | (bd.isLenientConstructorResolution() ? 16 : 0) |
+					(bd.isEnforceInitMethod() ? 32 : 0) | (bd.isEnforceDestroyMethod() ? 64 : 0) |
+					(bd.isSynthetic() ? 128 : 0) | (root && ((RootBeanDefinition) bd).isFactoryMethodUnique ? 256 : 0);
+			writeCount(flags);
+			writeCount(bd.getAutowireMode());
+			writeCount(bd.getDependencyCheck());
+			writeCount(bd.getRole());
+			writeStrings(bd.getDependsOn());
+			writeString(bd.getFactoryBeanName());
+			writeString(bd.getFactoryMethodName());
+			writeString(bd.getInitMethodName());
+			writeString(bd.getDestroyMethodName());
+			writeString(bd.getDescription());
+			writeString(bd.getResourceDescription());
+			writeConstructorArgumentValues(bd.getConstructorArgumentValues());
+			writePropertyValues(bd.getPropertyValues());
+			writeMethodOverrides(bd);
+			Set<AutowireCandidateQualifier> qualifiers = bd.getQualifiers();
+			writeCount(qualifiers.size());
+			for (AutowireCandidateQualifier qualifier : qualifiers) {
+				writeString(qualifier.getTypeName());
+				writeAttributes(qualifier);
+			}
+			writeAttributes(bd);
+			if (root) {
+				BeanDefinitionHolder decoratedDefinition = ((RootBeanDefinition) bd).getDecoratedDefinition();
+				writeValue(decoratedDefinition);
+			}
+			writeValue(bd.getOriginatingBeanDefinition());
+		}
+
+		private void writeAnnotationMetadata(AnnotatedBeanDefinition bd) throws IOException {
+			writeString(bd.getMetadata().getClassName());
+			MethodMetadata factoryMethod = bd.getFactoryMethodMetadata();
+			String annotationType = (factoryMethod != null ? factoryMethod.getAnnotations().stream()
+					.filter(MergedAnnotation::isDirectlyPresent)
+					.map(annotation -> annotation.getType().getName())
+					.findFirst().orElse(null) : null);
+			if (factoryMethod == null || annotationType == null) {
+				writeString(null);
+				return;
+			}
+			writeString(annotationType);
+			writeString(factoryMethod.getDeclaringClassName());
+			writeString(factoryMethod.getMethodName());
+			writeString(factoryMethod.getReturnTypeName());
+			writeString(getMethodSignature(factoryMethod, annotationType));
+		}
+
+		private void writeConstructorArgumentValues(ConstructorArgumentValues args) throws IOException {
+			Map<Integer, ConstructorArgumentValues.ValueHolder> indexed = args.getIndexedArgumentValues();
+			writeCount(indexed.size());
+			for (Map.Entry<Integer, ConstructorArgumentValues.ValueHolder> entry : indexed.entrySet()) {
+				writeCount(entry.getKey());
+				writeValueHolder(entry.getValue());
+			}
+			List<ConstructorArgumentValues.ValueHolder> generic = args.getGenericArgumentValues();
+			writeCount(generic.size());
+			for (ConstructorArgumentValues.ValueHolder valueHolder : generic) {
+				writeValueHolder(valueHolder);
+			}
+		}
+
+		private void writeValueHolder(ConstructorArgumentValues.ValueHolder valueHolder) throws IOException {
+			writeString(valueHolder.getType());
+			writeString(valueHolder.getName());
+			writeValue(valueHolder.getValue());
+		}
+
+		private void writePropertyValues(MutablePropertyValues pvs) throws IOException {
+			PropertyValue[] propertyValues = pvs.getPropertyValues();
+			writeCount(propertyValues.length);
+			for (PropertyValue pv : propertyValues) {
+				writeString(pv.getName());
+				writeValue(pv.getValue());
+			}
+		}
+
+		private void writeMethodOverrides(AbstractBeanDefinition bd) throws IOException {
+			// Avoid lazily creating the method overrides of the captured definition
+			Set<MethodOverride> overrides = (bd.hasMethodOverrides() ?
+					bd.getMethodOverrides().getOverrides() : Collections.emptySet());
+			writeCount(overrides.size());
+			for (MethodOverride override : overrides) {
+				if (!(override instanceof LookupOverride)) {
+					throw unsupported("method override of type " + override.getClass().getName());
+				}
+				LookupOverride lookupOverride = (LookupOverride) override;
+				writeString(lookupOverride.getMethodName());
+				writeString(lookupOverride.getBeanName());
+			}
+		}
+
+		private void writeAttributes(AttributeAccessor accessor) throws IOException {
+			String[] names = accessor.attributeNames();
+			writeCount(names.length);
+			for (String name : names) {
+				Object value = accessor.getAttribute(name);
+				if (value != null && !isSupportedAttributeValue(value)) {
+					throw unsupported("value of type " + value.getClass().getName() + " for attribute '" + name + "'");
+				}
+				writeString(name);
+				writeValue(value);
+			}
+		}
+
+		private boolean isSupportedAttributeValue(@Nullable Object value) {
+			if (value == null || value instanceof String || value instanceof Boolean ||
+					value instanceof Integer || value instanceof Long || value instanceof String[] ||
+					value instanceof Class || value instanceof Enum) {
+				return true;
+			}
+			if (value instanceof List) {
+				for (Object element : (List<?>) value) {
+					if (!isSupportedAttributeValue(element)) {
+						return false;
+					}
+				}
+				return true;
+			}
+			if (value instanceof Map) {
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+					if (!isSupportedAttributeValue(entry.getKey()) || !isSupportedAttributeValue(entry.getValue())) {
+						return false;
+					}
+				}
+				return true;
+			}
+			return false;
+		}
+
+		void writeValue(@Nullable Object value) throws IOException {
+			if (value == null) {
+				this.out.writeByte(NULL);
+			}
+			else if (value instanceof String) {
+				this.out.writeByte(STRING);
+				writeString((String) value);
+			}
+			else if (value instanceof TypedStringValue) {
+				TypedStringValue typedValue = (TypedStringValue) value;
+				this.out.writeByte(TYPED_STRING_VALUE);
+				writeString(typedValue.getValue());
+				writeString(typedValue.getTargetTypeName());
+				writeString(typedValue.getSpecifiedTypeName());
+				this.out.writeBoolean(typedValue.isDynamic());
+			}
+			else if (value instanceof RuntimeBeanReference) {
+				RuntimeBeanReference reference = (RuntimeBeanReference) value;
+				Class<?> beanType = reference.getBeanType();
+				this.out.writeByte(beanType != null ? BEAN_TYPE_REFERENCE : BEAN_REFERENCE);
+				writeString(beanType != null ? beanType.getName() : reference.getBeanName());
+				this.out.writeBoolean(reference.isToParent());
+			}
+			else if (value instanceof RuntimeBeanNameReference) {
+				this.out.writeByte(BEAN_NAME_REFERENCE);
+				writeString(((RuntimeBeanNameReference) value).getBeanName());
+			}
+			else if (value instanceof BeanDefinitionHolder) {
+				BeanDefinitionHolder holder = (BeanDefinitionHolder) value;
+				this.out.writeByte(BEAN_DEFINITION_HOLDER);
+				writeString(holder.getBeanName());
+				writeStrings(holder.getAliases());
+				writeBeanDefinition(holder.getBeanDefinition());
+			}
+			else if (value instanceof BeanDefinition) {
+				this.out.writeByte(BEAN_DEFINITION);
+				writeBeanDefinition((BeanDefinition) value);
+			}
+			else if (value instanceof ManagedArray) {
+				ManagedArray array = (ManagedArray) value;
+				this.out.writeByte(MANAGED_ARRAY);
+				writeString(array.getElementTypeName());
+				this.out.writeBoolean(array.isMergeEnabled());
+				writeElements(array);
+			}
+			else if (value instanceof ManagedList) {
+				ManagedList<?> list = (ManagedList<?>) value;
+				this.out.writeByte(MANAGED_LIST);
+				writeString(list.getElementTypeName());
+				this.out.writeBoolean(list.isMergeEnabled());
+				writeElements(list);
+			}
+			else if (value instanceof ManagedSet) {
+				ManagedSet<?> set = (ManagedSet<?>) value;
+				this.out.writeByte(MANAGED_SET);
+				writeString(set.getElementTypeName());
+				this.out.writeBoolean(set.isMergeEnabled());
+				writeElements(set);
+			}
+			else if (value instanceof ManagedMap) {
+				ManagedMap<?, ?> map = (ManagedMap<?, ?>) value;
+				this.out.writeByte(MANAGED_MAP);
+				writeString(map.getKeyTypeName());
+				writeString(map.getValueTypeName());
+				this.out.writeBoolean(map.isMergeEnabled());
+				writeEntries(map);
+			}
+			else if (value instanceof ManagedProperties) {
+				ManagedProperties properties = (ManagedProperties) value;
+				this.out.writeByte(MANAGED_PROPERTIES);
+				this.out.writeBoolean(properties.isMergeEnabled());
+				writeEntries(properties);
+			}
+			else if (value instanceof List) {
+				this.out.writeByte(LIST);
+				writeElements((List<?>) value);
+			}
+			else if (value instanceof Map) {
+				this.out.writeByte(MAP);
+				writeEntries((Map<?, ?>) value);
+			}
+			else if (value instanceof String[]) {
+				this.out.writeByte(STRING_ARRAY);
+				writeStrings((String[]) value);
+			}
+			else if (value instanceof Boolean) {
+				this.out.writeByte(BOOLEAN);
+				this.out.writeBoolean((Boolean) value);
+			}
+			else if (value instanceof Integer) {
+				this.out.writeByte(INTEGER);
+				this.out.writeInt((Integer) value);
+			}
+			else if (value instanceof Long) {
+				this.out.writeByte(LONG);
+				this.out.writeLong((Long) value);
+			}
+			else if (value instanceof Class) {
+				this.out.writeByte(CLASS);
+				writeString(((Class<?>) value).getName());
+			}
+			else if (value instanceof Enum) {
+				Enum<?> enumValue = (Enum<?>) value;
+				this.out.writeByte(ENUM);
+				writeString(enumValue.getDeclaringClass().getName());
+				writeString(enumValue.name());
+			}
+			else if (value == AutowiredPropertyMarker.INSTANCE) {
+				this.out.writeByte(AUTOWIRED_MARKER);
+			}
+			else {
+				throw unsupported("value of type " + value.getClass().getName());
+			}
+		}
+
+		private void writeElements(Iterable<?> elements) throws IOException {
+			List<Object> list = new ArrayList<>();
+			elements.forEach(list::add);
+			writeCount(list.size());
+			for (Object element : list) {
+				writeValue(element);
+			}
+		}
+
+		private void writeEntries(Map<?, ?> map) throws IOException {
+			writeCount(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeValue(entry.getKey());
+				writeValue(entry.getValue());
+			}
+		}
+
+		private BeanDefinitionStoreException unsupported(String description) {
+			return new BeanDefinitionStoreException(null, this.beanName,
+					"Cannot capture bean definition in snapshot: unsupported " + description);
+		}
+	}
+
+
+	/**
+	 * Reads bean definitions as written by {@link Encoder}.
+	 */
+	private static class Decoder {
+
+		private final DataInputStream in;
+
+		@Nullable
+		private final ClassLoader classLoader;
+
+		private final List<String> strings = new ArrayList<>(256);
+
+		@Nullable
+		private MetadataReaderFactory metadataReaderFactory;
+
+		Decoder(DataInputStream in, @Nullable ClassLoader classLoader) {
+			this.in = in;
+			this.classLoader = classLoader;
+		}
+
+		int readCount() throws IOException {
+			int result = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = this.in.readUnsignedByte();
+				result |= (b & 0x7F) << shift;
+				shift += 7;
+			}
+			while ((b & 0x80) != 0);
+			return result;
+		}
+
+		@Nullable
+		String readString() throws IOException {
+			int marker = readCount();
+			if (marker == 0) {
+				return null;
+			}
+			if (marker > 1) {
+				return this.strings.get(marker - 2);
+			}
+			byte[] bytes = new byte[readCount()];
+			this.in.readFully(bytes);
+			String value = new String(bytes, StandardCharsets.UTF_8);
+			this.strings.add(value);
+			return value;
+		}
+
+		String readRequiredString() throws IOException {
+			String value = readString();
+			if (value == null) {
+				throw new IOException("Unexpected null value");
+			}
+			return value;
+		}
+
+		@Nullable
+		String[] readStrings() throws IOException {
+			int length = readCount() - 1;
+			if (length < 0) {
+				return null;
+			}
+			String[] values = new String[length];
+			for (int i = 0; i < length; i++) {
+				values[i] = readString();
+			}
+			return values;
+		}
+
+		AbstractBeanDefinition readBeanDefinition() throws IOException, ClassNotFoundException {
+			byte type = this.in.readByte();
+			boolean root = (type == ROOT_BEAN_DEFINITION || type == ANNOTATED_ROOT_BEAN_DEFINITION);
+			AbstractBeanDefinition bd;
+			if (type == ANNOTATED_ROOT_BEAN_DEFINITION) {
+				bd = new RestoredAnnotatedRootBeanDefinition(readAnnotationMetadata());
+			}
+			else if (type == ANNOTATED_GENERIC_BEAN_DEFINITION) {
+				bd = new RestoredAnnotatedGenericBeanDefinition(readAnnotationMetadata());
+			}
+			else {
+				bd = (root ? new RootBeanDefinition() : new GenericBeanDefinition());
+			}
+			String parentName = readString();
+			if (parentName != null) {
+				bd.setParentName(parentName);
+			}
+			bd.setBeanClassName(readString());
+			bd.setScope(readString());
+			byte lazyInit = this.in.readByte();
+			if (lazyInit != 0) {
+				bd.setLazyInit(lazyInit == 1);
+			}
+			int flags = readCount();
+			bd.setAbstract((flags & 1) != 0);
+			bd.setAutowireCandidate((flags & 2) != 0);
+			bd.setPrimary((flags & 4) != 0);
+			bd.setNonPublicAccessAllowed((flags & 8) != 0);
+			bd.setLenientConstructorResolution((flags & 16) != 0);
+			bd.setEnforceInitMethod((flags & 32) != 0);
+			bd.setEnforceDestroyMethod((flags & 64) != 0);
+			bd.setSynthetic((flags & 128) != 0);
+			bd.setAutowireMode(readCount());
+			bd.setDependencyCheck(readCount());
+			bd.setRole(readCount());
+			bd.setDependsOn(readStrings());
+			bd.setFactoryBeanName(readString());
+			String factoryMethodName = readString();
+			if (root && (flags & 256) != 0 && factoryMethodName != null) {
+				((RootBeanDefinition) bd).setUniqueFactoryMethodName(factoryMethodName);
+			}
+			else {
+				bd.setFactoryMethodName(factoryMethodName);
+			}
+			bd.setInitMethodName(readString());
+			bd.setDestroyMethodName(readString());
+			bd.setDescription(readString());
+			bd.setResourceDescription(readString());
+			readConstructorArgumentValues(bd.getConstructorArgumentValues());
+			readPropertyValues(bd.getPropertyValues());
+			int overrideCount = readCount();
+			for (int i = 0; i < overrideCount; i++) {
+				bd.getMethodOverrides().addOverride(new LookupOverride(readRequiredString(), readString()));
+			}
+			int qualifierCount = readCount();
+			for (int i = 0; i < qualifierCount; i++) {
+				AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(readRequiredString());
+				readAttributes(qualifier);
+				bd.addQualifier(qualifier);
+			}
+			readAttributes(bd);
+			if (root) {
+				((RootBeanDefinition) bd).setDecoratedDefinition((BeanDefinitionHolder) readValue());
+			}
+			BeanDefinition originatingDefinition = (BeanDefinition) readValue();
+			if (originatingDefinition != null) {
+				bd.setOriginatingBeanDefinition(originatingDefinition);
+			}
+			return bd;
+		}
+
+		private RestoredAnnotationMetadata readAnnotationMetadata() throws IOException {
+			if (this.metadataReaderFactory == null) {
+				this.metadataReaderFactory = new SimpleMetadataReaderFactory(this.classLoader);
+			}
+			String className = readRequiredString();
+			String annotationType = readString();
+			if (annotationType == null) {
+				return new RestoredAnnotationMetadata(this.metadataReaderFactory, className, null, null, null, null, null);
+			}
+			return new RestoredAnnotationMetadata(this.metadataReaderFactory, className, annotationType,
+					readRequiredString(), readRequiredString(), readRequiredString(), readString());
+		}
+
+		private void readConstructorArgumentValues(ConstructorArgumentValues args)
+				throws IOException, ClassNotFoundException {
+
+			int indexedCount = readCount();
+			for (int i = 0; i < indexedCount; i++) {
+				int index = readCount();
+				args.addIndexedArgumentValue(index, readValueHolder());
+			}
+			int genericCount = readCount();
+			for (int i = 0; i < genericCount; i++) {
+				args.addGenericArgumentValue(readValueHolder());
+			}
+		}
+
+		private ConstructorArgumentValues.ValueHolder readValueHolder() throws IOException, ClassNotFoundException {
+			String type = readString();
+			String name = readString();
+			return new ConstructorArgumentValues.ValueHolder(readValue(), type, name);
+		}
+
+		private void readPropertyValues(MutablePropertyValues pvs) throws IOException, ClassNotFoundException {
+			int count = readCount();
+			for (int i = 0; i < count; i++) {
+				String name = readRequiredString();
+				pvs.addPropertyValue(new PropertyValue(name, readValue()));
+			}
+		}
+
+		private void readAttributes(AttributeAccessor accessor) throws IOException, ClassNotFoundException {
+			int count = readCount();
+			for (int i = 0; i < count; i++) {
+				String name = readRequiredString();
+				accessor.setAttribute(name, readValue());
+			}
+		}
+
+		@Nullable
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Object readValue() throws IOException, ClassNotFoundException {
+			byte type = this.in.readByte();
+			switch (type) {
+				case NULL:
+					return null;
+				case STRING:
+					return readString();
+				case TYPED_STRING_VALUE: {
+					String value = readString();
+					String targetTypeName = readString();
+					TypedStringValue typedValue = (targetTypeName != null ?
+							new TypedStringValue(value, targetTypeName) : new TypedStringValue(value));
+					typedValue.setSpecifiedTypeName(readString());
+					if (this.in.readBoolean()) {
+						typedValue.setDynamic();
+					}
+					return typedValue;
+				}
+				case BEAN_REFERENCE: {
+					String beanName = readRequiredString();
+					return new RuntimeBeanReference(beanName, this.in.readBoolean());
+				}
+				case BEAN_TYPE_REFERENCE: {
+					Class<?> beanType = ClassUtils.forName(readRequiredString(), this.classLoader);
+					return new RuntimeBeanReference(beanType, this.in.readBoolean());
+				}
+				case BEAN_NAME_REFERENCE:
+					return new RuntimeBeanNameReference(readRequiredString());
+				case BEAN_DEFINITION_HOLDER: {
+					String beanName = readRequiredString();
+					String[] aliases = readStrings();
+					return new BeanDefinitionHolder(readBeanDefinition(), beanName, aliases);
+				}
+				case BEAN_DEFINITION:
+					return readBeanDefinition();
+				case MANAGED_LIST: {
+					ManagedList list = new ManagedList<>();
+					list.setElementTypeName(readString());
+					list.setMergeEnabled(this.in.readBoolean());
+					readElements(list);
+					return list;
+				}
+				case MANAGED_ARRAY: {
+					String elementTypeName = readString();
+					boolean mergeEnabled = this.in.readBoolean();
+					ManagedArray array = new ManagedArray(elementTypeName != null ? elementTypeName : "", 0);
+					array.setMergeEnabled(mergeEnabled);
+					readElements(array);
+					return array;
+				}
+				case MANAGED_SET: {
+					ManagedSet set = new ManagedSet<>();
+					set.setElementTypeName(readString());
+					set.setMergeEnabled(this.in.readBoolean());
+					readElements(set);
+					return set;
+				}
+				case MANAGED_MAP: {
+					ManagedMap map = new ManagedMap<>();
+					map.setKeyTypeName(readString());
+					map.setValueTypeName(readString());
+					map.setMergeEnabled(this.in.readBoolean());
+					readEntries(map);
+					return map;
+				}
+				case MANAGED_PROPERTIES: {
+					ManagedProperties properties = new ManagedProperties();
+					properties.setMergeEnabled(this.in.readBoolean());
+					readEntries(properties);
+					return properties;
+				}
+				case LIST: {
+					List list = new ArrayList<>();
+					readElements(list);
+					return list;
+				}
+				case MAP: {
+					Map map = new LinkedHashMap<>();
+					readEntries(map);
+					return map;
+				}
+				case STRING_ARRAY:
+					return readStrings();
+				case BOOLEAN:
+					return this.in.readBoolean();
+				case INTEGER:
+					return this.in.readInt();
+				case LONG:
+					return this.in.readLong();
+				case CLASS:
+					return ClassUtils.forName(readRequiredString(), this.classLoader);
+				case ENUM: {
+					Class enumType = ClassUtils.forName(readRequiredString(), this.classLoader);
+					return Enum.valueOf(enumType, readRequiredString());
+				}
+				case AUTOWIRED_MARKER:
+					return AutowiredPropertyMarker.INSTANCE;
+				default:
+					throw new IOException("Unknown value type " + type);
+			}
+		}
+
+		private void readElements(Collection<Object> elements) throws IOException, ClassNotFoundException {
+			int count = readCount();
+			for (int i = 0; i < count; i++) {
+				elements.add(readValue());
+			}
+		}
+
+		private void readEntries(Map<Object, Object> map) throws IOException, ClassNotFoundException {
+			int count = readCount();
+			for (int i = 0; i < count; i++) {
+				Object key = readValue();
+				map.put(key, readValue());
+			}
+		}
+	}
+
+
+	/**
+	 * Annotation metadata of a restored {@link AnnotatedBeanDefinition}, read
+	 * from the class files on first access rather than when restoring.
+	 */
+	private static class RestoredAnnotationMetadata {
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		private final String className;
+
+		@Nullable
+		private final String factoryMethodAnnotationType;
+
+		@Nullable
+		private final String factoryMethodDeclaringClassName;
+
+		@Nullable
+		private final String factoryMethodName;
+
+		@Nullable
+		private final String factoryMethodReturnTypeName;
+
+		@Nullable
+		private final String factoryMethodSignature;
+
+		@Nullable
+		private volatile AnnotationMetadata metadata;
+
+		@Nullable
+		private volatile MethodMetadata factoryMethodMetadata;
+
+		RestoredAnnotationMetadata(MetadataReaderFactory metadataReaderFactory, String className,
+				@Nullable String factoryMethodAnnotationType, @Nullable String factoryMethodDeclaringClassName,
+				@Nullable String factoryMethodName, @Nullable String factoryMethodReturnTypeName,
+				@Nullable String factoryMethodSignature) {
+
+			this.metadataReaderFactory = metadataReaderFactory;
+			this.className = className;
+			this.factoryMethodAnnotationType = factoryMethodAnnotationType;
+			this.factoryMethodDeclaringClassName = factoryMethodDeclaringClassName;
+			this.factoryMethodName = factoryMethodName;
+			this.factoryMethodReturnTypeName = factoryMethodReturnTypeName;
+			this.factoryMethodSignature = factoryMethodSignature;
+		}
+
+		AnnotationMetadata getMetadata() {
+			AnnotationMetadata metadata = this.metadata;
+			if (metadata == null) {
+				metadata = readMetadata(this.className);
+				this.metadata = metadata;
+			}
+			return metadata;
+		}
+
+		@Nullable
+		MethodMetadata getFactoryMethodMetadata() {
+			if (this.factoryMethodAnnotationType == null || this.factoryMethodDeclaringClassName == null) {
+				return null;
+			}
+			MethodMetadata factoryMethodMetadata = this.factoryMethodMetadata;
+			if (factoryMethodMetadata == null) {
+				AnnotationMetadata declaringClass = (this.factoryMethodDeclaringClassName.equals(this.className) ?
+						getMetadata() : readMetadata(this.factoryMethodDeclaringClassName));
+				for (MethodMetadata method : declaringClass.getAnnotatedMethods(this.factoryMethodAnnotationType)) {
+					// Match parameter types as well, in case of overloaded factory methods
+					if (method.getMethodName().equals(this.factoryMethodName) &&
+							method.getReturnTypeName().equals(this.factoryMethodReturnTypeName) &&
+							(this.factoryMethodSignature == null || this.factoryMethodSignature.equals(
+									getMethodSignature(method, this.factoryMethodAnnotationType)))) {
+						factoryMethodMetadata = method;
+						break;
+					}
+				}
+				Assert.state(factoryMethodMetadata != null, () -> "Factory method '" + this.factoryMethodName +
+						"' not found on class [" + this.factoryMethodDeclaringClassName + "]");
+				this.factoryMethodMetadata = factoryMethodMetadata;
+			}
+			return factoryMethodMetadata;
+		}
+
+		private AnnotationMetadata readMetadata(String className) {
+			try {
+				return this.metadataReaderFactory.getMetadataReader(className).getAnnotationMetadata();
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to read annotation metadata of class [" + className + "]", ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Root bean definition restored from an {@link AnnotatedBeanDefinition},
+	 * e.g. for a {@code @Bean} method.
+	 */
+	@SuppressWarnings("serial")
+	private static class RestoredAnnotatedRootBeanDefinition extends RootBeanDefinition
+			implements AnnotatedBeanDefinition {
+
+		private final RestoredAnnotationMetadata annotationMetadata;
+
+		RestoredAnnotatedRootBeanDefinition(RestoredAnnotationMetadata annotationMetadata) {
+			this.annotationMetadata = annotationMetadata;
+		}
+
+		private RestoredAnnotatedRootBeanDefinition(RestoredAnnotatedRootBeanDefinition original) {
+			super(original);
+			this.annotationMetadata = original.annotationMetadata;
+		}
+
+		@Override
+		public AnnotationMetadata getMetadata() {
+			return this.annotationMetadata.getMetadata();
+		}
+
+		@Override
+		@Nullable
+		public MethodMetadata getFactoryMethodMetadata() {
+			return this.annotationMetadata.getFactoryMethodMetadata();
+		}
+
+		@Override
+		public RestoredAnnotatedRootBeanDefinition cloneBeanDefinition() {
+			return new RestoredAnnotatedRootBeanDefinition(this);
+		}
+	}
+
+
+	/**
+	 * Generic bean definition restored from an {@link AnnotatedBeanDefinition},
+	 * e.g. for a scanned component or a registered configuration class.
+	 */
+	@SuppressWarnings("serial")
+	private static class RestoredAnnotatedGenericBeanDefinition extends GenericBeanDefinition
+			implements AnnotatedBeanDefinition {
+
+		private final RestoredAnnotationMetadata annotationMetadata;
+
+		RestoredAnnotatedGenericBeanDefinition(RestoredAnnotationMetadata annotationMetadata) {
+			this.annotationMetadata = annotationMetadata;
+		}
+
+		private RestoredAnnotatedGenericBeanDefinition(RestoredAnnotatedGenericBeanDefinition original) {
+			super(original);
+			this.annotationMetadata = original.annotationMetadata;
+		}
+
+		@Override
+		public AnnotationMetadata getMetadata() {
+			return this.annotationMetadata.getMetadata();
+		}
+
+		@Override
+		@Nullable
+		public MethodMetadata getFactoryMethodMetadata() {
+			return this.annotationMetadata.getFactoryMethodMetadata();
+		}
+
+		@Override
+		public AbstractBeanDefinition cloneBeanDefinition() {
+			return new RestoredAnnotatedGenericBeanDefinition(this);
+		}
+	}
+
+}
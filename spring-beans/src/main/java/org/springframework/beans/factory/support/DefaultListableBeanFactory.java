@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -40,6 +41,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -47,6 +51,7 @@ import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -67,9 +72,11 @@ import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
 import org.springframework.core.OrderComparator;
@@ -150,6 +157,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether to allow eager class loading even for lazy-init beans. */
 	private boolean allowEagerClassLoading = true;
 
+	/** Number of threads to pre-instantiate singletons with: 1 for sequential pre-instantiation. */
+	private int preInstantiationParallelism = 1;
+
 	/** Optional OrderComparator for dependency Lists and arrays. */
 	@Nullable
 	private Comparator<Object> dependencyComparator;
@@ -266,6 +276,42 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.allowEagerClassLoading;
 	}
 
+	/**
+	 * Set the number of threads to pre-instantiate singletons with in
+	 * {@link #preInstantiateSingletons()}.
+	 * <p>Default is 1, pre-instantiating singletons one after the other in
+	 * registration order. With a higher value, singletons are grouped into
+	 * subgraphs that are independent as far as their bean definitions tell,
+	 * through "depends-on" declarations, bean references and factory beans,
+	 * and these subgraphs are pre-instantiated concurrently on a dedicated
+	 * fork-join pool. Within each subgraph, singletons are still created in
+	 * registration order. Dependencies that are only known at creation time,
+	 * e.g. through autowiring, are resolved through a creation lock per
+	 * singleton, waiting for another thread that creates the same singleton,
+	 * and falling back to an early reference for circular references across
+	 * threads. {@link SmartInitializingSingleton} callbacks are invoked in
+	 * registration order on the calling thread, once all singletons have
+	 * been pre-instantiated.
+	 * <p>Only switch this on for bean definitions that are safe to be
+	 * instantiated concurrently, in particular with regard to custom
+	 * {@link BeanPostProcessor BeanPostProcessors} and static state.
+	 * @param preInstantiationParallelism the number of threads, at least 1
+	 * @since 5.2
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "'preInstantiationParallelism' must be > 0");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
+	/**
+	 * Return the number of threads to pre-instantiate singletons with.
+	 * @since 5.2
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
 	/**
 	 * Set a {@link java.util.Comparator} for dependency Lists and arrays.
 	 * @since 4.0
@@ -321,6 +367,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			DefaultListableBeanFactory otherListableFactory = (DefaultListableBeanFactory) otherFactory;
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(BeanUtils.instantiateClass(getAutowireCandidateResolver().getClass()));
@@ -852,44 +899,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 
 		// Trigger initialization of all non-lazy singleton beans...
 		// 遍历beanNames
-		for (String beanName : beanNames) {
-			// 如果BeanDefinition有parent属性，则合并BeanDefinition
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-
-			// 不是抽象bean，是单例bean，bean也不是懒加载的
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-
-				/*
-				* bean是factoryBean（工厂bean --> 调用getObject()方法来获得真正的bean）
-				* 实际上，从下面的代码逻辑来看，一般情况下只会初始化factoryBean，并不会初始化真正的bean
-				* */
-				if (isFactoryBean(beanName)) {
-					// 获得fatoryBean
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-
-						// 定义是否允许早期初始化
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						// 允许早期初始化(一般都为false)，就调用getBean，实际也就是调用getObject()
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					// 不是factoryBean，直接获得单例bean，存放在缓存中
-					getBean(beanName);
-				}
+		if (this.preInstantiationParallelism > 1) {
+			preInstantiateSingletonsInParallel(beanNames);
+		}
+		else {
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
 			}
 		}
 
@@ -915,6 +930,182 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	/**
+	 * Pre-instantiate the given singleton, if it is a non-lazy singleton.
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		// 如果BeanDefinition有parent属性，则合并BeanDefinition
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+
+		// 不是抽象bean，是单例bean，bean也不是懒加载的
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+
+			/*
+			* bean是factoryBean（工厂bean --> 调用getObject()方法来获得真正的bean）
+			* 实际上，从下面的代码逻辑来看，一般情况下只会初始化factoryBean，并不会初始化真正的bean
+			* */
+			if (isFactoryBean(beanName)) {
+				// 获得fatoryBean
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				if (bean instanceof FactoryBean) {
+					final FactoryBean<?> factory = (FactoryBean<?>) bean;
+
+					// 定义是否允许早期初始化
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+										((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					}
+					else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					// 允许早期初始化(一般都为false)，就调用getBean，实际也就是调用getObject()
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			}
+			else {
+				// 不是factoryBean，直接获得单例bean，存放在缓存中
+				getBean(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Pre-instantiate singletons with independent subgraphs in parallel.
+	 * @see #setPreInstantiationParallelism
+	 */
+	private void preInstantiateSingletonsInParallel(List<String> beanNames) {
+		List<List<String>> groups = groupByDeclaredDependencies(beanNames);
+		if (groups.size() < 2) {
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
+			}
+			return;
+		}
+
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		ForkJoinPool pool = new ForkJoinPool(Math.min(this.preInstantiationParallelism, groups.size()), fjPool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(fjPool);
+			thread.setContextClassLoader(classLoader);
+			return thread;
+		}, null, false);
+		Map<String, Throwable> failures = new ConcurrentHashMap<>();
+		setConcurrentSingletonCreation(true);
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>(groups.size());
+			for (List<String> group : groups) {
+				tasks.add(pool.submit(() -> {
+					for (String beanName : group) {
+						try {
+							preInstantiateSingleton(beanName);
+						}
+						catch (Throwable ex) {
+							failures.put(beanName, ex);
+							return;
+						}
+					}
+				}));
+			}
+			tasks.forEach(ForkJoinTask::join);
+		}
+		finally {
+			setConcurrentSingletonCreation(false);
+			pool.shutdown();
+		}
+
+		// Report the first failure in registration order, as sequential pre-instantiation would
+		for (String beanName : beanNames) {
+			Throwable failure = failures.get(beanName);
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+			if (failure != null) {
+				throw new BeanCreationException(beanName, "Pre-instantiation of singleton failed", failure);
+			}
+		}
+	}
+
+	/**
+	 * Group the given non-lazy singletons into subgraphs that are connected
+	 * through the dependencies declared in their bean definitions, keeping
+	 * registration order within and across groups.
+	 */
+	private List<List<String>> groupByDeclaredDependencies(List<String> beanNames) {
+		Map<String, String> roots = new HashMap<>(beanNames.size());
+		for (String beanName : beanNames) {
+			roots.put(beanName, beanName);
+		}
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			String[] dependsOn = bd.getDependsOn();
+			if (dependsOn != null) {
+				for (String dependency : dependsOn) {
+					union(roots, beanName, dependency);
+				}
+			}
+			if (bd.getFactoryBeanName() != null) {
+				union(roots, beanName, bd.getFactoryBeanName());
+			}
+			if (bd.hasConstructorArgumentValues()) {
+				ConstructorArgumentValues args = bd.getConstructorArgumentValues();
+				for (ConstructorArgumentValues.ValueHolder valueHolder : args.getIndexedArgumentValues().values()) {
+					unionReference(roots, beanName, valueHolder.getValue());
+				}
+				for (ConstructorArgumentValues.ValueHolder valueHolder : args.getGenericArgumentValues()) {
+					unionReference(roots, beanName, valueHolder.getValue());
+				}
+			}
+			if (bd.hasPropertyValues()) {
+				for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+					unionReference(roots, beanName, pv.getValue());
+				}
+			}
+		}
+
+		Map<String, List<String>> groups = new LinkedHashMap<>();
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				groups.computeIfAbsent(findRoot(roots, beanName), root -> new ArrayList<>()).add(beanName);
+			}
+		}
+		return new ArrayList<>(groups.values());
+	}
+
+	private void unionReference(Map<String, String> roots, String beanName, @Nullable Object value) {
+		if (value instanceof BeanReference) {
+			union(roots, beanName, ((BeanReference) value).getBeanName());
+		}
+	}
+
+	private void union(Map<String, String> roots, String beanName, String dependency) {
+		String dependencyName = canonicalName(BeanFactoryUtils.transformedBeanName(dependency));
+		if (roots.containsKey(dependencyName)) {
+			String root = findRoot(roots, beanName);
+			String dependencyRoot = findRoot(roots, dependencyName);
+			if (!root.equals(dependencyRoot)) {
+				roots.put(dependencyRoot, root);
+			}
+		}
+	}
+
+	private static String findRoot(Map<String, String> roots, String beanName) {
+		String root = beanName;
+		String parent;
+		while (!(parent = roots.get(root)).equals(root)) {
+			root = parent;
+		}
+		roots.put(beanName, root);
+		return root;
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
@@ -25,6 +25,8 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCreationNotAllowedException;
@@ -70,6 +72,10 @@ import org.springframework.util.StringUtils;
  */
 public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements SingletonBeanRegistry {
 
+	/** Interval in milliseconds for re-checking creation locks for deadlocks while waiting. */
+	private static final long SINGLETON_CREATION_LOCK_POLL_INTERVAL = 10;
+
+
 	/** Cache of singleton objects: bean name to bean instance. */
 	private final Map<String, Object> singletonObjects = new ConcurrentHashMap<>(256);
 
@@ -109,6 +115,15 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Map between depending bean names: bean name to Set of bean names for the bean's dependencies. */
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<>(64);
 
+	/** Per-bean creation locks, used instead of the singleton mutex for concurrent creation. */
+	private final Map<String, SingletonCreationLock> singletonCreationLocks = new ConcurrentHashMap<>(256);
+
+	/** Creation locks that threads are waiting for: thread to lock, for deadlock detection. */
+	private final Map<Thread, SingletonCreationLock> singletonCreationLockWaits = new ConcurrentHashMap<>(16);
+
+	/** Flag that indicates whether singletons may currently be created concurrently. */
+	private volatile boolean concurrentSingletonCreation = false;
+
 
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
@@ -189,24 +204,35 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		* A依赖B，这时，A在这个条件中为false，
 		* B创建后，填充属性时，发现B依赖A，而此时A正处于创建中，这里条件就为true
 		* */
-		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-			synchronized (this.singletonObjects) {
-				/*
-				* 再从早期暴露出来的bean缓存中获取bean
-				* */
-				singletonObject = this.earlySingletonObjects.get(beanName);
-				// 如果允许早期暴露，就用getObject()方法创建，再加入到earlySingletonObjects缓存中
-				if (singletonObject == null && allowEarlyReference) {
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					if (singletonFactory != null) {
-						singletonObject = singletonFactory.getObject();
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						this.singletonFactories.remove(beanName);
-					}
+		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName) &&
+				!isSingletonCurrentlyInCreationByOtherThread(beanName)) {
+			singletonObject = getEarlySingletonReference(beanName, allowEarlyReference);
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Return an early reference to the given singleton that is currently in
+	 * creation, if available.
+	 */
+	@Nullable
+	private Object getEarlySingletonReference(String beanName, boolean allowEarlyReference) {
+		synchronized (this.singletonObjects) {
+			/*
+			* 再从早期暴露出来的bean缓存中获取bean
+			* */
+			Object singletonObject = this.earlySingletonObjects.get(beanName);
+			// 如果允许早期暴露，就用getObject()方法创建，再加入到earlySingletonObjects缓存中
+			if (singletonObject == null && allowEarlyReference) {
+				ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+				if (singletonFactory != null) {
+					singletonObject = singletonFactory.getObject();
+					this.earlySingletonObjects.put(beanName, singletonObject);
+					this.singletonFactories.remove(beanName);
 				}
 			}
+			return singletonObject;
 		}
-		return singletonObject;
 	}
 
 	/**
@@ -219,61 +245,254 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		if (this.concurrentSingletonCreation) {
+			return getSingletonConcurrently(beanName, singletonFactory);
+		}
 		synchronized (this.singletonObjects) {
-			// 先从单例bean的缓存获取
-			Object singletonObject = this.singletonObjects.get(beanName);
-			if (singletonObject == null) {
-				// 判断当前是否处于销毁bean阶段，如果是，抛异常
-				if (this.singletonsCurrentlyInDestruction) {
-					throw new BeanCreationNotAllowedException(beanName,
-							"Singleton bean creation not allowed while singletons of this factory are in destruction " +
-							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
-				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
-				}
-				// 单例bean创建之前处理，主要是将beanName添加到singletonsCurrentlyInCreation集合中，标志这个bean正处于单例bean创建之中
-				beforeSingletonCreation(beanName);
-				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
-				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
-				}
-				try {
-					// 执行getObject()方法，实际上是在执行createBean(beanName, mbd, args)方法
-					singletonObject = singletonFactory.getObject();
-					newSingleton = true;
-				}
-				catch (IllegalStateException ex) {
-					// Has the singleton object implicitly appeared in the meantime ->
-					// if yes, proceed with it since the exception indicates that state.
-					singletonObject = this.singletonObjects.get(beanName);
-					if (singletonObject == null) {
-						throw ex;
-					}
-				}
-				catch (BeanCreationException ex) {
-					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
-							ex.addRelatedCause(suppressedException);
-						}
-					}
+			return doGetSingleton(beanName, singletonFactory);
+		}
+	}
+
+	/**
+	 * Create a singleton in the current thread, guarded by either the
+	 * singleton mutex or the creation lock for the singleton.
+	 */
+	private Object doGetSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+		// 先从单例bean的缓存获取
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject == null) {
+			// 判断当前是否处于销毁bean阶段，如果是，抛异常
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+						"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+			// 单例bean创建之前处理，主要是将beanName添加到singletonsCurrentlyInCreation集合中，标志这个bean正处于单例bean创建之中
+			beforeSingletonCreation(beanName);
+			boolean newSingleton = false;
+			boolean recordSuppressedExceptions =
+					(!this.concurrentSingletonCreation && this.suppressedExceptions == null);
+			if (recordSuppressedExceptions) {
+				this.suppressedExceptions = new LinkedHashSet<>();
+			}
+			try {
+				// 执行getObject()方法，实际上是在执行createBean(beanName, mbd, args)方法
+				singletonObject = singletonFactory.getObject();
+				newSingleton = true;
+			}
+			catch (IllegalStateException ex) {
+				// Has the singleton object implicitly appeared in the meantime ->
+				// if yes, proceed with it since the exception indicates that state.
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject == null) {
 					throw ex;
 				}
-				finally {
-					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
+			}
+			catch (BeanCreationException ex) {
+				if (recordSuppressedExceptions) {
+					for (Exception suppressedException : this.suppressedExceptions) {
+						ex.addRelatedCause(suppressedException);
 					}
-					//  标识bean不在处于创建之中
-					afterSingletonCreation(beanName);
 				}
-				if (newSingleton) {
-					// 标识改bean为已创建的bean
-					addSingleton(beanName, singletonObject);
+				throw ex;
+			}
+			finally {
+				if (recordSuppressedExceptions) {
+					this.suppressedExceptions = null;
 				}
+				//  标识bean不在处于创建之中
+				afterSingletonCreation(beanName);
+			}
+			if (newSingleton) {
+				// 标识改bean为已创建的bean
+				addSingleton(beanName, singletonObject);
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Variant of {@link #getSingleton(String, ObjectFactory)} for concurrent
+	 * singleton creation, guarded by a creation lock per singleton.
+	 */
+	private Object getSingletonConcurrently(String beanName, ObjectFactory<?> singletonFactory) {
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject != null) {
+			return singletonObject;
+		}
+		SingletonCreationLock lock =
+				this.singletonCreationLocks.computeIfAbsent(beanName, name -> new SingletonCreationLock());
+		if (!acquireSingletonCreationLock(beanName, lock)) {
+			// Circular reference across threads: resolve like within a single thread
+			singletonObject = getEarlySingletonReference(beanName, true);
+			if (singletonObject == null) {
+				throw new BeanCurrentlyInCreationException(beanName);
 			}
 			return singletonObject;
 		}
+		try {
+			return doGetSingleton(beanName, singletonFactory);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Acquire the given creation lock, waiting for another thread to complete
+	 * the creation of the singleton if necessary.
+	 * @return {@code true} if the lock was acquired, or {@code false} if the
+	 * thread holding the lock is, directly or indirectly, waiting for the
+	 * current thread, or if the current thread holds the singleton mutex,
+	 * and waiting would therefore deadlock
+	 */
+	private boolean acquireSingletonCreationLock(String beanName, SingletonCreationLock lock) {
+		if (lock.tryLock()) {
+			return true;
+		}
+		if (Thread.holdsLock(this.singletonObjects)) {
+			// The other thread may need the singleton mutex to complete the creation
+			return false;
+		}
+		Thread currentThread = Thread.currentThread();
+		this.singletonCreationLockWaits.put(currentThread, lock);
+		try {
+			while (!isSingletonCreationDeadlock(currentThread, lock)) {
+				if (lock.tryLock(SINGLETON_CREATION_LOCK_POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new BeanCreationException(beanName,
+					"Interrupted while waiting for creation of singleton in another thread");
+		}
+		finally {
+			this.singletonCreationLockWaits.remove(currentThread);
+		}
+	}
+
+	/**
+	 * Check whether the chain of threads that hold creation locks and wait for
+	 * further creation locks, starting from the given lock, leads back to the
+	 * given thread.
+	 */
+	private boolean isSingletonCreationDeadlock(Thread currentThread, SingletonCreationLock lock) {
+		SingletonCreationLock next = lock;
+		for (int i = 0; i <= this.singletonCreationLockWaits.size(); i++) {
+			Thread owner = next.getOwnerThread();
+			if (owner == null) {
+				return false;
+			}
+			if (owner == currentThread) {
+				return true;
+			}
+			next = this.singletonCreationLockWaits.get(owner);
+			if (next == null) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Return whether the specified singleton is currently being created by
+	 * another thread, during {@linkplain #setConcurrentSingletonCreation
+	 * concurrent singleton creation}. Early references to such singletons are
+	 * not exposed, unless needed to resolve a circular reference across threads.
+	 * @param beanName the name of the bean
+	 * @since 5.2
+	 */
+	protected boolean isSingletonCurrentlyInCreationByOtherThread(String beanName) {
+		if (!this.concurrentSingletonCreation) {
+			return false;
+		}
+		SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+		return (lock != null && lock.isLocked() && !lock.isHeldByCurrentThread());
+	}
+
+	/**
+	 * Acquire the creation lock for the specified singleton, if available,
+	 * during {@linkplain #setConcurrentSingletonCreation concurrent singleton
+	 * creation}, for partial creation outside of {@link #getSingleton(String, ObjectFactory)}.
+	 * @param beanName the name of the bean
+	 * @return {@code false} if the singleton is currently being created by
+	 * another thread, {@code true} otherwise
+	 * @since 5.2
+	 * @see #unlockSingletonCreation
+	 */
+	protected boolean tryLockSingletonCreation(String beanName) {
+		if (!this.concurrentSingletonCreation) {
+			return true;
+		}
+		return this.singletonCreationLocks.computeIfAbsent(beanName, name -> new SingletonCreationLock()).tryLock();
+	}
+
+	/**
+	 * Acquire the creation lock for the specified singleton during
+	 * {@linkplain #setConcurrentSingletonCreation concurrent singleton creation},
+	 * waiting for another thread to release it if necessary, in order to guard
+	 * work on the singleton that is otherwise guarded by the singleton mutex.
+	 * @param beanName the name of the bean
+	 * @return {@code true} if the lock was acquired, or {@code false} if
+	 * singletons are not created concurrently, or if waiting for the lock
+	 * would deadlock, in which case the singleton mutex is to be used instead
+	 * @since 5.2
+	 * @see #unlockSingletonCreation
+	 */
+	protected boolean lockSingletonCreation(String beanName) {
+		if (!this.concurrentSingletonCreation) {
+			return false;
+		}
+		SingletonCreationLock lock =
+				this.singletonCreationLocks.computeIfAbsent(beanName, name -> new SingletonCreationLock());
+		return acquireSingletonCreationLock(beanName, lock);
+	}
+
+	/**
+	 * Release the creation lock for the specified singleton, if acquired
+	 * through {@link #tryLockSingletonCreation} or {@link #lockSingletonCreation}.
+	 * @param beanName the name of the bean
+	 * @since 5.2
+	 */
+	protected void unlockSingletonCreation(String beanName) {
+		SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+		if (lock != null && lock.isHeldByCurrentThread()) {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Set whether singletons may currently be created concurrently by several
+	 * threads. If so, the creation of each singleton is guarded by a lock for
+	 * that singleton rather than by the {@linkplain #getSingletonMutex()
+	 * singleton mutex}. A thread that requests a singleton in creation in another
+	 * thread waits for it, unless that other thread is in turn waiting for the
+	 * current thread, in which case the circular reference is resolved through
+	 * an early reference, just like within a single thread.
+	 * @param concurrentSingletonCreation whether to allow concurrent creation
+	 * @since 5.2
+	 * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+	 */
+	protected void setConcurrentSingletonCreation(boolean concurrentSingletonCreation) {
+		this.concurrentSingletonCreation = concurrentSingletonCreation;
+		if (!concurrentSingletonCreation) {
+			this.singletonCreationLocks.clear();
+		}
+	}
+
+	/**
+	 * Return whether singletons may currently be created concurrently.
+	 * @since 5.2
+	 * @see #setConcurrentSingletonCreation
+	 */
+	protected boolean isConcurrentSingletonCreation() {
+		return this.concurrentSingletonCreation;
 	}
 
 	/**
@@ -641,4 +860,17 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonObjects;
 	}
 
+
+	/**
+	 * Lock for the creation of a singleton, exposing its owner thread.
+	 */
+	@SuppressWarnings("serial")
+	private static class SingletonCreationLock extends ReentrantLock {
+
+		@Nullable
+		Thread getOwnerThread() {
+			return getOwner();
+		}
+	}
+
 }
@@ -97,51 +97,17 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 
 		// 如果factoryBean是单例，才能缓存在factoryBeanObjectCache集合中
 		if (factory.isSingleton() && containsSingleton(beanName)) {
-			synchronized (getSingletonMutex()) {
-				// 从缓存中获取
-				Object object = this.factoryBeanObjectCache.get(beanName);
-				if (object == null) {
-					// 缓存中没有，调用getObject()来获取
-					object = doGetObjectFromFactoryBean(factory, beanName);
-					// Only post-process and store if not put there already during getObject() call above
-					// (e.g. because of circular reference processing triggered by custom getBean calls)
-					/*
-					* 只有被后置处理器处理过的FactoryBean才会在缓存中，在循环引用中，可能已经存在了bean
-					* 例如： A(factoryBean)调用自身的getObject，在这个getObject()方法中又调用了getBean()来获取自己
-					* */
-					Object alreadyThere = this.factoryBeanObjectCache.get(beanName);
-					if (alreadyThere != null) {
-						object = alreadyThere;
-					}
-					else {
-						// 是否应用后置处理器
-						if (shouldPostProcess) {
-							if (isSingletonCurrentlyInCreation(beanName)) {
-								// Temporarily return non-post-processed object, not storing it yet..
-								return object;
-							}
-							// 标记bean处于正在创建之中
-							beforeSingletonCreation(beanName);
-							try {
-								// 应用后置处理器  实际上调用applyBeanPostProcessorsAfterInitialization()方法
-								object = postProcessObjectFromFactoryBean(object, beanName);
-							}
-							catch (Throwable ex) {
-								throw new BeanCreationException(beanName,
-										"Post-processing of FactoryBean's singleton object failed", ex);
-							}
-							finally {
-								// 标识这个bean不在处于创建中
-								afterSingletonCreation(beanName);
-							}
-						}
-						// 加入缓存中
-						if (containsSingleton(beanName)) {
-							this.factoryBeanObjectCache.put(beanName, object);
-						}
-					}
+			if (lockSingletonCreation(beanName)) {
+				// Concurrent singleton creation: guarded by the creation lock rather than the mutex
+				try {
+					return getSingletonObjectFromFactoryBean(factory, beanName, shouldPostProcess);
+				}
+				finally {
+					unlockSingletonCreation(beanName);
 				}
-				return object;
+			}
+			synchronized (getSingletonMutex()) {
+				return getSingletonObjectFromFactoryBean(factory, beanName, shouldPostProcess);
 			}
 		}
 		else {
@@ -160,6 +126,57 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 		}
 	}
 
+	/**
+	 * Obtain the object to expose from the given singleton FactoryBean, caching
+	 * it, while guarded by the singleton mutex or the creation lock of the bean.
+	 */
+	private Object getSingletonObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
+		// 从缓存中获取
+		Object object = this.factoryBeanObjectCache.get(beanName);
+		if (object == null) {
+			// 缓存中没有，调用getObject()来获取
+			object = doGetObjectFromFactoryBean(factory, beanName);
+			// Only post-process and store if not put there already during getObject() call above
+			// (e.g. because of circular reference processing triggered by custom getBean calls)
+			/*
+			* 只有被后置处理器处理过的FactoryBean才会在缓存中，在循环引用中，可能已经存在了bean
+			* 例如： A(factoryBean)调用自身的getObject，在这个getObject()方法中又调用了getBean()来获取自己
+			* */
+			Object alreadyThere = this.factoryBeanObjectCache.get(beanName);
+			if (alreadyThere != null) {
+				object = alreadyThere;
+			}
+			else {
+				// 是否应用后置处理器
+				if (shouldPostProcess) {
+					if (isSingletonCurrentlyInCreation(beanName)) {
+						// Temporarily return non-post-processed object, not storing it yet..
+						return object;
+					}
+					// 标记bean处于正在创建之中
+					beforeSingletonCreation(beanName);
+					try {
+						// 应用后置处理器  实际上调用applyBeanPostProcessorsAfterInitialization()方法
+						object = postProcessObjectFromFactoryBean(object, beanName);
+					}
+					catch (Throwable ex) {
+						throw new BeanCreationException(beanName,
+								"Post-processing of FactoryBean's singleton object failed", ex);
+					}
+					finally {
+						// 标识这个bean不在处于创建中
+						afterSingletonCreation(beanName);
+					}
+				}
+				// 加入缓存中
+				if (containsSingleton(beanName)) {
+					this.factoryBeanObjectCache.put(beanName, object);
+				}
+			}
+		}
+		return object;
+	}
+
 	/**
 	 * Obtain an object to expose from the given FactoryBean.
 	 * @param factory the FactoryBean instance
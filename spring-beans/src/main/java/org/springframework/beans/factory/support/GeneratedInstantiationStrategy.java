@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.core.GeneratedClassCache;
+import org.springframework.core.KotlinDetector;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link InstantiationStrategy} that invokes bean constructors through classes
+ * generated with ASM, rather than through reflection, for beans that are
+ * created repeatedly: prototypes and beans in custom scopes such as "request".
+ *
+ * <p>An invoker class is generated once per constructor, on first use, and is
+ * defined in the class loader and package of the bean class, which allows for
+ * invoking non-private constructors directly. Invokers are shared across
+ * strategy instances via a {@link GeneratedClassCache}. Singletons, Kotlin classes, and
+ * constructors that cannot be invoked from a generated class are instantiated
+ * reflectively, as are beans with method injection (via CGLIB).
+ *
+ * <p>Can be applied via
+ * {@link AbstractAutowireCapableBeanFactory#setInstantiationStrategy}.
+ *
+ * @since 5.2
+ */
+public class GeneratedInstantiationStrategy extends CglibSubclassingInstantiationStrategy {
+
+	private static final Instantiator REFLECTIVE_INSTANTIATOR = args -> {
+		throw new IllegalStateException("Not a generated instantiator");
+	};
+
+	private static final GeneratedClassCache<Constructor<?>, Instantiator> instantiatorCache =
+			new GeneratedClassCache<>("$$SpringInstantiator$$");
+
+	private static final Log logger = LogFactory.getLog(GeneratedInstantiationStrategy.class);
+
+
+	@Override
+	protected Object instantiateClass(RootBeanDefinition bd, Constructor<?> ctor, Object... args) {
+		if (bd.isSingleton() || !isApplicable(ctor, args)) {
+			return super.instantiateClass(bd, ctor, args);
+		}
+		Instantiator instantiator = instantiatorCache.get(
+				ctor, ctor.getDeclaringClass(), GeneratedInstantiationStrategy::createInstantiator);
+		if (instantiator == REFLECTIVE_INSTANTIATOR) {
+			return super.instantiateClass(bd, ctor, args);
+		}
+		try {
+			return instantiator.newInstance(args);
+		}
+		catch (Throwable ex) {
+			throw new BeanInstantiationException(ctor, "Constructor threw exception", ex);
+		}
+	}
+
+	private static boolean isApplicable(Constructor<?> ctor, Object[] args) {
+		Class<?>[] parameterTypes = ctor.getParameterTypes();
+		if (args.length != parameterTypes.length) {
+			return false;
+		}
+		for (int i = 0; i < args.length; i++) {
+			// Leave default values for primitive parameters up to BeanUtils
+			if (args[i] == null && parameterTypes[i].isPrimitive()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Instantiator createInstantiator(Constructor<?> ctor) {
+		Class<?> beanClass = ctor.getDeclaringClass();
+		ClassLoader classLoader = beanClass.getClassLoader();
+		if (!isGeneratable(ctor, classLoader)) {
+			return REFLECTIVE_INSTANTIATOR;
+		}
+		try {
+			Class<?> instantiatorClass = instantiatorCache.defineClass(beanClass, Type.getConstructorDescriptor(ctor),
+					className -> generateInstantiatorClass(className, ctor));
+			return (Instantiator) ReflectionUtils.accessibleConstructor(instantiatorClass).newInstance();
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to generate instantiator for " + ctor + " - using reflection instead", ex);
+			}
+			return REFLECTIVE_INSTANTIATOR;
+		}
+	}
+
+	private static boolean isGeneratable(Constructor<?> ctor, @Nullable ClassLoader classLoader) {
+		Class<?> beanClass = ctor.getDeclaringClass();
+		if (classLoader == null || !ClassUtils.isVisible(Instantiator.class, classLoader) ||
+				Modifier.isPrivate(ctor.getModifiers()) || Modifier.isAbstract(beanClass.getModifiers()) ||
+				beanClass.getName().startsWith("java.") ||
+				(KotlinDetector.isKotlinReflectPresent() && KotlinDetector.isKotlinType(beanClass))) {
+			return false;
+		}
+		for (Class<?> parameterType : ctor.getParameterTypes()) {
+			if (!GeneratedClassCache.isAccessible(parameterType, beanClass)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Generate an {@link Instantiator} implementation which invokes the given
+	 * constructor, unboxing and casting the arguments as necessary.
+	 */
+	private static byte[] generateInstantiatorClass(String className, Constructor<?> ctor) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+				className.replace('.', '/'), null, "java/lang/Object",
+				new String[] {Type.getInternalName(Instantiator.class)});
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		String beanType = Type.getInternalName(ctor.getDeclaringClass());
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "newInstance", "([Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		mv.visitTypeInsn(Opcodes.NEW, beanType);
+		mv.visitInsn(Opcodes.DUP);
+		Class<?>[] parameterTypes = ctor.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitLdcInsn(i);
+			mv.visitInsn(Opcodes.AALOAD);
+			Class<?> parameterType = parameterTypes[i];
+			if (parameterType.isPrimitive()) {
+				Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(parameterType);
+				mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(wrapperType));
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(wrapperType),
+						parameterType.getName() + "Value", "()" + Type.getDescriptor(parameterType), false);
+			}
+			else if (parameterType != Object.class) {
+				mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(parameterType));
+			}
+		}
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, beanType, "<init>", Type.getConstructorDescriptor(ctor), false);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+
+	/**
+	 * Contract for generated constructor invokers. Only public in order to
+	 * be implemented by classes generated in the packages of bean classes.
+	 */
+	public interface Instantiator {
+
+		/**
+		 * Invoke the constructor with the given arguments.
+		 * @param args the constructor arguments, matching the parameter types
+		 * @return the new instance
+		 */
+		Object newInstance(Object[] args);
+	}
+
+}
@@ -94,7 +94,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 			}
 
 			// 直接实例化
-			return BeanUtils.instantiateClass(constructorToUse);
+			return instantiateClass(bd, constructorToUse);
 		}
 		else {
 			// Must generate CGLIB subclass.
@@ -104,6 +104,23 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 		}
 	}
 
+	/**
+	 * Invoke the given constructor of the bean class, for a bean definition
+	 * without method overrides.
+	 * <p>The default implementation delegates to
+	 * {@link BeanUtils#instantiateClass(Constructor, Object...)}.
+	 * Subclasses may override this method for a different invocation mechanism.
+	 * @param bd the bean definition
+	 * @param ctor the constructor to invoke
+	 * @param args the constructor arguments to apply
+	 * @return the new instance
+	 * @throws BeanInstantiationException if the bean could not be instantiated
+	 * @since 5.2
+	 */
+	protected Object instantiateClass(RootBeanDefinition bd, Constructor<?> ctor, Object... args) {
+		return BeanUtils.instantiateClass(ctor, args);
+	}
+
 	/**
 	 * Subclasses can override this method, which is implemented to throw
 	 * UnsupportedOperationException, if they can instantiate an object with
@@ -128,7 +145,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 				});
 			}
 			// 实例化
-			return BeanUtils.instantiateClass(ctor, args);
+			return instantiateClass(bd, ctor, args);
 		}
 		else {
 			// 实例化时将lookup-method和replace-method方法替换
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Specific {@link GeneratedAccessorBeanWrapper} tests, in addition to the
+ * inherited {@link BeanWrapperImpl} tests.
+ */
+public class GeneratedAccessorBeanWrapperTests extends BeanWrapperTests {
+
+	@Override
+	protected GeneratedAccessorBeanWrapper createAccessor(Object target) {
+		return new GeneratedAccessorBeanWrapper(target);
+	}
+
+
+	@Test
+	public void propertyMethodsInvokedThroughGeneratedAccessor() {
+		CallerRecordingBean target = new CallerRecordingBean();
+		GeneratedAccessorBeanWrapper accessor = createAccessor(target);
+		accessor.setPropertyValue("age", "42");
+		assertThat(target.caller).contains("$$SpringAccessor$$");
+		assertThat(accessor.getPropertyValue("age")).isEqualTo(42);
+		assertThat(target.caller).contains("$$SpringAccessor$$");
+	}
+
+	@Test
+	public void nestedPropertyMethodsInvokedThroughGeneratedAccessor() {
+		CallerRecordingBean target = new CallerRecordingBean();
+		target.setNested(new CallerRecordingBean());
+		GeneratedAccessorBeanWrapper accessor = createAccessor(target);
+		accessor.setPropertyValue("nested.age", 7);
+		assertThat(target.getNested().caller).contains("$$SpringAccessor$$");
+		assertThat(target.getNested().getAge()).isEqualTo(7);
+		assertThat(accessor.getPropertyValue("nested.age")).isEqualTo(7);
+	}
+
+	@Test
+	public void generatedAccessorUsedAfterIntrospectionResultsRebuilt() {
+		createAccessor(new CallerRecordingBean()).setPropertyValue("age", 1);
+		CachedIntrospectionResults.clearClassLoader(CallerRecordingBean.class.getClassLoader());
+
+		CallerRecordingBean target = new CallerRecordingBean();
+		createAccessor(target).setPropertyValue("age", 2);
+		assertThat(target.caller).contains("$$SpringAccessor$$");
+		assertThat(target.getAge()).isEqualTo(2);
+	}
+
+	@Test
+	public void setterThrowingException() {
+		GeneratedAccessorBeanWrapper accessor = createAccessor(new CallerRecordingBean());
+		assertThatExceptionOfType(MethodInvocationException.class).isThrownBy(() ->
+				accessor.setPropertyValue("age", -1))
+			.withCauseInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void nullForPrimitiveProperty() {
+		GeneratedAccessorBeanWrapper accessor = createAccessor(new CallerRecordingBean());
+		assertThatExceptionOfType(TypeMismatchException.class).isThrownBy(() ->
+				accessor.setPropertyValue("age", null));
+	}
+
+
+	public static class CallerRecordingBean {
+
+		String caller;
+
+		private int age;
+
+		private CallerRecordingBean nested;
+
+		public int getAge() {
+			this.caller = new Throwable().getStackTrace()[1].getClassName();
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.caller = new Throwable().getStackTrace()[1].getClassName();
+			if (age < 0) {
+				throw new IllegalArgumentException("Negative age");
+			}
+			this.age = age;
+		}
+
+		public CallerRecordingBean getNested() {
+			return this.nested;
+		}
+
+		public void setNested(CallerRecordingBean nested) {
+			this.nested = nested;
+		}
+	}
+
+}
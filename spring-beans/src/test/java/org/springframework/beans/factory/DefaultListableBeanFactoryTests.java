@@ -26,7 +26,9 @@ import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -37,6 +39,9 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.Priority;
 import javax.security.auth.Subject;
@@ -2831,11 +2836,208 @@ public class DefaultListableBeanFactoryTests {
 	}
 
 
+	@Test
+	public void testParallelPreInstantiation() {
+		List<String> creationOrder = Collections.synchronizedList(new ArrayList<>());
+		Set<Thread> creationThreads = Collections.synchronizedSet(new HashSet<>());
+		for (int i = 0; i < 8; i++) {
+			String beanName = "bean" + i;
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class, () -> {
+				creationOrder.add(beanName);
+				creationThreads.add(Thread.currentThread());
+				return new TestBean(beanName);
+			});
+			if (i % 2 == 1) {
+				bd.setDependsOn("bean" + (i - 1));
+			}
+			lbf.registerBeanDefinition(beanName, bd);
+		}
+		List<Thread> callbackThreads = Collections.synchronizedList(new ArrayList<>());
+		lbf.registerBeanDefinition("callback", new RootBeanDefinition(SmartInitializingSingleton.class,
+				() -> () -> callbackThreads.add(Thread.currentThread())));
+		lbf.setPreInstantiationParallelism(4);
+		lbf.preInstantiateSingletons();
+
+		assertThat(creationOrder).hasSize(8);
+		for (int i = 1; i < 8; i += 2) {
+			assertThat(creationOrder.indexOf("bean" + i)).isGreaterThan(creationOrder.indexOf("bean" + (i - 1)));
+		}
+		assertThat(creationThreads).doesNotContain(Thread.currentThread());
+		assertThat(callbackThreads).containsExactly(Thread.currentThread());
+		assertThat(lbf.getBean("bean3", TestBean.class).getName()).isEqualTo("bean3");
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithCircularReferenceAcrossThreads() {
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		RootBeanDefinition bdA = new RootBeanDefinition(ParallelA.class, () -> awaitBarrier(barrier, new ParallelA()));
+		bdA.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+		RootBeanDefinition bdB = new RootBeanDefinition(ParallelB.class, () -> awaitBarrier(barrier, new ParallelB()));
+		bdB.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+		lbf.registerBeanDefinition("a", bdA);
+		lbf.registerBeanDefinition("b", bdB);
+		lbf.setPreInstantiationParallelism(2);
+		lbf.preInstantiateSingletons();
+
+		ParallelA a = lbf.getBean(ParallelA.class);
+		ParallelB b = lbf.getBean(ParallelB.class);
+		assertThat(a.getB()).isSameAs(b);
+		assertThat(b.getA()).isSameAs(a);
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithFactoryBeanWaitingForOtherThread() {
+		CountDownLatch slowStarted = new CountDownLatch(1);
+		CountDownLatch factoryStarted = new CountDownLatch(1);
+		RootBeanDefinition fbd = new RootBeanDefinition(FactoryBean.class, () -> new FactoryBean<TestBean>() {
+			@Override
+			public TestBean getObject() {
+				factoryStarted.countDown();
+				awaitLatch(slowStarted);
+				TestBean tb = new TestBean("fromFactory");
+				tb.setSpouse(lbf.getBean("slow", TestBean.class));
+				return tb;
+			}
+			@Override
+			public Class<?> getObjectType() {
+				return TestBean.class;
+			}
+		});
+		fbd.setLazyInit(true);
+		lbf.registerBeanDefinition("fb", fbd);
+		lbf.registerBeanDefinition("consumer", new RootBeanDefinition(TestBean.class,
+				() -> new TestBean(lbf.getBean("fb", TestBean.class).getName())));
+		lbf.registerBeanDefinition("slow", new RootBeanDefinition(TestBean.class, () -> {
+			slowStarted.countDown();
+			awaitLatch(factoryStarted);
+			return new TestBean("slow");
+		}));
+		lbf.setPreInstantiationParallelism(2);
+		lbf.preInstantiateSingletons();
+
+		assertThat(lbf.getBean("consumer", TestBean.class).getName()).isEqualTo("fromFactory");
+		assertThat(lbf.getBean("fb", TestBean.class).getSpouse()).isSameAs(lbf.getBean("slow"));
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithFailure() {
+		lbf.registerBeanDefinition("ok", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("failing", new RootBeanDefinition(TestBean.class, () -> {
+			throw new IllegalStateException("Expected");
+		}));
+		lbf.setPreInstantiationParallelism(2);
+		assertThatExceptionOfType(BeanCreationException.class).isThrownBy(lbf::preInstantiateSingletons)
+				.satisfies(ex -> assertThat(ex.getBeanName()).isEqualTo("failing"));
+		assertThat(lbf.getBean("ok")).isSameAs(lbf.getBean("ok"));
+	}
+
+	@Test
+	public void testParallelPreInstantiationReportsFirstFailureInRegistrationOrder() {
+		CountDownLatch latch = new CountDownLatch(1);
+		lbf.registerBeanDefinition("first", new RootBeanDefinition(TestBean.class, () -> {
+			try {
+				latch.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			throw new IllegalStateException("first");
+		}));
+		lbf.registerBeanDefinition("second", new RootBeanDefinition(TestBean.class, () -> {
+			latch.countDown();
+			throw new IllegalStateException("second");
+		}));
+		lbf.setPreInstantiationParallelism(2);
+		assertThatExceptionOfType(BeanCreationException.class).isThrownBy(lbf::preInstantiateSingletons)
+				.satisfies(ex -> assertThat(ex.getBeanName()).isEqualTo("first"));
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithCheckedFailure() {
+		lbf.registerBeanDefinition("ok", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("failing", new RootBeanDefinition(CheckedFailureFactoryBean.class));
+		lbf.setPreInstantiationParallelism(2);
+		assertThatExceptionOfType(BeanCreationException.class).isThrownBy(lbf::preInstantiateSingletons)
+				.satisfies(ex -> assertThat(ex.getBeanName()).isEqualTo("failing"))
+				.withCauseExactlyInstanceOf(Exception.class);
+	}
+
+	private static <T> T awaitBarrier(CyclicBarrier barrier, T instance) {
+		try {
+			barrier.await(5, TimeUnit.SECONDS);
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+		return instance;
+	}
+
+	private static void awaitLatch(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
 	static class A { }
 
 	static class B { }
 
 
+	public static class CheckedFailureFactoryBean implements SmartFactoryBean<TestBean> {
+
+		@Override
+		public TestBean getObject() {
+			return new TestBean();
+		}
+
+		@Override
+		public Class<?> getObjectType() {
+			return TestBean.class;
+		}
+
+		@Override
+		public boolean isEagerInit() {
+			return CheckedFailureFactoryBean.<RuntimeException>sneakyThrow(new Exception("Expected"));
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <E extends Throwable> boolean sneakyThrow(Throwable ex) throws E {
+			throw (E) ex;
+		}
+	}
+
+
+	public static class ParallelA {
+
+		private ParallelB b;
+
+		public ParallelB getB() {
+			return this.b;
+		}
+
+		public void setB(ParallelB b) {
+			this.b = b;
+		}
+	}
+
+
+	public static class ParallelB {
+
+		private ParallelA a;
+
+		public ParallelA getA() {
+			return this.a;
+		}
+
+		public void setA(ParallelA a) {
+			this.a = a;
+		}
+	}
+
+
 	public static class NoDependencies {
 
 		private NoDependencies() {
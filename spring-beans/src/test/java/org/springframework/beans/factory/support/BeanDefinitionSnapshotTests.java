@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+/**
+ * Unit tests for {@link BeanDefinitionSnapshot}.
+ */
+public class BeanDefinitionSnapshotTests {
+
+	@Test
+	public void restoreBeanDefinitions() throws IOException {
+		DefaultListableBeanFactory source = new DefaultListableBeanFactory();
+		RootBeanDefinition spouse = new RootBeanDefinition(TestBean.class);
+		spouse.getPropertyValues().add("name", new TypedStringValue("Juergen"));
+		spouse.getPropertyValues().add("age", "42");
+		spouse.setLazyInit(true);
+		spouse.setAttribute("custom", Arrays.asList("a", "b"));
+		spouse.addQualifier(new AutowireCandidateQualifier("qualifier", "value"));
+		source.registerBeanDefinition("spouse", spouse);
+		source.registerAlias("spouse", "partner");
+
+		GenericBeanDefinition tb = new GenericBeanDefinition();
+		tb.setBeanClass(TestBean.class);
+		tb.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		tb.setDependsOn("spouse");
+		tb.getConstructorArgumentValues().addIndexedArgumentValue(0, "Rod");
+		tb.getPropertyValues().add("spouse", new RuntimeBeanReference("partner"));
+		ManagedList<Object> friends = new ManagedList<>();
+		friends.add(new RuntimeBeanReference("spouse"));
+		friends.add(new BeanDefinitionHolder(new RootBeanDefinition(TestBean.class), "inner"));
+		tb.getPropertyValues().add("friends", friends);
+		ManagedMap<String, Object> someMap = new ManagedMap<>();
+		someMap.put("key", 1);
+		tb.getPropertyValues().add("someMap", someMap);
+		tb.setAttribute("type", TestBean.class);
+		source.registerBeanDefinition("tb", tb);
+
+		BeanDefinitionSnapshot snapshot = roundtrip(BeanDefinitionSnapshot.capture(source, "fingerprint"));
+		assertThat(snapshot.getFingerprint()).isEqualTo("fingerprint");
+
+		DefaultListableBeanFactory target = new DefaultListableBeanFactory();
+		target.registerBeanDefinition("spouse", new RootBeanDefinition(Object.class));
+		assertThat(snapshot.registerBeanDefinitions(target, getClass().getClassLoader())).isEqualTo(2);
+
+		assertThat(target.getBeanDefinitionNames()).containsExactly("spouse", "tb");
+		assertThat(target.getAliases("spouse")).containsExactly("partner");
+		BeanDefinition restoredSpouse = target.getBeanDefinition("spouse");
+		assertThat(restoredSpouse).isInstanceOf(RootBeanDefinition.class).isEqualTo(spouse);
+		assertThat(restoredSpouse.getAttribute("custom")).isEqualTo(Arrays.asList("a", "b"));
+		BeanDefinition restoredTb = target.getBeanDefinition("tb");
+		assertThat(restoredTb.getAttribute("type")).isEqualTo(TestBean.class);
+		assertThat(restoredTb).isInstanceOf(GenericBeanDefinition.class).isEqualTo(tb);
+
+		TestBean bean = target.getBean("tb", TestBean.class);
+		assertThat(bean.getName()).isEqualTo("Rod");
+		assertThat(bean.getSpouse()).isSameAs(target.getBean("spouse"));
+		assertThat(bean.getSpouse().getName()).isEqualTo("Juergen");
+		assertThat(bean.getSpouse().getAge()).isEqualTo(42);
+		assertThat(bean.getFriends()).hasSize(2);
+		assertThat(((List<?>) bean.getFriends()).get(0)).isSameAs(bean.getSpouse());
+		assertThat(bean.getSomeMap().get("key")).isEqualTo(1);
+		assertThat(target.getBean("tb")).isNotSameAs(bean);
+	}
+
+	@Test
+	public void captureWithInstanceSupplier() {
+		DefaultListableBeanFactory source = new DefaultListableBeanFactory();
+		source.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class, TestBean::new));
+		assertThatExceptionOfType(BeanDefinitionStoreException.class).isThrownBy(() ->
+				BeanDefinitionSnapshot.capture(source, "fingerprint"));
+	}
+
+	@Test
+	public void captureWithUnsupportedAttribute() {
+		DefaultListableBeanFactory source = new DefaultListableBeanFactory();
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setAttribute("unsupported", new Object());
+		source.registerBeanDefinition("tb", bd);
+		assertThatExceptionOfType(BeanDefinitionStoreException.class).isThrownBy(() ->
+				BeanDefinitionSnapshot.capture(source, "fingerprint"))
+				.withMessageContaining("unsupported");
+	}
+
+	@Test
+	public void restoreAnnotatedBeanDefinitions() throws IOException {
+		DefaultListableBeanFactory source = new DefaultListableBeanFactory();
+		source.registerBeanDefinition("factory", new AnnotatedGenericBeanDefinition(TestBeanFactory.class));
+		AnnotationMetadata metadata = AnnotationMetadata.introspect(TestBeanFactory.class);
+		MethodMetadata factoryMethod = metadata.getAnnotatedMethods(Qualifier.class.getName()).iterator().next();
+		AnnotatedGenericBeanDefinition tb = new AnnotatedGenericBeanDefinition(metadata, factoryMethod);
+		tb.setBeanClassName(TestBeanFactory.class.getName());
+		tb.setFactoryMethodName("testBean");
+		source.registerBeanDefinition("tb", tb);
+
+		DefaultListableBeanFactory target = new DefaultListableBeanFactory();
+		roundtrip(BeanDefinitionSnapshot.capture(source, "fingerprint"))
+				.registerBeanDefinitions(target, getClass().getClassLoader());
+
+		BeanDefinition restoredFactory = target.getBeanDefinition("factory");
+		assertThat(restoredFactory).isInstanceOf(AnnotatedBeanDefinition.class);
+		assertThat(((AnnotatedBeanDefinition) restoredFactory).getMetadata().getClassName())
+				.isEqualTo(TestBeanFactory.class.getName());
+		assertThat(((AnnotatedBeanDefinition) restoredFactory).getFactoryMethodMetadata()).isNull();
+
+		BeanDefinition restoredTb = target.getBeanDefinition("tb");
+		assertThat(restoredTb).isInstanceOf(AnnotatedBeanDefinition.class);
+		MethodMetadata restoredFactoryMethod = ((AnnotatedBeanDefinition) restoredTb).getFactoryMethodMetadata();
+		assertThat(restoredFactoryMethod).isNotNull();
+		assertThat(restoredFactoryMethod.getMethodName()).isEqualTo("testBean");
+		assertThat(restoredFactoryMethod.getReturnTypeName()).isEqualTo(TestBean.class.getName());
+		assertThat(target.getBean("tb", TestBean.class).getName()).isEqualTo("factory");
+	}
+
+	@Test
+	public void restoreAnnotatedBeanDefinitionWithOverloadedFactoryMethod() throws IOException {
+		AnnotationMetadata metadata = AnnotationMetadata.introspect(OverloadedTestBeanFactory.class);
+		for (String qualifier : new String[] {"tb", "tb2"}) {
+			MethodMetadata factoryMethod = metadata.getAnnotatedMethods(Qualifier.class.getName()).stream()
+					.filter(method -> qualifier.equals(method.getAnnotationAttributes(Qualifier.class.getName()).get("value")))
+					.findFirst().get();
+			DefaultListableBeanFactory source = new DefaultListableBeanFactory();
+			AnnotatedGenericBeanDefinition tb = new AnnotatedGenericBeanDefinition(metadata, factoryMethod);
+			tb.setBeanClassName(OverloadedTestBeanFactory.class.getName());
+			tb.setFactoryMethodName("testBean");
+			source.registerBeanDefinition("tb", tb);
+
+			DefaultListableBeanFactory target = new DefaultListableBeanFactory();
+			roundtrip(BeanDefinitionSnapshot.capture(source, "fingerprint"))
+					.registerBeanDefinitions(target, getClass().getClassLoader());
+
+			MethodMetadata restoredFactoryMethod =
+					((AnnotatedBeanDefinition) target.getBeanDefinition("tb")).getFactoryMethodMetadata();
+			assertThat(restoredFactoryMethod).isNotNull();
+			assertThat(restoredFactoryMethod.getAnnotationAttributes(Qualifier.class.getName()).get("value"))
+					.isEqualTo(qualifier);
+		}
+	}
+
+	@Test
+	public void readInvalidContent() {
+		assertThatIOException().isThrownBy(() ->
+				BeanDefinitionSnapshot.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4})));
+	}
+
+
+	private static BeanDefinitionSnapshot roundtrip(BeanDefinitionSnapshot snapshot) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.write(out);
+		return BeanDefinitionSnapshot.read(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+
+	public static class TestBeanFactory {
+
+		@Qualifier("tb")
+		public static TestBean testBean() {
+			return new TestBean("factory");
+		}
+	}
+
+
+	public static class OverloadedTestBeanFactory {
+
+		@Qualifier("tb")
+		public static TestBean testBean() {
+			return new TestBean("factory");
+		}
+
+		@Qualifier("tb2")
+		public static TestBean testBean(String name) {
+			return new TestBean(name);
+		}
+	}
+
+}
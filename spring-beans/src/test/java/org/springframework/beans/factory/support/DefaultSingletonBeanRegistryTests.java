@@ -16,14 +16,19 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.tests.sample.beans.DerivedTestBean;
 import org.springframework.tests.sample.beans.TestBean;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 /**
  * @author Juergen Hoeller
@@ -101,4 +106,35 @@ public class DefaultSingletonBeanRegistryTests {
 		assertThat(beanRegistry.isDependent("c", "c")).isTrue();
 	}
 
+	@Test
+	public void testConcurrentCreationDoesNotWaitWhileHoldingMutex() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setConcurrentSingletonCreation(true);
+		CountDownLatch inCreation = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread thread = new Thread(() -> beanRegistry.getSingleton("tb", () -> {
+			inCreation.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return new TestBean();
+		}));
+		thread.start();
+		try {
+			assertThat(inCreation.await(5, TimeUnit.SECONDS)).isTrue();
+			synchronized (beanRegistry.getSingletonMutex()) {
+				assertThatExceptionOfType(BeanCurrentlyInCreationException.class).isThrownBy(() ->
+						beanRegistry.getSingleton("tb", TestBean::new));
+			}
+		}
+		finally {
+			release.countDown();
+			thread.join(5000);
+		}
+		assertThat(beanRegistry.getSingleton("tb")).isInstanceOf(TestBean.class);
+	}
+
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Unit tests for {@link GeneratedInstantiationStrategy}.
+ */
+public class GeneratedInstantiationStrategyTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@Before
+	public void setup() {
+		this.beanFactory.setInstantiationStrategy(new GeneratedInstantiationStrategy());
+		this.beanFactory.registerSingleton("spouse", new TestBean("spouse"));
+	}
+
+
+	@Test
+	public void prototypeWithDefaultConstructor() {
+		registerPrototype("bean", new RootBeanDefinition(CallerRecordingBean.class));
+		CallerRecordingBean bean = this.beanFactory.getBean("bean", CallerRecordingBean.class);
+		assertThat(bean.caller).contains("$$SpringInstantiator$$");
+		assertThat(this.beanFactory.getBean("bean")).isNotSameAs(bean);
+	}
+
+	@Test
+	public void prototypeWithConstructorArguments() {
+		RootBeanDefinition bd = new RootBeanDefinition(CallerRecordingBean.class);
+		bd.getConstructorArgumentValues().addIndexedArgumentValue(0, "name");
+		bd.getConstructorArgumentValues().addIndexedArgumentValue(1, "42");
+		bd.getConstructorArgumentValues().addIndexedArgumentValue(2, new RuntimeBeanReference("spouse"));
+		registerPrototype("bean", bd);
+
+		CallerRecordingBean bean = this.beanFactory.getBean("bean", CallerRecordingBean.class);
+		assertThat(bean.caller).contains("$$SpringInstantiator$$");
+		assertThat(bean.name).isEqualTo("name");
+		assertThat(bean.age).isEqualTo(42);
+		assertThat(bean.spouse).isSameAs(this.beanFactory.getBean("spouse"));
+	}
+
+	@Test
+	public void instantiatorSharedAcrossBeanFactories() {
+		registerPrototype("bean", new RootBeanDefinition(CallerRecordingBean.class));
+		DefaultListableBeanFactory otherBeanFactory = new DefaultListableBeanFactory();
+		otherBeanFactory.setInstantiationStrategy(new GeneratedInstantiationStrategy());
+		RootBeanDefinition bd = new RootBeanDefinition(CallerRecordingBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		otherBeanFactory.registerBeanDefinition("bean", bd);
+
+		String caller = this.beanFactory.getBean("bean", CallerRecordingBean.class).caller;
+		assertThat(otherBeanFactory.getBean("bean", CallerRecordingBean.class).caller).isEqualTo(caller);
+	}
+
+	@Test
+	public void singletonInstantiatedReflectively() {
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(CallerRecordingBean.class));
+		CallerRecordingBean bean = this.beanFactory.getBean("bean", CallerRecordingBean.class);
+		assertThat(bean.caller).doesNotContain("$$SpringInstantiator$$");
+	}
+
+	@Test
+	public void privateConstructorInstantiatedReflectively() {
+		registerPrototype("bean", new RootBeanDefinition(PrivateConstructorBean.class));
+		assertThat(this.beanFactory.getBean("bean")).isInstanceOf(PrivateConstructorBean.class);
+	}
+
+	@Test
+	public void constructorThrowingException() {
+		registerPrototype("bean", new RootBeanDefinition(FailingBean.class));
+		assertThatExceptionOfType(BeanCreationException.class).isThrownBy(() ->
+				this.beanFactory.getBean("bean"))
+			.withRootCauseInstanceOf(IllegalStateException.class);
+	}
+
+
+	private void registerPrototype(String beanName, RootBeanDefinition bd) {
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition(beanName, bd);
+	}
+
+
+	static class CallerRecordingBean {
+
+		final String caller = new Throwable().getStackTrace()[1].getClassName();
+
+		String name;
+
+		int age;
+
+		TestBean spouse;
+
+		CallerRecordingBean() {
+		}
+
+		CallerRecordingBean(String name, int age, TestBean spouse) {
+			this.name = name;
+			this.age = age;
+			this.spouse = spouse;
+		}
+	}
+
+
+	static class PrivateConstructorBean {
+
+		private PrivateConstructorBean() {
+		}
+	}
+
+
+	static class FailingBean {
+
+		FailingBean() {
+			throw new IllegalStateException("Expected");
+		}
+	}
+
+}
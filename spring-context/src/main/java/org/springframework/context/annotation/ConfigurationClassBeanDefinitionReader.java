@@ -159,6 +159,10 @@ class ConfigurationClassBeanDefinitionReader {
 		configBeanDef.setScope(scopeMetadata.getScopeName());
 		String configBeanName = this.importBeanNameGenerator.generateBeanName(configBeanDef, this.registry);
 		AnnotationConfigUtils.processCommonDefinitionAnnotations(configBeanDef, metadata);
+		AnnotationMetadata importingClass = this.importRegistry.getImportingClassFor(metadata.getClassName());
+		if (importingClass != null) {
+			configBeanDef.setAttribute(ConfigurationClassUtils.IMPORTING_CLASS_ATTRIBUTE, importingClass.getClassName());
+		}
 
 		BeanDefinitionHolder definitionHolder = new BeanDefinitionHolder(configBeanDef, configBeanName);
 		definitionHolder = AnnotationConfigUtils.applyScopedProxyMode(scopeMetadata, definitionHolder, this.registry);
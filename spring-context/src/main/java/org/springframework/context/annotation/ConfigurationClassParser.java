@@ -136,6 +136,8 @@ class ConfigurationClassParser {
 
 	private final List<String> propertySourceNames = new ArrayList<>();
 
+	private final List<Map<String, Object>> propertySourceDeclarations = new ArrayList<>();
+
 	private final ImportStack importStack = new ImportStack();
 
 	private final DeferredImportSelectorHandler deferredImportSelectorHandler = new DeferredImportSelectorHandler();
@@ -272,6 +274,7 @@ class ConfigurationClassParser {
 				org.springframework.context.annotation.PropertySource.class)) {
 			if (this.environment instanceof ConfigurableEnvironment) {
 				processPropertySource(propertySource);
+				recordPropertySourceDeclaration(propertySource);
 			}
 			else {
 				logger.info("Ignoring @PropertySource annotation on [" + sourceClass.getMetadata().getClassName() +
@@ -426,6 +429,48 @@ class ConfigurationClassParser {
 	}
 
 
+	/**
+	 * Keep a copy of the given <code>@PropertySource</code> annotation metadata,
+	 * with the factory class referenced by name, for it to be replayed via
+	 * {@link #processPropertySourceDeclaration} later on.
+	 */
+	private void recordPropertySourceDeclaration(AnnotationAttributes propertySource) {
+		Map<String, Object> declaration = new LinkedHashMap<>(propertySource);
+		Object factory = declaration.get("factory");
+		if (factory instanceof Class) {
+			declaration.put("factory", ((Class<?>) factory).getName());
+		}
+		this.propertySourceDeclarations.add(declaration);
+	}
+
+	/**
+	 * Process the given <code>@PropertySource</code> declaration, as previously
+	 * exposed by {@link #getPropertySourceDeclarations()}.
+	 * @param declaration the recorded <code>@PropertySource</code> attributes
+	 * @throws IOException if loading a property source failed
+	 */
+	void processPropertySourceDeclaration(Map<String, Object> declaration) throws IOException {
+		AnnotationAttributes propertySource = new AnnotationAttributes(declaration);
+		Object factory = propertySource.get("factory");
+		if (factory instanceof String) {
+			try {
+				propertySource.put("factory", ClassUtils.forName((String) factory, this.resourceLoader.getClassLoader()));
+			}
+			catch (ClassNotFoundException ex) {
+				throw new IllegalStateException("Failed to load @PropertySource factory class [" + factory + "]", ex);
+			}
+		}
+		processPropertySource(propertySource);
+	}
+
+	/**
+	 * Return the <code>@PropertySource</code> declarations processed so far,
+	 * in processing order, with the factory class referenced by name.
+	 */
+	List<Map<String, Object>> getPropertySourceDeclarations() {
+		return this.propertySourceDeclarations;
+	}
+
 	/**
 	 * Process the given <code>@PropertySource</code> annotation metadata.
 	 * @param propertySource metadata for the <code>@PropertySource</code> annotation found
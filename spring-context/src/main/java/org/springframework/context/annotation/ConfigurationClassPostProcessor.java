@@ -16,6 +16,7 @@
 
 package org.springframework.context.annotation;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -24,6 +25,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -53,6 +55,7 @@ import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.annotation.ConfigurationClassEnhancer.EnhancedConfiguration;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
@@ -270,6 +273,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	 */
 	public void processConfigBeanDefinitions(BeanDefinitionRegistry registry) {
 		List<BeanDefinitionHolder> configCandidates = new ArrayList<>();
+		List<BeanDefinition> processedConfigBeanDefs = new ArrayList<>();
 		String[] candidateNames = registry.getBeanDefinitionNames();
 
 		for (String beanName : candidateNames) {
@@ -278,6 +282,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 				if (logger.isDebugEnabled()) {
 					logger.debug("Bean definition has already been processed as a configuration class: " + beanDef);
 				}
+				processedConfigBeanDefs.add(beanDef);
 			}
 			else if (ConfigurationClassUtils.checkConfigurationClassCandidate(beanDef, this.metadataReaderFactory)) {
 				configCandidates.add(new BeanDefinitionHolder(beanDef, beanName));
@@ -286,6 +291,10 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 
 		// Return immediately if no @Configuration classes were found
 		if (configCandidates.isEmpty()) {
+			if (!processedConfigBeanDefs.isEmpty()) {
+				// Registry restored from a previous processing run, e.g. from a snapshot
+				restoreProcessedConfigBeanDefinitions(registry, processedConfigBeanDefs);
+			}
 			return;
 		}
 
@@ -364,6 +373,13 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, parser.getImportRegistry());
 		}
 
+		// Keep the @PropertySource declarations for them to be replayed from a snapshot
+		List<Map<String, Object>> propertySourceDeclarations = parser.getPropertySourceDeclarations();
+		if (!propertySourceDeclarations.isEmpty()) {
+			configCandidates.get(0).getBeanDefinition().setAttribute(
+					ConfigurationClassUtils.PROPERTY_SOURCES_ATTRIBUTE, new ArrayList<>(propertySourceDeclarations));
+		}
+
 		if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory) {
 			// Clear cache in externally provided MetadataReaderFactory; this is a no-op
 			// for a shared cache since it'll be cleared by the ApplicationContext.
@@ -371,6 +387,58 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		}
 	}
 
+	/**
+	 * Restore the state that is derived from the given configuration class
+	 * definitions, which have been processed before, e.g. when restored from a
+	 * {@link org.springframework.beans.factory.support.BeanDefinitionSnapshot}:
+	 * the {@link PropertySource @PropertySource} declarations get applied to the
+	 * environment again, and the importing classes of {@link ImportAware}
+	 * configuration classes are exposed from their recorded class names.
+	 */
+	@SuppressWarnings("unchecked")
+	private void restoreProcessedConfigBeanDefinitions(
+			BeanDefinitionRegistry registry, List<BeanDefinition> configBeanDefs) {
+
+		if (this.environment == null) {
+			this.environment = new StandardEnvironment();
+		}
+
+		ConfigurationClassParser parser = null;
+		Map<String, String> importingClasses = new ConcurrentHashMap<>();
+		for (BeanDefinition beanDef : configBeanDefs) {
+			Object propertySources = beanDef.getAttribute(ConfigurationClassUtils.PROPERTY_SOURCES_ATTRIBUTE);
+			if (propertySources instanceof List && this.environment instanceof ConfigurableEnvironment) {
+				if (parser == null) {
+					parser = new ConfigurationClassParser(
+							this.metadataReaderFactory, this.problemReporter, this.environment,
+							this.resourceLoader, this.componentScanBeanNameGenerator, registry);
+				}
+				for (Object declaration : (List<?>) propertySources) {
+					try {
+						parser.processPropertySourceDeclaration((Map<String, Object>) declaration);
+					}
+					catch (IOException ex) {
+						throw new BeanDefinitionStoreException(
+								"Failed to restore @PropertySource declarations of [" + beanDef.getBeanClassName() + "]", ex);
+					}
+				}
+			}
+			Object importingClass = beanDef.getAttribute(ConfigurationClassUtils.IMPORTING_CLASS_ATTRIBUTE);
+			String beanClassName = beanDef.getBeanClassName();
+			if (importingClass instanceof String && beanClassName != null) {
+				importingClasses.put(beanClassName, (String) importingClass);
+			}
+		}
+
+		if (registry instanceof SingletonBeanRegistry) {
+			SingletonBeanRegistry sbr = (SingletonBeanRegistry) registry;
+			if (!sbr.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
+				sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME,
+						new RestoredImportRegistry(importingClasses, this.metadataReaderFactory));
+			}
+		}
+	}
+
 	/**
 	 * Post-processes a BeanFactory in search of Configuration class BeanDefinitions;
 	 * any candidates are then enhanced by a {@link ConfigurationClassEnhancer}.
@@ -469,4 +537,41 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		}
 	}
 
+
+	/**
+	 * {@link ImportRegistry} for configuration classes that have been processed
+	 * before, resolving the metadata of their importing classes on demand.
+	 */
+	private static class RestoredImportRegistry implements ImportRegistry {
+
+		private final Map<String, String> importingClasses;
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		public RestoredImportRegistry(Map<String, String> importingClasses, MetadataReaderFactory metadataReaderFactory) {
+			this.importingClasses = importingClasses;
+			this.metadataReaderFactory = metadataReaderFactory;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationMetadata getImportingClassFor(String importedClass) {
+			String importingClass = this.importingClasses.get(importedClass);
+			if (importingClass == null) {
+				return null;
+			}
+			try {
+				return this.metadataReaderFactory.getMetadataReader(importingClass).getAnnotationMetadata();
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to read metadata of importing class [" + importingClass + "]", ex);
+			}
+		}
+
+		@Override
+		public void removeImportingClass(String importingClass) {
+			this.importingClasses.values().removeIf(importingClass::equals);
+		}
+	}
+
 }
@@ -17,7 +17,9 @@
 package org.springframework.context.event;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +40,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * Abstract implementation of the {@link ApplicationEventMulticaster} interface,
@@ -48,6 +51,10 @@ import org.springframework.util.ObjectUtils;
  * ApplicationListener objects can be overridden through the "collectionClass"
  * bean property.
  *
+ * <p>Listener registrations are copy-on-write, with the matching listeners
+ * getting cached per event type and source type: retrieving the listeners for
+ * an event does not lock, not even when populating the cache for a new event type.
+ *
  * <p>Implementing ApplicationEventMulticaster's actual {@link #multicastEvent} method
  * is left to subclasses. {@link SimpleApplicationEventMulticaster} simply multicasts
  * all events to all registered listeners, invoking them in the calling thread.
@@ -62,9 +69,10 @@ import org.springframework.util.ObjectUtils;
 public abstract class AbstractApplicationEventMulticaster
 		implements ApplicationEventMulticaster, BeanClassLoaderAware, BeanFactoryAware {
 
-	private final ListenerRetriever defaultRetriever = new ListenerRetriever(false);
+	final Map<ListenerCacheKey, CachedListenerRetriever> retrieverCache = new ConcurrentHashMap<>(64);
 
-	final Map<ListenerCacheKey, ListenerRetriever> retrieverCache = new ConcurrentHashMap<>(64);
+	private volatile DefaultListenerRetriever defaultRetriever =
+			new DefaultListenerRetriever(Collections.emptySet(), Collections.emptySet());
 
 	@Nullable
 	private ClassLoader beanClassLoader;
@@ -72,7 +80,7 @@ public abstract class AbstractApplicationEventMulticaster
 	@Nullable
 	private BeanFactory beanFactory;
 
-	private Object retrievalMutex = this.defaultRetriever;
+	private Object retrievalMutex = new Object();
 
 
 	@Override
@@ -104,50 +112,62 @@ public abstract class AbstractApplicationEventMulticaster
 	@Override
 	public void addApplicationListener(ApplicationListener<?> listener) {
 		synchronized (this.retrievalMutex) {
+			Set<ApplicationListener<?>> listeners = new LinkedHashSet<>(this.defaultRetriever.applicationListeners);
 			// Explicitly remove target for a proxy, if registered already,
 			// in order to avoid double invocations of the same listener.
 			Object singletonTarget = AopProxyUtils.getSingletonTarget(listener);
 			if (singletonTarget instanceof ApplicationListener) {
-				this.defaultRetriever.applicationListeners.remove(singletonTarget);
+				listeners.remove(singletonTarget);
 			}
-			this.defaultRetriever.applicationListeners.add(listener);
-			this.retrieverCache.clear();
+			listeners.add(listener);
+			updateListeners(listeners, this.defaultRetriever.applicationListenerBeans);
 		}
 	}
 
 	@Override
 	public void addApplicationListenerBean(String listenerBeanName) {
 		synchronized (this.retrievalMutex) {
-			this.defaultRetriever.applicationListenerBeans.add(listenerBeanName);
-			this.retrieverCache.clear();
+			Set<String> listenerBeans = new LinkedHashSet<>(this.defaultRetriever.applicationListenerBeans);
+			listenerBeans.add(listenerBeanName);
+			updateListeners(this.defaultRetriever.applicationListeners, listenerBeans);
 		}
 	}
 
 	@Override
 	public void removeApplicationListener(ApplicationListener<?> listener) {
 		synchronized (this.retrievalMutex) {
-			this.defaultRetriever.applicationListeners.remove(listener);
-			this.retrieverCache.clear();
+			Set<ApplicationListener<?>> listeners = new LinkedHashSet<>(this.defaultRetriever.applicationListeners);
+			listeners.remove(listener);
+			updateListeners(listeners, this.defaultRetriever.applicationListenerBeans);
 		}
 	}
 
 	@Override
 	public void removeApplicationListenerBean(String listenerBeanName) {
 		synchronized (this.retrievalMutex) {
-			this.defaultRetriever.applicationListenerBeans.remove(listenerBeanName);
-			this.retrieverCache.clear();
+			Set<String> listenerBeans = new LinkedHashSet<>(this.defaultRetriever.applicationListenerBeans);
+			listenerBeans.remove(listenerBeanName);
+			updateListeners(this.defaultRetriever.applicationListeners, listenerBeans);
 		}
 	}
 
 	@Override
 	public void removeAllListeners() {
 		synchronized (this.retrievalMutex) {
-			this.defaultRetriever.applicationListeners.clear();
-			this.defaultRetriever.applicationListenerBeans.clear();
-			this.retrieverCache.clear();
+			updateListeners(Collections.emptySet(), Collections.emptySet());
 		}
 	}
 
+	/**
+	 * Publish a new immutable snapshot of the registered listeners, and
+	 * invalidate the listeners cached per event type. To be called with the
+	 * retrieval mutex held, so that concurrent modifications do not get lost.
+	 */
+	private void updateListeners(Set<ApplicationListener<?>> listeners, Set<String> listenerBeans) {
+		this.defaultRetriever = new DefaultListenerRetriever(listeners, listenerBeans);
+		this.retrieverCache.clear();
+	}
+
 
 	/**
 	 * Return a Collection containing all ApplicationListeners.
@@ -155,14 +175,15 @@ public abstract class AbstractApplicationEventMulticaster
 	 * @see org.springframework.context.ApplicationListener
 	 */
 	protected Collection<ApplicationListener<?>> getApplicationListeners() {
-		synchronized (this.retrievalMutex) {
-			return this.defaultRetriever.getApplicationListeners();
-		}
+		return this.defaultRetriever.getApplicationListeners();
 	}
 
 	/**
 	 * Return a Collection of ApplicationListeners matching the given
 	 * event type. Non-matching listeners get excluded early.
+	 * <p>Does not lock: listeners are retrieved from an immutable snapshot of
+	 * the registered listeners, and cached per event type and source type.
+	 * The returned Collection is not meant to be modified.
 	 * @param event the event to be propagated. Allows for excluding
 	 * non-matching listeners early, based on cached matching information.
 	 * @param eventType the event type
@@ -176,32 +197,36 @@ public abstract class AbstractApplicationEventMulticaster
 		Class<?> sourceType = (source != null ? source.getClass() : null);
 		ListenerCacheKey cacheKey = new ListenerCacheKey(eventType, sourceType);
 
-		// Quick check for existing entry on ConcurrentHashMap...
-		ListenerRetriever retriever = this.retrieverCache.get(cacheKey);
-		if (retriever != null) {
-			return retriever.getApplicationListeners();
-		}
-
-		if (this.beanClassLoader == null ||
-				(ClassUtils.isCacheSafe(event.getClass(), this.beanClassLoader) &&
-						(sourceType == null || ClassUtils.isCacheSafe(sourceType, this.beanClassLoader)))) {
-			// Fully synchronized building and caching of a ListenerRetriever
-			synchronized (this.retrievalMutex) {
-				retriever = this.retrieverCache.get(cacheKey);
-				if (retriever != null) {
-					return retriever.getApplicationListeners();
+		// Potential new retriever to populate
+		CachedListenerRetriever newRetriever = null;
+
+		// Quick check for existing entry on ConcurrentHashMap
+		CachedListenerRetriever existingRetriever = this.retrieverCache.get(cacheKey);
+		if (existingRetriever == null) {
+			// Caching a new ListenerRetriever if possible
+			if (this.beanClassLoader == null ||
+					(ClassUtils.isCacheSafe(event.getClass(), this.beanClassLoader) &&
+							(sourceType == null || ClassUtils.isCacheSafe(sourceType, this.beanClassLoader)))) {
+				newRetriever = new CachedListenerRetriever();
+				existingRetriever = this.retrieverCache.putIfAbsent(cacheKey, newRetriever);
+				if (existingRetriever != null) {
+					newRetriever = null;  // no need to populate it in retrieveApplicationListeners
 				}
-				retriever = new ListenerRetriever(true);
-				Collection<ApplicationListener<?>> listeners =
-						retrieveApplicationListeners(eventType, sourceType, retriever);
-				this.retrieverCache.put(cacheKey, retriever);
-				return listeners;
 			}
 		}
-		else {
-			// No ListenerRetriever caching -> no synchronization necessary
-			return retrieveApplicationListeners(eventType, sourceType, null);
+
+		if (existingRetriever != null) {
+			Collection<ApplicationListener<?>> result = existingRetriever.getApplicationListeners();
+			if (result != null) {
+				return result;
+			}
+			// If result is null, the existing retriever is not fully populated yet by another thread.
+			// Proceed like caching wasn't possible for this current local attempt.
 		}
+
+		// The new retriever, if any, has been registered in the cache before reading
+		// the current listeners, so it cannot outlive a concurrent modification.
+		return retrieveApplicationListeners(eventType, sourceType, newRetriever);
 	}
 
 	/**
@@ -212,23 +237,22 @@ public abstract class AbstractApplicationEventMulticaster
 	 * @return the pre-filtered list of application listeners for the given event and source type
 	 */
 	private Collection<ApplicationListener<?>> retrieveApplicationListeners(
-			ResolvableType eventType, @Nullable Class<?> sourceType, @Nullable ListenerRetriever retriever) {
+			ResolvableType eventType, @Nullable Class<?> sourceType, @Nullable CachedListenerRetriever retriever) {
 
+		DefaultListenerRetriever defaultRetriever = this.defaultRetriever;
 		List<ApplicationListener<?>> allListeners = new ArrayList<>();
-		Set<ApplicationListener<?>> listeners;
-		Set<String> listenerBeans;
-		synchronized (this.retrievalMutex) {
-			listeners = new LinkedHashSet<>(this.defaultRetriever.applicationListeners);
-			listenerBeans = new LinkedHashSet<>(this.defaultRetriever.applicationListenerBeans);
-		}
-		for (ApplicationListener<?> listener : listeners) {
+		Set<ApplicationListener<?>> filteredListeners = (retriever != null ? new LinkedHashSet<>() : null);
+		Set<String> filteredListenerBeans = (retriever != null ? new LinkedHashSet<>() : null);
+
+		for (ApplicationListener<?> listener : defaultRetriever.applicationListeners) {
 			if (supportsEvent(listener, eventType, sourceType)) {
-				if (retriever != null) {
-					retriever.applicationListeners.add(listener);
+				if (filteredListeners != null) {
+					filteredListeners.add(listener);
 				}
 				allListeners.add(listener);
 			}
 		}
+		Set<String> listenerBeans = defaultRetriever.applicationListenerBeans;
 		if (!listenerBeans.isEmpty()) {
 			BeanFactory beanFactory = getBeanFactory();
 			for (String listenerBeanName : listenerBeans) {
@@ -238,12 +262,12 @@ public abstract class AbstractApplicationEventMulticaster
 						ApplicationListener<?> listener =
 								beanFactory.getBean(listenerBeanName, ApplicationListener.class);
 						if (!allListeners.contains(listener) && supportsEvent(listener, eventType, sourceType)) {
-							if (retriever != null) {
+							if (filteredListeners != null) {
 								if (beanFactory.isSingleton(listenerBeanName)) {
-									retriever.applicationListeners.add(listener);
+									filteredListeners.add(listener);
 								}
 								else {
-									retriever.applicationListenerBeans.add(listenerBeanName);
+									filteredListenerBeans.add(listenerBeanName);
 								}
 							}
 							allListeners.add(listener);
@@ -257,9 +281,13 @@ public abstract class AbstractApplicationEventMulticaster
 			}
 		}
 		AnnotationAwareOrderComparator.sort(allListeners);
-		if (retriever != null && retriever.applicationListenerBeans.isEmpty()) {
-			retriever.applicationListeners.clear();
-			retriever.applicationListeners.addAll(allListeners);
+		if (retriever != null) {
+			if (filteredListenerBeans.isEmpty()) {
+				retriever.populate(allListeners, filteredListenerBeans);
+			}
+			else {
+				retriever.populate(filteredListeners, filteredListenerBeans);
+			}
 		}
 		return allListeners;
 	}
@@ -362,20 +390,20 @@ public abstract class AbstractApplicationEventMulticaster
 
 
 	/**
-	 * Helper class that encapsulates a specific set of target listeners,
-	 * allowing for efficient retrieval of pre-filtered listeners.
-	 * <p>An instance of this helper gets cached per event type and source type.
+	 * Immutable snapshot of the registered listeners, replaced on every
+	 * modification rather than modified in place.
 	 */
-	private class ListenerRetriever {
+	private class DefaultListenerRetriever {
 
-		public final Set<ApplicationListener<?>> applicationListeners = new LinkedHashSet<>();
+		public final Set<ApplicationListener<?>> applicationListeners;
 
-		public final Set<String> applicationListenerBeans = new LinkedHashSet<>();
+		public final Set<String> applicationListenerBeans;
 
-		private final boolean preFiltered;
+		public DefaultListenerRetriever(
+				Set<ApplicationListener<?>> applicationListeners, Set<String> applicationListenerBeans) {
 
-		public ListenerRetriever(boolean preFiltered) {
-			this.preFiltered = preFiltered;
+			this.applicationListeners = Collections.unmodifiableSet(applicationListeners);
+			this.applicationListenerBeans = Collections.unmodifiableSet(applicationListenerBeans);
 		}
 
 		public Collection<ApplicationListener<?>> getApplicationListeners() {
@@ -387,7 +415,7 @@ public abstract class AbstractApplicationEventMulticaster
 				for (String listenerBeanName : this.applicationListenerBeans) {
 					try {
 						ApplicationListener<?> listener = beanFactory.getBean(listenerBeanName, ApplicationListener.class);
-						if (this.preFiltered || !allListeners.contains(listener)) {
+						if (!allListeners.contains(listener)) {
 							allListeners.add(listener);
 						}
 					}
@@ -397,9 +425,61 @@ public abstract class AbstractApplicationEventMulticaster
 					}
 				}
 			}
-			if (!this.preFiltered || !this.applicationListenerBeans.isEmpty()) {
-				AnnotationAwareOrderComparator.sort(allListeners);
+			AnnotationAwareOrderComparator.sort(allListeners);
+			return allListeners;
+		}
+	}
+
+
+	/**
+	 * Helper class that encapsulates a specific set of target listeners,
+	 * allowing for efficient retrieval of pre-filtered listeners.
+	 * <p>An instance of this helper gets cached per event type and source type,
+	 * and gets populated once, after having been registered in the cache.
+	 */
+	private class CachedListenerRetriever {
+
+		/** Pre-filtered and, without listener beans, pre-sorted listeners. */
+		@Nullable
+		private volatile ApplicationListener<?>[] applicationListeners;
+
+		/** Names of pre-filtered non-singleton listener beans. */
+		private String[] applicationListenerBeans = new String[0];
+
+		public void populate(Collection<ApplicationListener<?>> listeners, Collection<String> listenerBeans) {
+			this.applicationListenerBeans = StringUtils.toStringArray(listenerBeans);
+			// Volatile write after the listener beans, publishing both
+			this.applicationListeners = listeners.toArray(new ApplicationListener<?>[0]);
+		}
+
+		/**
+		 * Return the cached listeners, or {@code null} if not populated yet.
+		 */
+		@Nullable
+		public Collection<ApplicationListener<?>> getApplicationListeners() {
+			ApplicationListener<?>[] applicationListeners = this.applicationListeners;
+			if (applicationListeners == null) {
+				return null;
+			}
+			String[] applicationListenerBeans = this.applicationListenerBeans;
+			if (applicationListenerBeans.length == 0) {
+				return Collections.unmodifiableList(Arrays.asList(applicationListeners));
+			}
+
+			List<ApplicationListener<?>> allListeners = new ArrayList<>(
+					applicationListeners.length + applicationListenerBeans.length);
+			Collections.addAll(allListeners, applicationListeners);
+			BeanFactory beanFactory = getBeanFactory();
+			for (String listenerBeanName : applicationListenerBeans) {
+				try {
+					allListeners.add(beanFactory.getBean(listenerBeanName, ApplicationListener.class));
+				}
+				catch (NoSuchBeanDefinitionException ex) {
+					// Singleton listener instance (without backing bean definition) disappeared -
+					// probably in the middle of the destruction phase
+				}
 			}
+			AnnotationAwareOrderComparator.sort(allListeners);
 			return allListeners;
 		}
 	}
@@ -115,6 +115,10 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 					"Maximum one parameter is allowed for event listener method: " + method);
 		}
 
+		if (ann != null && ann.batchSize() > 0) {
+			return resolveBatchEventTypes(method, ann);
+		}
+
 		if (ann != null) {
 			Class<?>[] classes = ann.classes();
 			if (classes.length > 0) {
@@ -133,6 +137,28 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 		return Collections.singletonList(ResolvableType.forMethodParameter(method, 0));
 	}
 
+	private static List<ResolvableType> resolveBatchEventTypes(Method method, EventListener ann) {
+		if (method.getParameterCount() != 1 || !method.getParameterTypes()[0].isAssignableFrom(List.class)) {
+			throw new IllegalStateException(
+					"Batch event listener method must declare a single List parameter: " + method);
+		}
+		if (StringUtils.hasText(ann.condition())) {
+			throw new IllegalStateException(
+					"Condition is not supported for batch event listener method: " + method);
+		}
+		Class<?>[] classes = ann.classes();
+		if (classes.length > 0) {
+			List<ResolvableType> types = new ArrayList<>(classes.length);
+			for (Class<?> eventType : classes) {
+				types.add(ResolvableType.forClass(eventType));
+			}
+			return types;
+		}
+		ResolvableType elementType = ResolvableType.forMethodParameter(method, 0).asCollection().getGeneric();
+		return Collections.singletonList(elementType.resolve() != null ? elementType :
+				ResolvableType.forClass(ApplicationEvent.class));
+	}
+
 	private static int resolveOrder(Method method) {
 		Order ann = AnnotatedElementUtils.findMergedAnnotation(method, Order.class);
 		return (ann != null ? ann.value() : 0);
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+
+/**
+ * Extended variant of the standard {@link ApplicationListener} interface,
+ * for listeners that are able to process several events at once.
+ *
+ * <p>A {@link BatchingApplicationEventMulticaster} queues events for such
+ * listeners and delivers them in batches of up to {@link #getMaxBatchSize()}
+ * events. Other multicasters invoke {@link #onApplicationEvent} for each
+ * event, which delegates to {@link #onApplicationEvents} with a batch of one.
+ *
+ * @param <E> the specific {@code ApplicationEvent} subclass to listen to
+ * @since 5.2
+ * @see BatchingApplicationEventMulticaster
+ * @see EventListener#batchSize()
+ */
+public interface BatchApplicationListener<E extends ApplicationEvent> extends ApplicationListener<E> {
+
+	/**
+	 * Return the maximum number of events to pass to
+	 * {@link #onApplicationEvents} at once.
+	 */
+	int getMaxBatchSize();
+
+	/**
+	 * Handle a batch of application events, in the order of publication.
+	 * @param events the events to respond to (never empty)
+	 */
+	void onApplicationEvents(List<E> events);
+
+	/**
+	 * Handle a single application event.
+	 * <p>The default implementation delegates to {@link #onApplicationEvents}.
+	 */
+	@Override
+	default void onApplicationEvent(E event) {
+		onApplicationEvents(Collections.singletonList(event));
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationListenerMethodAdapter} for an {@link EventListener} method
+ * with a positive {@link EventListener#batchSize() batchSize}, passing a list
+ * of event instances or payloads to the method.
+ *
+ * @since 5.2
+ * @see BatchingApplicationEventMulticaster
+ */
+public class BatchApplicationListenerMethodAdapter extends ApplicationListenerMethodAdapter
+		implements BatchApplicationListener<ApplicationEvent> {
+
+	private final int maxBatchSize;
+
+
+	public BatchApplicationListenerMethodAdapter(String beanName, Class<?> targetClass, Method method) {
+		super(beanName, targetClass, method);
+		EventListener ann = AnnotatedElementUtils.findMergedAnnotation(method, EventListener.class);
+		Assert.state(ann != null && ann.batchSize() > 0, () -> "No batch size declared on " + method);
+		this.maxBatchSize = ann.batchSize();
+	}
+
+
+	@Override
+	public int getMaxBatchSize() {
+		return this.maxBatchSize;
+	}
+
+	@Override
+	public void onApplicationEvents(List<ApplicationEvent> events) {
+		List<Object> batch = new ArrayList<>(events.size());
+		for (ApplicationEvent event : events) {
+			Object[] args = resolveArguments(event);
+			if (args != null) {
+				batch.add(args[0]);
+			}
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+		Object result = doInvoke(batch);
+		if (result != null) {
+			handleResult(result);
+		}
+		else {
+			logger.trace("No result object given - no result to handle");
+		}
+	}
+
+	/**
+	 * Process the specified {@link ApplicationEvent} as a batch of one.
+	 */
+	@Override
+	public void processEvent(ApplicationEvent event) {
+		onApplicationEvents(Collections.singletonList(event));
+	}
+
+}
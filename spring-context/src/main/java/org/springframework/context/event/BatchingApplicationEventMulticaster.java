@@ -0,0 +1,554 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * {@link SimpleApplicationEventMulticaster} variant which coalesces events
+ * for {@link BatchApplicationListener BatchApplicationListeners} (including
+ * {@link EventListener} methods with a {@link EventListener#batchSize() batchSize})
+ * into batches, delivered asynchronously.
+ *
+ * <p>Each batch listener has its own bounded queue, drained by at most one
+ * task at a time on the {@linkplain #setBatchExecutor batch executor}. Events
+ * published while a batch is being processed accumulate in the queue and are
+ * delivered together with the next batch, so batches grow with the event rate
+ * while events published at a low rate are delivered without delay. Events
+ * for a listener are delivered in the order of their publication, unless the
+ * queue is full and the {@link RejectionPolicy} says otherwise.
+ *
+ * <p>All other listeners are invoked as by {@link SimpleApplicationEventMulticaster},
+ * i.e. in the calling thread unless a {@linkplain #setTaskExecutor task executor}
+ * has been specified.
+ *
+ * <p>Batch listeners are expected to be singletons. The queue of a listener
+ * is only weakly associated with it while no events are queued, so queues
+ * for listeners that are no longer in use are released. Events that are
+ * still queued when the application shuts down are not delivered.
+ *
+ * @since 5.2
+ * @see #setQueueCapacity
+ * @see #setRejectionPolicy
+ * @see #getListenerStatistics()
+ */
+public class BatchingApplicationEventMulticaster extends SimpleApplicationEventMulticaster {
+
+	/**
+	 * The default capacity of the queue for each batch listener.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+
+	private static final Log logger = LogFactory.getLog(BatchingApplicationEventMulticaster.class);
+
+	private Executor batchExecutor = new SimpleAsyncTaskExecutor("batch-event-");
+
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+
+	private final ConcurrentMap<ListenerKey, BatchQueue> batchQueues = new ConcurrentHashMap<>(16);
+
+	private final ReferenceQueue<ApplicationListener<?>> collectedListeners = new ReferenceQueue<>();
+
+
+	/**
+	 * Create a new BatchingApplicationEventMulticaster.
+	 */
+	public BatchingApplicationEventMulticaster() {
+	}
+
+	/**
+	 * Create a new BatchingApplicationEventMulticaster for the given BeanFactory.
+	 */
+	public BatchingApplicationEventMulticaster(BeanFactory beanFactory) {
+		super(beanFactory);
+	}
+
+
+	/**
+	 * Set the executor to deliver batches of events with.
+	 * <p>Default is a {@link SimpleAsyncTaskExecutor}. Note that a task for a
+	 * given listener keeps running for as long as events are queued for it.
+	 */
+	public void setBatchExecutor(Executor batchExecutor) {
+		Assert.notNull(batchExecutor, "Batch executor must not be null");
+		this.batchExecutor = batchExecutor;
+	}
+
+	/**
+	 * Set the maximum number of events to queue for each batch listener.
+	 * <p>Default is {@link #DEFAULT_QUEUE_CAPACITY}.
+	 * Only affects queues created after this call.
+	 * @see #setRejectionPolicy
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		Assert.isTrue(queueCapacity > 0, "Queue capacity must be greater than 0");
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Set the policy to apply to an event for a batch listener whose queue is full.
+	 * <p>Default is {@link RejectionPolicy#CALLER_RUNS}, slowing publishers
+	 * down to the rate at which the listener processes events, without
+	 * reordering events or invoking the listener concurrently.
+	 */
+	public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+		Assert.notNull(rejectionPolicy, "RejectionPolicy must not be null");
+		this.rejectionPolicy = rejectionPolicy;
+	}
+
+	/**
+	 * Return statistics for all batch listeners that events have been
+	 * multicast to so far.
+	 */
+	public Collection<ListenerStatistics> getListenerStatistics() {
+		purgeCollectedListeners();
+		List<ListenerStatistics> statistics = new ArrayList<>(this.batchQueues.size());
+		for (BatchQueue batchQueue : this.batchQueues.values()) {
+			statistics.add(batchQueue.statistics);
+		}
+		return statistics;
+	}
+
+	/**
+	 * Return statistics for the given batch listener, if events have been
+	 * multicast to it so far.
+	 * @param listener the batch listener
+	 * @return the statistics, or {@code null} if none
+	 */
+	@Nullable
+	public ListenerStatistics getListenerStatistics(ApplicationListener<?> listener) {
+		BatchQueue batchQueue = this.batchQueues.get(new ListenerKey(listener, null));
+		return (batchQueue != null ? batchQueue.statistics : null);
+	}
+
+
+	@Override
+	public void removeApplicationListener(ApplicationListener<?> listener) {
+		super.removeApplicationListener(listener);
+		this.batchQueues.remove(new ListenerKey(listener, null));
+	}
+
+	@Override
+	public void removeAllListeners() {
+		super.removeAllListeners();
+		this.batchQueues.clear();
+	}
+
+	@Override
+	public void multicastEvent(ApplicationEvent event, @Nullable ResolvableType eventType) {
+		ResolvableType type = (eventType != null ? eventType : ResolvableType.forInstance(event));
+		Executor executor = getTaskExecutor();
+		RejectedExecutionException rejected = null;
+		for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
+			if (listener instanceof BatchApplicationListener) {
+				try {
+					getBatchQueue(listener).add((BatchApplicationListener<?>) listener, event);
+				}
+				catch (RejectedExecutionException ex) {
+					// Deliver to all other listeners before propagating the rejection
+					if (rejected == null) {
+						rejected = ex;
+					}
+					else {
+						rejected.addSuppressed(ex);
+					}
+				}
+			}
+			else if (executor != null) {
+				executor.execute(() -> invokeListener(listener, event));
+			}
+			else {
+				invokeListener(listener, event);
+			}
+		}
+		if (rejected != null) {
+			throw rejected;
+		}
+	}
+
+	private BatchQueue getBatchQueue(ApplicationListener<?> listener) {
+		BatchQueue batchQueue = this.batchQueues.get(new ListenerKey(listener, null));
+		if (batchQueue == null) {
+			purgeCollectedListeners();
+			batchQueue = this.batchQueues.computeIfAbsent(
+					new ListenerKey(listener, this.collectedListeners), key -> new BatchQueue(listener));
+		}
+		return batchQueue;
+	}
+
+	private void purgeCollectedListeners() {
+		Object key;
+		while ((key = this.collectedListeners.poll()) != null) {
+			this.batchQueues.remove(key);
+		}
+	}
+
+	/**
+	 * Invoke the given batch listener with the given events.
+	 * @param listener the BatchApplicationListener to invoke
+	 * @param events the events to propagate
+	 */
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	protected void invokeBatchListener(BatchApplicationListener listener, List<ApplicationEvent> events) {
+		ErrorHandler errorHandler = getErrorHandler();
+		if (errorHandler != null) {
+			try {
+				listener.onApplicationEvents(events);
+			}
+			catch (Throwable err) {
+				errorHandler.handleError(err);
+			}
+		}
+		else {
+			listener.onApplicationEvents(events);
+		}
+	}
+
+
+	/**
+	 * Policy for an event published while the queue of a batch listener is full.
+	 */
+	public enum RejectionPolicy {
+
+		/**
+		 * Throw a {@link TaskRejectedException} to the publisher of the event.
+		 */
+		ABORT,
+
+		/**
+		 * Drop the event.
+		 */
+		DISCARD,
+
+		/**
+		 * Drop the oldest queued event and queue the event.
+		 */
+		DISCARD_OLDEST,
+
+		/**
+		 * Deliver the queued events in the calling thread if no task is
+		 * currently draining the queue, or else wait for the queue to
+		 * accept the event.
+		 */
+		CALLER_RUNS
+	}
+
+
+	/**
+	 * Statistics for a batch listener, updated as batches are delivered.
+	 * Latency is measured from the publication of the oldest event in a batch
+	 * until the listener has processed the batch.
+	 */
+	public static final class ListenerStatistics {
+
+		private final WeakReference<ApplicationListener<?>> listener;
+
+		private final BlockingQueue<?> queue;
+
+		private final LongAdder eventCount = new LongAdder();
+
+		private final LongAdder batchCount = new LongAdder();
+
+		private final LongAdder rejectedCount = new LongAdder();
+
+		private final LongAdder totalLatency = new LongAdder();
+
+		private final AtomicLong maxLatency = new AtomicLong();
+
+		ListenerStatistics(ApplicationListener<?> listener, BlockingQueue<?> queue) {
+			this.listener = new WeakReference<>(listener);
+			this.queue = queue;
+		}
+
+		void recordBatch(int size, long latency) {
+			this.eventCount.add(size);
+			this.batchCount.increment();
+			this.totalLatency.add(latency);
+			this.maxLatency.accumulateAndGet(latency, Math::max);
+		}
+
+		void recordRejection() {
+			this.rejectedCount.increment();
+		}
+
+		/**
+		 * Return the listener that these statistics apply to.
+		 * @return the listener, or {@code null} if it is no longer in use
+		 */
+		@Nullable
+		public ApplicationListener<?> getListener() {
+			return this.listener.get();
+		}
+
+		/**
+		 * Return the number of events currently queued for the listener.
+		 */
+		public int getQueueSize() {
+			return this.queue.size();
+		}
+
+		/**
+		 * Return the number of events delivered to the listener.
+		 */
+		public long getEventCount() {
+			return this.eventCount.sum();
+		}
+
+		/**
+		 * Return the number of batches delivered to the listener.
+		 */
+		public long getBatchCount() {
+			return this.batchCount.sum();
+		}
+
+		/**
+		 * Return the number of events that could not be queued because the
+		 * queue was full, whatever the {@link RejectionPolicy}.
+		 */
+		public long getRejectedCount() {
+			return this.rejectedCount.sum();
+		}
+
+		/**
+		 * Return the average latency of the batches delivered to the listener.
+		 */
+		public Duration getAverageLatency() {
+			long batches = this.batchCount.sum();
+			return Duration.ofNanos(batches > 0 ? this.totalLatency.sum() / batches : 0);
+		}
+
+		/**
+		 * Return the maximum latency of the batches delivered to the listener.
+		 */
+		public Duration getMaxLatency() {
+			return Duration.ofNanos(this.maxLatency.get());
+		}
+
+		@Override
+		public String toString() {
+			return "ListenerStatistics for [" + getListener() + "]: events=" + getEventCount() +
+					", batches=" + getBatchCount() + ", rejected=" + getRejectedCount() +
+					", queued=" + getQueueSize() + ", averageLatency=" + getAverageLatency() +
+					", maxLatency=" + getMaxLatency();
+		}
+	}
+
+
+	/**
+	 * Key for the queue of a batch listener, only weakly referring to the listener.
+	 */
+	private static final class ListenerKey extends WeakReference<ApplicationListener<?>> {
+
+		private final int hash;
+
+		ListenerKey(ApplicationListener<?> listener,
+				@Nullable ReferenceQueue<? super ApplicationListener<?>> queue) {
+
+			super(listener, queue);
+			this.hash = listener.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ListenerKey) || this.hash != other.hashCode()) {
+				return false;
+			}
+			ApplicationListener<?> listener = get();
+			return (listener != null && listener.equals(((ListenerKey) other).get()));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+
+
+	/**
+	 * An event in a batch queue, along with the time of its publication.
+	 * Keeps the listener reachable for as long as the event is queued.
+	 */
+	private static final class QueuedEvent {
+
+		final BatchApplicationListener<?> listener;
+
+		final ApplicationEvent event;
+
+		final long timestamp = System.nanoTime();
+
+		QueuedEvent(BatchApplicationListener<?> listener, ApplicationEvent event) {
+			this.listener = listener;
+			this.event = event;
+		}
+	}
+
+
+	/**
+	 * The queue for a batch listener, drained by at most one task at a time.
+	 * Only refers to the listener through the events it holds.
+	 */
+	private final class BatchQueue implements Runnable {
+
+		private final BlockingQueue<QueuedEvent> queue;
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private final ListenerStatistics statistics;
+
+		@Nullable
+		private volatile Thread drainingThread;
+
+		BatchQueue(ApplicationListener<?> listener) {
+			this.queue = new LinkedBlockingQueue<>(queueCapacity);
+			this.statistics = new ListenerStatistics(listener, this.queue);
+		}
+
+		void add(BatchApplicationListener<?> listener, ApplicationEvent event) {
+			QueuedEvent queuedEvent = new QueuedEvent(listener, event);
+			if (!this.queue.offer(queuedEvent)) {
+				this.statistics.recordRejection();
+				switch (rejectionPolicy) {
+					case ABORT:
+						throw new TaskRejectedException("Queue for batch listener [" + listener +
+								"] is full - rejected event: " + event);
+					case DISCARD:
+						if (logger.isDebugEnabled()) {
+							logger.debug("Queue for batch listener [" + listener +
+									"] is full - discarding event: " + event);
+						}
+						break;
+					case DISCARD_OLDEST:
+						do {
+							this.queue.poll();
+						}
+						while (!this.queue.offer(queuedEvent));
+						break;
+					case CALLER_RUNS:
+						addOrDrain(queuedEvent);
+						break;
+				}
+			}
+			schedule();
+		}
+
+		private void addOrDrain(QueuedEvent queuedEvent) {
+			if (this.drainingThread == Thread.currentThread()) {
+				// Published by the listener itself: waiting for the queue would never end
+				deliver(Collections.singletonList(queuedEvent));
+				return;
+			}
+			try {
+				while (!this.queue.offer(queuedEvent, 10, TimeUnit.MILLISECONDS)) {
+					if (this.scheduled.compareAndSet(false, true)) {
+						// No task is draining the queue: drain it in the calling thread
+						run();
+					}
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new TaskRejectedException("Interrupted while waiting for queue of batch listener [" +
+						queuedEvent.listener + "] - rejected event: " + queuedEvent.event);
+			}
+		}
+
+		private void schedule() {
+			if (!this.queue.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+				try {
+					batchExecutor.execute(this);
+				}
+				catch (RejectedExecutionException ex) {
+					this.scheduled.set(false);
+					throw ex;
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			do {
+				this.drainingThread = Thread.currentThread();
+				List<QueuedEvent> batch = new ArrayList<>();
+				QueuedEvent head;
+				while ((head = this.queue.peek()) != null &&
+						this.queue.drainTo(batch, Math.max(head.listener.getMaxBatchSize(), 1)) > 0) {
+					try {
+						deliver(batch);
+					}
+					catch (Throwable ex) {
+						logger.error("Unexpected error occurred in batch listener [" + head.listener + "]", ex);
+					}
+					batch.clear();
+				}
+				// Events queued from here on schedule a new task, unless we
+				// reclaim the queue right away below
+				this.drainingThread = null;
+				this.scheduled.set(false);
+			}
+			while (!this.queue.isEmpty() && this.scheduled.compareAndSet(false, true));
+		}
+
+		private void deliver(List<QueuedEvent> batch) {
+			List<ApplicationEvent> events = new ArrayList<>(batch.size());
+			for (QueuedEvent queuedEvent : batch) {
+				events.add(queuedEvent.event);
+			}
+			try {
+				invokeBatchListener(batch.get(0).listener, events);
+			}
+			finally {
+				this.statistics.recordBatch(events.size(), System.nanoTime() - batch.get(0).timestamp);
+			}
+		}
+	}
+
+}
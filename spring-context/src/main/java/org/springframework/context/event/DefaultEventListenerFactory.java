@@ -20,12 +20,15 @@ import java.lang.reflect.Method;
 
 import org.springframework.context.ApplicationListener;
 import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 
 /**
  * Default {@link EventListenerFactory} implementation that supports the
  * regular {@link EventListener} annotation.
  *
- * <p>Used as "catch-all" implementation by default.
+ * <p>Used as "catch-all" implementation by default. Creates a
+ * {@link BatchApplicationListenerMethodAdapter} for methods declaring a
+ * {@link EventListener#batchSize() batchSize}.
  *
  * @author Stephane Nicoll
  * @since 4.2
@@ -51,6 +54,10 @@ public class DefaultEventListenerFactory implements EventListenerFactory, Ordere
 
 	@Override
 	public ApplicationListener<?> createApplicationListener(String beanName, Class<?> type, Method method) {
+		EventListener ann = AnnotatedElementUtils.findMergedAnnotation(method, EventListener.class);
+		if (ann != null && ann.batchSize() > 0) {
+			return new BatchApplicationListenerMethodAdapter(beanName, type, method);
+		}
 		return new ApplicationListenerMethodAdapter(beanName, type, method);
 	}
 
@@ -128,4 +128,19 @@ public @interface EventListener {
 	 */
 	String condition() default "";
 
+	/**
+	 * The maximum number of events to pass to the annotated method at once.
+	 * <p>If this attribute is specified with a positive value, the annotated
+	 * method must declare a single {@link java.util.List} (or
+	 * {@link java.util.Collection}) parameter whose element type reflects the
+	 * event type to listen to, and it is registered as a
+	 * {@link BatchApplicationListener}. Events are coalesced into batches by a
+	 * {@link BatchingApplicationEventMulticaster}; other multicasters pass each
+	 * event as a batch of one.
+	 * <p>A {@link #condition} is not supported for batch listeners.
+	 * <p>The default is {@code 0}, meaning that events are passed one at a time.
+	 * @since 5.2
+	 */
+	int batchSize() default 0;
+
 }
@@ -16,8 +16,19 @@
 
 package org.springframework.context.support;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.annotation.Annotation;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
@@ -27,6 +38,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import com.sun.org.glassfish.external.statistics.annotations.Reset;
 import org.apache.commons.logging.Log;
@@ -40,6 +52,8 @@ import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionSnapshot;
 import org.springframework.beans.support.ResourceEditorRegistrar;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -76,12 +90,16 @@ import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.WritableResource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * Abstract implementation of the {@link org.springframework.context.ApplicationContext}
@@ -179,6 +197,14 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	/** BeanFactoryPostProcessors to apply on refresh. */
 	private final List<BeanFactoryPostProcessor> beanFactoryPostProcessors = new ArrayList<>();
 
+	/** Snapshot of bean definitions to restore on refresh, if any. */
+	@Nullable
+	private Resource beanDefinitionSnapshot;
+
+	/** Custom fingerprint for bean definition snapshots, if any. */
+	@Nullable
+	private String beanDefinitionSnapshotFingerprint;
+
 	/** System time in milliseconds when this context started. */
 	private long startupDate;
 
@@ -496,6 +522,171 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		return this.beanFactoryPostProcessors;
 	}
 
+	/**
+	 * Specify a snapshot of bean definitions to restore on {@link #refresh()},
+	 * as created by {@link #createBeanDefinitionSnapshot()}, typically at build time.
+	 * <p>If the resource exists and its fingerprint matches the
+	 * {@linkplain #getBeanDefinitionSnapshotFingerprint() current fingerprint},
+	 * the bean definitions of the snapshot are registered instead of invoking
+	 * {@link org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor#postProcessBeanDefinitionRegistry
+	 * BeanDefinitionRegistryPostProcessors}, skipping configuration class parsing
+	 * and component scanning in particular. Regular bean factory post-processing
+	 * still takes place.
+	 * <p>A snapshot that does not exist, cannot be read, or does not match the
+	 * current fingerprint is ignored, with bean definitions being processed as
+	 * usual, and is then rewritten with the resulting bean definitions if the
+	 * resource is a {@link WritableResource}, e.g. a file. The snapshot thereby
+	 * acts as a cache that is refreshed whenever the class path changes.
+	 * <p>Note that the snapshot reflects the conditions evaluated when it was
+	 * created: it should be created with the same profiles and configuration
+	 * properties that affect bean registration as used at runtime.
+	 * @param beanDefinitionSnapshot the snapshot resource, or {@code null} for none
+	 * @since 5.2
+	 * @see #setBeanDefinitionSnapshotFingerprint
+	 */
+	public void setBeanDefinitionSnapshot(@Nullable Resource beanDefinitionSnapshot) {
+		this.beanDefinitionSnapshot = beanDefinitionSnapshot;
+	}
+
+	/**
+	 * Specify a custom fingerprint for bean definition snapshots, e.g. a build
+	 * identifier, instead of the default fingerprint of the class path.
+	 * @param beanDefinitionSnapshotFingerprint the fingerprint, or {@code null}
+	 * for the default
+	 * @since 5.2
+	 * @see #getBeanDefinitionSnapshotFingerprint()
+	 */
+	public void setBeanDefinitionSnapshotFingerprint(@Nullable String beanDefinitionSnapshotFingerprint) {
+		this.beanDefinitionSnapshotFingerprint = beanDefinitionSnapshotFingerprint;
+	}
+
+	/**
+	 * Return the fingerprint that a bean definition snapshot must match in order
+	 * to be restored on refresh.
+	 * <p>Unless a {@linkplain #setBeanDefinitionSnapshotFingerprint custom
+	 * fingerprint} has been specified, this is a digest of the names, sizes and
+	 * last-modified timestamps of the files in the class path of the
+	 * {@linkplain #getClassLoader() context ClassLoader}, excluding the snapshot
+	 * itself, along with the active profiles. File contents are not read. Since
+	 * timestamps usually differ between build and runtime, a snapshot created at
+	 * build time requires a custom fingerprint such as a build identifier.
+	 * @since 5.2
+	 */
+	protected String getBeanDefinitionSnapshotFingerprint() {
+		if (this.beanDefinitionSnapshotFingerprint != null) {
+			return this.beanDefinitionSnapshotFingerprint;
+		}
+		Path snapshotFile = getBeanDefinitionSnapshotFile();
+		StringBuilder builder = new StringBuilder();
+		for (Path entry : getClassPathEntries(getClassLoader())) {
+			appendClassPathEntry(builder, entry, snapshotFile);
+		}
+		builder.append("profiles=").append(StringUtils.arrayToCommaDelimitedString(getEnvironment().getActiveProfiles()));
+		return DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Nullable
+	private Path getBeanDefinitionSnapshotFile() {
+		Resource resource = this.beanDefinitionSnapshot;
+		if (resource != null && resource.isFile()) {
+			try {
+				return resource.getFile().toPath().toAbsolutePath().normalize();
+			}
+			catch (IOException ex) {
+				// Not resolvable as a file after all
+			}
+		}
+		return null;
+	}
+
+	private static Set<Path> getClassPathEntries(@Nullable ClassLoader classLoader) {
+		Set<Path> entries = new LinkedHashSet<>();
+		for (ClassLoader cl = classLoader; cl != null; cl = cl.getParent()) {
+			if (cl instanceof URLClassLoader) {
+				for (URL url : ((URLClassLoader) cl).getURLs()) {
+					if (ResourceUtils.URL_PROTOCOL_FILE.equals(url.getProtocol())) {
+						try {
+							entries.add(Paths.get(url.toURI()));
+						}
+						catch (URISyntaxException | IllegalArgumentException ex) {
+							throw new IllegalStateException("Cannot resolve class path entry " + url, ex);
+						}
+					}
+				}
+			}
+		}
+		// Application class path, e.g. not exposed by the system ClassLoader on JDK 9+
+		String classPath = System.getProperty("java.class.path", "");
+		for (String entry : StringUtils.tokenizeToStringArray(classPath, File.pathSeparator)) {
+			entries.add(Paths.get(entry).toAbsolutePath());
+		}
+		return entries;
+	}
+
+	private static void appendClassPathEntry(StringBuilder builder, Path entry, @Nullable Path excludedFile) {
+		if (Files.isDirectory(entry)) {
+			try (Stream<Path> files = Files.walk(entry)) {
+				files.filter(file -> Files.isRegularFile(file) &&
+						!file.toAbsolutePath().normalize().equals(excludedFile)).sorted().forEach(file ->
+						appendFileAttributes(builder, entry.relativize(file).toString(), file));
+			}
+			catch (IOException | UncheckedIOException ex) {
+				builder.append(entry).append(":?\n");
+			}
+		}
+		else if (Files.exists(entry)) {
+			appendFileAttributes(builder, entry.toString(), entry);
+		}
+		else {
+			builder.append(entry).append(":-\n");
+		}
+	}
+
+	private static void appendFileAttributes(StringBuilder builder, String name, Path file) {
+		builder.append(name).append(':');
+		try {
+			builder.append(Files.size(file)).append(':').append(Files.getLastModifiedTime(file).toMillis());
+		}
+		catch (IOException ex) {
+			builder.append('?');
+		}
+		builder.append('\n');
+	}
+
+	/**
+	 * Create a snapshot of the bean definitions of this context, as registered
+	 * after {@link org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor
+	 * BeanDefinitionRegistryPostProcessors} have been invoked, for restoring at
+	 * a later startup via {@link #setBeanDefinitionSnapshot}.
+	 * <p>This prepares the bean factory like {@link #refresh()} does, up to and
+	 * including bean definition registry post-processing, but does not instantiate
+	 * any beans other than those post-processors. The context is not refreshed
+	 * afterwards, and can only be {@linkplain #close() closed}.
+	 * @return the snapshot, to be written to a resource
+	 * @throws BeansException if the bean factory could not be prepared
+	 * @throws org.springframework.beans.factory.BeanDefinitionStoreException
+	 * if a bean definition cannot be captured in a snapshot
+	 * @since 5.2
+	 * @see BeanDefinitionSnapshot#write(java.io.OutputStream)
+	 */
+	public BeanDefinitionSnapshot createBeanDefinitionSnapshot() throws BeansException {
+		synchronized (this.startupShutdownMonitor) {
+			prepareRefresh();
+			ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
+			if (!(beanFactory instanceof BeanDefinitionRegistry)) {
+				throw new IllegalStateException(
+						"Bean definition snapshots require a BeanDefinitionRegistry: " + beanFactory);
+			}
+			prepareBeanFactory(beanFactory);
+			postProcessBeanFactory(beanFactory);
+			// Same state as when checked on refresh, i.e. before any @PropertySource got added
+			String fingerprint = getBeanDefinitionSnapshotFingerprint();
+			PostProcessorRegistrationDelegate.invokeBeanFactoryPostProcessors(
+					beanFactory, getBeanFactoryPostProcessors(), true, false);
+			return BeanDefinitionSnapshot.capture((BeanDefinitionRegistry) beanFactory, fingerprint);
+		}
+	}
+
 	@Override
 	public void addApplicationListener(ApplicationListener<?> listener) {
 		Assert.notNull(listener, "ApplicationListener must not be null");
@@ -738,7 +929,21 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	 */
 	protected void invokeBeanFactoryPostProcessors(ConfigurableListableBeanFactory beanFactory) {
 		// 执行BeanFactoryPostProcessors
-		PostProcessorRegistrationDelegate.invokeBeanFactoryPostProcessors(beanFactory, getBeanFactoryPostProcessors());
+		Resource snapshotResource = this.beanDefinitionSnapshot;
+		if (snapshotResource != null && beanFactory instanceof BeanDefinitionRegistry) {
+			BeanDefinitionRegistry registry = (BeanDefinitionRegistry) beanFactory;
+			String fingerprint = getBeanDefinitionSnapshotFingerprint();
+			if (!restoreBeanDefinitionSnapshot(registry, snapshotResource, fingerprint)) {
+				PostProcessorRegistrationDelegate.invokeBeanFactoryPostProcessors(
+						beanFactory, getBeanFactoryPostProcessors(), true, false);
+				writeBeanDefinitionSnapshot(registry, snapshotResource, fingerprint);
+			}
+			PostProcessorRegistrationDelegate.invokeBeanFactoryPostProcessors(
+					beanFactory, getBeanFactoryPostProcessors(), false, true);
+		}
+		else {
+			PostProcessorRegistrationDelegate.invokeBeanFactoryPostProcessors(beanFactory, getBeanFactoryPostProcessors());
+		}
 
 		// Detect a LoadTimeWeaver and prepare for weaving, if found in the meantime
 		// (e.g. through an @Bean method registered by ConfigurationClassPostProcessor)
@@ -749,6 +954,64 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		}
 	}
 
+	/**
+	 * Register the bean definitions of the given {@linkplain #setBeanDefinitionSnapshot
+	 * bean definition snapshot}, if it exists and matches the given fingerprint.
+	 * @return whether the snapshot has been restored
+	 */
+	private boolean restoreBeanDefinitionSnapshot(
+			BeanDefinitionRegistry registry, Resource resource, String fingerprint) {
+
+		if (!resource.exists()) {
+			return false;
+		}
+		BeanDefinitionSnapshot snapshot;
+		try (InputStream in = resource.getInputStream()) {
+			snapshot = BeanDefinitionSnapshot.read(in);
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring unreadable bean definition snapshot " + resource + ": " + ex);
+			}
+			return false;
+		}
+		if (!snapshot.getFingerprint().equals(fingerprint)) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring bean definition snapshot " + resource +
+						" which does not match the current class path and active profiles");
+			}
+			return false;
+		}
+		int count = snapshot.registerBeanDefinitions(registry, getClassLoader());
+		if (logger.isDebugEnabled()) {
+			logger.debug("Restored " + count + " bean definitions from snapshot " + resource);
+		}
+		return true;
+	}
+
+	/**
+	 * Write the bean definitions of the given registry to the given
+	 * {@linkplain #setBeanDefinitionSnapshot bean definition snapshot},
+	 * if writable, for them to be restored on the next refresh.
+	 */
+	private void writeBeanDefinitionSnapshot(BeanDefinitionRegistry registry, Resource resource, String fingerprint) {
+		if (!(resource instanceof WritableResource) ||
+				(resource.exists() && !((WritableResource) resource).isWritable())) {
+			return;
+		}
+		try (OutputStream out = ((WritableResource) resource).getOutputStream()) {
+			BeanDefinitionSnapshot.capture(registry, fingerprint).write(out);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Wrote bean definition snapshot " + resource);
+			}
+		}
+		catch (IOException | BeansException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to write bean definition snapshot " + resource + ": " + ex);
+			}
+		}
+	}
+
 	/**
 	 * Instantiate and register all BeanPostProcessor beans,
 	 * respecting explicit order if given.
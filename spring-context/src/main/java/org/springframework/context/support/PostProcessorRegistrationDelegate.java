@@ -55,6 +55,26 @@ final class PostProcessorRegistrationDelegate {
 	public static void invokeBeanFactoryPostProcessors(
 			ConfigurableListableBeanFactory beanFactory, List<BeanFactoryPostProcessor> beanFactoryPostProcessors) {
 
+		invokeBeanFactoryPostProcessors(beanFactory, beanFactoryPostProcessors, true, true);
+	}
+
+	/**
+	 * Invoke the given BeanFactoryPostProcessors as well as the ones defined as
+	 * beans, optionally limited to either phase of the post-processing.
+	 * @param beanFactory the bean factory to post-process
+	 * @param beanFactoryPostProcessors the post-processors registered with the context
+	 * @param postProcessRegistry whether to invoke the
+	 * {@link BeanDefinitionRegistryPostProcessor#postProcessBeanDefinitionRegistry}
+	 * callbacks, or rather assume that their effect has been restored already
+	 * @param postProcessBeanFactory whether to invoke the
+	 * {@link BeanFactoryPostProcessor#postProcessBeanFactory} callbacks,
+	 * or rather stop once the registry has been post-processed
+	 * @since 5.2
+	 */
+	public static void invokeBeanFactoryPostProcessors(
+			ConfigurableListableBeanFactory beanFactory, List<BeanFactoryPostProcessor> beanFactoryPostProcessors,
+			boolean postProcessRegistry, boolean postProcessBeanFactory) {
+
 		// Invoke BeanDefinitionRegistryPostProcessors first, if any.
 		Set<String> processedBeans = new HashSet<>();
 
@@ -74,7 +94,9 @@ final class PostProcessorRegistrationDelegate {
 				if (postProcessor instanceof BeanDefinitionRegistryPostProcessor) {
 					BeanDefinitionRegistryPostProcessor registryProcessor =
 							(BeanDefinitionRegistryPostProcessor) postProcessor;
-					registryProcessor.postProcessBeanDefinitionRegistry(registry);
+					if (postProcessRegistry) {
+						registryProcessor.postProcessBeanDefinitionRegistry(registry);
+					}
 					registryProcessors.add(registryProcessor);
 				}
 				else {
@@ -103,7 +125,9 @@ final class PostProcessorRegistrationDelegate {
 			// 添加postProcessor
 			registryProcessors.addAll(currentRegistryProcessors);
 			// 执行BeanDefinitionRegistryPostProcessors
-			invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry);
+			if (postProcessRegistry) {
+				invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry);
+			}
 			// 清空
 			currentRegistryProcessors.clear();
 
@@ -121,7 +145,9 @@ final class PostProcessorRegistrationDelegate {
 			// 添加postProcessor
 			registryProcessors.addAll(currentRegistryProcessors);
 			// 执行BeanDefinitionRegistryPostProcessors
-			invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry);
+			if (postProcessRegistry) {
+				invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry);
+			}
 			// 清空
 			currentRegistryProcessors.clear();
 
@@ -143,11 +169,17 @@ final class PostProcessorRegistrationDelegate {
 				// 添加postProcessor
 				registryProcessors.addAll(currentRegistryProcessors);
 				// 执行BeanDefinitionRegistryPostProcessors
-				invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry);
+				if (postProcessRegistry) {
+					invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry);
+				}
 				// 清空
 				currentRegistryProcessors.clear();
 			}
 
+			if (!postProcessBeanFactory) {
+				return;
+			}
+
 			// Now, invoke the postProcessBeanFactory callback of all processors handled so far.
 
 			// 执行BeanFactoryPostProcessor的postProcessBeanFactory()方法，在这里，可以更改definition或者提前针对bean做特殊处理
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Date;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.TaskUtils;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * A simple implementation of Spring's {@link TaskScheduler} interface, using
+ * a single scheduler thread and executing every scheduled task in an individual
+ * separate thread. This is an attractive choice with virtual threads on JDK 21,
+ * expecting common usage with {@link #setVirtualThreads setVirtualThreads(true)}.
+ *
+ * <p>Supports a graceful shutdown through {@link #destroy()}, and inherits the
+ * concurrency limit, task decorator and metrics of {@link SimpleAsyncTaskExecutor}.
+ *
+ * <p>Note that tasks scheduled by trigger or at a fixed rate are handed off to
+ * separate threads and may therefore overlap with previous executions of the
+ * same task, whereas fixed-delay tasks are executed on the single scheduler
+ * thread in order to measure the delay between completion and next start.
+ * Consider {@link ThreadPoolTaskScheduler} for strict non-overlapping
+ * execution semantics.
+ *
+ * @since 5.2
+ * @see #setVirtualThreads
+ * @see #setErrorHandler
+ * @see ThreadPoolTaskScheduler
+ */
+@SuppressWarnings("serial")
+public class SimpleAsyncTaskScheduler extends SimpleAsyncTaskExecutor implements TaskScheduler, DisposableBean {
+
+	private final ScheduledThreadPoolExecutor scheduledExecutor = createScheduledExecutor();
+
+	@Nullable
+	private volatile ErrorHandler errorHandler;
+
+
+	/**
+	 * Set a custom {@link ErrorHandler} strategy.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	private ScheduledThreadPoolExecutor createScheduledExecutor() {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, getThreadNamePrefix() + "scheduling");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		return executor;
+	}
+
+
+	@Override
+	@Nullable
+	public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+		ErrorHandler errorHandler = this.errorHandler;
+		if (errorHandler == null) {
+			errorHandler = TaskUtils.getDefaultErrorHandler(true);
+		}
+		try {
+			return new ReschedulingRunnable(delegatingTask(task, true), trigger, this.scheduledExecutor, errorHandler)
+					.schedule();
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+		long initialDelay = startTime.getTime() - System.currentTimeMillis();
+		try {
+			return this.scheduledExecutor.schedule(
+					delegatingTask(task, false), initialDelay, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+		long initialDelay = startTime.getTime() - System.currentTimeMillis();
+		try {
+			return this.scheduledExecutor.scheduleAtFixedRate(
+					delegatingTask(task, true), initialDelay, period, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+		try {
+			return this.scheduledExecutor.scheduleAtFixedRate(
+					delegatingTask(task, true), 0, period, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+		long initialDelay = startTime.getTime() - System.currentTimeMillis();
+		try {
+			return this.scheduledExecutor.scheduleWithFixedDelay(
+					errorHandlingTask(task, true), initialDelay, delay, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+		try {
+			return this.scheduledExecutor.scheduleWithFixedDelay(
+					errorHandlingTask(task, true), 0, delay, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+	/**
+	 * Stop the scheduler thread: no further tasks will be triggered,
+	 * whereas tasks which are executing already keep running.
+	 */
+	@Override
+	public void destroy() {
+		this.scheduledExecutor.shutdown();
+	}
+
+
+	private Runnable delegatingTask(Runnable task, boolean isRepeatingTask) {
+		Runnable taskToUse = errorHandlingTask(task, isRepeatingTask);
+		return () -> execute(taskToUse);
+	}
+
+	private Runnable errorHandlingTask(Runnable task, boolean isRepeatingTask) {
+		return TaskUtils.decorateTaskWithErrorHandler(task, this.errorHandler, isRepeatingTask);
+	}
+
+}
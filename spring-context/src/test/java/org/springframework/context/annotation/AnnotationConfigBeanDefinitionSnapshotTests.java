@@ -0,0 +1,214 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.FileSystemUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for restoring an {@link AnnotationConfigApplicationContext} from a
+ * {@link org.springframework.beans.factory.support.BeanDefinitionSnapshot}.
+ */
+public class AnnotationConfigBeanDefinitionSnapshotTests {
+
+	private Resource snapshot;
+
+
+	@Before
+	public void createSnapshot() throws IOException {
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.register(SnapshotConfig.class);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ctx.createBeanDefinitionSnapshot().write(out);
+		ctx.close();
+		this.snapshot = new ByteArrayResource(out.toByteArray());
+		CountingRegistryPostProcessor.registryInvocations = 0;
+		CountingRegistryPostProcessor.factoryInvocations = 0;
+	}
+
+
+	@Test
+	public void restoreFromSnapshot() {
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.setBeanDefinitionSnapshot(this.snapshot);
+		ctx.refresh();
+
+		TestBean testBean = ctx.getBean("testBean", TestBean.class);
+		assertThat(testBean.getName()).isEqualTo("p1TestBean");
+		assertThat(testBean.getSpouse()).isSameAs(ctx.getBean("spouse"));
+		assertThat(ctx.getEnvironment().getProperty("from.p1")).isEqualTo("p1Value");
+
+		AnnotationMetadata importMetadata = ctx.getBean(ImportedConfig.class).importMetadata;
+		assertThat(importMetadata).isNotNull();
+		assertThat(importMetadata.getClassName()).isEqualTo(SnapshotConfig.class.getName());
+
+		assertThat(CountingRegistryPostProcessor.registryInvocations).isEqualTo(0);
+		assertThat(CountingRegistryPostProcessor.factoryInvocations).isEqualTo(1);
+		ctx.close();
+	}
+
+	@Test
+	public void restoredConfigurationClassesAreAnnotated() {
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.setBeanDefinitionSnapshot(this.snapshot);
+		ctx.refresh();
+
+		BeanDefinition config = ctx.getBeanDefinition("annotationConfigBeanDefinitionSnapshotTests.SnapshotConfig");
+		assertThat(config).isInstanceOf(AnnotatedBeanDefinition.class);
+		assertThat(((AnnotatedBeanDefinition) config).getMetadata().hasAnnotation(Configuration.class.getName())).isTrue();
+		BeanDefinition testBean = ctx.getBeanDefinition("testBean");
+		assertThat(testBean).isInstanceOf(AnnotatedBeanDefinition.class);
+		MethodMetadata factoryMethod = ((AnnotatedBeanDefinition) testBean).getFactoryMethodMetadata();
+		assertThat(factoryMethod).isNotNull();
+		assertThat(factoryMethod.getMethodName()).isEqualTo("testBean");
+		ctx.close();
+	}
+
+	@Test
+	public void ignoreSnapshotWithDifferentFingerprint() {
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.register(SnapshotConfig.class);
+		ctx.setBeanDefinitionSnapshot(this.snapshot);
+		ctx.setBeanDefinitionSnapshotFingerprint("other");
+		ctx.refresh();
+
+		assertThat(ctx.getBean("testBean", TestBean.class).getName()).isEqualTo("p1TestBean");
+		assertThat(CountingRegistryPostProcessor.registryInvocations).isEqualTo(1);
+		assertThat(CountingRegistryPostProcessor.factoryInvocations).isEqualTo(1);
+		ctx.close();
+	}
+
+	@Test
+	public void ignoreUnreadableSnapshot() {
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.register(SnapshotConfig.class);
+		ctx.setBeanDefinitionSnapshot(new ByteArrayResource(new byte[] {1, 2, 3, 4}));
+		ctx.refresh();
+
+		assertThat(ctx.getBean("testBean", TestBean.class).getName()).isEqualTo("p1TestBean");
+		assertThat(CountingRegistryPostProcessor.registryInvocations).isEqualTo(1);
+		ctx.close();
+	}
+
+	@Test
+	public void rewriteStaleSnapshotInClassPath() throws Exception {
+		Path classPathDir = Files.createTempDirectory("AnnotationConfigBeanDefinitionSnapshotTests");
+		try (URLClassLoader classLoader = new URLClassLoader(
+				new URL[] {classPathDir.toUri().toURL()}, getClass().getClassLoader())) {
+			Path snapshotFile = classPathDir.resolve("beans.snapshot");
+			Files.write(snapshotFile, new byte[] {1, 2, 3, 4});
+
+			AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+			ctx.setClassLoader(classLoader);
+			ctx.register(SnapshotConfig.class);
+			ctx.setBeanDefinitionSnapshot(new FileSystemResource(snapshotFile));
+			ctx.refresh();
+			ctx.close();
+			assertThat(CountingRegistryPostProcessor.registryInvocations).isEqualTo(1);
+
+			// Snapshot rewritten, and not part of the class path fingerprint
+			ctx = new AnnotationConfigApplicationContext();
+			ctx.setClassLoader(classLoader);
+			ctx.setBeanDefinitionSnapshot(new FileSystemResource(snapshotFile));
+			ctx.refresh();
+			assertThat(ctx.getBean("testBean", TestBean.class).getName()).isEqualTo("p1TestBean");
+			assertThat(CountingRegistryPostProcessor.registryInvocations).isEqualTo(1);
+			ctx.close();
+		}
+		finally {
+			FileSystemUtils.deleteRecursively(classPathDir);
+		}
+	}
+
+
+	@Configuration
+	@Import(ImportedConfig.class)
+	@PropertySource("classpath:org/springframework/context/annotation/p1.properties")
+	static class SnapshotConfig {
+
+		@Bean
+		public static CountingRegistryPostProcessor countingRegistryPostProcessor() {
+			return new CountingRegistryPostProcessor();
+		}
+
+		@Bean
+		public TestBean testBean(@Value("${testbean.name}") String name) {
+			TestBean testBean = new TestBean(name);
+			testBean.setSpouse(spouse());
+			return testBean;
+		}
+
+		@Bean
+		public TestBean spouse() {
+			return new TestBean();
+		}
+	}
+
+
+	@Configuration
+	static class ImportedConfig implements ImportAware {
+
+		AnnotationMetadata importMetadata;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importMetadata = importMetadata;
+		}
+	}
+
+
+	static class CountingRegistryPostProcessor implements BeanDefinitionRegistryPostProcessor {
+
+		static int registryInvocations;
+
+		static int factoryInvocations;
+
+		@Override
+		public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+			registryInvocations++;
+		}
+
+		@Override
+		public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+			factoryInvocations++;
+		}
+	}
+
+}
@@ -16,11 +16,15 @@
 
 package org.springframework.context.event;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.junit.Test;
@@ -303,6 +307,42 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		context.close();
 	}
 
+	@Test
+	public void listenerRegistrationDuringConcurrentMulticast() throws Exception {
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread publisher = new Thread(() -> {
+			try {
+				for (int i = 0; running.get(); i++) {
+					smc.multicastEvent(new PayloadApplicationEvent<>(this, (i % 2 == 0 ? i : String.valueOf(i))));
+				}
+			}
+			catch (Throwable ex) {
+				failure.set(ex);
+			}
+		});
+		publisher.start();
+
+		List<AtomicInteger> counters = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			AtomicInteger counter = new AtomicInteger();
+			counters.add(counter);
+			smc.addApplicationListener(event -> counter.incrementAndGet());
+			Thread.yield();
+		}
+		running.set(false);
+		publisher.join();
+		assertThat(failure.get()).isNull();
+
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, "final"));
+		for (AtomicInteger counter : counters) {
+			assertThat(counter.get()).isGreaterThan(0);
+		}
+		smc.removeAllListeners();
+		assertThat(smc.retrieverCache).isEmpty();
+	}
+
 	@Test
 	public void listenersInApplicationContextWithPayloadEvents() {
 		StaticApplicationContext context = new StaticApplicationContext();
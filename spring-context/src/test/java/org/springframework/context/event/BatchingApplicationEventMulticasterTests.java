@@ -0,0 +1,346 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.task.TaskRejectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link BatchingApplicationEventMulticaster}.
+ */
+public class BatchingApplicationEventMulticasterTests {
+
+	private final ManualExecutor executor = new ManualExecutor();
+
+	private final BatchingApplicationEventMulticaster multicaster = new BatchingApplicationEventMulticaster();
+
+
+	@Test
+	public void coalesceEventsIntoBatches() {
+		RecordingBatchListener listener = new RecordingBatchListener(3);
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.setBatchExecutor(this.executor);
+
+		for (int i = 0; i < 5; i++) {
+			this.multicaster.multicastEvent(new TestEvent(i));
+		}
+		assertThat(listener.batches).isEmpty();
+		assertThat(this.executor.tasks).hasSize(1);
+
+		this.executor.runAll();
+		assertThat(listener.batches).hasSize(2);
+		assertThat(listener.batches.get(0)).extracting("source").containsExactly(0, 1, 2);
+		assertThat(listener.batches.get(1)).extracting("source").containsExactly(3, 4);
+
+		BatchingApplicationEventMulticaster.ListenerStatistics statistics =
+				this.multicaster.getListenerStatistics(listener);
+		assertThat(statistics.getEventCount()).isEqualTo(5);
+		assertThat(statistics.getBatchCount()).isEqualTo(2);
+		assertThat(statistics.getRejectedCount()).isEqualTo(0);
+		assertThat(statistics.getQueueSize()).isEqualTo(0);
+		assertThat(statistics.getMaxLatency()).isGreaterThanOrEqualTo(statistics.getAverageLatency());
+		assertThat(this.multicaster.getListenerStatistics()).containsExactly(statistics);
+	}
+
+	@Test
+	public void invokeRegularListenerDirectly() {
+		List<ApplicationEvent> events = new ArrayList<>();
+		this.multicaster.addApplicationListener((ApplicationListener<TestEvent>) events::add);
+		this.multicaster.setBatchExecutor(this.executor);
+
+		this.multicaster.multicastEvent(new TestEvent(1));
+		assertThat(events).hasSize(1);
+		assertThat(this.executor.tasks).isEmpty();
+		assertThat(this.multicaster.getListenerStatistics()).isEmpty();
+	}
+
+	@Test
+	public void rejectWithAbort() {
+		RecordingBatchListener listener = fillQueue(BatchingApplicationEventMulticaster.RejectionPolicy.ABORT);
+		assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() ->
+				this.multicaster.multicastEvent(new TestEvent(2)));
+		this.executor.runAll();
+		assertThat(listener.batches).hasSize(1);
+		assertThat(listener.batches.get(0)).extracting("source").containsExactly(0, 1);
+		assertThat(this.multicaster.getListenerStatistics(listener).getRejectedCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void rejectWithAbortAfterInvokingAllListeners() {
+		RecordingBatchListener listener = fillQueue(BatchingApplicationEventMulticaster.RejectionPolicy.ABORT);
+		List<ApplicationEvent> events = new ArrayList<>();
+		this.multicaster.addApplicationListener((ApplicationListener<TestEvent>) events::add);
+		assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() ->
+				this.multicaster.multicastEvent(new TestEvent(2)));
+		assertThat(events).extracting("source").containsExactly(2);
+		this.executor.runAll();
+		assertThat(listener.batches.get(0)).extracting("source").containsExactly(0, 1);
+	}
+
+	@Test
+	public void rejectWithDiscard() {
+		RecordingBatchListener listener = fillQueue(BatchingApplicationEventMulticaster.RejectionPolicy.DISCARD);
+		this.multicaster.multicastEvent(new TestEvent(2));
+		this.executor.runAll();
+		assertThat(listener.batches).hasSize(1);
+		assertThat(listener.batches.get(0)).extracting("source").containsExactly(0, 1);
+	}
+
+	@Test
+	public void rejectWithDiscardOldest() {
+		RecordingBatchListener listener = fillQueue(BatchingApplicationEventMulticaster.RejectionPolicy.DISCARD_OLDEST);
+		this.multicaster.multicastEvent(new TestEvent(2));
+		this.executor.runAll();
+		assertThat(listener.batches).hasSize(1);
+		assertThat(listener.batches.get(0)).extracting("source").containsExactly(1, 2);
+	}
+
+	@Test
+	public void rejectWithCallerRunsWaitsForDrainingTask() throws Exception {
+		RecordingBatchListener listener = fillQueue(BatchingApplicationEventMulticaster.RejectionPolicy.CALLER_RUNS);
+		Thread publisher = new Thread(() -> this.multicaster.multicastEvent(new TestEvent(2)));
+		publisher.start();
+		while (publisher.getState() != Thread.State.TIMED_WAITING) {
+			Thread.sleep(1);
+		}
+		assertThat(listener.batches).isEmpty();
+
+		this.executor.runAll();
+		publisher.join(10000);
+		assertThat(publisher.isAlive()).isFalse();
+		this.executor.runAll();
+		assertThat(listener.batches).hasSize(2);
+		assertThat(listener.batches.get(0)).extracting("source").containsExactly(0, 1);
+		assertThat(listener.batches.get(1)).extracting("source").containsExactly(2);
+		assertThat(this.multicaster.getListenerStatistics(listener).getEventCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void rejectWithCallerRunsDrainsQueueInCallingThread() {
+		RecordingBatchListener listener = new RecordingBatchListener(10);
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.setQueueCapacity(2);
+		this.multicaster.setBatchExecutor(task -> {
+			throw new RejectedExecutionException();
+		});
+		for (int i = 0; i < 2; i++) {
+			TestEvent event = new TestEvent(i);
+			assertThatExceptionOfType(RejectedExecutionException.class).isThrownBy(() ->
+					this.multicaster.multicastEvent(event));
+		}
+
+		this.multicaster.setBatchExecutor(this.executor);
+		this.multicaster.multicastEvent(new TestEvent(2));
+		assertThat(listener.batches).hasSize(1);
+		assertThat(listener.batches.get(0)).extracting("source").containsExactly(0, 1);
+		this.executor.runAll();
+		assertThat(listener.batches).hasSize(2);
+		assertThat(listener.batches.get(1)).extracting("source").containsExactly(2);
+	}
+
+	@Test
+	public void rejectWithCallerRunsForEventPublishedByListener() {
+		RecordingBatchListener listener = new RecordingBatchListener(10) {
+			@Override
+			public void onApplicationEvents(List<ApplicationEvent> events) {
+				super.onApplicationEvents(events);
+				if (this.batches.size() == 1) {
+					multicaster.multicastEvent(new TestEvent(2));
+					multicaster.multicastEvent(new TestEvent(3));
+					multicaster.multicastEvent(new TestEvent(4));
+				}
+			}
+		};
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.setBatchExecutor(this.executor);
+		this.multicaster.setQueueCapacity(2);
+		this.multicaster.multicastEvent(new TestEvent(0));
+		this.multicaster.multicastEvent(new TestEvent(1));
+
+		this.executor.runAll();
+		assertThat(listener.batches).hasSize(3);
+		assertThat(listener.batches.get(0)).extracting("source").containsExactly(0, 1);
+		assertThat(listener.batches.get(1)).extracting("source").containsExactly(4);
+		assertThat(listener.batches.get(2)).extracting("source").containsExactly(2, 3);
+	}
+
+	@Test
+	public void releaseQueueOfRemovedListener() {
+		RecordingBatchListener listener = new RecordingBatchListener(10);
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.setBatchExecutor(this.executor);
+		this.multicaster.multicastEvent(new TestEvent(0));
+		assertThat(this.multicaster.getListenerStatistics(listener)).isNotNull();
+
+		this.multicaster.removeApplicationListener(listener);
+		assertThat(this.multicaster.getListenerStatistics(listener)).isNull();
+		assertThat(this.multicaster.getListenerStatistics()).isEmpty();
+	}
+
+	@Test
+	public void continueAfterListenerException() {
+		List<Throwable> errors = new ArrayList<>();
+		this.multicaster.setErrorHandler(errors::add);
+		RecordingBatchListener listener = new RecordingBatchListener(1) {
+			@Override
+			public void onApplicationEvents(List<ApplicationEvent> events) {
+				super.onApplicationEvents(events);
+				throw new IllegalStateException("Expected");
+			}
+		};
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.setBatchExecutor(this.executor);
+
+		this.multicaster.multicastEvent(new TestEvent(0));
+		this.multicaster.multicastEvent(new TestEvent(1));
+		this.executor.runAll();
+		assertThat(listener.batches).hasSize(2);
+		assertThat(errors).hasSize(2);
+	}
+
+	@Test
+	public void batchEventListenerMethod() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.registerBean(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME,
+				BatchingApplicationEventMulticaster.class, () -> this.multicaster);
+		context.register(BatchListenerConfig.class);
+		context.refresh();
+		this.multicaster.setBatchExecutor(this.executor);
+
+		context.publishEvent("one");
+		context.publishEvent(2);
+		context.publishEvent("three");
+		context.publishEvent(new TestEvent(4));
+		this.executor.runAll();
+
+		BatchListenerConfig config = context.getBean(BatchListenerConfig.class);
+		assertThat(config.payloads).hasSize(1);
+		assertThat(config.payloads.get(0)).containsExactly("one", "three");
+		assertThat(config.events).hasSize(1);
+		assertThat(config.events.get(0)).extracting("source").containsExactly(4);
+		context.close();
+	}
+
+	@Test
+	public void batchEventListenerMethodWithSimpleMulticaster() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(BatchListenerConfig.class);
+		context.publishEvent("one");
+		context.publishEvent("two");
+
+		BatchListenerConfig config = context.getBean(BatchListenerConfig.class);
+		assertThat(config.payloads).hasSize(2);
+		assertThat(config.payloads.get(0)).containsExactly("one");
+		assertThat(config.payloads.get(1)).containsExactly("two");
+		context.close();
+	}
+
+
+	private RecordingBatchListener fillQueue(BatchingApplicationEventMulticaster.RejectionPolicy rejectionPolicy) {
+		RecordingBatchListener listener = new RecordingBatchListener(10);
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.setBatchExecutor(this.executor);
+		this.multicaster.setQueueCapacity(2);
+		this.multicaster.setRejectionPolicy(rejectionPolicy);
+		this.multicaster.multicastEvent(new TestEvent(0));
+		this.multicaster.multicastEvent(new TestEvent(1));
+		return listener;
+	}
+
+
+	@SuppressWarnings("serial")
+	static class TestEvent extends ApplicationEvent {
+
+		TestEvent(int id) {
+			super(id);
+		}
+	}
+
+
+	static class RecordingBatchListener implements BatchApplicationListener<ApplicationEvent> {
+
+		final List<List<ApplicationEvent>> batches = new ArrayList<>();
+
+		private final int maxBatchSize;
+
+		RecordingBatchListener(int maxBatchSize) {
+			this.maxBatchSize = maxBatchSize;
+		}
+
+		@Override
+		public int getMaxBatchSize() {
+			return this.maxBatchSize;
+		}
+
+		@Override
+		public void onApplicationEvents(List<ApplicationEvent> events) {
+			this.batches.add(new ArrayList<>(events));
+		}
+	}
+
+
+	static class ManualExecutor implements Executor {
+
+		final List<Runnable> tasks = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public void execute(Runnable task) {
+			this.tasks.add(task);
+		}
+
+		void runAll() {
+			while (!this.tasks.isEmpty()) {
+				this.tasks.remove(0).run();
+			}
+		}
+	}
+
+
+	@Configuration
+	static class BatchListenerConfig {
+
+		final List<List<String>> payloads = new ArrayList<>();
+
+		final List<List<TestEvent>> events = new ArrayList<>();
+
+		@EventListener(batchSize = 10)
+		public void onPayloads(List<String> payloads) {
+			this.payloads.add(new ArrayList<>(payloads));
+		}
+
+		@EventListener(batchSize = 10)
+		public void onEvents(List<TestEvent> events) {
+			this.events.add(new ArrayList<>(events));
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.Trigger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Unit tests for {@link SimpleAsyncTaskScheduler}.
+ */
+public class SimpleAsyncTaskSchedulerTests {
+
+	private static final String THREAD_NAME_PREFIX = "test-";
+
+	private final SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+
+
+	@After
+	public void shutdownScheduler() {
+		this.scheduler.destroy();
+	}
+
+
+	@Test
+	public void scheduleOneTimeTask() throws Exception {
+		this.scheduler.setThreadNamePrefix(THREAD_NAME_PREFIX);
+		TestTask task = new TestTask(1);
+		this.scheduler.schedule(task, new Date());
+		await(task.latch);
+		assertThat(task.lastThread.getName()).startsWith(THREAD_NAME_PREFIX);
+		assertThat(task.lastThread.getName()).isNotEqualTo(THREAD_NAME_PREFIX + "scheduling");
+	}
+
+	@Test
+	public void scheduleOneTimeFailingTaskWithErrorHandler() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		this.scheduler.setErrorHandler(ex -> latch.countDown());
+		this.scheduler.schedule(new TestTask(0), new Date());
+		await(latch);
+	}
+
+	@Test
+	public void scheduleTriggerTask() throws Exception {
+		TestTask task = new TestTask(3);
+		AtomicInteger triggerCount = new AtomicInteger();
+		Trigger trigger = triggerContext ->
+				(triggerCount.getAndIncrement() < 3 ? new Date(System.currentTimeMillis() + 10) : null);
+		this.scheduler.schedule(task, trigger);
+		await(task.latch);
+	}
+
+	@Test
+	public void scheduleAtFixedRate() throws Exception {
+		TestTask task = new TestTask(3);
+		this.scheduler.scheduleAtFixedRate(task, 10);
+		await(task.latch);
+	}
+
+	@Test
+	public void scheduleWithFixedDelay() throws Exception {
+		this.scheduler.setThreadNamePrefix(THREAD_NAME_PREFIX);
+		TestTask task = new TestTask(3);
+		this.scheduler.scheduleWithFixedDelay(task, 10);
+		await(task.latch);
+		assertThat(task.lastThread.getName()).isEqualTo(THREAD_NAME_PREFIX + "scheduling");
+	}
+
+	@Test
+	public void scheduleAfterDestroy() {
+		this.scheduler.destroy();
+		assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() ->
+				this.scheduler.schedule(new TestTask(1), new Date()));
+	}
+
+
+	private static void await(CountDownLatch latch) throws InterruptedException {
+		latch.await(1000, TimeUnit.MILLISECONDS);
+		assertThat(latch.getCount()).as("latch did not count down,").isEqualTo(0);
+	}
+
+
+	private static class TestTask implements Runnable {
+
+		private final int expectedRunCount;
+
+		private final AtomicInteger actualRunCount = new AtomicInteger();
+
+		private final CountDownLatch latch;
+
+		private volatile Thread lastThread;
+
+		TestTask(int expectedRunCount) {
+			this.expectedRunCount = expectedRunCount;
+			this.latch = new CountDownLatch(expectedRunCount);
+		}
+
+		@Override
+		public void run() {
+			this.lastThread = Thread.currentThread();
+			if (this.actualRunCount.incrementAndGet() > this.expectedRunCount) {
+				throw new RuntimeException("intentional test failure");
+			}
+			this.latch.countDown();
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+
+/**
+ * Benchmarks for {@link AnnotationUtils} and {@link MergedAnnotations} lookups,
+ * for present (meta-)annotations as well as for absent ones.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergedAnnotationsBenchmark {
+
+	@Benchmark
+	public Object findAnnotationOnClass(LookupState state) {
+		return AnnotationUtils.findAnnotation(state.annotatedClass, Component.class);
+	}
+
+	@Benchmark
+	public Object findAbsentAnnotationOnClass(LookupState state) {
+		return AnnotationUtils.findAnnotation(state.plainClass, Component.class);
+	}
+
+	@Benchmark
+	public Object findAnnotationOnMethod(LookupState state) {
+		return AnnotationUtils.findAnnotation(state.annotatedMethod, Component.class);
+	}
+
+	@Benchmark
+	public boolean isPresentInTypeHierarchy(LookupState state) {
+		return MergedAnnotations.from(state.annotatedClass, SearchStrategy.TYPE_HIERARCHY).isPresent(Component.class);
+	}
+
+	@Benchmark
+	public boolean isAbsentInTypeHierarchy(LookupState state) {
+		return MergedAnnotations.from(state.plainClass, SearchStrategy.TYPE_HIERARCHY).isPresent(Component.class);
+	}
+
+	@Benchmark
+	public Object getMergedAttribute(LookupState state) {
+		return MergedAnnotations.from(state.annotatedClass, SearchStrategy.TYPE_HIERARCHY)
+				.get(Component.class).getString("value");
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class LookupState {
+
+		Class<?> annotatedClass;
+
+		Class<?> plainClass;
+
+		Method annotatedMethod;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.annotatedClass = AnnotatedSubclass.class;
+			this.plainClass = PlainSubclass.class;
+			this.annotatedMethod = AnnotatedSubclass.class.getMethod("handle");
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	@interface Component {
+
+		String value() default "";
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Component
+	@interface Service {
+
+		@AliasFor(annotation = Component.class)
+		String value() default "";
+	}
+
+	interface Handler {
+
+		@Service
+		void handle();
+	}
+
+	@Service("base")
+	static class AnnotatedBase implements Handler {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+	static class AnnotatedSubclass extends AnnotatedBase {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+	static class PlainBase {
+	}
+
+	static class PlainSubclass extends PlainBase implements Runnable {
+
+		@Override
+		public void run() {
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Benchmarks for line splitting in {@link StringDecoder}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringDecoderBenchmark {
+
+	@Benchmark
+	public void decodeLines(DecodeState state, Blackhole blackhole) {
+		Flux<DataBuffer> input = Flux.fromIterable(state.chunks).map(state::wrap);
+		state.decoder.decode(input, DecodeState.ELEMENT_TYPE, MimeTypeUtils.TEXT_PLAIN, Collections.emptyMap())
+				.doOnNext(blackhole::consume)
+				.blockLast();
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class DecodeState {
+
+		static final ResolvableType ELEMENT_TYPE = ResolvableType.forClass(String.class);
+
+		@Param({"1024", "65536"})
+		int chunkSize;
+
+		@Param({"80"})
+		int lineLength;
+
+		final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		final StringDecoder decoder = StringDecoder.allMimeTypes();
+
+		List<byte[]> chunks;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			StringBuilder builder = new StringBuilder();
+			while (builder.length() < 1024 * 1024) {
+				for (int i = 0; i < this.lineLength - 1; i++) {
+					builder.append((char) ('a' + (i % 26)));
+				}
+				builder.append('\n');
+			}
+			byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+			this.chunks = new ArrayList<>();
+			for (int offset = 0; offset < bytes.length; offset += this.chunkSize) {
+				byte[] chunk = new byte[Math.min(this.chunkSize, bytes.length - offset)];
+				System.arraycopy(bytes, offset, chunk, 0, chunk.length);
+				this.chunks.add(chunk);
+			}
+		}
+
+		DataBuffer wrap(byte[] chunk) {
+			return this.bufferFactory.wrap(chunk);
+		}
+	}
+
+}
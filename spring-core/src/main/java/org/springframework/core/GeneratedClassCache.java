@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.springframework.cglib.core.CodeGenerationException;
+import org.springframework.cglib.core.ReflectUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Cache for values backed by classes generated at runtime (e.g. with ASM)
+ * in the class loader and package of an owner class, such as invokers which
+ * call constructors or methods of the owner class without reflection.
+ *
+ * <p>Values are created at most once per key for owner classes that are
+ * cache-safe with respect to the class loader of this class, and strongly
+ * cached. Values for owner classes in other class loaders are softly cached
+ * in order to not prevent those class loaders from being collected.
+ *
+ * <p>Generated classes are given a deterministic name, derived from the owner
+ * class and a discriminator identifying the generated code, and a class that
+ * is already defined under that name is reused rather than defined again. As
+ * a consequence, a value that is evicted from the soft cache, or created
+ * concurrently for the same key, does not define any further class.
+ *
+ * @since 5.2
+ * @param <K> the type of the cache keys
+ * @param <V> the type of the cached values
+ * @see ReflectUtils#defineClass
+ */
+public class GeneratedClassCache<K, V> {
+
+	private final String classNameSeparator;
+
+	private final ConcurrentMap<K, V> strongCache = new ConcurrentHashMap<>(64);
+
+	private final ConcurrentMap<K, V> softCache = new ConcurrentReferenceHashMap<>(64);
+
+
+	/**
+	 * Create a new cache for generated classes with the given separator
+	 * between the name of the owner class and the discriminator.
+	 * @param classNameSeparator the class name separator, e.g. {@code "$$SpringInvoker$$"}
+	 */
+	public GeneratedClassCache(String classNameSeparator) {
+		Assert.hasText(classNameSeparator, "Class name separator must not be empty");
+		this.classNameSeparator = classNameSeparator;
+	}
+
+
+	/**
+	 * Return the value for the given key, creating it on first access.
+	 * @param key the cache key
+	 * @param ownerClass the class in whose class loader generated classes
+	 * for the value are defined, determining whether the value can be
+	 * cached strongly
+	 * @param valueFactory the function to create the value with
+	 * @return the cached or newly created value
+	 */
+	public V get(K key, Class<?> ownerClass, Function<? super K, ? extends V> valueFactory) {
+		if (ClassUtils.isCacheSafe(ownerClass, GeneratedClassCache.class.getClassLoader())) {
+			return this.strongCache.computeIfAbsent(key, valueFactory);
+		}
+		return this.softCache.computeIfAbsent(key, valueFactory);
+	}
+
+	/**
+	 * Return the class generated for the given owner class and discriminator,
+	 * generating and defining it in the class loader of the owner class unless
+	 * it has been defined there before.
+	 * @param ownerClass the class in whose class loader and package to define
+	 * the generated class
+	 * @param discriminator a description of the generated code which is unique
+	 * for the owner class, e.g. the descriptor of an invoked constructor
+	 * @param generator the function to generate the bytecode with, given the
+	 * name of the class to generate
+	 * @return the generated class
+	 * @throws Exception if the class could not be generated or defined
+	 */
+	public Class<?> defineClass(Class<?> ownerClass, String discriminator,
+			Function<String, byte[]> generator) throws Exception {
+
+		ClassLoader classLoader = ownerClass.getClassLoader();
+		Assert.state(classLoader != null, "Cannot define classes in the bootstrap class loader");
+		String className = ownerClass.getName() + this.classNameSeparator +
+				DigestUtils.md5DigestAsHex(discriminator.getBytes(StandardCharsets.UTF_8));
+		Class<?> existing = findClass(className, classLoader);
+		if (existing != null) {
+			return existing;
+		}
+		byte[] bytes = generator.apply(className);
+		try {
+			return ReflectUtils.defineClass(className, bytes, classLoader, ownerClass.getProtectionDomain(), ownerClass);
+		}
+		catch (CodeGenerationException ex) {
+			// Defined concurrently by another thread?
+			existing = findClass(className, classLoader);
+			if (existing != null) {
+				return existing;
+			}
+			throw ex;
+		}
+	}
+
+	@Nullable
+	private static Class<?> findClass(String className, ClassLoader classLoader) {
+		try {
+			return Class.forName(className, false, classLoader);
+		}
+		catch (ClassNotFoundException | LinkageError ex) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * Determine whether the given type can be referenced from a class
+	 * generated in the package and class loader of the given owner class.
+	 * @param type the type to check, possibly an array type
+	 * @param ownerClass the owner class of the generated class
+	 */
+	public static boolean isAccessible(Class<?> type, Class<?> ownerClass) {
+		Class<?> typeToCheck = type;
+		while (typeToCheck.isArray()) {
+			typeToCheck = typeToCheck.getComponentType();
+		}
+		return (typeToCheck.isPrimitive() || Modifier.isPublic(typeToCheck.getModifiers()) ||
+				isSamePackage(typeToCheck, ownerClass));
+	}
+
+	/**
+	 * Determine whether the given type is in the same runtime package as
+	 * the given owner class, i.e. in the same package and class loader.
+	 * @param type the type to check
+	 * @param ownerClass the owner class of the generated class
+	 */
+	public static boolean isSamePackage(Class<?> type, Class<?> ownerClass) {
+		return (ClassUtils.getPackageName(type).equals(ClassUtils.getPackageName(ownerClass)) &&
+				type.getClassLoader() == ownerClass.getClassLoader());
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.lang.reflect.Parameter;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Index of the annotation types that may be found on an annotated element
+ * for a given {@link SearchStrategy}, used to answer negative lookups in
+ * constant time, without scanning the element and its hierarchy.
+ *
+ * <p>Every annotation type that is indexed gets a sequential id. The index
+ * of an element is a bitmap of the ids of all annotation types declared
+ * anywhere in the hierarchy searched by the strategy, along with their
+ * meta-annotations and the annotations that they may contain as repeatable
+ * containers. The index is a superset of what a scan may find with the
+ * {@link AnnotationFilter#PLAIN} filter: a type that is not in the index of
+ * an element is known to be absent, while a type that is in the index still
+ * requires a scan.
+ *
+ * <p>Only classes, members and parameters are indexed. Indexes for elements
+ * whose classes are cache-safe with respect to the class loader of this class
+ * are held until {@link #clearCache()} is called, other indexes are softly
+ * referenced.
+ *
+ * @since 5.2
+ * @see TypeMappedAnnotations
+ */
+final class AnnotationIndex {
+
+	private static final long[] NOT_INDEXABLE = {};
+
+	private static final Map<String, Integer> typeIds = new ConcurrentHashMap<>(256);
+
+	private static final AtomicInteger nextTypeId = new AtomicInteger();
+
+	private static final Map<Class<? extends Annotation>, long[]> typeClosureCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+	private static final Map<AnnotatedElement, AtomicReferenceArray<long[]>> strongIndexCache =
+			new ConcurrentHashMap<>(256);
+
+	private static final Map<AnnotatedElement, AtomicReferenceArray<long[]>> softIndexCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+
+	private AnnotationIndex() {
+	}
+
+
+	/**
+	 * Determine whether an annotation of the given type is known to be absent
+	 * from the given element when searched with the given strategy.
+	 * @param element the annotated element
+	 * @param searchStrategy the search strategy
+	 * @param annotationType the name of the annotation type
+	 * @return {@code true} if the annotation is known to be absent, or
+	 * {@code false} if it may be present
+	 */
+	static boolean isKnownAbsent(AnnotatedElement element, SearchStrategy searchStrategy, String annotationType) {
+		long[] bitmap = getBitmap(element, searchStrategy);
+		if (bitmap == NOT_INDEXABLE) {
+			return false;
+		}
+		Integer id = typeIds.get(annotationType);
+		return (id == null || !isSet(bitmap, id));
+	}
+
+	private static long[] getBitmap(AnnotatedElement element, SearchStrategy searchStrategy) {
+		if (!(element instanceof Class || element instanceof Member || element instanceof Parameter)) {
+			return NOT_INDEXABLE;
+		}
+		Map<AnnotatedElement, AtomicReferenceArray<long[]>> cache =
+				(isCacheSafe(element) ? strongIndexCache : softIndexCache);
+		AtomicReferenceArray<long[]> bitmaps = cache.get(element);
+		if (bitmaps == null) {
+			bitmaps = new AtomicReferenceArray<>(SearchStrategy.values().length);
+			AtomicReferenceArray<long[]> existing = cache.putIfAbsent(element, bitmaps);
+			if (existing != null) {
+				bitmaps = existing;
+			}
+		}
+		long[] bitmap = bitmaps.get(searchStrategy.ordinal());
+		if (bitmap == null) {
+			bitmap = computeBitmap(element, searchStrategy);
+			bitmaps.set(searchStrategy.ordinal(), bitmap);
+		}
+		return bitmap;
+	}
+
+	private static long[] computeBitmap(AnnotatedElement element, SearchStrategy searchStrategy) {
+		try {
+			long[][] bitmap = {new long[1]};
+			AnnotationsScanner.scan(bitmap, element, searchStrategy, new AnnotationsProcessor<long[][], Object>() {
+				@Override
+				@Nullable
+				public Object doWithAnnotations(long[][] context, int aggregateIndex,
+						@Nullable Object source, Annotation[] annotations) {
+					for (Annotation annotation : annotations) {
+						if (annotation != null) {
+							context[0] = or(context[0], getTypeClosure(annotation.annotationType()));
+						}
+					}
+					return null;
+				}
+			});
+			return bitmap[0];
+		}
+		catch (Throwable ex) {
+			// Leave it up to the scan to report the problem
+			return NOT_INDEXABLE;
+		}
+	}
+
+	/**
+	 * Return the bitmap of the given annotation type, its meta-annotations and
+	 * the annotations that it may contain as a repeatable container.
+	 */
+	private static long[] getTypeClosure(Class<? extends Annotation> annotationType) {
+		long[] closure = typeClosureCache.get(annotationType);
+		if (closure == null) {
+			long[][] bitmap = {new long[1]};
+			addTypeClosure(annotationType, bitmap, new HashSet<>());
+			closure = bitmap[0];
+			typeClosureCache.put(annotationType, closure);
+		}
+		return closure;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void addTypeClosure(Class<? extends Annotation> annotationType, long[][] bitmap,
+			Set<Class<?>> visited) {
+
+		AnnotationTypeMappings mappings = AnnotationTypeMappings.forAnnotationType(annotationType);
+		for (int i = 0; i < mappings.size(); i++) {
+			Class<? extends Annotation> type = mappings.get(i).getAnnotationType();
+			if (!visited.add(type)) {
+				continue;
+			}
+			bitmap[0] = set(bitmap[0], getTypeId(type));
+			AttributeMethods attributes = AttributeMethods.forAnnotationType(type);
+			int valueIndex = attributes.indexOf(MergedAnnotation.VALUE);
+			if (valueIndex != -1) {
+				Class<?> valueType = attributes.get(valueIndex).getReturnType();
+				if (valueType.isArray() && valueType.getComponentType().isAnnotation()) {
+					addTypeClosure((Class<? extends Annotation>) valueType.getComponentType(), bitmap, visited);
+				}
+			}
+		}
+	}
+
+	private static int getTypeId(Class<? extends Annotation> annotationType) {
+		return typeIds.computeIfAbsent(annotationType.getName(), name -> nextTypeId.getAndIncrement());
+	}
+
+	private static boolean isSet(long[] bitmap, int id) {
+		int word = (id >>> 6);
+		return (word < bitmap.length && (bitmap[word] & (1L << id)) != 0);
+	}
+
+	private static long[] set(long[] bitmap, int id) {
+		long[] result = ensureLength(bitmap, (id >>> 6) + 1);
+		result[id >>> 6] |= (1L << id);
+		return result;
+	}
+
+	private static long[] or(long[] bitmap, long[] other) {
+		long[] result = ensureLength(bitmap, other.length);
+		for (int i = 0; i < other.length; i++) {
+			result[i] |= other[i];
+		}
+		return result;
+	}
+
+	private static long[] ensureLength(long[] bitmap, int length) {
+		if (bitmap.length >= length) {
+			return bitmap;
+		}
+		long[] result = new long[length];
+		System.arraycopy(bitmap, 0, result, 0, bitmap.length);
+		return result;
+	}
+
+	private static boolean isCacheSafe(AnnotatedElement element) {
+		Class<?> type;
+		if (element instanceof Class) {
+			type = (Class<?>) element;
+		}
+		else if (element instanceof Member) {
+			type = ((Member) element).getDeclaringClass();
+		}
+		else {
+			type = ((Parameter) element).getDeclaringExecutable().getDeclaringClass();
+		}
+		return ClassUtils.isCacheSafe(type, AnnotationIndex.class.getClassLoader());
+	}
+
+	static void clearCache() {
+		// Type ids are kept, since they may be in use by indexes being computed
+		strongIndexCache.clear();
+		softIndexCache.clear();
+		typeClosureCache.clear();
+	}
+
+}
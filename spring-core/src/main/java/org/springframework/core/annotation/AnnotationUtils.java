@@ -1275,6 +1275,7 @@ public abstract class AnnotationUtils {
 	public static void clearCache() {
 		AnnotationTypeMappings.clearCache();
 		AnnotationsScanner.clearCache();
+		AnnotationIndex.clearCache();
 	}
 
 
@@ -94,7 +94,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 
 	@Override
 	public <A extends Annotation> boolean isPresent(Class<A> annotationType) {
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType.getName())) {
 			return false;
 		}
 		return Boolean.TRUE.equals(scan(annotationType,
@@ -103,7 +103,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 
 	@Override
 	public boolean isPresent(String annotationType) {
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType)) {
 			return false;
 		}
 		return Boolean.TRUE.equals(scan(annotationType,
@@ -112,7 +112,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 
 	@Override
 	public <A extends Annotation> boolean isDirectlyPresent(Class<A> annotationType) {
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType.getName())) {
 			return false;
 		}
 		return Boolean.TRUE.equals(scan(annotationType,
@@ -121,7 +121,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 
 	@Override
 	public boolean isDirectlyPresent(String annotationType) {
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType)) {
 			return false;
 		}
 		return Boolean.TRUE.equals(scan(annotationType,
@@ -145,7 +145,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 			@Nullable Predicate<? super MergedAnnotation<A>> predicate,
 			@Nullable MergedAnnotationSelector<A> selector) {
 
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType.getName())) {
 			return MergedAnnotation.missing();
 		}
 		MergedAnnotation<A> result = scan(annotationType,
@@ -170,7 +170,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 			@Nullable Predicate<? super MergedAnnotation<A>> predicate,
 			@Nullable MergedAnnotationSelector<A> selector) {
 
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType)) {
 			return MergedAnnotation.missing();
 		}
 		MergedAnnotation<A> result = scan(annotationType,
@@ -234,6 +234,16 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		return aggregates;
 	}
 
+	/**
+	 * Determine whether the given annotation type is known to be absent,
+	 * according to the {@link AnnotationIndex} of the element.
+	 */
+	private boolean isKnownAbsent(String annotationType) {
+		return (this.element != null && this.searchStrategy != null &&
+				this.annotationFilter == AnnotationFilter.PLAIN &&
+				AnnotationIndex.isKnownAbsent(this.element, this.searchStrategy, annotationType));
+	}
+
 	@Nullable
 	private <C, R> R scan(C criteria, AnnotationsProcessor<C, R> processor) {
 		if (this.annotations != null) {
@@ -56,8 +56,17 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 	 */
 	public static final String BOUNDARY_STRING_HINT = ResourceRegionEncoder.class.getName() + ".boundaryString";
 
+	/**
+	 * The size of the regions mapped into memory for a
+	 * {@linkplain #setMappedReadThreshold memory-mapped read}.
+	 */
+	private static final int MAPPED_REGION_SIZE = 4 * 1024 * 1024;
+
+
 	private final int bufferSize;
 
+	private long mappedReadThreshold = -1;
+
 
 	public ResourceRegionEncoder() {
 		this(DEFAULT_BUFFER_SIZE);
@@ -69,6 +78,29 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 		this.bufferSize = bufferSize;
 	}
 
+
+	/**
+	 * Set the region size, in bytes, from which regions of file-based resources
+	 * are written from memory-mapped file regions rather than read into
+	 * allocated buffers, avoiding a copy of the file contents into the heap.
+	 * <p>By default this is set to -1, in which case memory-mapped reads are
+	 * not used.
+	 * @param mappedReadThreshold the minimum region size, or -1 to disable
+	 * @since 5.2
+	 * @see DataBufferUtils#readMapped
+	 */
+	public void setMappedReadThreshold(long mappedReadThreshold) {
+		this.mappedReadThreshold = mappedReadThreshold;
+	}
+
+	/**
+	 * Return the configured {@link #setMappedReadThreshold mapped read threshold}.
+	 * @since 5.2
+	 */
+	public long getMappedReadThreshold() {
+		return this.mappedReadThreshold;
+	}
+
 	@Override
 	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
 		return super.canEncode(elementType, mimeType)
@@ -129,6 +161,16 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 					"Writing region " + position + "-" + (position + count) + " of [" + resource + "]");
 		}
 
+		if (this.mappedReadThreshold >= 0 && count >= this.mappedReadThreshold && resource.isFile()) {
+			try {
+				return DataBufferUtils.readMapped(resource.getFile().toPath(), position, count,
+						bufferFactory, MAPPED_REGION_SIZE);
+			}
+			catch (IOException ex) {
+				return Flux.error(ex);
+			}
+		}
+
 		Flux<DataBuffer> in = DataBufferUtils.read(resource, position, bufferFactory, this.bufferSize);
 		return DataBufferUtils.takeUntilByteCount(in, count);
 	}
@@ -16,10 +16,7 @@
 
 package org.springframework.core.codec;
 
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -28,16 +25,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.function.IntPredicate;
 
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
-import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.core.io.buffer.PooledDataBuffer;
 import org.springframework.core.log.LogFormatUtils;
 import org.springframework.lang.Nullable;
@@ -51,6 +46,10 @@ import org.springframework.util.MimeTypeUtils;
  * This is to make sure that multibyte characters are decoded properly, and do not cross buffer
  * boundaries. The default delimiters ({@code \n}, {@code \r\n})can be customized.
  *
+ * <p>All delimiters are searched for in a single pass over each buffer. Lines contained
+ * in a single buffer are decoded from a slice of that buffer, and only lines that span
+ * several buffers are joined before decoding.
+ *
  * <p>Partially inspired by Netty's {@code DelimiterBasedFrameDecoder}.
  *
  * @author Sebastien Deleuze
@@ -96,13 +95,12 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 		byte[][] delimiterBytes = getDelimiterBytes(mimeType);
 
 		Flux<DataBuffer> inputFlux = Flux.defer(() -> {
-			DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(delimiterBytes);
+			LineSplitter splitter = new LineSplitter(DataBufferUtils.matcher(delimiterBytes), this.stripDelimiter);
 			return Flux.from(input)
-					.concatMapIterable(buffer -> endFrameAfterDelimiter(buffer, matcher))
-					.bufferUntil(buffer -> buffer instanceof EndFrameBuffer)
-					.map(buffers -> joinAndStrip(buffers, this.stripDelimiter))
+					.concatMapIterable(splitter::split)
+					.concatWith(Mono.fromSupplier(splitter::remainder))
+					.doFinally(signalType -> splitter.discard())
 					.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
-
 		});
 
 		return super.decode(inputFlux, elementType, mimeType, hints);
@@ -123,9 +121,8 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
 		Charset charset = getCharset(mimeType);
-		CharBuffer charBuffer = charset.decode(dataBuffer.asByteBuffer());
+		String value = decodeString(dataBuffer, charset);
 		DataBufferUtils.release(dataBuffer);
-		String value = charBuffer.toString();
 		LogFormatUtils.traceDebug(logger, traceOn -> {
 			String formatted = LogFormatUtils.formatValue(value, !traceOn);
 			return Hints.getLogPrefix(hints) + "Decoded " + formatted;
@@ -142,70 +139,17 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 		}
 	}
 
-	/**
-	 * Finds the first match and longest delimiter, {@link EndFrameBuffer} just after it.
-	 *
-	 * @param dataBuffer the buffer to find delimiters in
-	 * @param matcher used to find the first delimiters
-	 * @return a flux of buffers, containing {@link EndFrameBuffer} after each delimiter that was
-	 * found in {@code dataBuffer}. Returns  Flux, because returning List (w/ flatMapIterable)
-	 * results in memory leaks due to pre-fetching.
-	 */
-	private static List<DataBuffer> endFrameAfterDelimiter(DataBuffer dataBuffer, DataBufferUtils.Matcher matcher) {
-		List<DataBuffer> result = new ArrayList<>();
-		do {
-			int endIdx = matcher.match(dataBuffer);
-			if (endIdx != -1) {
-				int readPosition = dataBuffer.readPosition();
-				int length = endIdx - readPosition + 1;
-				result.add(dataBuffer.retainedSlice(readPosition, length));
-				result.add(new EndFrameBuffer(matcher.delimiter()));
-				dataBuffer.readPosition(endIdx + 1);
-			}
-			else {
-				result.add(DataBufferUtils.retain(dataBuffer));
-				break;
-			}
-		}
-		while (dataBuffer.readableByteCount() > 0);
-
-		DataBufferUtils.release(dataBuffer);
-		return result;
-	}
-
-	/**
-	 * Joins the given list of buffers. If the list ends with a {@link EndFrameBuffer}, it is
-	 * removed. If {@code stripDelimiter} is {@code true} and the resulting buffer ends with
-	 * a delimiter, it is removed.
-	 * @param dataBuffers the data buffers to join
-	 * @param stripDelimiter whether to strip the delimiter
-	 * @return the joined buffer
-	 */
-	private static DataBuffer joinAndStrip(List<DataBuffer> dataBuffers,
-			boolean stripDelimiter) {
-
-		Assert.state(!dataBuffers.isEmpty(), "DataBuffers should not be empty");
-
-		byte[] matchingDelimiter = null;
-
-		int lastIdx = dataBuffers.size() - 1;
-		DataBuffer lastBuffer = dataBuffers.get(lastIdx);
-		if (lastBuffer instanceof EndFrameBuffer) {
-			matchingDelimiter = ((EndFrameBuffer) lastBuffer).delimiter();
-			dataBuffers.remove(lastIdx);
+	private static String decodeString(DataBuffer dataBuffer, Charset charset) {
+		ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+		if (byteBuffer.hasArray()) {
+			// Decode straight from the backing array, without an intermediate CharBuffer
+			return new String(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(),
+					byteBuffer.remaining(), charset);
 		}
-
-		DataBuffer result = dataBuffers.get(0).factory().join(dataBuffers);
-
-		if (stripDelimiter && matchingDelimiter != null) {
-			result.writePosition(result.writePosition() - matchingDelimiter.length);
-		}
-		return result;
+		return charset.decode(byteBuffer).toString();
 	}
 
 
-
-
 	/**
 	 * Create a {@code StringDecoder} for {@code "text/plain"}.
 	 * @param ignored ignored
@@ -264,166 +208,96 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 	}
 
 
-	private static class EndFrameBuffer implements DataBuffer {
-
-		private static final DataBuffer BUFFER = new DefaultDataBufferFactory().wrap(new byte[0]);
-
-		private byte[] delimiter;
-
-
-		public EndFrameBuffer(byte[] delimiter) {
-			this.delimiter = delimiter;
-		}
-
-		public byte[] delimiter() {
-			return this.delimiter;
-		}
-
-		@Override
-		public DataBufferFactory factory() {
-			return BUFFER.factory();
-		}
-
-		@Override
-		public int indexOf(IntPredicate predicate, int fromIndex) {
-			return BUFFER.indexOf(predicate, fromIndex);
-		}
-
-		@Override
-		public int lastIndexOf(IntPredicate predicate, int fromIndex) {
-			return BUFFER.lastIndexOf(predicate, fromIndex);
-		}
-
-		@Override
-		public int readableByteCount() {
-			return BUFFER.readableByteCount();
-		}
-
-		@Override
-		public int writableByteCount() {
-			return BUFFER.writableByteCount();
-		}
-
-		@Override
-		public int capacity() {
-			return BUFFER.capacity();
-		}
-
-		@Override
-		public DataBuffer capacity(int capacity) {
-			return BUFFER.capacity(capacity);
-		}
-
-		@Override
-		public DataBuffer ensureCapacity(int capacity) {
-			return BUFFER.ensureCapacity(capacity);
-		}
-
-		@Override
-		public int readPosition() {
-			return BUFFER.readPosition();
-		}
-
-		@Override
-		public DataBuffer readPosition(int readPosition) {
-			return BUFFER.readPosition(readPosition);
-		}
-
-		@Override
-		public int writePosition() {
-			return BUFFER.writePosition();
-		}
-
-		@Override
-		public DataBuffer writePosition(int writePosition) {
-			return BUFFER.writePosition(writePosition);
-		}
-
-		@Override
-		public byte getByte(int index) {
-			return BUFFER.getByte(index);
-		}
-
-		@Override
-		public byte read() {
-			return BUFFER.read();
-		}
-
-		@Override
-		public DataBuffer read(byte[] destination) {
-			return BUFFER.read(destination);
-		}
-
-		@Override
-		public DataBuffer read(byte[] destination, int offset, int length) {
-			return BUFFER.read(destination, offset, length);
-		}
-
-		@Override
-		public DataBuffer write(byte b) {
-			return BUFFER.write(b);
-		}
-
-		@Override
-		public DataBuffer write(byte[] source) {
-			return BUFFER.write(source);
-		}
-
-		@Override
-		public DataBuffer write(byte[] source, int offset, int length) {
-			return BUFFER.write(source, offset, length);
-		}
-
-		@Override
-		public DataBuffer write(DataBuffer... buffers) {
-			return BUFFER.write(buffers);
-		}
-
-		@Override
-		public DataBuffer write(ByteBuffer... buffers) {
-			return BUFFER.write(buffers);
-		}
-
-		@Override
-		public DataBuffer write(CharSequence charSequence, Charset charset) {
-			return BUFFER.write(charSequence, charset);
-		}
-
-		@Override
-		public DataBuffer slice(int index, int length) {
-			return BUFFER.slice(index, length);
-		}
-
-		@Override
-		public DataBuffer retainedSlice(int index, int length) {
-			return BUFFER.retainedSlice(index, length);
-		}
-
-		@Override
-		public ByteBuffer asByteBuffer() {
-			return BUFFER.asByteBuffer();
-		}
-
-		@Override
-		public ByteBuffer asByteBuffer(int index, int length) {
-			return BUFFER.asByteBuffer(index, length);
+	/**
+	 * Splits a stream of data buffers into lines, keeping state across buffers.
+	 * Lines that are contained in a single buffer are emitted as retained slices
+	 * of that buffer; only lines that span buffers are joined.
+	 */
+	private static class LineSplitter {
+
+		private final DataBufferUtils.Matcher matcher;
+
+		private final boolean stripDelimiter;
+
+		/** Retained slices of the line in progress, if it started in a previous buffer. */
+		private final List<DataBuffer> pending = new ArrayList<>();
+
+		private boolean discarded;
+
+
+		public LineSplitter(DataBufferUtils.Matcher matcher, boolean stripDelimiter) {
+			this.matcher = matcher;
+			this.stripDelimiter = stripDelimiter;
+		}
+
+		/**
+		 * Return the lines completed by the given buffer, and keep any remaining
+		 * bytes for the next line. The given buffer is released.
+		 */
+		public synchronized List<DataBuffer> split(DataBuffer dataBuffer) {
+			List<DataBuffer> result = new ArrayList<>();
+			try {
+				if (this.discarded) {
+					return result;
+				}
+				do {
+					int endIdx = this.matcher.match(dataBuffer);
+					int readPosition = dataBuffer.readPosition();
+					if (endIdx == -1) {
+						this.pending.add(dataBuffer.retainedSlice(readPosition, dataBuffer.readableByteCount()));
+						break;
+					}
+					int length = endIdx - readPosition + 1;
+					int delimiterLength = this.matcher.delimiter().length;
+					if (this.pending.isEmpty()) {
+						result.add(dataBuffer.retainedSlice(readPosition,
+								this.stripDelimiter ? length - delimiterLength : length));
+					}
+					else {
+						// The delimiter may have started in a previous buffer
+						this.pending.add(dataBuffer.retainedSlice(readPosition, length));
+						DataBuffer line = joinPending();
+						if (this.stripDelimiter) {
+							line.writePosition(line.writePosition() - delimiterLength);
+						}
+						result.add(line);
+					}
+					dataBuffer.readPosition(endIdx + 1);
+				}
+				while (dataBuffer.readableByteCount() > 0);
+			}
+			catch (Throwable ex) {
+				result.forEach(DataBufferUtils::release);
+				throw ex;
+			}
+			finally {
+				DataBufferUtils.release(dataBuffer);
+			}
+			return result;
 		}
 
-		@Override
-		public InputStream asInputStream() {
-			return BUFFER.asInputStream();
+		/**
+		 * Return the trailing bytes not terminated by a delimiter, if any.
+		 */
+		@Nullable
+		public synchronized DataBuffer remainder() {
+			return (!this.discarded && !this.pending.isEmpty() ? joinPending() : null);
 		}
 
-		@Override
-		public InputStream asInputStream(boolean releaseOnClose) {
-			return BUFFER.asInputStream(releaseOnClose);
+		/**
+		 * Release any pending bytes, and ignore subsequent buffers.
+		 */
+		public synchronized void discard() {
+			this.discarded = true;
+			this.pending.forEach(DataBufferUtils::release);
+			this.pending.clear();
 		}
 
-		@Override
-		public OutputStream asOutputStream() {
-			return BUFFER.asOutputStream();
+		private DataBuffer joinPending() {
+			List<DataBuffer> buffers = new ArrayList<>(this.pending);
+			this.pending.clear();
+			return buffers.get(0).factory().join(buffers);
 		}
 	}
 
-
 }
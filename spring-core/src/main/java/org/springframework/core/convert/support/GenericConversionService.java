@@ -17,6 +17,8 @@
 package org.springframework.core.convert.support;
 
 import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -27,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.core.DecoratingProxy;
 import org.springframework.core.ResolvableType;
@@ -53,6 +56,11 @@ import org.springframework.util.StringUtils;
  * Indirectly implements {@link ConverterRegistry} as registration API through the
  * {@link ConfigurableConversionService} interface.
  *
+ * <p>Once all converters have been registered, the service may be
+ * {@linkplain #freeze() frozen}, rejecting further registrations in exchange
+ * for converter lookups by source and target class that neither allocate
+ * cache keys nor type descriptors for common scalar types.
+ *
  * @author Keith Donald
  * @author Juergen Hoeller
  * @author Chris Beams
@@ -73,11 +81,30 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 */
 	private static final GenericConverter NO_MATCH = new NoOpConverter("NO_MATCH");
 
+	/**
+	 * Scalar types for which converters are looked up when freezing,
+	 * as source types as well as target types.
+	 */
+	private static final Class<?>[] SCALAR_TYPES = {String.class, Boolean.class, Character.class,
+			Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+			BigInteger.class, BigDecimal.class};
+
+	/**
+	 * Primitive types for which converters are looked up when freezing, as target types.
+	 */
+	private static final Class<?>[] PRIMITIVE_TYPES = {boolean.class, char.class,
+			byte.class, short.class, int.class, long.class, float.class, double.class};
+
 
 	private final Converters converters = new Converters();
 
 	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
 
+	private final Map<Class<?>, Map<Class<?>, GenericConverter>> frozenConverterTable =
+			new ConcurrentReferenceHashMap<>(64);
+
+	private volatile boolean frozen;
+
 
 	// ConverterRegistry implementation
 
@@ -104,6 +131,7 @@ public class GenericConversionService implements ConfigurableConversionService {
 	public void addConverter(GenericConverter converter) {
 		// 给用户自定义的convert提供添加的接口
 		// ConverterRegistry.addConverter(org.springframework.core.convert.converter.GenericConverter)
+		assertNotFrozen();
 		this.converters.add(converter);
 		invalidateCache();
 	}
@@ -124,16 +152,56 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	@Override
 	public void removeConvertible(Class<?> sourceType, Class<?> targetType) {
+		assertNotFrozen();
 		this.converters.remove(sourceType, targetType);
 		invalidateCache();
 	}
 
 
+	/**
+	 * Freeze this conversion service, rejecting any further registration or
+	 * removal of converters.
+	 * <p>Converters for conversions between common scalar types (such as
+	 * {@code String}, {@code Boolean} and the {@code Number} types) are looked
+	 * up right away. From then on, {@link #convert(Object, Class)} and
+	 * {@link #canConvert(Class, Class)} resolve converters from a table keyed
+	 * by source and target class, with other pairs of classes added on demand.
+	 * @since 5.2
+	 * @see #isFrozen()
+	 */
+	public void freeze() {
+		if (this.frozen) {
+			return;
+		}
+		for (Class<?> sourceType : SCALAR_TYPES) {
+			for (Class<?> targetType : SCALAR_TYPES) {
+				getFrozenConverter(sourceType, targetType);
+			}
+			for (Class<?> targetType : PRIMITIVE_TYPES) {
+				getFrozenConverter(sourceType, targetType);
+			}
+		}
+		this.frozen = true;
+	}
+
+	/**
+	 * Return whether this conversion service has been frozen.
+	 * @since 5.2
+	 * @see #freeze()
+	 */
+	public boolean isFrozen() {
+		return this.frozen;
+	}
+
+
 	// ConversionService implementation
 
 	@Override
 	public boolean canConvert(@Nullable Class<?> sourceType, Class<?> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		if (this.frozen && sourceType != null) {
+			return (getFrozenConverter(sourceType, targetType) != null);
+		}
 		return canConvert((sourceType != null ? TypeDescriptor.valueOf(sourceType) : null),
 				TypeDescriptor.valueOf(targetType));
 	}
@@ -173,6 +241,18 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Nullable
 	public <T> T convert(@Nullable Object source, Class<T> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		if (this.frozen && source != null) {
+			GenericConverter converter = getFrozenConverter(source.getClass(), targetType);
+			if (converter == NO_OP_CONVERTER) {
+				return (T) source;
+			}
+			if (converter != null) {
+				TypeDescriptor sourceType = TypeDescriptor.valueOf(source.getClass());
+				TypeDescriptor targetTypeDescriptor = TypeDescriptor.valueOf(targetType);
+				Object result = ConversionUtils.invokeConverter(converter, source, sourceType, targetTypeDescriptor);
+				return (T) handleResult(sourceType, targetTypeDescriptor, result);
+			}
+		}
 		// TypeDescriptor.forObject(source) --> 获取source的原类型
 		return (T) convert(source, TypeDescriptor.forObject(source), TypeDescriptor.valueOf(targetType));
 	}
@@ -315,6 +395,36 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return generics;
 	}
 
+	/**
+	 * Look up the converter for the given classes in the frozen converter table,
+	 * populating the table on a miss.
+	 */
+	@Nullable
+	private GenericConverter getFrozenConverter(Class<?> sourceType, Class<?> targetType) {
+		Map<Class<?>, GenericConverter> convertersForSource = this.frozenConverterTable.get(sourceType);
+		if (convertersForSource == null) {
+			convertersForSource = new ConcurrentHashMap<>(16);
+			Map<Class<?>, GenericConverter> existing =
+					this.frozenConverterTable.putIfAbsent(sourceType, convertersForSource);
+			if (existing != null) {
+				convertersForSource = existing;
+			}
+		}
+		GenericConverter converter = convertersForSource.get(targetType);
+		if (converter == null) {
+			converter = getConverter(TypeDescriptor.valueOf(sourceType), TypeDescriptor.valueOf(targetType));
+			convertersForSource.put(targetType, (converter != null ? converter : NO_MATCH));
+			return converter;
+		}
+		return (converter != NO_MATCH ? converter : null);
+	}
+
+	private void assertNotFrozen() {
+		if (this.frozen) {
+			throw new IllegalStateException("Cannot modify converters of a frozen ConversionService");
+		}
+	}
+
 	private void invalidateCache() {
 		this.converterCache.clear();
 	}
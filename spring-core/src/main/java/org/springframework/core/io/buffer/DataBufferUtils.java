@@ -21,16 +21,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
 import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -62,6 +66,8 @@ public abstract class DataBufferUtils {
 
 	private static final Consumer<DataBuffer> RELEASE_CONSUMER = DataBufferUtils::release;
 
+	private static final DefaultDataBufferFactory MAPPED_DELEGATE_FACTORY = new DefaultDataBufferFactory();
+
 
 	//---------------------------------------------------------------------
 	// Reading
@@ -231,6 +237,64 @@ public abstract class DataBufferUtils {
 	}
 
 
+	/**
+	 * Map the given region of a file into a {@code Flux} of {@code DataBuffer}s
+	 * that expose memory-mapped regions of the file, rather than reading the
+	 * file contents into newly allocated buffers.
+	 * <p>Each buffer maps at most {@code regionSize} bytes, and is unmapped when
+	 * it is garbage collected. Buffers should not be used after they have been
+	 * {@linkplain #release(DataBuffer) released}, and the file must not be
+	 * truncated while it is mapped. The buffers are read-only.
+	 * @param path the path of the file to map
+	 * @param position the position to start mapping from
+	 * @param count the number of bytes to map, or -1 to map up to the end of the file
+	 * @param bufferFactory the factory to expose as {@link DataBuffer#factory()}
+	 * of the buffers, for allocating further buffers
+	 * @param regionSize the maximum size of the mapped regions
+	 * @return a Flux of memory-mapped data buffers
+	 * @since 5.2
+	 */
+	public static Flux<DataBuffer> readMapped(Path path, long position, long count,
+			DataBufferFactory bufferFactory, int regionSize) {
+
+		Assert.notNull(path, "Path must not be null");
+		Assert.notNull(bufferFactory, "BufferFactory must not be null");
+		Assert.isTrue(position >= 0, "'position' must be >= 0");
+		Assert.isTrue(regionSize > 0, "'regionSize' must be > 0");
+
+		Flux<DataBuffer> flux = Flux.using(() -> FileChannel.open(path, StandardOpenOption.READ),
+				channel -> {
+					long end;
+					try {
+						long size = channel.size();
+						end = (count < 0 ? size : Math.min(size, position + count));
+					}
+					catch (IOException ex) {
+						return Flux.error(ex);
+					}
+					return Flux.generate(() -> position, (current, sink) -> {
+						if (current >= end) {
+							sink.complete();
+							return current;
+						}
+						long length = Math.min(regionSize, end - current);
+						try {
+							MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, current, length);
+							sink.next(new PooledByteBufferDataBuffer(bufferFactory, new MappedRegion(),
+									DefaultDataBuffer.fromFilledByteBuffer(MAPPED_DELEGATE_FACTORY, mapped)));
+						}
+						catch (IOException ex) {
+							sink.error(ex);
+						}
+						return current + length;
+					});
+				},
+				DataBufferUtils::closeChannel);
+
+		return flux.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+	}
+
+
 	//---------------------------------------------------------------------
 	// Writing
 	//---------------------------------------------------------------------
@@ -549,7 +613,8 @@ public abstract class DataBufferUtils {
 	}
 
 	/** Return a {@link Matcher} for the given delimiters.  The matcher can be used to find the
-	 * delimiters in data buffers.
+	 * delimiters in data buffers. All delimiters are searched for in a single pass, and
+	 * when several delimiters end at the same position, the longest one is matched.
 	 * @param delimiters the delimiters bytes to find
 	 * @return the matcher
 	 * @since 5.2
@@ -560,11 +625,7 @@ public abstract class DataBufferUtils {
 			return matcher(delimiters[0]);
 		}
 		else {
-			Matcher[] matchers = new Matcher[delimiters.length];
-			for (int i = 0; i < delimiters.length; i++) {
-				matchers[i] = matcher(delimiters[i]);
-			}
-			return new CompositeMatcher(matchers);
+			return new AhoCorasickMatcher(delimiters);
 		}
 	}
 
@@ -841,6 +902,19 @@ public abstract class DataBufferUtils {
 
 	}
 
+	/**
+	 * Reference count of a memory-mapped file region. The region is not
+	 * unmapped when released, but when the buffer is garbage collected, since
+	 * accessing a region that has been unmapped would crash the JVM.
+	 */
+	private static class MappedRegion extends ReferenceCount {
+
+		@Override
+		protected void deallocate() {
+			// unmapped on garbage collection
+		}
+	}
+
 	/**
 	 * Implementation of {@link Matcher} that uses the Knuth-Morris-Pratt algorithm.
 	 *
@@ -908,57 +982,120 @@ public abstract class DataBufferUtils {
 	}
 
 	/**
-	 * Implementation of {@link Matcher} that wraps several other matchers.
+	 * Implementation of {@link Matcher} that finds several delimiters in a single
+	 * pass, using an Aho-Corasick automaton. The automaton state carries over from
+	 * one buffer to the next, so that delimiters spanning buffers are found as well.
+	 * If several delimiters end at the same position, the longest one is matched.
+	 *
+	 * @see <a href="https://en.wikipedia.org/wiki/Aho%E2%80%93Corasick_algorithm">Aho-Corasick algorithm</a>
 	 */
-	private static class CompositeMatcher implements Matcher {
+	private static class AhoCorasickMatcher implements Matcher {
 
-		private static final byte[] NO_DELIMITER = new byte[0];
+		private static final int ALPHABET_SIZE = 256;
 
-		private final Matcher[] matchers;
+		/** Next state, indexed by current state and unsigned byte value. */
+		private final int[][] transitions;
 
-		byte[] longestDelimiter = NO_DELIMITER;
+		/** Longest delimiter that ends in a given state, or {@code null}. */
+		private final byte[][] outputs;
 
+		private int state = 0;
 
-		public CompositeMatcher(Matcher[] matchers) {
-			this.matchers = matchers;
-		}
+		@Nullable
+		private byte[] matchedDelimiter;
 
-		@Override
-		public int match(DataBuffer dataBuffer) {
-			this.longestDelimiter = NO_DELIMITER;
-			int bestEndIdx = Integer.MAX_VALUE;
 
+		public AhoCorasickMatcher(byte[][] delimiters) {
+			int maxStates = 1;
+			for (byte[] delimiter : delimiters) {
+				Assert.isTrue(delimiter.length > 0, "Delimiter must not be empty");
+				maxStates += delimiter.length;
+			}
+			int[][] transitions = new int[maxStates][];
+			byte[][] outputs = new byte[maxStates][];
+			transitions[0] = newTransitions();
+			int stateCount = 1;
+
+			// Trie of all delimiters
+			for (byte[] delimiter : delimiters) {
+				int current = 0;
+				for (byte b : delimiter) {
+					int index = b & 0xFF;
+					if (transitions[current][index] == -1) {
+						transitions[stateCount] = newTransitions();
+						transitions[current][index] = stateCount++;
+					}
+					current = transitions[current][index];
+				}
+				outputs[current] = Arrays.copyOf(delimiter, delimiter.length);
+			}
 
-			for (Matcher matcher : this.matchers) {
-				int endIdx = matcher.match(dataBuffer);
-				if (endIdx != -1 &&
-						endIdx <= bestEndIdx &&
-						matcher.delimiter().length > this.longestDelimiter.length) {
-					bestEndIdx = endIdx;
-					this.longestDelimiter = matcher.delimiter();
+			// Breadth-first completion of the transitions along failure links
+			int[] failures = new int[stateCount];
+			Deque<Integer> queue = new ArrayDeque<>();
+			for (int index = 0; index < ALPHABET_SIZE; index++) {
+				int next = transitions[0][index];
+				if (next == -1) {
+					transitions[0][index] = 0;
+				}
+				else {
+					queue.add(next);
 				}
 			}
-			if (bestEndIdx == Integer.MAX_VALUE) {
-				this.longestDelimiter = NO_DELIMITER;
-				return -1;
+			while (!queue.isEmpty()) {
+				int current = queue.poll();
+				if (outputs[current] == null) {
+					outputs[current] = outputs[failures[current]];
+				}
+				for (int index = 0; index < ALPHABET_SIZE; index++) {
+					int next = transitions[current][index];
+					int fallback = transitions[failures[current]][index];
+					if (next == -1) {
+						transitions[current][index] = fallback;
+					}
+					else {
+						failures[next] = fallback;
+						queue.add(next);
+					}
+				}
 			}
-			else {
-				reset();
-				return bestEndIdx;
+
+			this.transitions = Arrays.copyOf(transitions, stateCount);
+			this.outputs = Arrays.copyOf(outputs, stateCount);
+		}
+
+		private static int[] newTransitions() {
+			int[] result = new int[ALPHABET_SIZE];
+			Arrays.fill(result, -1);
+			return result;
+		}
+
+		@Override
+		public int match(DataBuffer dataBuffer) {
+			int[][] transitions = this.transitions;
+			int state = this.state;
+			for (int i = dataBuffer.readPosition(); i < dataBuffer.writePosition(); i++) {
+				state = transitions[state][dataBuffer.getByte(i) & 0xFF];
+				byte[] output = this.outputs[state];
+				if (output != null) {
+					this.matchedDelimiter = output;
+					this.state = 0;
+					return i;
+				}
 			}
+			this.state = state;
+			return -1;
 		}
 
 		@Override
 		public byte[] delimiter() {
-			Assert.state(this.longestDelimiter != NO_DELIMITER, "Illegal state!");
-			return this.longestDelimiter;
+			Assert.state(this.matchedDelimiter != null, "No delimiter matched yet");
+			return this.matchedDelimiter;
 		}
 
 		@Override
 		public void reset() {
-			for (Matcher matcher : this.matchers) {
-				matcher.reset();
-			}
+			this.state = 0;
 		}
 	}
 
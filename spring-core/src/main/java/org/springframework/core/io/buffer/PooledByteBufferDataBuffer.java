@@ -0,0 +1,289 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.function.IntPredicate;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Implementation of the {@link PooledDataBuffer} interface that is backed by
+ * a reference counted {@link ByteBuffer}, such as one borrowed from a
+ * {@link PooledDataBufferFactory} or a region of a memory-mapped file.
+ * Pooled memory is returned to the pool once the reference count drops to
+ * zero, while mapped regions are left to garbage collection.
+ *
+ * <p>Slices share the reference count of the buffer they were created from,
+ * so that the memory is only recycled once the buffer and all retained slices
+ * have been released. Once released, a buffer must no longer be used.
+ *
+ * @since 5.2
+ * @see PooledDataBufferFactory
+ * @see DataBufferUtils#readMapped
+ */
+public class PooledByteBufferDataBuffer implements PooledDataBuffer {
+
+	private final DataBufferFactory dataBufferFactory;
+
+	private final ReferenceCount referenceCount;
+
+	private final DefaultDataBuffer delegate;
+
+
+	PooledByteBufferDataBuffer(DataBufferFactory dataBufferFactory,
+			ReferenceCount referenceCount, DefaultDataBuffer delegate) {
+
+		this.dataBufferFactory = dataBufferFactory;
+		this.referenceCount = referenceCount;
+		this.delegate = delegate;
+	}
+
+
+	@Override
+	public DataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	@Override
+	public boolean isAllocated() {
+		return this.referenceCount.isAllocated();
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer retain() {
+		this.referenceCount.retain();
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		return this.referenceCount.release();
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		return this.delegate.indexOf(predicate, fromIndex);
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		return this.delegate.lastIndexOf(predicate, fromIndex);
+	}
+
+	@Override
+	public int readableByteCount() {
+		return this.delegate.readableByteCount();
+	}
+
+	@Override
+	public int writableByteCount() {
+		return this.delegate.writableByteCount();
+	}
+
+	@Override
+	public int capacity() {
+		return this.delegate.capacity();
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer capacity(int capacity) {
+		this.delegate.capacity(capacity);
+		return this;
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer ensureCapacity(int capacity) {
+		this.delegate.ensureCapacity(capacity);
+		return this;
+	}
+
+	@Override
+	public int readPosition() {
+		return this.delegate.readPosition();
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer readPosition(int readPosition) {
+		this.delegate.readPosition(readPosition);
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return this.delegate.writePosition();
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer writePosition(int writePosition) {
+		this.delegate.writePosition(writePosition);
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		return this.delegate.getByte(index);
+	}
+
+	@Override
+	public byte read() {
+		return this.delegate.read();
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer read(byte[] destination) {
+		this.delegate.read(destination);
+		return this;
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer read(byte[] destination, int offset, int length) {
+		this.delegate.read(destination, offset, length);
+		return this;
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer write(byte b) {
+		this.delegate.write(b);
+		return this;
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer write(byte[] source) {
+		this.delegate.write(source);
+		return this;
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer write(byte[] source, int offset, int length) {
+		this.delegate.write(source, offset, length);
+		return this;
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer write(DataBuffer... buffers) {
+		this.delegate.write(buffers);
+		return this;
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer write(ByteBuffer... buffers) {
+		this.delegate.write(buffers);
+		return this;
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer write(CharSequence charSequence, Charset charset) {
+		this.delegate.write(charSequence, charset);
+		return this;
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer slice(int index, int length) {
+		return new PooledByteBufferDataBuffer(this.dataBufferFactory, this.referenceCount,
+				this.delegate.slice(index, length));
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer retainedSlice(int index, int length) {
+		return slice(index, length).retain();
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return this.delegate.asByteBuffer();
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		return this.delegate.asByteBuffer(index, length);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return this.delegate.asInputStream();
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		InputStream inputStream = this.delegate.asInputStream();
+		return (releaseOnClose ? new ReleasingInputStream(inputStream) : inputStream);
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return this.delegate.asOutputStream();
+	}
+
+
+	@Override
+	public boolean equals(@Nullable Object other) {
+		return (this == other || (other instanceof PooledByteBufferDataBuffer &&
+				this.delegate.equals(((PooledByteBufferDataBuffer) other).delegate)));
+	}
+
+	@Override
+	public int hashCode() {
+		return this.delegate.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("PooledByteBufferDataBuffer (r: %d, w: %d, c: %d)",
+				readPosition(), writePosition(), capacity());
+	}
+
+
+	private class ReleasingInputStream extends InputStream {
+
+		private final InputStream inputStream;
+
+		private boolean closed;
+
+		ReleasingInputStream(InputStream inputStream) {
+			this.inputStream = inputStream;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return this.inputStream.available();
+		}
+
+		@Override
+		public int read() throws IOException {
+			return this.inputStream.read();
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) throws IOException {
+			return this.inputStream.read(bytes, off, len);
+		}
+
+		@Override
+		public void close() {
+			if (!this.closed) {
+				this.closed = true;
+				DataBufferUtils.release(PooledByteBufferDataBuffer.this);
+			}
+		}
+	}
+
+}
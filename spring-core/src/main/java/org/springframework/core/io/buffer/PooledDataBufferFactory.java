@@ -0,0 +1,425 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Implementation of the {@code DataBufferFactory} interface that recycles the
+ * memory of released buffers, for runtimes without a buffer pool of their own
+ * (i.e. Servlet and Undertow, see {@code setDataBufferFactory} on the
+ * corresponding {@code HttpHandler} adapters).
+ *
+ * <p>Requested capacities are rounded up to power-of-two size classes, from
+ * {@value #MIN_POOLED_CAPACITY} bytes up to a configurable maximum. Released
+ * buffers go to a small per-thread cache first, and then to a bounded pool
+ * shared by all threads; buffers larger than the maximum are not pooled.
+ * Buffers created by this factory are {@link PooledDataBuffer PooledDataBuffers},
+ * and must be released through {@link DataBufferUtils#release(DataBuffer)}.
+ *
+ * <p>Buffers that are garbage collected without having been released are
+ * reported as leaks, according to the configured {@link LeakDetection} level.
+ *
+ * @since 5.2
+ * @see PooledByteBufferDataBuffer
+ */
+public class PooledDataBufferFactory implements DataBufferFactory {
+
+	/**
+	 * The default capacity when none is specified.
+	 */
+	public static final int DEFAULT_INITIAL_CAPACITY = DefaultDataBufferFactory.DEFAULT_INITIAL_CAPACITY;
+
+	/**
+	 * The capacity of the smallest size class.
+	 */
+	public static final int MIN_POOLED_CAPACITY = 256;
+
+	/**
+	 * The default capacity of the largest size class.
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	/**
+	 * The default number of buffers per size class cached for each thread.
+	 */
+	public static final int DEFAULT_THREAD_CACHE_SIZE = 16;
+
+	/**
+	 * The default number of buffers per size class shared by all threads.
+	 */
+	public static final int DEFAULT_SHARED_POOL_SIZE = 256;
+
+	private static final int MIN_POOLED_SHIFT = Integer.numberOfTrailingZeros(MIN_POOLED_CAPACITY);
+
+	/** Approximately one in this many buffers is tracked with {@link LeakDetection#SAMPLED}. */
+	private static final int LEAK_SAMPLING_INTERVAL = 128;
+
+	private static final Log logger = LogFactory.getLog(PooledDataBufferFactory.class);
+
+
+	private final boolean preferDirect;
+
+	private final int defaultInitialCapacity;
+
+	private final int maxPooledCapacity;
+
+	private final int threadCacheSize;
+
+	private final BlockingQueue<ByteBuffer>[] sharedPools;
+
+	private final ThreadLocal<ThreadCache> threadCache;
+
+	/** Used to create the unpooled buffers that pooled buffers delegate to. */
+	private final DefaultDataBufferFactory delegateFactory;
+
+	private final LongAdder activeBuffers = new LongAdder();
+
+	private volatile LeakDetection leakDetection = LeakDetection.SAMPLED;
+
+	private final ReferenceQueue<Allocation> leakQueue = new ReferenceQueue<>();
+
+	private final Set<LeakRecord> leakRecords = ConcurrentHashMap.newKeySet();
+
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory} with default settings.
+	 */
+	public PooledDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be pooled rather than heap buffers.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_MAX_POOLED_CAPACITY, DEFAULT_THREAD_CACHE_SIZE, DEFAULT_SHARED_POOL_SIZE);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param maxPooledCapacity the capacity of the largest size class, rounded
+	 * up to a power of two; larger buffers are not pooled
+	 * @param threadCacheSize the number of buffers per size class to cache
+	 * for each thread, or 0 for no thread-local caching
+	 * @param sharedPoolSize the number of buffers per size class to keep in
+	 * the pool shared by all threads
+	 */
+	@SuppressWarnings("unchecked")
+	public PooledDataBufferFactory(boolean preferDirect, int maxPooledCapacity,
+			int threadCacheSize, int sharedPoolSize) {
+
+		Assert.isTrue(maxPooledCapacity >= MIN_POOLED_CAPACITY,
+				() -> "'maxPooledCapacity' should be at least " + MIN_POOLED_CAPACITY);
+		Assert.isTrue(maxPooledCapacity <= (1 << 30), "'maxPooledCapacity' should be at most 2^30");
+		Assert.isTrue(threadCacheSize >= 0, "'threadCacheSize' should not be negative");
+		Assert.isTrue(sharedPoolSize > 0, "'sharedPoolSize' should be larger than 0");
+		this.preferDirect = preferDirect;
+		this.defaultInitialCapacity = DEFAULT_INITIAL_CAPACITY;
+		this.maxPooledCapacity = Integer.highestOneBit(maxPooledCapacity - 1) << 1;
+		this.threadCacheSize = threadCacheSize;
+		int sizeClassCount = sizeClass(this.maxPooledCapacity) + 1;
+		this.sharedPools = new BlockingQueue[sizeClassCount];
+		for (int i = 0; i < sizeClassCount; i++) {
+			this.sharedPools[i] = new ArrayBlockingQueue<>(sharedPoolSize);
+		}
+		this.threadCache = ThreadLocal.withInitial(() -> new ThreadCache(sizeClassCount, threadCacheSize));
+		this.delegateFactory = new DefaultDataBufferFactory(preferDirect);
+	}
+
+
+	/**
+	 * Set the level of leak detection for buffers that are garbage collected
+	 * without having been released.
+	 * <p>By default this is set to {@link LeakDetection#SAMPLED}.
+	 */
+	public void setLeakDetection(LeakDetection leakDetection) {
+		Assert.notNull(leakDetection, "LeakDetection must not be null");
+		this.leakDetection = leakDetection;
+	}
+
+	/**
+	 * Return the configured level of leak detection.
+	 */
+	public LeakDetection getLeakDetection() {
+		return this.leakDetection;
+	}
+
+	/**
+	 * Return the number of buffers allocated or wrapped by this factory that
+	 * have not been released yet, including leaked buffers.
+	 */
+	public long getActiveBufferCount() {
+		return this.activeBuffers.sum();
+	}
+
+
+	@Override
+	public PooledByteBufferDataBuffer allocateBuffer() {
+		return allocateBuffer(this.defaultInitialCapacity);
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' should not be negative");
+		reportLeaks();
+		ByteBuffer byteBuffer;
+		int sizeClass;
+		if (initialCapacity <= this.maxPooledCapacity) {
+			sizeClass = sizeClass(initialCapacity);
+			byteBuffer = acquire(sizeClass);
+		}
+		else {
+			sizeClass = -1;
+			byteBuffer = allocate(initialCapacity);
+		}
+		ByteBuffer view = byteBuffer.duplicate();
+		view.limit(initialCapacity);
+		return createBuffer(byteBuffer, sizeClass, DefaultDataBuffer.fromEmptyByteBuffer(this.delegateFactory, view));
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer wrap(ByteBuffer byteBuffer) {
+		return createBuffer(null, -1, this.delegateFactory.wrap(byteBuffer));
+	}
+
+	@Override
+	public PooledByteBufferDataBuffer wrap(byte[] bytes) {
+		return createBuffer(null, -1, this.delegateFactory.wrap(bytes));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>This implementation copies the data of {@code dataBuffers} into a
+	 * single, pooled buffer.
+	 */
+	@Override
+	public PooledByteBufferDataBuffer join(List<? extends DataBuffer> dataBuffers) {
+		Assert.notEmpty(dataBuffers, "DataBuffer List must not be empty");
+		int capacity = dataBuffers.stream().mapToInt(DataBuffer::readableByteCount).sum();
+		PooledByteBufferDataBuffer result = allocateBuffer(capacity);
+		dataBuffers.forEach(result::write);
+		dataBuffers.forEach(DataBufferUtils::release);
+		return result;
+	}
+
+	private PooledByteBufferDataBuffer createBuffer(@Nullable ByteBuffer byteBuffer, int sizeClass,
+			DefaultDataBuffer delegate) {
+
+		Allocation allocation = new Allocation(byteBuffer, sizeClass);
+		LeakDetection leakDetection = this.leakDetection;
+		if (leakDetection == LeakDetection.ALL || (leakDetection == LeakDetection.SAMPLED &&
+				ThreadLocalRandom.current().nextInt(LEAK_SAMPLING_INTERVAL) == 0)) {
+			LeakRecord record = new LeakRecord(allocation, this.leakQueue, leakDetection == LeakDetection.ALL);
+			this.leakRecords.add(record);
+			allocation.leakRecord = record;
+		}
+		this.activeBuffers.increment();
+		return new PooledByteBufferDataBuffer(this, allocation, delegate);
+	}
+
+	private ByteBuffer acquire(int sizeClass) {
+		ByteBuffer byteBuffer = this.threadCache.get().poll(sizeClass);
+		if (byteBuffer == null) {
+			byteBuffer = this.sharedPools[sizeClass].poll();
+		}
+		if (byteBuffer == null) {
+			byteBuffer = allocate(MIN_POOLED_CAPACITY << sizeClass);
+		}
+		return byteBuffer;
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	private void deallocate(Allocation allocation) {
+		this.activeBuffers.decrement();
+		LeakRecord record = allocation.leakRecord;
+		if (record != null) {
+			this.leakRecords.remove(record);
+			record.clear();
+		}
+		ByteBuffer byteBuffer = allocation.byteBuffer;
+		if (byteBuffer != null && allocation.sizeClass >= 0) {
+			byteBuffer.clear();
+			if (!this.threadCache.get().offer(allocation.sizeClass, byteBuffer)) {
+				this.sharedPools[allocation.sizeClass].offer(byteBuffer);
+			}
+		}
+	}
+
+	private void reportLeaks() {
+		LeakRecord record = (LeakRecord) this.leakQueue.poll();
+		while (record != null) {
+			if (this.leakRecords.remove(record)) {
+				if (logger.isErrorEnabled()) {
+					String message = "LEAK: DataBuffer was garbage collected without being released. " +
+							"Use DataBufferUtils.release(DataBuffer) to return buffers to the pool.";
+					if (record.allocationSite != null) {
+						logger.error(message, record.allocationSite);
+					}
+					else {
+						logger.error(message + " Set LeakDetection.ALL to record where leaked buffers are allocated.");
+					}
+				}
+			}
+			record = (LeakRecord) this.leakQueue.poll();
+		}
+	}
+
+	private static int sizeClass(int capacity) {
+		if (capacity <= MIN_POOLED_CAPACITY) {
+			return 0;
+		}
+		return (Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1)) - MIN_POOLED_SHIFT;
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity +
+				", threadCacheSize=" + this.threadCacheSize + ")";
+	}
+
+
+	/**
+	 * Levels of leak detection for buffers that are garbage collected without
+	 * having been released.
+	 */
+	public enum LeakDetection {
+
+		/**
+		 * Do not track buffers.
+		 */
+		DISABLED,
+
+		/**
+		 * Track a small sample of buffers, and report leaks without details.
+		 */
+		SAMPLED,
+
+		/**
+		 * Track all buffers, and report leaks with the stack trace of their
+		 * allocation. This has a significant overhead, and is meant for testing.
+		 */
+		ALL
+	}
+
+
+	/**
+	 * The memory of a pooled buffer and its reference count, shared by the
+	 * buffer and all its slices.
+	 */
+	final class Allocation extends ReferenceCount {
+
+		@Nullable
+		private final ByteBuffer byteBuffer;
+
+		private final int sizeClass;
+
+		@Nullable
+		private volatile LeakRecord leakRecord;
+
+		Allocation(@Nullable ByteBuffer byteBuffer, int sizeClass) {
+			this.byteBuffer = byteBuffer;
+			this.sizeClass = sizeClass;
+		}
+
+		@Override
+		protected void deallocate() {
+			PooledDataBufferFactory.this.deallocate(this);
+		}
+	}
+
+
+	/**
+	 * Tracks an allocation, and is enqueued if the allocation is garbage
+	 * collected before it has been released.
+	 */
+	private static final class LeakRecord extends PhantomReference<Allocation> {
+
+		@Nullable
+		private final Throwable allocationSite;
+
+		LeakRecord(Allocation allocation, ReferenceQueue<Allocation> queue, boolean recordAllocationSite) {
+			super(allocation, queue);
+			this.allocationSite = (recordAllocationSite ? new Throwable("Leaked buffer allocated here") : null);
+		}
+	}
+
+
+	/**
+	 * Per-thread stacks of released buffers, one per size class.
+	 */
+	private static final class ThreadCache {
+
+		private final ByteBuffer[][] buffers;
+
+		private final int[] counts;
+
+		ThreadCache(int sizeClassCount, int size) {
+			this.buffers = new ByteBuffer[sizeClassCount][size];
+			this.counts = new int[sizeClassCount];
+		}
+
+		@Nullable
+		ByteBuffer poll(int sizeClass) {
+			int count = this.counts[sizeClass];
+			if (count == 0) {
+				return null;
+			}
+			count--;
+			ByteBuffer byteBuffer = this.buffers[sizeClass][count];
+			this.buffers[sizeClass][count] = null;
+			this.counts[sizeClass] = count;
+			return byteBuffer;
+		}
+
+		boolean offer(int sizeClass, ByteBuffer byteBuffer) {
+			int count = this.counts[sizeClass];
+			if (count == this.buffers[sizeClass].length) {
+				return false;
+			}
+			this.buffers[sizeClass][count] = byteBuffer;
+			this.counts[sizeClass] = count + 1;
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.util.Assert;
+
+/**
+ * Reference count of the memory behind a {@link PooledByteBufferDataBuffer},
+ * shared by the buffer and all its slices, which deallocates the memory once
+ * the count drops to zero.
+ *
+ * @since 5.2
+ */
+abstract class ReferenceCount {
+
+	private final AtomicInteger count = new AtomicInteger(1);
+
+
+	boolean isAllocated() {
+		return (this.count.get() > 0);
+	}
+
+	void retain() {
+		int current;
+		do {
+			current = this.count.get();
+			Assert.state(current > 0, "Buffer has already been released");
+		}
+		while (!this.count.compareAndSet(current, current + 1));
+	}
+
+	boolean release() {
+		int current = this.count.decrementAndGet();
+		if (current == 0) {
+			deallocate();
+			return true;
+		}
+		if (current < 0) {
+			this.count.incrementAndGet();
+			throw new IllegalStateException("Buffer has already been released");
+		}
+		return false;
+	}
+
+	/**
+	 * Release the memory, once the count has dropped to zero.
+	 */
+	protected abstract void deallocate();
+
+}
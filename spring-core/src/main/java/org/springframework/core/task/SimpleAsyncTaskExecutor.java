@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,8 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -38,7 +40,9 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  *
  * <p><b>NOTE: This implementation does not reuse threads!</b> Consider a
  * thread-pooling TaskExecutor implementation instead, in particular for
- * executing a large number of short-lived tasks.
+ * executing a large number of short-lived tasks. Alternatively, on JDK 21+,
+ * consider switching this executor to {@link #setVirtualThreads virtual threads}
+ * which are cheap to create, e.g. for a large number of blocking tasks.
  *
  * @author Juergen Hoeller
  * @since 2.0
@@ -70,9 +74,16 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	@Nullable
 	private ThreadFactory threadFactory;
 
+	@Nullable
+	private VirtualThreadDelegate virtualThreadDelegate;
+
 	@Nullable
 	private TaskDecorator taskDecorator;
 
+	private final AtomicInteger activeCount = new AtomicInteger();
+
+	private final LongAdder completedTaskCount = new LongAdder();
+
 
 	/**
 	 * Create a new SimpleAsyncTaskExecutor with default thread name prefix.
@@ -118,6 +129,40 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 		return this.threadFactory;
 	}
 
+	/**
+	 * Switch this executor to virtual threads. Requires JDK 21 or higher.
+	 * <p>The default is {@code false}, indicating platform threads.
+	 * Set this flag to {@code true} in order to create virtual threads instead,
+	 * named according to the {@link #setThreadNamePrefix thread name prefix}.
+	 * An external {@link #setThreadFactory ThreadFactory} takes precedence.
+	 * <p>The {@link #setConcurrencyLimit concurrency limit} and the
+	 * {@link #setTaskDecorator TaskDecorator} apply to virtual threads as well.
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 * supported by the current JDK
+	 * @since 5.2
+	 */
+	public void setVirtualThreads(boolean virtual) {
+		this.virtualThreadDelegate = (virtual ? new VirtualThreadDelegate() : null);
+	}
+
+	/**
+	 * Return whether this executor creates virtual threads.
+	 * @since 5.2
+	 * @see #setVirtualThreads
+	 */
+	public final boolean isVirtualThreads() {
+		return (this.virtualThreadDelegate != null);
+	}
+
+	/**
+	 * Determine whether virtual threads are supported by the current JDK.
+	 * @since 5.2
+	 * @see #setVirtualThreads
+	 */
+	public static boolean isVirtualThreadsSupported() {
+		return VirtualThreadDelegate.isSupported();
+	}
+
 	/**
 	 * Specify a custom {@link TaskDecorator} to be applied to any {@link Runnable}
 	 * about to be executed.
@@ -163,6 +208,23 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 		return this.concurrencyThrottle.isThrottleActive();
 	}
 
+	/**
+	 * Return the number of tasks currently being executed.
+	 * @since 5.2
+	 */
+	public final int getActiveCount() {
+		return this.activeCount.get();
+	}
+
+	/**
+	 * Return the number of tasks which completed execution, either
+	 * normally or exceptionally.
+	 * @since 5.2
+	 */
+	public final long getCompletedTaskCount() {
+		return this.completedTaskCount.sum();
+	}
+
 
 	/**
 	 * Executes the given task, within a concurrency throttle
@@ -189,10 +251,10 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 		Runnable taskToUse = (this.taskDecorator != null ? this.taskDecorator.decorate(task) : task);
 		if (isThrottleActive() && startTimeout > TIMEOUT_IMMEDIATE) {
 			this.concurrencyThrottle.beforeAccess();
-			doExecute(new ConcurrencyThrottlingRunnable(taskToUse));
+			doExecute(new TaskTrackingRunnable(taskToUse, true));
 		}
 		else {
-			doExecute(taskToUse);
+			doExecute(new TaskTrackingRunnable(taskToUse, false));
 		}
 	}
 
@@ -229,11 +291,21 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	 * <p>The default implementation creates a new Thread and starts it.
 	 * @param task the Runnable to execute
 	 * @see #setThreadFactory
+	 * @see #setVirtualThreads
 	 * @see #createThread
 	 * @see java.lang.Thread#start()
 	 */
 	protected void doExecute(Runnable task) {
-		Thread thread = (this.threadFactory != null ? this.threadFactory.newThread(task) : createThread(task));
+		Thread thread;
+		if (this.threadFactory != null) {
+			thread = this.threadFactory.newThread(task);
+		}
+		else if (this.virtualThreadDelegate != null) {
+			thread = this.virtualThreadDelegate.newVirtualThread(nextThreadName(), task);
+		}
+		else {
+			thread = createThread(task);
+		}
 		thread.start();
 	}
 
@@ -258,24 +330,33 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 
 
 	/**
-	 * This Runnable calls {@code afterAccess()} after the
-	 * target Runnable has finished its execution.
+	 * This Runnable keeps track of active and completed tasks, and calls
+	 * {@code afterAccess()} after the target Runnable has finished its
+	 * execution if throttled.
 	 */
-	private class ConcurrencyThrottlingRunnable implements Runnable {
+	private class TaskTrackingRunnable implements Runnable {
 
 		private final Runnable target;
 
-		public ConcurrencyThrottlingRunnable(Runnable target) {
+		private final boolean throttled;
+
+		public TaskTrackingRunnable(Runnable target, boolean throttled) {
 			this.target = target;
+			this.throttled = throttled;
 		}
 
 		@Override
 		public void run() {
+			activeCount.incrementAndGet();
 			try {
 				this.target.run();
 			}
 			finally {
-				concurrencyThrottle.afterAccess();
+				activeCount.decrementAndGet();
+				completedTaskCount.increment();
+				if (this.throttled) {
+					concurrencyThrottle.afterAccess();
+				}
 			}
 		}
 	}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.lang.reflect.Method;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Internal delegate for virtual thread handling on JDK 21+, accessing
+ * the {@code Thread.Builder} API reflectively since this codebase is
+ * compiled against JDK 8.
+ *
+ * @since 5.2
+ * @see SimpleAsyncTaskExecutor#setVirtualThreads
+ */
+final class VirtualThreadDelegate {
+
+	@Nullable
+	private static final Method ofVirtualMethod = ClassUtils.getMethodIfAvailable(Thread.class, "ofVirtual");
+
+	@Nullable
+	private static final Method nameMethod;
+
+	@Nullable
+	private static final Method unstartedMethod;
+
+	static {
+		Method name = null;
+		Method unstarted = null;
+		if (ofVirtualMethod != null) {
+			Class<?> builderClass = ofVirtualMethod.getReturnType();
+			name = ClassUtils.getMethodIfAvailable(builderClass, "name", String.class);
+			unstarted = ClassUtils.getMethodIfAvailable(builderClass, "unstarted", Runnable.class);
+		}
+		nameMethod = name;
+		unstartedMethod = unstarted;
+	}
+
+
+	/**
+	 * Create a new delegate.
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 * supported by the current JDK
+	 */
+	VirtualThreadDelegate() {
+		if (!isSupported()) {
+			throw new UnsupportedOperationException("Virtual threads not supported on JDK <21");
+		}
+	}
+
+
+	/**
+	 * Create a new unstarted virtual thread for the given task.
+	 * @param name the name of the thread
+	 * @param task the task to run on the thread
+	 */
+	public Thread newVirtualThread(String name, Runnable task) {
+		Assert.state(ofVirtualMethod != null && nameMethod != null && unstartedMethod != null,
+				"Virtual threads not supported");
+		Object builder = ReflectionUtils.invokeMethod(ofVirtualMethod, null);
+		builder = ReflectionUtils.invokeMethod(nameMethod, builder, name);
+		return (Thread) ReflectionUtils.invokeMethod(unstartedMethod, builder, task);
+	}
+
+
+	/**
+	 * Determine whether virtual threads are supported by the current JDK.
+	 */
+	public static boolean isSupported() {
+		return (ofVirtualMethod != null && nameMethod != null && unstartedMethod != null);
+	}
+
+}
@@ -28,11 +28,6 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.lang.Nullable;
@@ -402,74 +397,4 @@ public abstract class MimeTypeUtils {
 		return new String(generateMultipartBoundary(), StandardCharsets.US_ASCII);
 	}
 
-
-	/**
-	 * Simple Least Recently Used cache, bounded by the maximum size given
-	 * to the class constructor.
-	 * <p>This implementation is backed by a {@code ConcurrentHashMap} for storing
-	 * the cached values and a {@code ConcurrentLinkedQueue} for ordering the keys
-	 * and choosing the least recently used key when the cache is at full capacity.
-	 * @param <K> the type of the key used for caching
-	 * @param <V> the type of the cached values
-	 */
-	private static class ConcurrentLruCache<K, V> {
-
-		private final int maxSize;
-
-		private final ConcurrentLinkedQueue<K> queue = new ConcurrentLinkedQueue<>();
-
-		private final ConcurrentHashMap<K, V> cache = new ConcurrentHashMap<>();
-
-		private final ReadWriteLock lock = new ReentrantReadWriteLock();
-
-		private final Function<K, V> generator;
-
-		public ConcurrentLruCache(int maxSize, Function<K, V> generator) {
-			Assert.isTrue(maxSize > 0, "LRU max size should be positive");
-			Assert.notNull(generator, "Generator function should not be null");
-			this.maxSize = maxSize;
-			this.generator = generator;
-		}
-
-		public V get(K key) {
-			this.lock.readLock().lock();
-			try {
-				if (this.queue.size() < this.maxSize / 2) {
-					V cached = this.cache.get(key);
-					if (cached != null) {
-						return cached;
-					}
-				}
-				else if (this.queue.remove(key)) {
-					this.queue.add(key);
-					return this.cache.get(key);
-				}
-			}
-			finally {
-				this.lock.readLock().unlock();
-			}
-			this.lock.writeLock().lock();
-			try {
-				// retrying in case of concurrent reads on the same key
-				if (this.queue.remove(key)) {
-					this.queue.add(key);
-					return this.cache.get(key);
-				}
-				if (this.queue.size() == this.maxSize) {
-					K leastUsed = this.queue.poll();
-					if (leastUsed != null) {
-						this.cache.remove(leastUsed);
-					}
-				}
-				V value = this.generator.apply(key);
-				this.queue.add(key);
-				this.cache.put(key, value);
-				return value;
-			}
-			finally {
-				this.lock.writeLock().unlock();
-			}
-		}
-	}
-
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link GeneratedClassCache}.
+ */
+public class GeneratedClassCacheTests {
+
+	private final GeneratedClassCache<String, Class<?>> cache = new GeneratedClassCache<>("$$TestGenerated$$");
+
+	private final AtomicInteger generations = new AtomicInteger();
+
+
+	@Test
+	public void defineClassWithDeterministicName() throws Exception {
+		Class<?> generated = this.cache.defineClass(getClass(), "first", this::generate);
+		assertThat(generated.getName()).startsWith(getClass().getName() + "$$TestGenerated$$");
+		assertThat(generated.getClassLoader()).isSameAs(getClass().getClassLoader());
+		assertThat(generated.getPackage().getName()).isEqualTo(getClass().getPackage().getName());
+
+		assertThat(new GeneratedClassCache<>("$$TestGenerated$$").defineClass(getClass(), "first", this::generate))
+				.isSameAs(generated);
+		assertThat(this.cache.defineClass(getClass(), "second", this::generate)).isNotSameAs(generated);
+		assertThat(this.generations.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void getCreatesValueOnce() {
+		AtomicInteger creations = new AtomicInteger();
+		Class<?> value = this.cache.get("key", getClass(), key -> {
+			creations.incrementAndGet();
+			return getClass();
+		});
+		assertThat(this.cache.get("key", getClass(), key -> {
+			creations.incrementAndGet();
+			return Object.class;
+		})).isSameAs(value);
+		assertThat(creations.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void isAccessible() {
+		assertThat(GeneratedClassCache.isAccessible(int.class, getClass())).isTrue();
+		assertThat(GeneratedClassCache.isAccessible(String[][].class, getClass())).isTrue();
+		assertThat(GeneratedClassCache.isAccessible(PackagePrivateType[].class, getClass())).isTrue();
+		assertThat(GeneratedClassCache.isAccessible(PackagePrivateType.class, Object.class)).isFalse();
+		assertThat(GeneratedClassCache.isSamePackage(PackagePrivateType.class, getClass())).isTrue();
+		assertThat(GeneratedClassCache.isSamePackage(String.class, getClass())).isFalse();
+	}
+
+
+	private byte[] generate(String className) {
+		this.generations.incrementAndGet();
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+				className.replace('.', '/'), null, "java/lang/Object", null);
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+
+	static class PackagePrivateType {
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AnnotationIndex}.
+ */
+public class AnnotationIndexTests {
+
+	@Test
+	public void directAndMetaAnnotationsMayBePresent() {
+		assertThat(isKnownAbsent(WithComposed.class, SearchStrategy.DIRECT, Composed.class)).isFalse();
+		assertThat(isKnownAbsent(WithComposed.class, SearchStrategy.DIRECT, Meta.class)).isFalse();
+		assertThat(isKnownAbsent(WithComposed.class, SearchStrategy.DIRECT, Other.class)).isTrue();
+		assertThat(isKnownAbsent(WithComposed.class, SearchStrategy.DIRECT, Deprecated.class)).isTrue();
+	}
+
+	@Test
+	public void repeatedAnnotationsMayBePresent() {
+		assertThat(isKnownAbsent(WithRepeated.class, SearchStrategy.DIRECT, Repeated.class)).isFalse();
+		assertThat(isKnownAbsent(WithRepeated.class, SearchStrategy.DIRECT, RepeatedContainer.class)).isFalse();
+		assertThat(isKnownAbsent(WithRepeated.class, SearchStrategy.DIRECT, Meta.class)).isTrue();
+	}
+
+	@Test
+	public void hierarchyDependsOnSearchStrategy() {
+		assertThat(isKnownAbsent(SubClass.class, SearchStrategy.DIRECT, Meta.class)).isTrue();
+		assertThat(isKnownAbsent(SubClass.class, SearchStrategy.SUPERCLASS, Meta.class)).isFalse();
+		assertThat(isKnownAbsent(SubClass.class, SearchStrategy.SUPERCLASS, Other.class)).isTrue();
+		assertThat(isKnownAbsent(SubClass.class, SearchStrategy.EXHAUSTIVE, Other.class)).isFalse();
+	}
+
+	@Test
+	public void methodHierarchyDependsOnSearchStrategy() {
+		Method method = ReflectionUtils.findMethod(SubClass.class, "method");
+		assertThat(isKnownAbsent(method, SearchStrategy.DIRECT, Other.class)).isTrue();
+		assertThat(isKnownAbsent(method, SearchStrategy.EXHAUSTIVE, Other.class)).isFalse();
+		assertThat(MergedAnnotations.from(method, SearchStrategy.DIRECT).isPresent(Other.class)).isFalse();
+		assertThat(MergedAnnotations.from(method, SearchStrategy.EXHAUSTIVE).isPresent(Other.class)).isTrue();
+	}
+
+
+	private static boolean isKnownAbsent(AnnotatedElement element,
+			SearchStrategy searchStrategy, Class<?> annotationType) {
+
+		return AnnotationIndex.isKnownAbsent(element, searchStrategy, annotationType.getName());
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Meta {
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Meta
+	@interface Composed {
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Other {
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Repeatable(RepeatedContainer.class)
+	@interface Repeated {
+
+		String value();
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface RepeatedContainer {
+
+		Repeated[] value();
+	}
+
+
+	@Composed
+	static class WithComposed {
+	}
+
+
+	@Repeated("a")
+	@Repeated("b")
+	static class WithRepeated {
+	}
+
+
+	@Other
+	interface WithOther {
+
+		@Other
+		void method();
+	}
+
+
+	@Composed
+	static class SuperClass {
+	}
+
+
+	static class SubClass extends SuperClass implements WithOther {
+
+		@Override
+		public void method() {
+		}
+	}
+
+}
@@ -154,6 +154,27 @@ public class StringDecoderTests extends AbstractDecoderTestCase<StringDecoder> {
 				.verify());
 	}
 
+	@Test
+	public void decodeDelimiterAcrossBuffers() {
+		this.decoder = StringDecoder.allMimeTypes(Arrays.asList("\r\n", "\n", "--"), true);
+
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("abc\r"),
+				stringBuffer("\ndef-"),
+				stringBuffer("-ghi\n\r"),
+				stringBuffer("\njkl")
+		);
+
+		testDecode(input, String.class, step -> step
+				.expectNext("abc")
+				.expectNext("def")
+				.expectNext("ghi")
+				.expectNext("")
+				.expectNext("jkl")
+				.expectComplete()
+				.verify());
+	}
+
 	@Test
 	public void decodeEmptyFlux() {
 		Flux<DataBuffer> input = Flux.empty();
@@ -628,6 +628,34 @@ public class GenericConversionServiceTests {
 		assertThat(conversionService.convert("test", TypeDescriptor.valueOf(String.class), new TypeDescriptor(getClass().getField("integerCollection")))).isEqualTo(Collections.singleton("testX"));
 	}
 
+	@Test
+	public void convertWhenFrozen() {
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		conversionService.addConverter(new ColorConverter());
+		conversionService.freeze();
+		assertThat(conversionService.isFrozen()).isTrue();
+
+		assertThat(conversionService.convert("3", Integer.class)).isEqualTo(3);
+		assertThat(conversionService.convert("3", int.class)).isEqualTo(3);
+		assertThat(conversionService.convert("#000000", Color.class)).isEqualTo(Color.BLACK);
+		assertThat(conversionService.convert(null, Integer.class)).isNull();
+		Object source = new Object();
+		assertThat(conversionService.convert(source, Object.class)).isSameAs(source);
+		assertThat(conversionService.canConvert(String.class, Long.class)).isTrue();
+		assertThat(conversionService.canConvert(String.class, Boolean.class)).isFalse();
+		assertThatExceptionOfType(ConverterNotFoundException.class).isThrownBy(() ->
+				conversionService.convert("true", Boolean.class));
+	}
+
+	@Test
+	public void modifyWhenFrozen() {
+		conversionService.freeze();
+		assertThatIllegalStateException().isThrownBy(() ->
+				conversionService.addConverterFactory(new StringToNumberConverterFactory()));
+		assertThatIllegalStateException().isThrownBy(() ->
+				conversionService.removeConvertible(String.class, Integer.class));
+	}
+
 
 	@ExampleAnnotation(active = true)
 	public String annotatedString;
@@ -60,7 +60,9 @@ public abstract class AbstractDataBufferAllocatingTestCase {
 				{new NettyDataBufferFactory(new PooledByteBufAllocator(true, 1, 1, 8192, 11, 0, 0, 0, true))},
 				{new NettyDataBufferFactory(new PooledByteBufAllocator(false, 1, 1, 8192, 11, 0, 0, 0, true))},
 				{new DefaultDataBufferFactory(true)},
-				{new DefaultDataBufferFactory(false)}
+				{new DefaultDataBufferFactory(false)},
+				{new PooledDataBufferFactory(true)},
+				{new PooledDataBufferFactory(false)}
 
 		};
 	}
@@ -143,6 +145,25 @@ public abstract class AbstractDataBufferAllocatingTestCase {
 				}
 			}
 		}
+		else if (this.bufferFactory instanceof PooledDataBufferFactory) {
+			Instant start = Instant.now();
+			while (true) {
+				long total = ((PooledDataBufferFactory) this.bufferFactory).getActiveBufferCount();
+				if (total == 0) {
+					return;
+				}
+				if (Instant.now().isBefore(start.plus(Duration.ofSeconds(5)))) {
+					try {
+						Thread.sleep(50);
+					}
+					catch (InterruptedException ex) {
+						// ignore
+					}
+					continue;
+				}
+				assertThat(total).as("DataBuffer Leak: " + total + " unreleased allocations").isEqualTo(0);
+			}
+		}
 	}
 
 	private static long getAllocations(List<PoolArenaMetric> metrics) {
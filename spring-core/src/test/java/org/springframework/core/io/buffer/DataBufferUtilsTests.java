@@ -227,6 +227,38 @@ public class DataBufferUtilsTests extends AbstractDataBufferAllocatingTestCase {
 				.verify(Duration.ofSeconds(5));
 	}
 
+	@Test
+	public void readMapped() throws Exception {
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(
+				this.resource.getFile().toPath(), 0, -1, this.bufferFactory, 3);
+
+		verifyReadData(flux);
+	}
+
+	@Test
+	public void readMappedPositionAndCount() throws Exception {
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(
+				this.resource.getFile().toPath(), 3, 5, this.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("bar"))
+				.consumeNextWith(stringConsumer("ba"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void readMappedRelease() throws Exception {
+		DataBuffer buffer = DataBufferUtils.readMapped(
+				this.resource.getFile().toPath(), 0, -1, this.bufferFactory, 1024).blockFirst();
+
+		assertThat(buffer).isInstanceOf(PooledDataBuffer.class);
+		assertThat(buffer.factory()).isSameAs(this.bufferFactory);
+		assertThat(buffer.readableByteCount()).isEqualTo(12);
+		assertThat(DataBufferUtils.release(buffer)).isTrue();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+	}
+
 	private void verifyReadData(Flux<DataBuffer> buffers) {
 		StepVerifier.create(buffers)
 				.consumeNextWith(stringConsumer("foo"))
@@ -809,6 +841,39 @@ public class DataBufferUtilsTests extends AbstractDataBufferAllocatingTestCase {
 		release(foo);
 	}
 
+	@Test
+	public void matcherMultipleDelimiters() {
+		DataBuffer foo = stringBuffer("a\nb\r");
+		DataBuffer bar = stringBuffer("\nc");
+
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(
+				"\r\n".getBytes(StandardCharsets.UTF_8), "\n".getBytes(StandardCharsets.UTF_8));
+		int result = matcher.match(foo);
+		assertThat(result).isEqualTo(1);
+		assertThat(matcher.delimiter()).isEqualTo("\n".getBytes(StandardCharsets.UTF_8));
+		foo.readPosition(2);
+		result = matcher.match(foo);
+		assertThat(result).isEqualTo(-1);
+		result = matcher.match(bar);
+		assertThat(result).isEqualTo(0);
+		assertThat(matcher.delimiter()).isEqualTo("\r\n".getBytes(StandardCharsets.UTF_8));
+
+		release(foo, bar);
+	}
+
+	@Test
+	public void matcherOverlappingDelimiters() {
+		DataBuffer foo = stringBuffer("abcbd");
+
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(
+				"abcd".getBytes(StandardCharsets.UTF_8), "cbd".getBytes(StandardCharsets.UTF_8));
+		int result = matcher.match(foo);
+		assertThat(result).isEqualTo(4);
+		assertThat(matcher.delimiter()).isEqualTo("cbd".getBytes(StandardCharsets.UTF_8));
+
+		release(foo);
+	}
+
 
 	private static class ZeroDemandSubscriber extends BaseSubscriber<DataBuffer> {
 
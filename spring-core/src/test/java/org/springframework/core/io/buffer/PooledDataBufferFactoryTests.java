@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Unit tests for {@link PooledDataBufferFactory}.
+ */
+public class PooledDataBufferFactoryTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory(false, 1024, 2, 2);
+
+
+	@Test
+	public void releasedMemoryIsReused() {
+		PooledByteBufferDataBuffer buffer = this.bufferFactory.allocateBuffer(300);
+		byte[] array = buffer.asByteBuffer(0, buffer.capacity()).array();
+		assertThat(buffer.capacity()).isEqualTo(300);
+		DataBufferUtils.release(buffer);
+
+		PooledByteBufferDataBuffer sameSizeClass = this.bufferFactory.allocateBuffer(512);
+		assertThat(sameSizeClass.asByteBuffer(0, sameSizeClass.capacity()).array()).isSameAs(array);
+		PooledByteBufferDataBuffer otherSizeClass = this.bufferFactory.allocateBuffer(100);
+		assertThat(otherSizeClass.asByteBuffer(0, otherSizeClass.capacity()).array()).isNotSameAs(array);
+
+		DataBufferUtils.release(sameSizeClass);
+		DataBufferUtils.release(otherSizeClass);
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void largeBuffersAreNotPooled() {
+		PooledByteBufferDataBuffer buffer = this.bufferFactory.allocateBuffer(2048);
+		byte[] array = buffer.asByteBuffer(0, buffer.capacity()).array();
+		DataBufferUtils.release(buffer);
+
+		PooledByteBufferDataBuffer other = this.bufferFactory.allocateBuffer(2048);
+		assertThat(other.asByteBuffer(0, other.capacity()).array()).isNotSameAs(array);
+		DataBufferUtils.release(other);
+	}
+
+	@Test
+	public void slicesShareReferenceCount() {
+		PooledByteBufferDataBuffer buffer = this.bufferFactory.allocateBuffer(16);
+		buffer.write("foobar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.retainedSlice(3, 3);
+
+		assertThat(DataBufferUtils.release(buffer)).isFalse();
+		assertThat(buffer.isAllocated()).isTrue();
+		byte[] bytes = new byte[3];
+		slice.read(bytes);
+		assertThat(bytes).isEqualTo("bar".getBytes(StandardCharsets.UTF_8));
+
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+		assertThat(buffer.isAllocated()).isFalse();
+		assertThatIllegalStateException().isThrownBy(buffer::retain);
+	}
+
+	@Test
+	public void releaseOnClose() throws Exception {
+		PooledByteBufferDataBuffer buffer = this.bufferFactory.allocateBuffer(16);
+		buffer.write((byte) 'a');
+		buffer.asInputStream(true).close();
+
+		assertThat(buffer.isAllocated()).isFalse();
+	}
+
+	@Test
+	public void joinReleasesSources() {
+		PooledByteBufferDataBuffer foo = this.bufferFactory.allocateBuffer(3).write("foo".getBytes(StandardCharsets.UTF_8));
+		PooledByteBufferDataBuffer bar = this.bufferFactory.allocateBuffer(3).write("bar".getBytes(StandardCharsets.UTF_8));
+
+		PooledByteBufferDataBuffer result = this.bufferFactory.join(Arrays.asList(foo, bar));
+		byte[] bytes = new byte[result.readableByteCount()];
+		result.read(bytes);
+		assertThat(bytes).isEqualTo("foobar".getBytes(StandardCharsets.UTF_8));
+		assertThat(foo.isAllocated()).isFalse();
+		assertThat(bar.isAllocated()).isFalse();
+
+		DataBufferUtils.release(result);
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(0);
+	}
+
+}
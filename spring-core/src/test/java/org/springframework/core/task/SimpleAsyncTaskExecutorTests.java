@@ -16,15 +16,23 @@
 
 package org.springframework.core.task;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
 import org.springframework.util.ConcurrencyThrottleSupport;
+import org.springframework.util.ReflectionUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
 
 /**
  * @author Rick Evans
@@ -78,6 +86,54 @@ public class SimpleAsyncTaskExecutorTests {
 				new SimpleAsyncTaskExecutor().execute(null));
 	}
 
+	@Test
+	public void activeAndCompletedTaskCounts() throws Exception {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+		executor.setConcurrencyLimit(2);
+		CountDownLatch latch = new CountDownLatch(1);
+		Future<?> blocking = executor.submit(() -> {
+			try {
+				latch.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		executor.submit(new NoOpRunnable()).get(1, TimeUnit.SECONDS);
+		while (executor.getCompletedTaskCount() < 1) {
+			Thread.sleep(10);
+		}
+		assertThat(executor.getActiveCount()).isEqualTo(1);
+
+		latch.countDown();
+		blocking.get(1, TimeUnit.SECONDS);
+		while (executor.getCompletedTaskCount() < 2) {
+			Thread.sleep(10);
+		}
+		assertThat(executor.getActiveCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void virtualThreads() throws Exception {
+		assumeTrue(SimpleAsyncTaskExecutor.isVirtualThreadsSupported());
+		Object monitor = new Object();
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("virtual-");
+		executor.setVirtualThreads(true);
+		ThreadHarvester task = new ThreadHarvester(monitor);
+		executeAndWait(executor, task, monitor);
+		assertThat(executor.isVirtualThreads()).isTrue();
+		assertThat(task.thread.getName()).startsWith("virtual-");
+		Method isVirtual = ReflectionUtils.findMethod(Thread.class, "isVirtual");
+		assertThat(ReflectionUtils.invokeMethod(isVirtual, task.thread)).isEqualTo(true);
+	}
+
+	@Test
+	public void virtualThreadsNotSupported() {
+		assumeFalse(SimpleAsyncTaskExecutor.isVirtualThreadsSupported());
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() ->
+				new SimpleAsyncTaskExecutor().setVirtualThreads(true));
+	}
+
 	private void executeAndWait(SimpleAsyncTaskExecutor executor, Runnable task, Object monitor) {
 		synchronized (monitor) {
 			executor.execute(task);
@@ -141,4 +197,19 @@ public class SimpleAsyncTaskExecutorTests {
 		}
 	}
 
+
+	private static final class ThreadHarvester extends AbstractNotifyingRunnable {
+
+		private volatile Thread thread;
+
+		ThreadHarvester(Object monitor) {
+			super(monitor);
+		}
+
+		@Override
+		protected void doRun() {
+			this.thread = Thread.currentThread();
+		}
+	}
+
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * Benchmarks for {@link SpelExpression#getValue} with interpreted and
+ * compiled expressions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpelExpressionBenchmark {
+
+	@Benchmark
+	public Object getValue(ExpressionState state) {
+		return state.expression.getValue(state.context);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ExpressionState {
+
+		@Param({"OFF", "IMMEDIATE"})
+		SpelCompilerMode compilerMode;
+
+		@Param({
+				"name",
+				"age > 18 and name.length() < 10",
+				"address.city == 'Berlin' ? 'local' : 'remote'",
+				"attributes['level'] * 2 + 1"})
+		String expressionString;
+
+		Expression expression;
+
+		StandardEvaluationContext context;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			SpelParserConfiguration configuration = new SpelParserConfiguration(this.compilerMode, null);
+			this.expression = new SpelExpressionParser(configuration).parseExpression(this.expressionString);
+			this.context = new StandardEvaluationContext(new Person("Juergen", 42, new Address("Berlin")));
+			// Evaluate once so that IMMEDIATE mode compiles on the next evaluation
+			this.expression.getValue(this.context);
+		}
+	}
+
+
+	public static class Person {
+
+		private final String name;
+
+		private final int age;
+
+		private final Address address;
+
+		private final Map<String, Integer> attributes = new HashMap<>();
+
+		public Person(String name, int age, Address address) {
+			this.name = name;
+			this.age = age;
+			this.address = address;
+			this.attributes.put("level", 7);
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public Address getAddress() {
+			return this.address;
+		}
+
+		public Map<String, Integer> getAttributes() {
+			return this.attributes;
+		}
+	}
+
+
+	public static class Address {
+
+		private final String city;
+
+		public Address(String city) {
+			this.city = city;
+		}
+
+		public String getCity() {
+			return this.city;
+		}
+	}
+
+}
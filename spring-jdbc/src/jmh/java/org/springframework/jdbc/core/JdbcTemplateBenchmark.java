@@ -0,0 +1,177 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Benchmarks for {@link JdbcTemplate} row mapping against an embedded
+ * HSQL database, comparing a hand-written {@link RowMapper} with
+ * {@link BeanPropertyRowMapper} and {@link ColumnMapRowMapper}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdbcTemplateBenchmark {
+
+	private static final String QUERY = "select id, first_name, last_name, email, age, balance from person";
+
+
+	@Benchmark
+	public List<Person> queryWithRowMapper(DatabaseState state) {
+		return state.jdbcTemplate.query(QUERY, (rs, rowNum) -> {
+			Person person = new Person();
+			person.setId(rs.getLong(1));
+			person.setFirstName(rs.getString(2));
+			person.setLastName(rs.getString(3));
+			person.setEmail(rs.getString(4));
+			person.setAge(rs.getInt(5));
+			person.setBalance(rs.getDouble(6));
+			return person;
+		});
+	}
+
+	@Benchmark
+	public List<Person> queryWithBeanPropertyRowMapper(DatabaseState state) {
+		return state.jdbcTemplate.query(QUERY, state.beanPropertyRowMapper);
+	}
+
+	@Benchmark
+	public Object queryForList(DatabaseState state) {
+		return state.jdbcTemplate.queryForList(QUERY);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class DatabaseState {
+
+		@Param({"1000"})
+		int rowCount;
+
+		EmbeddedDatabase database;
+
+		JdbcTemplate jdbcTemplate;
+
+		final BeanPropertyRowMapper<Person> beanPropertyRowMapper = new BeanPropertyRowMapper<>(Person.class);
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.database = new EmbeddedDatabaseBuilder()
+					.setType(EmbeddedDatabaseType.HSQL)
+					.generateUniqueName(true)
+					.build();
+			this.jdbcTemplate = new JdbcTemplate(this.database);
+			this.jdbcTemplate.execute("create table person (id bigint primary key, first_name varchar(50), " +
+					"last_name varchar(50), email varchar(100), age integer, balance double)");
+			for (int i = 0; i < this.rowCount; i++) {
+				this.jdbcTemplate.update("insert into person values (?, ?, ?, ?, ?, ?)",
+						i, "first" + i, "last" + i, "person" + i + "@example.org", i % 100, i * 10.5);
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			this.database.shutdown();
+		}
+	}
+
+
+	public static class Person {
+
+		private long id;
+
+		private String firstName;
+
+		private String lastName;
+
+		private String email;
+
+		private int age;
+
+		private double balance;
+
+		public long getId() {
+			return this.id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public String getFirstName() {
+			return this.firstName;
+		}
+
+		public void setFirstName(String firstName) {
+			this.firstName = firstName;
+		}
+
+		public String getLastName() {
+			return this.lastName;
+		}
+
+		public void setLastName(String lastName) {
+			this.lastName = lastName;
+		}
+
+		public String getEmail() {
+			return this.email;
+		}
+
+		public void setEmail(String email) {
+			this.email = email;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public double getBalance() {
+			return this.balance;
+		}
+
+		public void setBalance(double balance) {
+			this.balance = balance;
+		}
+	}
+
+}
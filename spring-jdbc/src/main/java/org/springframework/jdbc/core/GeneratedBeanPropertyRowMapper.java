@@ -0,0 +1,530 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.NotWritablePropertyException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.GeneratedClassCache;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link BeanPropertyRowMapper} variant that resolves the column-to-property
+ * mapping once per result set shape, i.e. per sequence of column names, and
+ * populates each row through a class generated with ASM.
+ *
+ * <p>The generated class reads mapped columns by index with the typed
+ * {@link ResultSet} getter for the property type (e.g. {@code getLong} or
+ * {@code getString}, checking {@code wasNull()} for primitive values) and
+ * invokes the public setters directly, avoiding the column name lookups,
+ * reflective property access and {@link BeanWrapper} creation per row.
+ *
+ * <p>This covers the property types which {@link JdbcUtils#getResultSetValue}
+ * reads with a dedicated getter: String, primitives and their wrappers,
+ * BigDecimal, {@code java.util.Date}, the {@code java.sql} date types,
+ * {@code byte[]}, Blob and Clob. Properties of other types, e.g. enums or
+ * {@code java.time} types, as well as all properties of a class that cannot
+ * be accessed from a generated class, are populated like in the superclass,
+ * via {@link #getColumnValue} and a {@link BeanWrapper} with the configured
+ * {@link org.springframework.core.convert.ConversionService}. Generated
+ * columns do not go through {@link #getColumnValue} or {@link #initBeanWrapper}.
+ *
+ * @since 5.2
+ * @param <T> the result type
+ */
+public class GeneratedBeanPropertyRowMapper<T> extends BeanPropertyRowMapper<T> {
+
+	private static final RowPopulator REFLECTIVE_POPULATOR = (rs, target, primitivesDefaultedForNullValue) -> {
+		throw new IllegalStateException("Not a generated populator");
+	};
+
+	private static final Map<Class<?>, Method> resultSetGetters = new HashMap<>(32);
+
+	private static final GeneratedClassCache<List<Object>, RowPopulator> populatorCache =
+			new GeneratedClassCache<>("$$SpringRowPopulator$$");
+
+	private static final Log populatorLogger = LogFactory.getLog(GeneratedBeanPropertyRowMapper.class);
+
+	static {
+		registerGetter("getString", String.class);
+		registerGetter("getBoolean", boolean.class, Boolean.class);
+		registerGetter("getByte", byte.class, Byte.class);
+		registerGetter("getShort", short.class, Short.class);
+		registerGetter("getInt", int.class, Integer.class);
+		registerGetter("getLong", long.class, Long.class);
+		registerGetter("getFloat", float.class, Float.class);
+		registerGetter("getDouble", double.class, Double.class);
+		registerGetter("getBigDecimal", BigDecimal.class);
+		registerGetter("getDate", java.sql.Date.class);
+		registerGetter("getTime", java.sql.Time.class);
+		registerGetter("getTimestamp", java.sql.Timestamp.class, java.util.Date.class);
+		registerGetter("getBytes", byte[].class);
+		registerGetter("getBlob", Blob.class);
+		registerGetter("getClob", Clob.class);
+	}
+
+
+	private final Map<List<String>, MappingPlan<T>> planCache = new ConcurrentReferenceHashMap<>(16);
+
+	@Nullable
+	private volatile CurrentPlan<T> currentPlan;
+
+
+	/**
+	 * Create a new {@code GeneratedBeanPropertyRowMapper} for bean-style configuration.
+	 * @see #setMappedClass
+	 * @see #setCheckFullyPopulated
+	 */
+	public GeneratedBeanPropertyRowMapper() {
+	}
+
+	/**
+	 * Create a new {@code GeneratedBeanPropertyRowMapper}, accepting unpopulated
+	 * properties in the target bean.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public GeneratedBeanPropertyRowMapper(Class<T> mappedClass) {
+		super(mappedClass);
+	}
+
+	/**
+	 * Create a new {@code GeneratedBeanPropertyRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 * @param checkFullyPopulated whether we're strictly validating that
+	 * all bean properties have been mapped from corresponding database fields
+	 */
+	public GeneratedBeanPropertyRowMapper(Class<T> mappedClass, boolean checkFullyPopulated) {
+		super(mappedClass, checkFullyPopulated);
+	}
+
+
+	/**
+	 * Extract the values for all columns in the current row, according to
+	 * the mapping plan for the column names of the given result set.
+	 */
+	@Override
+	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+		Assert.state(getMappedClass() != null, "Mapped class was not specified");
+		MappingPlan<T> plan = getMappingPlan(rs);
+		T mappedObject = BeanUtils.instantiateClass(plan.constructor);
+
+		if (plan.populator != null) {
+			int nullColumn = plan.populator.populate(rs, mappedObject, isPrimitivesDefaultedForNullValue());
+			if (nullColumn > 0) {
+				PropertyDescriptor pd = plan.properties[nullColumn - 1];
+				throw new TypeMismatchException(
+						new PropertyChangeEvent(mappedObject, pd.getName(), null, null), pd.getPropertyType());
+			}
+		}
+
+		if (plan.fallbackColumns.length > 0) {
+			BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
+			initBeanWrapper(bw);
+			for (int index : plan.fallbackColumns) {
+				PropertyDescriptor pd = plan.properties[index - 1];
+				try {
+					Object value = getColumnValue(rs, index, pd);
+					try {
+						bw.setPropertyValue(pd.getName(), value);
+					}
+					catch (TypeMismatchException ex) {
+						if (value == null && isPrimitivesDefaultedForNullValue()) {
+							if (logger.isDebugEnabled()) {
+								logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
+										" and column '" + plan.columns.get(index - 1) + "' with null value " +
+										"when setting property '" + pd.getName() + "' of type '" +
+										ClassUtils.getQualifiedName(pd.getPropertyType()) +
+										"' on object: " + mappedObject, ex);
+							}
+						}
+						else {
+							throw ex;
+						}
+					}
+				}
+				catch (NotWritablePropertyException ex) {
+					throw new DataRetrievalFailureException("Unable to map column '" +
+							plan.columns.get(index - 1) + "' to property '" + pd.getName() + "'", ex);
+				}
+			}
+		}
+
+		return mappedObject;
+	}
+
+	/**
+	 * Return the mapping plan for the given result set, resolving it from the
+	 * result set meta-data on the first row of each result set only.
+	 */
+	private MappingPlan<T> getMappingPlan(ResultSet rs) throws SQLException {
+		CurrentPlan<T> current = this.currentPlan;
+		if (current != null && current.resultSet.get() == rs) {
+			return current.plan;
+		}
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		List<String> columns = new ArrayList<>(columnCount);
+		for (int index = 1; index <= columnCount; index++) {
+			columns.add(JdbcUtils.lookupColumnName(rsmd, index));
+		}
+		MappingPlan<T> plan = this.planCache.get(columns);
+		if (plan == null) {
+			plan = createMappingPlan(columns);
+			this.planCache.put(columns, plan);
+		}
+		if (isCheckFullyPopulated() && !plan.fullyPopulated) {
+			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
+					"necessary to populate object of class [" + plan.constructor.getDeclaringClass().getName() +
+					"]: " + getMappedProperties());
+		}
+		this.currentPlan = new CurrentPlan<>(rs, plan);
+		return plan;
+	}
+
+	private MappingPlan<T> createMappingPlan(List<String> columns) {
+		Class<T> mappedClass = getMappedClass();
+		Assert.state(mappedClass != null, "Mapped class was not specified");
+		Constructor<T> constructor;
+		try {
+			constructor = mappedClass.getDeclaredConstructor();
+		}
+		catch (NoSuchMethodException ex) {
+			throw new BeanInstantiationException(mappedClass, "No default constructor found", ex);
+		}
+
+		int columnCount = columns.size();
+		PropertyDescriptor[] properties = new PropertyDescriptor[columnCount];
+		Method[] setters = new Method[columnCount];
+		Set<String> populatedProperties = new HashSet<>();
+		boolean generatable = isGeneratable(mappedClass);
+		boolean anyGeneratable = false;
+		for (int i = 0; i < columnCount; i++) {
+			String column = columns.get(i);
+			String field = lowerCaseName(StringUtils.delete(column, " "));
+			PropertyDescriptor pd = getMappedField(field);
+			if (pd != null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
+							"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
+				}
+				properties[i] = pd;
+				populatedProperties.add(pd.getName());
+				if (generatable && isGeneratable(pd)) {
+					setters[i] = pd.getWriteMethod();
+					anyGeneratable = true;
+				}
+			}
+			else if (logger.isDebugEnabled()) {
+				logger.debug("No property found for column '" + column + "' mapped to field '" + field + "'");
+			}
+		}
+
+		RowPopulator populator = (anyGeneratable ? getPopulator(mappedClass, setters) : null);
+		List<Integer> fallbackColumns = new ArrayList<>();
+		for (int i = 0; i < columnCount; i++) {
+			if (properties[i] != null && (populator == null || setters[i] == null)) {
+				fallbackColumns.add(i + 1);
+			}
+		}
+		return new MappingPlan<>(columns, constructor, properties, populator,
+				fallbackColumns.stream().mapToInt(Integer::intValue).toArray(),
+				populatedProperties.equals(getMappedProperties()));
+	}
+
+
+	/**
+	 * Return a populator for the given setters, generating it on first use.
+	 * @return the populator, or {@code null} if none could be generated
+	 */
+	@Nullable
+	private static RowPopulator getPopulator(Class<?> mappedClass, Method[] setters) {
+		List<Object> cacheKey = new ArrayList<>(setters.length + 1);
+		cacheKey.add(mappedClass);
+		cacheKey.addAll(Arrays.asList(setters));
+		RowPopulator populator = populatorCache.get(
+				cacheKey, mappedClass, key -> createPopulator(mappedClass, setters));
+		return (populator != REFLECTIVE_POPULATOR ? populator : null);
+	}
+
+	private static RowPopulator createPopulator(Class<?> mappedClass, Method[] setters) {
+		try {
+			Class<?> populatorClass = populatorCache.defineClass(mappedClass, describeSetters(setters),
+					className -> generatePopulatorClass(className, mappedClass, setters));
+			return (RowPopulator) ReflectionUtils.accessibleConstructor(populatorClass).newInstance();
+		}
+		catch (Throwable ex) {
+			if (populatorLogger.isDebugEnabled()) {
+				populatorLogger.debug("Failed to generate row populator for " + mappedClass +
+						" - using BeanWrapper instead", ex);
+			}
+			return REFLECTIVE_POPULATOR;
+		}
+	}
+
+	/**
+	 * Describe the setters that a generated populator invokes, by column,
+	 * as a discriminator for the name of the generated class.
+	 */
+	private static String describeSetters(Method[] setters) {
+		StringBuilder builder = new StringBuilder();
+		for (Method setter : setters) {
+			if (setter != null) {
+				builder.append(setter.getName()).append(Type.getMethodDescriptor(setter));
+			}
+			builder.append(';');
+		}
+		return builder.toString();
+	}
+
+	private static boolean isGeneratable(Class<?> mappedClass) {
+		ClassLoader classLoader = mappedClass.getClassLoader();
+		return (classLoader != null && ClassUtils.isVisible(RowPopulator.class, classLoader) &&
+				!mappedClass.isInterface() && !mappedClass.getName().startsWith("java."));
+	}
+
+	private static boolean isGeneratable(PropertyDescriptor pd) {
+		Method setter = pd.getWriteMethod();
+		return (setter != null && Modifier.isPublic(setter.getModifiers()) &&
+				!Modifier.isStatic(setter.getModifiers()) && setter.getParameterCount() == 1 &&
+				setter.getParameterTypes()[0] == pd.getPropertyType() &&
+				resultSetGetters.containsKey(pd.getPropertyType()));
+	}
+
+	/**
+	 * Generate a {@link RowPopulator} implementation which reads each column
+	 * with a setter through the typed {@link ResultSet} getter for the setter's
+	 * parameter type, passing the value to the setter on the target.
+	 */
+	private static byte[] generatePopulatorClass(String className, Class<?> mappedClass, Method[] setters) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+				className.replace('.', '/'), null, "java/lang/Object",
+				new String[] {Type.getInternalName(RowPopulator.class)});
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// Local variables: 1 = result set, 2 = target, 3 = primitivesDefaultedForNullValue,
+		// 4 = target cast to the mapped class, 5 (and 6) = primitive column value
+		String ownerType = Type.getInternalName(mappedClass);
+		String resultSetType = Type.getInternalName(ResultSet.class);
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "populate", "(L" + resultSetType + ";Ljava/lang/Object;Z)I",
+				null, new String[] {Type.getInternalName(SQLException.class)});
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 2);
+		mv.visitTypeInsn(Opcodes.CHECKCAST, ownerType);
+		mv.visitVarInsn(Opcodes.ASTORE, 4);
+		for (int i = 0; i < setters.length; i++) {
+			Method setter = setters[i];
+			if (setter == null) {
+				continue;
+			}
+			Class<?> propertyType = setter.getParameterTypes()[0];
+			Method getter = resultSetGetters.get(propertyType);
+			Type valueType = Type.getType(getter.getReturnType());
+			int columnIndex = i + 1;
+			if (valueType.getSort() == Type.OBJECT || valueType.getSort() == Type.ARRAY) {
+				// target.setXxx(rs.getXxx(index)), passing null through as is
+				mv.visitVarInsn(Opcodes.ALOAD, 4);
+				visitGetter(mv, getter, columnIndex);
+				visitSetter(mv, ownerType, setter);
+				continue;
+			}
+			Label nullValue = new Label();
+			Label next = new Label();
+			visitGetter(mv, getter, columnIndex);
+			mv.visitVarInsn(valueType.getOpcode(Opcodes.ISTORE), 5);
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, resultSetType, "wasNull", "()Z", true);
+			mv.visitJumpInsn(Opcodes.IFNE, nullValue);
+			mv.visitVarInsn(Opcodes.ALOAD, 4);
+			mv.visitVarInsn(valueType.getOpcode(Opcodes.ILOAD), 5);
+			if (!propertyType.isPrimitive()) {
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(propertyType), "valueOf",
+						"(" + valueType.getDescriptor() + ")" + Type.getDescriptor(propertyType), false);
+			}
+			visitSetter(mv, ownerType, setter);
+			mv.visitJumpInsn(Opcodes.GOTO, next);
+			mv.visitLabel(nullValue);
+			if (propertyType.isPrimitive()) {
+				// Leave the default value in place or report the column to the caller
+				mv.visitVarInsn(Opcodes.ILOAD, 3);
+				mv.visitJumpInsn(Opcodes.IFNE, next);
+				mv.visitLdcInsn(columnIndex);
+				mv.visitInsn(Opcodes.IRETURN);
+			}
+			else {
+				mv.visitVarInsn(Opcodes.ALOAD, 4);
+				mv.visitInsn(Opcodes.ACONST_NULL);
+				mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(propertyType));
+				visitSetter(mv, ownerType, setter);
+			}
+			mv.visitLabel(next);
+		}
+		mv.visitInsn(Opcodes.ICONST_0);
+		mv.visitInsn(Opcodes.IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void visitGetter(MethodVisitor mv, Method getter, int columnIndex) {
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitLdcInsn(columnIndex);
+		mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(ResultSet.class),
+				getter.getName(), Type.getMethodDescriptor(getter), true);
+	}
+
+	private static void visitSetter(MethodVisitor mv, String ownerType, Method setter) {
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, ownerType, setter.getName(), Type.getMethodDescriptor(setter), false);
+		Class<?> returnType = setter.getReturnType();
+		if (returnType != void.class) {
+			mv.visitInsn(returnType == long.class || returnType == double.class ? Opcodes.POP2 : Opcodes.POP);
+		}
+	}
+
+	private static void registerGetter(String methodName, Class<?>... propertyTypes) {
+		Method getter = ClassUtils.getMethod(ResultSet.class, methodName, int.class);
+		for (Class<?> propertyType : propertyTypes) {
+			resultSetGetters.put(propertyType, getter);
+		}
+	}
+
+
+	/**
+	 * Static factory method to create a new {@code GeneratedBeanPropertyRowMapper}
+	 * (with the mapped class specified only once).
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public static <T> GeneratedBeanPropertyRowMapper<T> newInstance(Class<T> mappedClass) {
+		return new GeneratedBeanPropertyRowMapper<>(mappedClass);
+	}
+
+
+	/**
+	 * Contract for generated row populators. Only public in order to be
+	 * implemented by classes generated in the packages of mapped classes.
+	 */
+	public interface RowPopulator {
+
+		/**
+		 * Populate the given target from the current row of the given result set.
+		 * @param rs the result set, positioned at the current row
+		 * @param target the target object, an instance of the mapped class
+		 * @param primitivesDefaultedForNullValue whether to skip primitive
+		 * properties with a {@code null} column value
+		 * @return {@code 0} if all columns have been mapped, or the index of the
+		 * column with a {@code null} value for a primitive property otherwise
+		 * @throws SQLException if thrown by the result set
+		 */
+		int populate(ResultSet rs, Object target, boolean primitivesDefaultedForNullValue) throws SQLException;
+	}
+
+
+	/**
+	 * The resolved mapping for a sequence of column names.
+	 */
+	private static final class MappingPlan<T> {
+
+		final List<String> columns;
+
+		final Constructor<T> constructor;
+
+		final PropertyDescriptor[] properties;
+
+		@Nullable
+		final RowPopulator populator;
+
+		final int[] fallbackColumns;
+
+		final boolean fullyPopulated;
+
+		MappingPlan(List<String> columns, Constructor<T> constructor, PropertyDescriptor[] properties,
+				@Nullable RowPopulator populator, int[] fallbackColumns, boolean fullyPopulated) {
+
+			this.columns = columns;
+			this.constructor = constructor;
+			this.properties = properties;
+			this.populator = populator;
+			this.fallbackColumns = fallbackColumns;
+			this.fullyPopulated = fullyPopulated;
+		}
+	}
+
+
+	/**
+	 * The mapping plan for the result set currently being mapped.
+	 */
+	private static final class CurrentPlan<T> {
+
+		final WeakReference<ResultSet> resultSet;
+
+		final MappingPlan<T> plan;
+
+		CurrentPlan(ResultSet resultSet, MappingPlan<T> plan) {
+			this.resultSet = new WeakReference<>(resultSet);
+			this.plan = plan;
+		}
+	}
+
+}
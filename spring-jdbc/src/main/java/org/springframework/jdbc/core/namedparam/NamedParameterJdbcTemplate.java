@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,10 +18,14 @@ package org.springframework.jdbc.core.namedparam;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
@@ -43,6 +47,7 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 
 /**
  * Template class with a basic set of JDBC operations, allowing the use
@@ -53,6 +58,11 @@ import org.springframework.util.Assert;
  * done at execution time. It also allows for expanding a {@link java.util.List}
  * of values to the appropriate number of placeholders.
  *
+ * <p>Parsed statements are cached per SQL String, along with the JDBC SQL to
+ * use if no parameter needs to be expanded. Optionally, values for an
+ * {@code IN} list can be padded to a bucketed size, so that the expanded
+ * statements can be reused by a statement cache on the driver side.
+ *
  * <p>The underlying {@link org.springframework.jdbc.core.JdbcTemplate} is
  * exposed to allow for convenient access to the traditional
  * {@link org.springframework.jdbc.core.JdbcTemplate} methods.
@@ -70,21 +80,18 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	/** Default maximum number of entries for this template's SQL cache: 256. */
 	public static final int DEFAULT_CACHE_LIMIT = 256;
 
+	/** Maximum size of an {@code IN} list value to be padded: 512. */
+	private static final int MAX_PADDED_IN_CLAUSE_SIZE = 512;
+
 
 	/** The JdbcTemplate we are wrapping. */
 	private final JdbcOperations classicJdbcTemplate;
 
-	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
-
 	/** Cache of original SQL String to ParsedSql representation. */
-	@SuppressWarnings("serial")
-	private final Map<String, ParsedSql> parsedSqlCache =
-			new LinkedHashMap<String, ParsedSql>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-				@Override
-				protected boolean removeEldestEntry(Map.Entry<String, ParsedSql> eldest) {
-					return size() > getCacheLimit();
-				}
-			};
+	private volatile ConcurrentLruCache<String, ParsedSql> parsedSqlCache =
+			new ConcurrentLruCache<>(DEFAULT_CACHE_LIMIT, NamedParameterUtils::parseSqlStatement);
+
+	private boolean inClauseParameterPadding = false;
 
 
 	/**
@@ -131,17 +138,42 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 
 	/**
 	 * Specify the maximum number of entries for this template's SQL cache.
-	 * Default is 256.
+	 * Default is 256. 0 indicates no caching, always parsing each statement.
 	 */
 	public void setCacheLimit(int cacheLimit) {
-		this.cacheLimit = cacheLimit;
+		this.parsedSqlCache = new ConcurrentLruCache<>(Math.max(cacheLimit, 0), NamedParameterUtils::parseSqlStatement);
 	}
 
 	/**
 	 * Return the maximum number of entries for this template's SQL cache.
 	 */
 	public int getCacheLimit() {
-		return this.cacheLimit;
+		return this.parsedSqlCache.sizeLimit();
+	}
+
+	/**
+	 * Set whether to pad a {@link Collection} value for a parameter that is
+	 * the single element of an {@code IN} list, e.g. {@code "id IN (:ids)"},
+	 * by repeating its last element up to the next power of two.
+	 * <p>This limits the number of distinct statements that such a parameter
+	 * expands to, which allows for reusing statements cached by the driver.
+	 * Values with more than 512 elements, as well as values for parameters
+	 * that also occur outside of an {@code IN} list, are never padded, and
+	 * batch updates are not affected by this setting.
+	 * <p>Default is "false". Only switch this on if the database's query plans
+	 * are not sensitive to duplicate {@code IN} list elements.
+	 * @since 5.2
+	 */
+	public void setInClauseParameterPadding(boolean inClauseParameterPadding) {
+		this.inClauseParameterPadding = inClauseParameterPadding;
+	}
+
+	/**
+	 * Return whether {@code IN} list values are padded to a bucketed size.
+	 * @since 5.2
+	 */
+	public boolean isInClauseParameterPadding() {
+		return this.inClauseParameterPadding;
 	}
 
 
@@ -222,6 +254,20 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 		return query(sql, new MapSqlParameterSource(paramMap), rowMapper);
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return getJdbcOperations().queryForStream(getPreparedStatementCreator(sql, paramSource), rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(sql, new MapSqlParameterSource(paramMap), rowMapper);
+	}
+
 	@Override
 	public <T> List<T> query(String sql, RowMapper<T> rowMapper) throws DataAccessException {
 		return query(sql, EmptySqlParameterSource.INSTANCE, rowMapper);
@@ -410,32 +456,28 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 			@Nullable Consumer<PreparedStatementCreatorFactory> customizer) {
 
 		ParsedSql parsedSql = getParsedSql(sql);
-		PreparedStatementCreatorFactory pscf = getPreparedStatementCreatorFactory(parsedSql, paramSource);
+		SqlParameterSource paramSourceToUse = paramSource;
+		if (this.inClauseParameterPadding && !parsedSql.getInClauseParameterNames().isEmpty()) {
+			paramSourceToUse = new InClausePaddingSqlParameterSource(paramSource, parsedSql.getInClauseParameterNames());
+		}
+		PreparedStatementCreatorFactory pscf = getPreparedStatementCreatorFactory(parsedSql, paramSourceToUse);
 		if (customizer != null) {
 			customizer.accept(pscf);
 		}
-		Object[] params = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+		Object[] params = NamedParameterUtils.buildValueArray(parsedSql, paramSourceToUse, null);
 		return pscf.newPreparedStatementCreator(params);
 	}
 
 	/**
 	 * Obtain a parsed representation of the given SQL statement.
-	 * <p>The default implementation uses an LRU cache with an upper limit of 256 entries.
+	 * <p>The default implementation uses a concurrent LRU cache with an upper
+	 * limit of 256 entries.
 	 * @param sql the original SQL statement
 	 * @return a representation of the parsed SQL statement
+	 * @see #setCacheLimit
 	 */
 	protected ParsedSql getParsedSql(String sql) {
-		if (getCacheLimit() <= 0) {
-			return NamedParameterUtils.parseSqlStatement(sql);
-		}
-		synchronized (this.parsedSqlCache) {
-			ParsedSql parsedSql = this.parsedSqlCache.get(sql);
-			if (parsedSql == null) {
-				parsedSql = NamedParameterUtils.parseSqlStatement(sql);
-				this.parsedSqlCache.put(sql, parsedSql);
-			}
-			return parsedSql;
-		}
+		return this.parsedSqlCache.get(sql);
 	}
 
 	/**
@@ -455,4 +497,79 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 		return new PreparedStatementCreatorFactory(sqlToUse, declaredParameters);
 	}
 
+
+	/**
+	 * {@link SqlParameterSource} decorator which pads {@link Collection} values
+	 * for the given {@code IN} list parameters to the next power of two.
+	 */
+	private static class InClausePaddingSqlParameterSource implements SqlParameterSource {
+
+		private final SqlParameterSource source;
+
+		private final Set<String> inClauseParameterNames;
+
+		private final Map<String, Object> paddedValues = new HashMap<>(4);
+
+		InClausePaddingSqlParameterSource(SqlParameterSource source, Set<String> inClauseParameterNames) {
+			this.source = source;
+			this.inClauseParameterNames = inClauseParameterNames;
+		}
+
+		@Override
+		public boolean hasValue(String paramName) {
+			return this.source.hasValue(paramName);
+		}
+
+		@Override
+		@Nullable
+		public Object getValue(String paramName) throws IllegalArgumentException {
+			if (!this.inClauseParameterNames.contains(paramName)) {
+				return this.source.getValue(paramName);
+			}
+			Object value = this.paddedValues.get(paramName);
+			if (value == null) {
+				value = padValue(this.source.getValue(paramName));
+				this.paddedValues.put(paramName, value);
+			}
+			return value;
+		}
+
+		@Override
+		public int getSqlType(String paramName) {
+			return this.source.getSqlType(paramName);
+		}
+
+		@Override
+		@Nullable
+		public String getTypeName(String paramName) {
+			return this.source.getTypeName(paramName);
+		}
+
+		@Override
+		@Nullable
+		public String[] getParameterNames() {
+			return this.source.getParameterNames();
+		}
+
+		@Nullable
+		private static Object padValue(@Nullable Object value) {
+			if (!(value instanceof Collection)) {
+				return value;
+			}
+			Collection<?> collection = (Collection<?>) value;
+			int size = collection.size();
+			if (size > MAX_PADDED_IN_CLAUSE_SIZE || (size & (size - 1)) == 0) {
+				return value;
+			}
+			int paddedSize = Integer.highestOneBit(size) << 1;
+			List<Object> paddedValue = new ArrayList<>(paddedSize);
+			paddedValue.addAll(collection);
+			Object lastElement = paddedValue.get(size - 1);
+			while (paddedValue.size() < paddedSize) {
+				paddedValue.add(lastElement);
+			}
+			return paddedValue;
+		}
+	}
+
 }
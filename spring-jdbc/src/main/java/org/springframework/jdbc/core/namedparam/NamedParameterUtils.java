@@ -17,6 +17,7 @@
 package org.springframework.jdbc.core.namedparam;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -181,9 +182,85 @@ public abstract class NamedParameterUtils {
 		parsedSql.setNamedParameterCount(namedParameterCount);
 		parsedSql.setUnnamedParameterCount(unnamedParameterCount);
 		parsedSql.setTotalParameterCount(totalParameterCount);
+		initExecutionPlan(parsedSql);
 		return parsedSql;
 	}
 
+	/**
+	 * Precompute the parts of the given parsed statement that do not depend
+	 * on actual parameter values: the JDBC SQL for the common case of no
+	 * parameter expansion, the distinct parameter names, and the parameters
+	 * which only occur as the single element of an {@code IN} list.
+	 */
+	private static void initExecutionPlan(ParsedSql parsedSql) {
+		String originalSql = parsedSql.getOriginalSql();
+		List<String> paramNames = parsedSql.getParameterNames();
+		if (paramNames.isEmpty()) {
+			parsedSql.setSubstitutedSql(originalSql);
+			return;
+		}
+
+		StringBuilder actualSql = new StringBuilder(originalSql.length());
+		Map<String, Integer> nameIndexes = new HashMap<>();
+		List<String> distinctNames = new ArrayList<>();
+		int[] parameterNameIndexes = new int[paramNames.size()];
+		Set<String> inClauseNames = new HashSet<>();
+		Set<String> otherNames = new HashSet<>();
+		int lastIndex = 0;
+		for (int i = 0; i < paramNames.size(); i++) {
+			String paramName = paramNames.get(i);
+			int[] indexes = parsedSql.getParameterIndexes(i);
+			actualSql.append(originalSql, lastIndex, indexes[0]).append('?');
+			lastIndex = indexes[1];
+			Integer nameIndex = nameIndexes.get(paramName);
+			if (nameIndex == null) {
+				nameIndex = distinctNames.size();
+				nameIndexes.put(paramName, nameIndex);
+				distinctNames.add(paramName);
+			}
+			parameterNameIndexes[i] = nameIndex;
+			if (isInClauseParameter(originalSql, indexes[0], indexes[1])) {
+				inClauseNames.add(paramName);
+			}
+			else {
+				otherNames.add(paramName);
+			}
+		}
+		actualSql.append(originalSql, lastIndex, originalSql.length());
+		inClauseNames.removeAll(otherNames);
+
+		parsedSql.setSubstitutedSql(actualSql.toString());
+		parsedSql.setParameterNameIndexes(distinctNames, parameterNameIndexes);
+		parsedSql.setInClauseParameterNames(inClauseNames);
+	}
+
+	/**
+	 * Determine whether the parameter at the given position is the single
+	 * element of an {@code IN} list, i.e. {@code "IN (:param)"}.
+	 */
+	private static boolean isInClauseParameter(String sql, int startIndex, int endIndex) {
+		int i = startIndex - 1;
+		while (i >= 0 && Character.isWhitespace(sql.charAt(i))) {
+			i--;
+		}
+		if (i < 0 || sql.charAt(i) != '(') {
+			return false;
+		}
+		i--;
+		while (i >= 0 && Character.isWhitespace(sql.charAt(i))) {
+			i--;
+		}
+		if (i < 1 || !sql.regionMatches(true, i - 1, "in", 0, 2) ||
+				(i > 1 && Character.isJavaIdentifierPart(sql.charAt(i - 2)))) {
+			return false;
+		}
+		int j = endIndex;
+		while (j < sql.length() && Character.isWhitespace(sql.charAt(j))) {
+			j++;
+		}
+		return (j < sql.length() && sql.charAt(j) == ')');
+	}
+
 	private static int addNamedParameter(
 			List<ParameterHolder> parameterList, int totalParameterCount, int escapes, int i, int j, String parameter) {
 
@@ -270,6 +347,10 @@ public abstract class NamedParameterUtils {
 		if (paramNames.isEmpty()) {
 			return originalSql;
 		}
+		String substitutedSql = parsedSql.getSubstitutedSql();
+		if (substitutedSql != null && !hasIterableValue(parsedSql, paramSource)) {
+			return substitutedSql;
+		}
 		StringBuilder actualSql = new StringBuilder(originalSql.length());
 		int lastIndex = 0;
 		for (int i = 0; i < paramNames.size(); i++) {
@@ -321,6 +402,28 @@ public abstract class NamedParameterUtils {
 		return actualSql.toString();
 	}
 
+	/**
+	 * Determine whether any of the parameters of the given statement has a
+	 * value that needs to be expanded into multiple placeholders.
+	 */
+	private static boolean hasIterableValue(ParsedSql parsedSql, @Nullable SqlParameterSource paramSource) {
+		if (paramSource == null) {
+			return false;
+		}
+		for (String paramName : parsedSql.getDistinctParameterNames()) {
+			if (paramSource.hasValue(paramName)) {
+				Object value = paramSource.getValue(paramName);
+				if (value instanceof SqlParameterValue) {
+					value = ((SqlParameterValue) value).getValue();
+				}
+				if (value instanceof Iterable) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Convert a Map of named parameter values to a corresponding array.
 	 * @param parsedSql the parsed SQL statement
@@ -341,19 +444,26 @@ public abstract class NamedParameterUtils {
 					parsedSql.getUnnamedParameterCount() + " traditional placeholder(s) in statement: " +
 					parsedSql.getOriginalSql());
 		}
-		List<String> paramNames = parsedSql.getParameterNames();
-		for (int i = 0; i < paramNames.size(); i++) {
-			String paramName = paramNames.get(i);
+		// Retrieve each value once, even if the parameter occurs repeatedly
+		List<String> distinctNames = parsedSql.getDistinctParameterNames();
+		Object[] values = new Object[distinctNames.size()];
+		for (int i = 0; i < values.length; i++) {
+			String paramName = distinctNames.get(i);
 			try {
-				Object value = paramSource.getValue(paramName);
-				SqlParameter param = findParameter(declaredParams, paramName, i);
-				paramArray[i] = (param != null ? new SqlParameterValue(param, value) : value);
+				values[i] = paramSource.getValue(paramName);
 			}
 			catch (IllegalArgumentException ex) {
 				throw new InvalidDataAccessApiUsageException(
 						"No value supplied for the SQL parameter '" + paramName + "': " + ex.getMessage());
 			}
 		}
+		List<String> paramNames = parsedSql.getParameterNames();
+		int[] nameIndexes = parsedSql.getParameterNameIndexes();
+		for (int i = 0; i < paramNames.size(); i++) {
+			Object value = values[nameIndexes[i]];
+			SqlParameter param = findParameter(declaredParams, paramNames.get(i), i);
+			paramArray[i] = (param != null ? new SqlParameterValue(param, value) : value);
+		}
 		return paramArray;
 	}
 
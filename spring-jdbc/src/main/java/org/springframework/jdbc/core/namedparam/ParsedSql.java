@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,7 +17,11 @@
 package org.springframework.jdbc.core.namedparam;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
 
 /**
  * Holds information about a parsed SQL statement.
@@ -40,6 +44,15 @@ public class ParsedSql {
 
 	private int totalParameterCount;
 
+	@Nullable
+	private String substitutedSql;
+
+	private List<String> distinctParameterNames = Collections.emptyList();
+
+	private int[] parameterNameIndexes = new int[0];
+
+	private Set<String> inClauseParameterNames = Collections.emptySet();
+
 
 	/**
 	 * Create a new instance of the {@link ParsedSql} class.
@@ -134,6 +147,74 @@ public class ParsedSql {
 	}
 
 
+	/**
+	 * Set the SQL statement with each named parameter replaced by a single
+	 * JDBC placeholder, as used if no parameter needs to be expanded.
+	 * @since 5.2
+	 */
+	void setSubstitutedSql(String substitutedSql) {
+		this.substitutedSql = substitutedSql;
+	}
+
+	/**
+	 * Return the SQL statement with each named parameter replaced by a single
+	 * JDBC placeholder, if precomputed.
+	 * @since 5.2
+	 */
+	@Nullable
+	String getSubstitutedSql() {
+		return this.substitutedSql;
+	}
+
+	/**
+	 * Set the distinct parameter names along with the index into the distinct
+	 * names for each parameter position.
+	 * @param distinctParameterNames the parameter names, without repeated occurrences
+	 * @param parameterNameIndexes the index into the distinct names for each
+	 * position in the {@link #getParameterNames() parameter names List}
+	 * @since 5.2
+	 */
+	void setParameterNameIndexes(List<String> distinctParameterNames, int[] parameterNameIndexes) {
+		this.distinctParameterNames = distinctParameterNames;
+		this.parameterNameIndexes = parameterNameIndexes;
+	}
+
+	/**
+	 * Return the parameter names, without repeated occurrences.
+	 * @since 5.2
+	 */
+	List<String> getDistinctParameterNames() {
+		return this.distinctParameterNames;
+	}
+
+	/**
+	 * Return the index into the {@link #getDistinctParameterNames() distinct
+	 * parameter names} for each parameter position.
+	 * @since 5.2
+	 */
+	int[] getParameterNameIndexes() {
+		return this.parameterNameIndexes;
+	}
+
+	/**
+	 * Set the names of the parameters which only occur as the single element
+	 * of an {@code IN} list, e.g. {@code "id IN (:ids)"}.
+	 * @since 5.2
+	 */
+	void setInClauseParameterNames(Set<String> inClauseParameterNames) {
+		this.inClauseParameterNames = inClauseParameterNames;
+	}
+
+	/**
+	 * Return the names of the parameters which only occur as the single element
+	 * of an {@code IN} list.
+	 * @since 5.2
+	 */
+	Set<String> getInClauseParameterNames() {
+		return this.inClauseParameterNames;
+	}
+
+
 	/**
 	 * Exposes the original SQL String.
 	 */
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.test.ConcretePerson;
+import org.springframework.jdbc.core.test.ExtendedPerson;
+import org.springframework.jdbc.core.test.Person;
+import org.springframework.jdbc.core.test.SpacePerson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link GeneratedBeanPropertyRowMapper}.
+ */
+public class GeneratedBeanPropertyRowMapperTests extends AbstractRowMapperTests {
+
+	@Test
+	public void staticQueryWithRowMapper() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new GeneratedBeanPropertyRowMapper<>(Person.class));
+		assertThat(result.size()).isEqualTo(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void mappingWithInheritance() throws Exception {
+		Mock mock = new Mock();
+		List<ConcretePerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new GeneratedBeanPropertyRowMapper<>(ConcretePerson.class, true));
+		assertThat(result.size()).isEqualTo(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void mappingWithUnpopulatedFieldsNotAccepted() throws Exception {
+		Mock mock = new Mock();
+		assertThatExceptionOfType(InvalidDataAccessApiUsageException.class).isThrownBy(() ->
+				mock.getJdbcTemplate().query("select name, age, birth_date, balance from people",
+						new GeneratedBeanPropertyRowMapper<>(ExtendedPerson.class, true)));
+	}
+
+	@Test
+	public void mappingNullValue() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		assertThatExceptionOfType(TypeMismatchException.class).isThrownBy(() ->
+				mock.getJdbcTemplate().query("select name, null as age, birth_date, balance from people",
+						new GeneratedBeanPropertyRowMapper<>(Person.class)));
+	}
+
+	@Test
+	public void mappingNullValueWithPrimitivesDefaulted() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		GeneratedBeanPropertyRowMapper<Person> mapper = new GeneratedBeanPropertyRowMapper<>(Person.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertThat(result.size()).isEqualTo(1);
+		assertThat(result.get(0).getName()).isEqualTo("Bubba");
+		assertThat(result.get(0).getAge()).isEqualTo(0L);
+	}
+
+	@Test
+	public void mappingWithConvertedProperty() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<SpacePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				new GeneratedBeanPropertyRowMapper<>(SpacePerson.class));
+		assertThat(result.size()).isEqualTo(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void mappingWrapperValues() throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rsmd.getColumnCount()).willReturn(3);
+		given(rsmd.getColumnLabel(1)).willReturn("count");
+		given(rsmd.getColumnLabel(2)).willReturn("active");
+		given(rsmd.getColumnLabel(3)).willReturn("RATIO");
+		given(rs.getLong(1)).willReturn(0L);
+		given(rs.getBoolean(2)).willReturn(true);
+		given(rs.getDouble(3)).willReturn(0.5d);
+		given(rs.wasNull()).willReturn(true, false, false);
+
+		WrapperBean bean = new GeneratedBeanPropertyRowMapper<>(WrapperBean.class).mapRow(rs, 0);
+		assertThat(bean.getCount()).isNull();
+		assertThat(bean.getActive()).isTrue();
+		assertThat(bean.getRatio()).isEqualTo(0.5d);
+	}
+
+	@Test
+	public void mappingPlanResolvedOncePerResultSet() throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rsmd.getColumnCount()).willReturn(2);
+		given(rsmd.getColumnLabel(1)).willReturn("name");
+		given(rsmd.getColumnLabel(2)).willReturn("age");
+		given(rs.getString(1)).willReturn("Bubba", "Bob");
+		given(rs.getLong(2)).willReturn(22L, 33L);
+
+		GeneratedBeanPropertyRowMapper<Person> mapper = new GeneratedBeanPropertyRowMapper<>(Person.class);
+		Person first = mapper.mapRow(rs, 0);
+		Person second = mapper.mapRow(rs, 1);
+		assertThat(first.getName()).isEqualTo("Bubba");
+		assertThat(first.getAge()).isEqualTo(22L);
+		assertThat(second.getName()).isEqualTo("Bob");
+		assertThat(second.getAge()).isEqualTo(33L);
+		verify(rs, times(1)).getMetaData();
+		verify(rsmd, times(1)).getColumnLabel(1);
+	}
+
+	@Test
+	public void populatorSharedAcrossMappers() throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rsmd.getColumnCount()).willReturn(1);
+		given(rsmd.getColumnLabel(1)).willReturn("name");
+		given(rs.getString(1)).willReturn("Bubba");
+
+		CallerRecordingBean first = new GeneratedBeanPropertyRowMapper<>(CallerRecordingBean.class).mapRow(rs, 0);
+		CallerRecordingBean second = new GeneratedBeanPropertyRowMapper<>(CallerRecordingBean.class).mapRow(rs, 0);
+		assertThat(first.caller).contains("$$SpringRowPopulator$$");
+		assertThat(second.caller).isEqualTo(first.caller);
+		assertThat(second.getName()).isEqualTo("Bubba");
+	}
+
+
+	public static class WrapperBean {
+
+		private Long count;
+
+		private Boolean active;
+
+		private Double ratio;
+
+		public Long getCount() {
+			return this.count;
+		}
+
+		public void setCount(Long count) {
+			this.count = count;
+		}
+
+		public Boolean getActive() {
+			return this.active;
+		}
+
+		public void setActive(Boolean active) {
+			this.active = active;
+		}
+
+		public Double getRatio() {
+			return this.ratio;
+		}
+
+		public void setRatio(Double ratio) {
+			this.ratio = ratio;
+		}
+	}
+
+
+	public static class CallerRecordingBean {
+
+		String caller;
+
+		private String name;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.caller = new Throwable().getStackTrace()[1].getClassName();
+			this.name = name;
+		}
+	}
+
+}
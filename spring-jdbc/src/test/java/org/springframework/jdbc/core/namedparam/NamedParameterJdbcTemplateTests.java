@@ -28,6 +28,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.junit.Before;
@@ -335,6 +337,35 @@ public class NamedParameterJdbcTemplateTests {
 		verify(connection).close();
 	}
 
+	@Test
+	public void testQueryForStreamWithRowMapper() throws SQLException {
+		given(resultSet.next()).willReturn(true, false);
+		given(resultSet.getInt("id")).willReturn(1);
+		given(resultSet.getString("forename")).willReturn("rod");
+
+		params.put("id", new SqlParameterValue(Types.DECIMAL, 1));
+		params.put("country", "UK");
+		List<Customer> customers;
+		try (Stream<Customer> stream = namedParameterTemplate.queryForStream(SELECT_NAMED_PARAMETERS, params,
+				(rs, rownum) -> {
+					Customer cust = new Customer();
+					cust.setId(rs.getInt(COLUMN_NAMES[0]));
+					cust.setForename(rs.getString(COLUMN_NAMES[1]));
+					return cust;
+				})) {
+			customers = stream.collect(Collectors.toList());
+		}
+		assertThat(customers.size()).isEqualTo(1);
+		assertThat(customers.get(0).getId() == 1).as("Customer id was assigned correctly").isTrue();
+		assertThat(customers.get(0).getForename().equals("rod")).as("Customer forename was assigned correctly").isTrue();
+		verify(connection).prepareStatement(SELECT_NAMED_PARAMETERS_PARSED);
+		verify(preparedStatement).setObject(1, 1, Types.DECIMAL);
+		verify(preparedStatement).setString(2, "UK");
+		verify(resultSet).close();
+		verify(preparedStatement).close();
+		verify(connection).close();
+	}
+
 	@Test
 	public void testQueryWithRowMapperNoParameters() throws SQLException {
 		given(resultSet.next()).willReturn(true, false);
@@ -412,6 +443,48 @@ public class NamedParameterJdbcTemplateTests {
 		verify(connection).close();
 	}
 
+	@Test
+	public void testUpdateWithInClausePadding() throws SQLException {
+		given(preparedStatement.executeUpdate()).willReturn(3);
+
+		params.put("ids", Arrays.asList(1, 2, 3));
+		params.put("status", "OK");
+		namedParameterTemplate.setInClauseParameterPadding(true);
+		int rowsAffected = namedParameterTemplate.update(
+				"update seat_status set status = :status where id in (:ids)", params);
+
+		assertThat(rowsAffected).isEqualTo(3);
+		verify(connection).prepareStatement("update seat_status set status = ? where id in (?, ?, ?, ?)");
+		verify(preparedStatement).setString(1, "OK");
+		verify(preparedStatement).setObject(2, 1);
+		verify(preparedStatement).setObject(3, 2);
+		verify(preparedStatement).setObject(4, 3);
+		verify(preparedStatement).setObject(5, 3);
+		verify(preparedStatement).close();
+		verify(connection).close();
+	}
+
+	@Test
+	public void testUpdateWithInClausePaddingForParameterOutsideOfInClause() throws SQLException {
+		params.put("ids", Arrays.asList(1, 2, 3));
+		namedParameterTemplate.setInClauseParameterPadding(true);
+		namedParameterTemplate.update("insert into seat_status (a, b, c) select :ids from dual " +
+				"where not exists (select 1 from seat_status where id in (:ids))", params);
+
+		verify(connection).prepareStatement("insert into seat_status (a, b, c) select ?, ?, ? from dual " +
+				"where not exists (select 1 from seat_status where id in (?, ?, ?))");
+	}
+
+	@Test
+	public void testCacheLimit() {
+		ParsedSql parsedSql = namedParameterTemplate.getParsedSql(SELECT_NAMED_PARAMETERS);
+		assertThat(namedParameterTemplate.getParsedSql(SELECT_NAMED_PARAMETERS)).isSameAs(parsedSql);
+
+		namedParameterTemplate.setCacheLimit(0);
+		assertThat(namedParameterTemplate.getCacheLimit()).isEqualTo(0);
+		assertThat(namedParameterTemplate.getParsedSql(SELECT_NAMED_PARAMETERS)).isNotSameAs(parsedSql);
+	}
+
 	@Test
 	public void testBatchUpdateWithPlainMap() throws Exception {
 		@SuppressWarnings("unchecked")
@@ -16,9 +16,11 @@
 
 package org.springframework.jdbc.core.namedparam;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -258,6 +260,41 @@ public class NamedParameterUtilsTests {
 		assertThat(finalSql).isEqualTo(expectedSql);
 	}
 
+	@Test
+	public void substituteNamedParametersWithoutExpansion() {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement("xxx :a yyyy :b :a zzzzz");
+		MapSqlParameterSource paramSource = new MapSqlParameterSource().addValue("a", 1).addValue("b", "b");
+		String sql = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
+		assertThat(sql).isEqualTo("xxx ? yyyy ? ? zzzzz");
+		assertThat(NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource)).isSameAs(sql);
+
+		paramSource.addValue("b", Arrays.asList("b", "c"));
+		assertThat(NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource))
+				.isEqualTo("xxx ? yyyy ?, ? ? zzzzz");
+	}
+
+	@Test
+	public void buildValueArrayWithRepeatedParameter() {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement("xxx :a yyyy :b :a zzzzz");
+		AtomicInteger count = new AtomicInteger();
+		MapSqlParameterSource paramSource = new MapSqlParameterSource("b", "b") {
+			@Override
+			public Object getValue(String paramName) {
+				return (paramName.equals("a") ? count.incrementAndGet() : super.getValue(paramName));
+			}
+		};
+		Object[] values = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+		assertThat(values).containsExactly(1, "b", 1);
+	}
+
+	@Test
+	public void parseSqlStatementWithInClauseParameters() {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(
+				"select * from t where a IN (:a) and b in( :b ) and c not in (:c, :d) and e = :e and x in (:x)" +
+				" and pin(:f) and x = :x");
+		assertThat(parsedSql.getInClauseParameterNames()).containsOnly("a", "b");
+	}
+
 	@Test  // SPR-2544
 	public void parseSqlStatementWithLogicalAnd() {
 		String expectedSql = "xxx & yyyy";
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,19 +26,11 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 
-import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.PropertyAccessor;
-import org.springframework.expression.TypedValue;
-import org.springframework.expression.spel.SpelEvaluationException;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.SimpleEvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
-import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.LinkedMultiValueMap;
@@ -54,6 +46,8 @@ import org.springframework.util.StringUtils;
  * <p>As of 4.2, this class supports a {@link #setSelectorHeaderName selector}
  * header on subscription messages with Spring EL expressions evaluated against
  * the headers to filter out messages in addition to destination matching.
+ * As of 5.2, selector expressions are compiled where possible, and each
+ * distinct selector is evaluated once per message.
  *
  * @author Rossen Stoyanchev
  * @author Sebastien Deleuze
@@ -65,10 +59,6 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	/** Default maximum number of entries for the destination cache: 1024. */
 	public static final int DEFAULT_CACHE_LIMIT = 1024;
 
-	/** Static evaluation context to reuse. */
-	private static final EvaluationContext messageEvalContext =
-			SimpleEvaluationContext.forPropertyAccessors(new SimpMessageHeaderPropertyAccessor()).build();
-
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
@@ -79,7 +69,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	private volatile boolean selectorHeaderInUse = false;
 
-	private final ExpressionParser expressionParser = new SpelExpressionParser();
+	private final SelectorEvaluator selectorEvaluator = new SelectorEvaluator(logger);
 
 	private final DestinationCache destinationCache = new DestinationCache();
 
@@ -159,7 +149,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			String selector = SimpMessageHeaderAccessor.getFirstNativeHeader(getSelectorHeaderName(), headers);
 			if (selector != null) {
 				try {
-					expression = this.expressionParser.parseExpression(selector);
+					expression = this.selectorEvaluator.parseSelector(selector);
 					this.selectorHeaderInUse = true;
 					if (logger.isTraceEnabled()) {
 						logger.trace("Subscription selector: [" + selector + "]");
@@ -207,33 +197,16 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return allMatches;
 		}
 		MultiValueMap<String, String> result = new LinkedMultiValueMap<>(allMatches.size());
+		SelectorEvaluator.Evaluation evaluation = this.selectorEvaluator.forMessage(message);
 		allMatches.forEach((sessionId, subIds) -> {
+			SessionSubscriptionInfo info = this.subscriptionRegistry.getSubscriptions(sessionId);
+			if (info == null) {
+				return;
+			}
 			for (String subId : subIds) {
-				SessionSubscriptionInfo info = this.subscriptionRegistry.getSubscriptions(sessionId);
-				if (info == null) {
-					continue;
-				}
 				Subscription sub = info.getSubscription(subId);
-				if (sub == null) {
-					continue;
-				}
-				Expression expression = sub.getSelectorExpression();
-				if (expression == null) {
+				if (sub != null && evaluation.matches(sub.getSelectorExpression())) {
 					result.add(sessionId, subId);
-					continue;
-				}
-				try {
-					if (Boolean.TRUE.equals(expression.getValue(messageEvalContext, message, Boolean.class))) {
-						result.add(sessionId, subId);
-					}
-				}
-				catch (SpelEvaluationException ex) {
-					if (logger.isDebugEnabled()) {
-						logger.debug("Failed to evaluate selector: " + ex.getMessage());
-					}
-				}
-				catch (Throwable ex) {
-					logger.debug("Failed to evaluate selector", ex);
 				}
 			}
 		});
@@ -527,55 +500,4 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		}
 	}
 
-
-	private static class SimpMessageHeaderPropertyAccessor implements PropertyAccessor {
-
-		@Override
-		public Class<?>[] getSpecificTargetClasses() {
-			return new Class<?>[] {Message.class, MessageHeaders.class};
-		}
-
-		@Override
-		public boolean canRead(EvaluationContext context, @Nullable Object target, String name) {
-			return true;
-		}
-
-		@Override
-		public TypedValue read(EvaluationContext context, @Nullable Object target, String name) {
-			Object value;
-			if (target instanceof Message) {
-				value = name.equals("headers") ? ((Message) target).getHeaders() : null;
-			}
-			else if (target instanceof MessageHeaders) {
-				MessageHeaders headers = (MessageHeaders) target;
-				SimpMessageHeaderAccessor accessor =
-						MessageHeaderAccessor.getAccessor(headers, SimpMessageHeaderAccessor.class);
-				Assert.state(accessor != null, "No SimpMessageHeaderAccessor");
-				if ("destination".equalsIgnoreCase(name)) {
-					value = accessor.getDestination();
-				}
-				else {
-					value = accessor.getFirstNativeHeader(name);
-					if (value == null) {
-						value = headers.get(name);
-					}
-				}
-			}
-			else {
-				// Should never happen...
-				throw new IllegalStateException("Expected Message or MessageHeaders.");
-			}
-			return new TypedValue(value);
-		}
-
-		@Override
-		public boolean canWrite(EvaluationContext context, @Nullable Object target, String name) {
-			return false;
-		}
-
-		@Override
-		public void write(EvaluationContext context, @Nullable Object target, String name, @Nullable Object value) {
-		}
-	}
-
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
+import org.springframework.expression.spel.CompilablePropertyAccessor;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Parse and evaluate the Spring EL selector expressions of subscriptions.
+ *
+ * <p>Selector expressions are compiled in {@link SpelCompilerMode#MIXED}
+ * mode, which succeeds for expressions that navigate message headers and use
+ * common operators, and otherwise falls back on interpreted evaluation, also
+ * when a compiled expression fails for a message with different header types.
+ * Identical selectors share one {@link Expression} instance, and a
+ * {@link Evaluation} evaluates each distinct selector at most once per message.
+ *
+ * @since 5.2
+ * @see DefaultSubscriptionRegistry#setSelectorHeaderName
+ * @see TrieSubscriptionRegistry#setSelectorHeaderName
+ */
+final class SelectorEvaluator {
+
+	/** Static evaluation context to reuse. */
+	private static final EvaluationContext messageEvalContext =
+			SimpleEvaluationContext.forPropertyAccessors(new SimpMessageHeaderPropertyAccessor()).build();
+
+
+	private final ExpressionParser expressionParser =
+			new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, null));
+
+	private final Map<String, Expression> expressionCache = new ConcurrentReferenceHashMap<>();
+
+	private final Log logger;
+
+
+	public SelectorEvaluator(Log logger) {
+		this.logger = logger;
+	}
+
+
+	/**
+	 * Return the parsed expression for the given selector, possibly shared
+	 * with other subscriptions that use the same selector.
+	 * @throws org.springframework.expression.ParseException if parsing fails
+	 */
+	public Expression parseSelector(String selector) {
+		Expression expression = this.expressionCache.get(selector);
+		if (expression == null) {
+			expression = this.expressionParser.parseExpression(selector);
+			this.expressionCache.put(selector, expression);
+		}
+		return expression;
+	}
+
+	/**
+	 * Start evaluating selectors against the given message.
+	 */
+	public Evaluation forMessage(Message<?> message) {
+		return new Evaluation(message);
+	}
+
+
+	/**
+	 * Evaluation of selectors against a single message, remembering the
+	 * result for each distinct selector.
+	 */
+	final class Evaluation {
+
+		private final Message<?> message;
+
+		@Nullable
+		private Map<String, Boolean> results;
+
+		private Evaluation(Message<?> message) {
+			this.message = message;
+		}
+
+		public boolean matches(@Nullable Expression expression) {
+			if (expression == null) {
+				return true;
+			}
+			if (this.results == null) {
+				this.results = new HashMap<>(4);
+			}
+			Boolean result = this.results.get(expression.getExpressionString());
+			if (result == null) {
+				result = evaluate(expression);
+				this.results.put(expression.getExpressionString(), result);
+			}
+			return result;
+		}
+
+		private boolean evaluate(Expression expression) {
+			try {
+				return Boolean.TRUE.equals(expression.getValue(messageEvalContext, this.message, Boolean.class));
+			}
+			catch (SpelEvaluationException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to evaluate selector: " + ex.getMessage());
+				}
+			}
+			catch (Throwable ex) {
+				logger.debug("Failed to evaluate selector", ex);
+			}
+			return false;
+		}
+	}
+
+
+	/**
+	 * Read "headers" from a {@link Message}, and the destination, native
+	 * headers, or regular headers from {@link MessageHeaders}.
+	 */
+	private static class SimpMessageHeaderPropertyAccessor implements CompilablePropertyAccessor {
+
+		private static final String MESSAGE_TYPE = "org/springframework/messaging/Message";
+
+		private static final String HEADERS_TYPE = "org/springframework/messaging/MessageHeaders";
+
+		@Override
+		public Class<?>[] getSpecificTargetClasses() {
+			return new Class<?>[] {Message.class, MessageHeaders.class};
+		}
+
+		@Override
+		public boolean canRead(EvaluationContext context, @Nullable Object target, String name) {
+			return true;
+		}
+
+		@Override
+		public TypedValue read(EvaluationContext context, @Nullable Object target, String name) {
+			Object value;
+			if (target instanceof Message) {
+				value = name.equals("headers") ? ((Message) target).getHeaders() : null;
+			}
+			else if (target instanceof MessageHeaders) {
+				MessageHeaders headers = (MessageHeaders) target;
+				SimpMessageHeaderAccessor accessor =
+						MessageHeaderAccessor.getAccessor(headers, SimpMessageHeaderAccessor.class);
+				Assert.state(accessor != null, "No SimpMessageHeaderAccessor");
+				if ("destination".equalsIgnoreCase(name)) {
+					value = accessor.getDestination();
+				}
+				else {
+					value = accessor.getFirstNativeHeader(name);
+					if (value == null) {
+						value = headers.get(name);
+					}
+				}
+			}
+			else {
+				// Should never happen...
+				throw new IllegalStateException("Expected Message or MessageHeaders.");
+			}
+			return new TypedValue(value);
+		}
+
+		@Override
+		public boolean canWrite(EvaluationContext context, @Nullable Object target, String name) {
+			return false;
+		}
+
+		@Override
+		public void write(EvaluationContext context, @Nullable Object target, String name, @Nullable Object value) {
+		}
+
+		@Override
+		public boolean isCompilable() {
+			return true;
+		}
+
+		@Override
+		public Class<?> getPropertyType() {
+			return Object.class;
+		}
+
+		@Override
+		public void generateCode(String propertyName, MethodVisitor mv, CodeFlow cf) {
+			if (cf.lastDescriptor() == null) {
+				cf.loadTarget(mv);
+			}
+			Label notMessage = new Label();
+			Label end = new Label();
+
+			// Message target: only "headers" is readable
+			mv.visitInsn(Opcodes.DUP);
+			mv.visitTypeInsn(Opcodes.INSTANCEOF, MESSAGE_TYPE);
+			mv.visitJumpInsn(Opcodes.IFEQ, notMessage);
+			if (propertyName.equals("headers")) {
+				mv.visitTypeInsn(Opcodes.CHECKCAST, MESSAGE_TYPE);
+				mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, MESSAGE_TYPE,
+						"getHeaders", "()L" + HEADERS_TYPE + ";", true);
+			}
+			else {
+				mv.visitInsn(Opcodes.POP);
+				mv.visitInsn(Opcodes.ACONST_NULL);
+			}
+			mv.visitJumpInsn(Opcodes.GOTO, end);
+
+			// MessageHeaders target: destination, else native header, else regular header
+			mv.visitLabel(notMessage);
+			mv.visitTypeInsn(Opcodes.CHECKCAST, HEADERS_TYPE);
+			if ("destination".equalsIgnoreCase(propertyName)) {
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, "org/springframework/messaging/simp/SimpMessageHeaderAccessor",
+						"getDestination", "(Ljava/util/Map;)Ljava/lang/String;", false);
+			}
+			else {
+				Label found = new Label();
+				mv.visitInsn(Opcodes.DUP);
+				mv.visitLdcInsn(propertyName);
+				mv.visitInsn(Opcodes.SWAP);
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, "org/springframework/messaging/support/NativeMessageHeaderAccessor",
+						"getFirstNativeHeader", "(Ljava/lang/String;Ljava/util/Map;)Ljava/lang/String;", false);
+				mv.visitInsn(Opcodes.DUP);
+				mv.visitJumpInsn(Opcodes.IFNONNULL, found);
+				mv.visitInsn(Opcodes.POP);
+				mv.visitLdcInsn(propertyName);
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, HEADERS_TYPE,
+						"get", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+				mv.visitJumpInsn(Opcodes.GOTO, end);
+				mv.visitLabel(found);
+				mv.visitInsn(Opcodes.SWAP);
+				mv.visitInsn(Opcodes.POP);
+			}
+			mv.visitLabel(end);
+		}
+	}
+
+}
@@ -17,11 +17,18 @@
 package org.springframework.messaging.simp.broker;
 
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
@@ -70,6 +77,9 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	@Nullable
 	private MessageHeaderInitializer headerInitializer;
 
+	@Nullable
+	private DispatchPartition[] dispatchPartitions;
+
 
 	private SubscriptionRegistry subscriptionRegistry;
 
@@ -101,6 +111,9 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	 * {@link #setPathMatcher}, if the custom registry is not an instance of
 	 * {@link DefaultSubscriptionRegistry}, the provided PathMatcher is not used
 	 * and must be configured directly on the custom registry.
+	 * <p>For a large number of subscriptions and distinct destinations,
+	 * consider a {@link TrieSubscriptionRegistry} configured with the same
+	 * path separator as the application destinations.
 	 */
 	public void setSubscriptionRegistry(SubscriptionRegistry subscriptionRegistry) {
 		Assert.notNull(subscriptionRegistry, "SubscriptionRegistry must not be null");
@@ -170,6 +183,7 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	 * @since 4.3.17
 	 * @see #setSubscriptionRegistry
 	 * @see DefaultSubscriptionRegistry#setSelectorHeaderName(String)
+	 * @see TrieSubscriptionRegistry#setSelectorHeaderName(String)
 	 */
 	public void setSelectorHeaderName(@Nullable String selectorHeaderName) {
 		this.selectorHeaderName = selectorHeaderName;
@@ -180,6 +194,9 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		if (this.subscriptionRegistry instanceof DefaultSubscriptionRegistry) {
 			((DefaultSubscriptionRegistry) this.subscriptionRegistry).setSelectorHeaderName(this.selectorHeaderName);
 		}
+		else if (this.subscriptionRegistry instanceof TrieSubscriptionRegistry) {
+			((TrieSubscriptionRegistry) this.subscriptionRegistry).setSelectorHeaderName(this.selectorHeaderName);
+		}
 	}
 
 	/**
@@ -249,6 +266,48 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		return this.headerInitializer;
 	}
 
+	/**
+	 * Configure executors to broadcast messages to subscribers with, instead
+	 * of sending them from the thread that handles the published message.
+	 * <p>Sessions are partitioned by session id across the given executors,
+	 * one partition per executor. Messages for a partition are sent one
+	 * batch at a time, in the order in which they were published, so
+	 * messages to any given session keep their order while the fan-out to
+	 * a large number of sessions is spread across the executors. Connect
+	 * and disconnect acknowledgements as well as heartbeats go through the
+	 * partition of their session too, so they never overtake messages
+	 * already queued for it. If an executor rejects a partition, its pending
+	 * messages are sent from the calling thread instead. The same
+	 * executor, e.g. a thread pool, may be passed more than once in order
+	 * to use several partitions on a shared pool.
+	 * <p>By default this is not set, and messages are sent from the calling
+	 * thread.
+	 * @param executors the executors to use, or none to turn off partitioned
+	 * dispatch
+	 * @since 5.2
+	 */
+	public void setDispatchExecutors(Executor... executors) {
+		if (executors.length == 0) {
+			this.dispatchPartitions = null;
+			return;
+		}
+		DispatchPartition[] partitions = new DispatchPartition[executors.length];
+		for (int i = 0; i < executors.length; i++) {
+			Assert.notNull(executors[i], "Executor must not be null");
+			partitions[i] = new DispatchPartition(executors[i]);
+		}
+		this.dispatchPartitions = partitions;
+	}
+
+	/**
+	 * Return the number of partitions used to broadcast messages, or 0 if
+	 * messages are sent from the calling thread.
+	 * @since 5.2
+	 */
+	public int getDispatchPartitionCount() {
+		return (this.dispatchPartitions != null ? this.dispatchPartitions.length : 0);
+	}
+
 
 	@Override
 	public void startInternal() {
@@ -320,7 +379,7 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 				connectAck.setHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER, message);
 				connectAck.setHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER, heartbeatOut);
 				Message<byte[]> messageOut = MessageBuilder.createMessage(EMPTY_PAYLOAD, connectAck.getMessageHeaders());
-				getClientOutboundChannel().send(messageOut);
+				sendToSession(sessionId, () -> getClientOutboundChannel().send(messageOut));
 			}
 		}
 		else if (SimpMessageType.DISCONNECT.equals(messageType)) {
@@ -376,7 +435,26 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		}
 		initHeaders(accessor);
 		Message<byte[]> message = MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders());
-		getClientOutboundChannel().send(message);
+		sendToSession(sessionId, () -> getClientOutboundChannel().send(message));
+	}
+
+	/**
+	 * Send to the given session from the calling thread or, if dispatch
+	 * executors are configured, through the partition of the session so
+	 * that the send cannot overtake messages already queued for it.
+	 */
+	private void sendToSession(String sessionId, Runnable task) {
+		DispatchPartition[] partitions = this.dispatchPartitions;
+		if (partitions != null) {
+			partitions[getPartitionIndex(sessionId, partitions.length)].execute(task);
+		}
+		else {
+			task.run();
+		}
+	}
+
+	private static int getPartitionIndex(String sessionId, int partitionCount) {
+		return (sessionId.hashCode() & Integer.MAX_VALUE) % partitionCount;
 	}
 
 	protected void sendMessageToSubscribers(@Nullable String destination, Message<?> message) {
@@ -385,32 +463,68 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 			logger.debug("Broadcasting to " + subscriptions.size() + " sessions.");
 		}
 		long now = System.currentTimeMillis();
-		subscriptions.forEach((sessionId, subscriptionIds) -> {
-			for (String subscriptionId : subscriptionIds) {
-				SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
-				initHeaders(headerAccessor);
-				headerAccessor.setSessionId(sessionId);
-				headerAccessor.setSubscriptionId(subscriptionId);
-				headerAccessor.copyHeadersIfAbsent(message.getHeaders());
-				headerAccessor.setLeaveMutable(true);
-				Object payload = message.getPayload();
-				Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
+		DispatchPartition[] partitions = this.dispatchPartitions;
+		if (partitions == null) {
+			subscriptions.forEach((sessionId, subscriptionIds) -> {
 				SessionInfo info = this.sessions.get(sessionId);
 				if (info != null) {
-					try {
-						info.getClientOutboundChannel().send(reply);
-					}
-					catch (Throwable ex) {
-						if (logger.isErrorEnabled()) {
-							logger.error("Failed to send " + message, ex);
+					sendMessageToSession(info, subscriptionIds, message, now);
+				}
+			});
+			return;
+		}
+		// Resolve sessions at fan-out time: a DISCONNECT processed before a queued
+		// task runs must not cause messages published before it to be dropped
+		@SuppressWarnings("unchecked")
+		List<SessionInfo>[] sessionInfos = new List[partitions.length];
+		for (String sessionId : subscriptions.keySet()) {
+			SessionInfo info = this.sessions.get(sessionId);
+			if (info == null) {
+				continue;
+			}
+			int index = getPartitionIndex(sessionId, partitions.length);
+			if (sessionInfos[index] == null) {
+				sessionInfos[index] = new ArrayList<>();
+			}
+			sessionInfos[index].add(info);
+		}
+		for (int i = 0; i < partitions.length; i++) {
+			List<SessionInfo> infos = sessionInfos[i];
+			if (infos != null) {
+				partitions[i].execute(() -> {
+					for (SessionInfo info : infos) {
+						List<String> subscriptionIds = subscriptions.get(info.getSessionId());
+						if (subscriptionIds != null) {
+							sendMessageToSession(info, subscriptionIds, message, now);
 						}
 					}
-					finally {
-						info.setLastWriteTime(now);
-					}
+				});
+			}
+		}
+	}
+
+	private void sendMessageToSession(SessionInfo info, List<String> subscriptionIds, Message<?> message, long now) {
+		for (String subscriptionId : subscriptionIds) {
+			SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+			initHeaders(headerAccessor);
+			headerAccessor.setSessionId(info.getSessionId());
+			headerAccessor.setSubscriptionId(subscriptionId);
+			headerAccessor.copyHeadersIfAbsent(message.getHeaders());
+			headerAccessor.setLeaveMutable(true);
+			Object payload = message.getPayload();
+			Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
+			try {
+				info.getClientOutboundChannel().send(reply);
+			}
+			catch (Throwable ex) {
+				if (logger.isErrorEnabled()) {
+					logger.error("Failed to send " + message, ex);
 				}
 			}
-		});
+			finally {
+				info.setLastWriteTime(now);
+			}
+		}
 	}
 
 	@Override
@@ -498,6 +612,73 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	}
 
 
+	/**
+	 * Runs send tasks for one partition of sessions on its executor,
+	 * one task at a time and in the order of submission. If the executor
+	 * rejects the drain, pending tasks are run on the submitting thread
+	 * instead, so they are never left stranded in the queue.
+	 */
+	private class DispatchPartition implements Runnable {
+
+		private final Executor executor;
+
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+		private final AtomicBoolean running = new AtomicBoolean(false);
+
+		public DispatchPartition(Executor executor) {
+			this.executor = executor;
+		}
+
+		public void execute(Runnable task) {
+			this.tasks.add(task);
+			scheduleIfNecessary();
+		}
+
+		private void scheduleIfNecessary() {
+			// Take running flag only if queue is not empty
+			while (!this.tasks.isEmpty() && this.running.compareAndSet(false, true)) {
+				try {
+					this.executor.execute(this);
+					return;
+				}
+				catch (RejectedExecutionException ex) {
+					if (logger.isWarnEnabled()) {
+						logger.warn("Send task rejected by " + this.executor +
+								", running " + this.tasks.size() + " pending task(s) on the calling thread", ex);
+					}
+					drain();
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			drain();
+			scheduleIfNecessary();
+		}
+
+		private void drain() {
+			try {
+				Runnable task;
+				while ((task = this.tasks.poll()) != null) {
+					try {
+						task.run();
+					}
+					catch (Throwable ex) {
+						if (logger.isErrorEnabled()) {
+							logger.error("Failed to send message", ex);
+						}
+					}
+				}
+			}
+			finally {
+				this.running.set(false);
+			}
+		}
+	}
+
+
 	private class HeartbeatTask implements Runnable {
 
 		@Override
@@ -516,8 +697,8 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 					}
 					initHeaders(accessor);
 					accessor.setLeaveMutable(true);
-					MessageHeaders headers = accessor.getMessageHeaders();
-					info.getClientOutboundChannel().send(MessageBuilder.createMessage(EMPTY_PAYLOAD, headers));
+					Message<byte[]> message = MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders());
+					sendToSession(info.getSessionId(), () -> info.getClientOutboundChannel().send(message));
 				}
 			}
 		}
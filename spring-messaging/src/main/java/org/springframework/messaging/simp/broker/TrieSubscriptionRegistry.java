@@ -0,0 +1,474 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.expression.Expression;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.Assert;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+/**
+ * Implementation of {@link SubscriptionRegistry} that indexes subscriptions
+ * in a trie of destination segments, so that the cost of finding the
+ * subscriptions for a destination depends on the number of segments in the
+ * destination rather than on the total number of subscriptions.
+ *
+ * <p>Destination patterns follow {@link AntPathMatcher} conventions: a
+ * {@code "*"} segment matches exactly one segment, a {@code "**"} segment
+ * matches zero or more segments, and any other segment containing wildcard
+ * characters (e.g. {@code "PRICE.*"} or {@code "{ticker:(IBM|MSFT)}"}) is
+ * matched against a single destination segment with an {@code AntPathMatcher}.
+ * The segment separator is configurable via {@link #setPathSeparator} and
+ * should match the separator used by application destinations, e.g.
+ * {@code "."} for destinations such as {@code "price.stock.ibm"}.
+ * Destinations and patterns with a trailing or a doubled separator are not
+ * indexed in the trie but matched with an {@code AntPathMatcher} instead, so
+ * that e.g. {@code "/topic/a/"} is distinguished from {@code "/topic/a"}.
+ *
+ * <p>In contrast to {@link DefaultSubscriptionRegistry}, this registry does
+ * not use a destination cache and hence performs equally well for a large
+ * number of distinct destinations. Just like the default registry, it supports
+ * a {@link #setSelectorHeaderName selector} header on subscription messages.
+ *
+ * @since 5.2
+ * @see SimpleBrokerMessageHandler#setSubscriptionRegistry
+ */
+public class TrieSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+	private static final String SINGLE_WILDCARD = "*";
+
+	private static final String MULTI_WILDCARD = "**";
+
+
+	private String pathSeparator = AntPathMatcher.DEFAULT_PATH_SEPARATOR;
+
+	@Nullable
+	private String selectorHeaderName = "selector";
+
+	private volatile boolean selectorHeaderInUse = false;
+
+	private final AntPathMatcher segmentMatcher = new AntPathMatcher();
+
+	private AntPathMatcher pathMatcher = new AntPathMatcher();
+
+	private final SelectorEvaluator selectorEvaluator = new SelectorEvaluator(logger);
+
+	/** Trie for destination patterns that start with the path separator. */
+	private final Node absoluteRoot = new Node(null, "");
+
+	/** Trie for destination patterns that do not start with the path separator. */
+	private final Node relativeRoot = new Node(null, "");
+
+	/** Map from sessionId to {@code <subscriptionId, Node>} for unsubscribe. */
+	private final Map<String, Map<String, Node>> sessions = new ConcurrentHashMap<>();
+
+	/**
+	 * Map from sessionId to {@code <subscriptionId, IrregularSubscription>} for
+	 * destination patterns with a trailing or doubled separator.
+	 */
+	private final Map<String, Map<String, IrregularSubscription>> irregularSessions = new ConcurrentHashMap<>();
+
+	private final Object updateMonitor = new Object();
+
+
+	/**
+	 * Specify the separator between destination segments.
+	 * <p>Default is "/", as in {@link AntPathMatcher}.
+	 * <p>This must be set before any subscriptions are registered.
+	 */
+	public void setPathSeparator(String pathSeparator) {
+		Assert.hasLength(pathSeparator, "'pathSeparator' must not be empty");
+		Assert.state(this.sessions.isEmpty() && this.irregularSessions.isEmpty(),
+				"Cannot change the path separator after subscriptions were added");
+		this.pathSeparator = pathSeparator;
+		this.pathMatcher = new AntPathMatcher(pathSeparator);
+	}
+
+	/**
+	 * Return the configured separator between destination segments.
+	 */
+	public String getPathSeparator() {
+		return this.pathSeparator;
+	}
+
+	/**
+	 * Configure the name of a header that a subscription message can have for
+	 * the purpose of filtering messages matched to the subscription. The header
+	 * value is expected to be a Spring EL boolean expression to be applied to
+	 * the headers of messages matched to the subscription.
+	 * <p>By default this is set to "selector". You can set it to a different
+	 * name, or to {@code null} to turn off support for a selector header.
+	 * @param selectorHeaderName the name to use for a selector header
+	 * @see DefaultSubscriptionRegistry#setSelectorHeaderName
+	 */
+	public void setSelectorHeaderName(@Nullable String selectorHeaderName) {
+		this.selectorHeaderName = (StringUtils.hasText(selectorHeaderName) ? selectorHeaderName : null);
+	}
+
+	/**
+	 * Return the name for the selector header name.
+	 */
+	@Nullable
+	public String getSelectorHeaderName() {
+		return this.selectorHeaderName;
+	}
+
+
+	@Override
+	protected void addSubscriptionInternal(
+			String sessionId, String subsId, String destination, Message<?> message) {
+
+		Expression expression = getSelectorExpression(message.getHeaders());
+		synchronized (this.updateMonitor) {
+			if (isIrregular(destination)) {
+				removeSubscription(sessionId, subsId);
+				this.irregularSessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>(4))
+						.put(subsId, new IrregularSubscription(destination, expression));
+				return;
+			}
+			removeIrregularSubscription(sessionId, subsId);
+			Node node = (destination.startsWith(this.pathSeparator) ? this.absoluteRoot : this.relativeRoot);
+			for (String segment : tokenize(destination)) {
+				node = node.getOrCreateChild(segment);
+			}
+			Map<String, Node> sessionSubs = this.sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>(4));
+			Node previous = sessionSubs.put(subsId, node);
+			if (previous != null && previous != node) {
+				removeFromNode(previous, sessionId, subsId);
+			}
+			node.addSubscription(sessionId, subsId, expression);
+		}
+	}
+
+	@Nullable
+	private Expression getSelectorExpression(MessageHeaders headers) {
+		Expression expression = null;
+		if (getSelectorHeaderName() != null) {
+			String selector = SimpMessageHeaderAccessor.getFirstNativeHeader(getSelectorHeaderName(), headers);
+			if (selector != null) {
+				try {
+					expression = this.selectorEvaluator.parseSelector(selector);
+					this.selectorHeaderInUse = true;
+					if (logger.isTraceEnabled()) {
+						logger.trace("Subscription selector: [" + selector + "]");
+					}
+				}
+				catch (Throwable ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Failed to parse selector: " + selector, ex);
+					}
+				}
+			}
+		}
+		return expression;
+	}
+
+	@Override
+	protected void removeSubscriptionInternal(String sessionId, String subsId, Message<?> message) {
+		synchronized (this.updateMonitor) {
+			removeSubscription(sessionId, subsId);
+			removeIrregularSubscription(sessionId, subsId);
+		}
+	}
+
+	@Override
+	public void unregisterAllSubscriptions(String sessionId) {
+		synchronized (this.updateMonitor) {
+			Map<String, Node> sessionSubs = this.sessions.remove(sessionId);
+			if (sessionSubs != null) {
+				sessionSubs.forEach((subsId, node) -> removeFromNode(node, sessionId, subsId));
+			}
+			this.irregularSessions.remove(sessionId);
+		}
+	}
+
+	private void removeSubscription(String sessionId, String subsId) {
+		Map<String, Node> sessionSubs = this.sessions.get(sessionId);
+		if (sessionSubs != null) {
+			Node node = sessionSubs.remove(subsId);
+			if (node != null) {
+				removeFromNode(node, sessionId, subsId);
+			}
+			if (sessionSubs.isEmpty()) {
+				this.sessions.remove(sessionId);
+			}
+		}
+	}
+
+	private void removeIrregularSubscription(String sessionId, String subsId) {
+		Map<String, IrregularSubscription> sessionSubs = this.irregularSessions.get(sessionId);
+		if (sessionSubs != null) {
+			sessionSubs.remove(subsId);
+			if (sessionSubs.isEmpty()) {
+				this.irregularSessions.remove(sessionId);
+			}
+		}
+	}
+
+	private void removeFromNode(Node node, String sessionId, String subsId) {
+		node.removeSubscription(sessionId, subsId);
+		Node current = node;
+		while (current.parent != null && current.isEmpty()) {
+			current.parent.removeChild(current);
+			current = current.parent;
+		}
+	}
+
+	@Override
+	protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+		MultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+		SelectorEvaluator.Evaluation evaluation =
+				(this.selectorHeaderInUse ? this.selectorEvaluator.forMessage(message) : null);
+
+		if (isIrregular(destination)) {
+			// Trailing or doubled separator: match every pattern like AntPathMatcher does
+			this.sessions.forEach((sessionId, subs) -> subs.forEach((subsId, node) -> {
+				Map<String, Object> nodeSubs = node.subscriptions.get(sessionId);
+				Object expression = (nodeSubs != null ? nodeSubs.get(subsId) : null);
+				if (expression != null && this.pathMatcher.match(getPattern(node), destination) &&
+						matchesSelector(evaluation, expression)) {
+					result.add(sessionId, subsId);
+				}
+			}));
+		}
+		else {
+			Node root = (destination.startsWith(this.pathSeparator) ? this.absoluteRoot : this.relativeRoot);
+			Set<Node> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+			collectMatches(root, tokenize(destination), 0, matches);
+			for (Node node : matches) {
+				node.subscriptions.forEach((sessionId, subs) -> subs.forEach((subsId, expression) -> {
+					if (matchesSelector(evaluation, expression)) {
+						result.add(sessionId, subsId);
+					}
+				}));
+			}
+		}
+
+		this.irregularSessions.forEach((sessionId, subs) -> subs.forEach((subsId, sub) -> {
+			if (this.pathMatcher.match(sub.destination, destination) && matchesSelector(evaluation, sub.expression)) {
+				result.add(sessionId, subsId);
+			}
+		}));
+		return result;
+	}
+
+	private boolean matchesSelector(@Nullable SelectorEvaluator.Evaluation evaluation, Object expression) {
+		return (evaluation == null || expression == Node.NO_SELECTOR || evaluation.matches((Expression) expression));
+	}
+
+	/**
+	 * Whether the given destination or pattern has a trailing or doubled
+	 * separator, which the trie does not distinguish.
+	 */
+	private boolean isIrregular(String destination) {
+		return (destination.endsWith(this.pathSeparator) ||
+				destination.contains(this.pathSeparator + this.pathSeparator));
+	}
+
+	/**
+	 * Rebuild the destination pattern that leads to the given node.
+	 */
+	private String getPattern(Node node) {
+		Deque<String> segments = new ArrayDeque<>();
+		Node current = node;
+		while (current.parent != null) {
+			segments.addFirst(current.segment);
+			current = current.parent;
+		}
+		String pattern = StringUtils.collectionToDelimitedString(segments, this.pathSeparator);
+		return (current == this.absoluteRoot ? this.pathSeparator + pattern : pattern);
+	}
+
+	private void collectMatches(Node node, String[] segments, int index, Set<Node> matches) {
+		if (index == segments.length) {
+			if (!node.subscriptions.isEmpty()) {
+				matches.add(node);
+			}
+			Node multi = node.multiWildcardChild;
+			if (multi != null) {
+				collectMatches(multi, segments, index, matches);
+			}
+			return;
+		}
+		String segment = segments[index];
+		Node literal = node.literalChildren.get(segment);
+		if (literal != null) {
+			collectMatches(literal, segments, index + 1, matches);
+		}
+		Node single = node.singleWildcardChild;
+		if (single != null) {
+			collectMatches(single, segments, index + 1, matches);
+		}
+		if (!node.patternChildren.isEmpty()) {
+			for (Node child : node.patternChildren.values()) {
+				if (this.segmentMatcher.match(child.segment, segment)) {
+					collectMatches(child, segments, index + 1, matches);
+				}
+			}
+		}
+		Node multi = node.multiWildcardChild;
+		if (multi != null) {
+			for (int i = index; i <= segments.length; i++) {
+				collectMatches(multi, segments, i, matches);
+			}
+		}
+	}
+
+	private String[] tokenize(String destination) {
+		return StringUtils.tokenizeToStringArray(destination, this.pathSeparator, false, true);
+	}
+
+	@Override
+	public String toString() {
+		return "TrieSubscriptionRegistry[" + this.sessions.size() + " sessions]";
+	}
+
+
+	/**
+	 * A subscription to a destination pattern with a trailing or doubled separator.
+	 */
+	private static final class IrregularSubscription {
+
+		final String destination;
+
+		final Object expression;
+
+		IrregularSubscription(String destination, @Nullable Expression expression) {
+			this.destination = destination;
+			this.expression = (expression != null ? expression : Node.NO_SELECTOR);
+		}
+	}
+
+
+	/**
+	 * A node in the destination trie, holding the subscriptions whose destination
+	 * pattern ends at this node, keyed by sessionId and subscriptionId.
+	 */
+	private static final class Node {
+
+		/** Placeholder for subscriptions without a selector expression. */
+		static final Object NO_SELECTOR = new Object();
+
+		@Nullable
+		final Node parent;
+
+		final String segment;
+
+		final Map<String, Node> literalChildren = new ConcurrentHashMap<>(4);
+
+		final Map<String, Node> patternChildren = new ConcurrentHashMap<>(4);
+
+		@Nullable
+		volatile Node singleWildcardChild;
+
+		@Nullable
+		volatile Node multiWildcardChild;
+
+		// sessionId -> (subscriptionId -> Expression or NO_SELECTOR)
+		final Map<String, Map<String, Object>> subscriptions = new ConcurrentHashMap<>(4);
+
+		Node(@Nullable Node parent, String segment) {
+			this.parent = parent;
+			this.segment = segment;
+		}
+
+		Node getOrCreateChild(String segment) {
+			Node child;
+			if (MULTI_WILDCARD.equals(segment)) {
+				child = this.multiWildcardChild;
+				if (child == null) {
+					child = new Node(this, segment);
+					this.multiWildcardChild = child;
+				}
+			}
+			else if (SINGLE_WILDCARD.equals(segment)) {
+				child = this.singleWildcardChild;
+				if (child == null) {
+					child = new Node(this, segment);
+					this.singleWildcardChild = child;
+				}
+			}
+			else {
+				Map<String, Node> children = (isPattern(segment) ? this.patternChildren : this.literalChildren);
+				child = children.computeIfAbsent(segment, s -> new Node(this, s));
+			}
+			return child;
+		}
+
+		void removeChild(Node child) {
+			if (this.multiWildcardChild == child) {
+				this.multiWildcardChild = null;
+			}
+			else if (this.singleWildcardChild == child) {
+				this.singleWildcardChild = null;
+			}
+			else {
+				this.literalChildren.remove(child.segment, child);
+				this.patternChildren.remove(child.segment, child);
+			}
+		}
+
+		void addSubscription(String sessionId, String subsId, @Nullable Expression expression) {
+			this.subscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>(4))
+					.put(subsId, (expression != null ? expression : NO_SELECTOR));
+		}
+
+		void removeSubscription(String sessionId, String subsId) {
+			Map<String, Object> subs = this.subscriptions.get(sessionId);
+			if (subs != null) {
+				subs.remove(subsId);
+				if (subs.isEmpty()) {
+					this.subscriptions.remove(sessionId);
+				}
+			}
+		}
+
+		boolean isEmpty() {
+			return (this.subscriptions.isEmpty() && this.literalChildren.isEmpty() &&
+					this.patternChildren.isEmpty() && this.singleWildcardChild == null &&
+					this.multiWildcardChild == null);
+		}
+
+		private static boolean isPattern(String segment) {
+			return (segment.indexOf('*') != -1 || segment.indexOf('?') != -1 || segment.indexOf('{') != -1);
+		}
+
+		@Override
+		public String toString() {
+			Deque<String> path = new ArrayDeque<>();
+			for (Node node = this; node.parent != null; node = node.parent) {
+				path.addFirst(node.segment);
+			}
+			return "node" + path + "[" + this.subscriptions.size() + " session(s)]";
+		}
+	}
+
+}
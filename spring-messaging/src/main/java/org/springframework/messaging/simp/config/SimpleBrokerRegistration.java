@@ -16,10 +16,13 @@
 
 package org.springframework.messaging.simp.config;
 
+import java.util.concurrent.Executor;
+
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.SubscribableChannel;
 import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
 import org.springframework.scheduling.TaskScheduler;
 
 /**
@@ -39,6 +42,12 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 	@Nullable
 	private String selectorHeaderName = "selector";
 
+	@Nullable
+	private SubscriptionRegistry subscriptionRegistry;
+
+	@Nullable
+	private Executor[] dispatchExecutors;
+
 
 	public SimpleBrokerRegistration(SubscribableChannel inChannel, MessageChannel outChannel, String[] prefixes) {
 		super(inChannel, outChannel, prefixes);
@@ -89,17 +98,50 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 		this.selectorHeaderName = selectorHeaderName;
 	}
 
+	/**
+	 * Configure a custom {@link SubscriptionRegistry} for the broker, e.g. a
+	 * {@link org.springframework.messaging.simp.broker.TrieSubscriptionRegistry}
+	 * for a large number of subscriptions and distinct destinations.
+	 * <p>By default a
+	 * {@link org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry}
+	 * is used.
+	 * @since 5.2
+	 * @see SimpleBrokerMessageHandler#setSubscriptionRegistry
+	 */
+	public SimpleBrokerRegistration setSubscriptionRegistry(SubscriptionRegistry subscriptionRegistry) {
+		this.subscriptionRegistry = subscriptionRegistry;
+		return this;
+	}
+
+	/**
+	 * Configure executors to broadcast messages to subscribers with, with
+	 * sessions partitioned across the executors by session id.
+	 * <p>By default this is not set.
+	 * @since 5.2
+	 * @see SimpleBrokerMessageHandler#setDispatchExecutors
+	 */
+	public SimpleBrokerRegistration setDispatchExecutors(Executor... executors) {
+		this.dispatchExecutors = executors;
+		return this;
+	}
+
 
 	@Override
 	protected SimpleBrokerMessageHandler getMessageHandler(SubscribableChannel brokerChannel) {
 		SimpleBrokerMessageHandler handler = new SimpleBrokerMessageHandler(getClientInboundChannel(),
 				getClientOutboundChannel(), brokerChannel, getDestinationPrefixes());
+		if (this.subscriptionRegistry != null) {
+			handler.setSubscriptionRegistry(this.subscriptionRegistry);
+		}
 		if (this.taskScheduler != null) {
 			handler.setTaskScheduler(this.taskScheduler);
 		}
 		if (this.heartbeat != null) {
 			handler.setHeartbeatValue(this.heartbeat);
 		}
+		if (this.dispatchExecutors != null) {
+			handler.setDispatchExecutors(this.dispatchExecutors);
+		}
 		handler.setSelectorHeaderName(this.selectorHeaderName);
 		return handler;
 	}
@@ -22,8 +22,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.logging.LogFactory;
 import org.junit.Test;
 
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
@@ -284,6 +286,65 @@ public class DefaultSubscriptionRegistryTests {
 		assertThat(actual.size()).isEqualTo(0);
 	}
 
+	@Test
+	public void registerSubscriptionsWithSameSelector() {
+		String selector = "headers.foo == 'bar' and headers.destination == '/foo'";
+		for (int i = 1; i <= 3; i++) {
+			this.registry.registerSubscription(subscribeMessage("sess0" + i, "subs01", "/foo", selector));
+		}
+		this.registry.registerSubscription(subscribeMessage("sess04", "subs01", "/foo", "headers.foo != 'bar'"));
+
+		// Evaluate repeatedly, so that compiled expressions are used as well
+		for (int i = 0; i < 5; i++) {
+			SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+			accessor.setDestination("/foo");
+			accessor.setNativeHeader("foo", "bar");
+			Message<?> message = MessageBuilder.createMessage("", accessor.getMessageHeaders());
+
+			MultiValueMap<String, String> actual = this.registry.findSubscriptions(message);
+			assertThat(actual.keySet()).containsExactlyInAnyOrder("sess01", "sess02", "sess03");
+
+			actual = this.registry.findSubscriptions(createMessage("/foo"));
+			assertThat(actual.keySet()).containsExactly("sess04");
+		}
+	}
+
+	@Test
+	public void registerSubscriptionWithSelectorOnRegularHeader() {
+		String selector = "headers.priority > 5";
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo", selector));
+
+		for (int i = 0; i < 5; i++) {
+			SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+			accessor.setDestination("/foo");
+			accessor.setHeader("priority", 9);
+			Message<?> message = MessageBuilder.createMessage("", accessor.getMessageHeaders());
+			assertThat(this.registry.findSubscriptions(message).size()).isEqualTo(1);
+
+			accessor = SimpMessageHeaderAccessor.create();
+			accessor.setDestination("/foo");
+			accessor.setHeader("priority", 1);
+			message = MessageBuilder.createMessage("", accessor.getMessageHeaders());
+			assertThat(this.registry.findSubscriptions(message).size()).isEqualTo(0);
+		}
+	}
+
+	@Test
+	public void selectorExpressionIsCompiled() {
+		SelectorEvaluator evaluator = new SelectorEvaluator(LogFactory.getLog(getClass()));
+		SpelExpression expression = (SpelExpression) evaluator.parseSelector("headers.foo == 'bar'");
+
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+		accessor.setDestination("/foo");
+		accessor.setNativeHeader("foo", "bar");
+		Message<?> message = MessageBuilder.createMessage("", accessor.getMessageHeaders());
+
+		assertThat(evaluator.forMessage(message).matches(expression)).isTrue();
+		assertThat(expression.compileExpression()).isTrue();
+		assertThat(evaluator.forMessage(message).matches(expression)).isTrue();
+		assertThat(evaluator.forMessage(createMessage("/foo")).matches(expression)).isFalse();
+	}
+
 	@Test
 	public void registerSubscriptionWithSelectorNotSupported() {
 		String sessionId = "sess01";
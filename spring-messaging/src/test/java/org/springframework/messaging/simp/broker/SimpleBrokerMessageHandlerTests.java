@@ -17,9 +17,14 @@
 package org.springframework.messaging.simp.broker;
 
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -47,6 +52,7 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -112,6 +118,87 @@ public class SimpleBrokerMessageHandlerTests {
 		assertThat(messageCaptured("sess2", "sub3", "/bar")).isTrue();
 	}
 
+	@Test
+	public void subscribePublishWithDispatchExecutors() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			this.messageHandler.setDispatchExecutors(executor, executor, executor);
+			assertThat(this.messageHandler.getDispatchPartitionCount()).isEqualTo(3);
+
+			startSessionWithDispatchExecutors("sess1");
+			startSessionWithDispatchExecutors("sess2");
+			startSessionWithDispatchExecutors("sess3");
+
+			this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+			this.messageHandler.handleMessage(createSubscriptionMessage("sess2", "sub1", "/foo"));
+			this.messageHandler.handleMessage(createSubscriptionMessage("sess3", "sub1", "/foo"));
+
+			for (int i = 0; i < 50; i++) {
+				this.messageHandler.handleMessage(createMessage("/foo", "message" + i));
+			}
+
+			verify(this.clientOutChannel, timeout(5000).times(150)).send(this.messageCaptor.capture());
+			for (String sessionId : new String[] {"sess1", "sess2", "sess3"}) {
+				List<Object> payloads = this.messageCaptor.getAllValues().stream()
+						.filter(message -> SimpMessageType.MESSAGE.equals(
+								SimpMessageHeaderAccessor.getMessageType(message.getHeaders())))
+						.filter(message -> sessionId.equals(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())))
+						.map(Message::getPayload)
+						.collect(Collectors.toList());
+				assertThat(payloads).hasSize(50);
+				for (int i = 0; i < 50; i++) {
+					assertThat(payloads.get(i)).isEqualTo("message" + i);
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void publishWithRejectingDispatchExecutor() {
+		this.messageHandler.setDispatchExecutors(task -> {
+			throw new RejectedExecutionException();
+		});
+
+		startSession("sess1");
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createMessage("/foo", "message1"));
+
+		verify(this.clientOutChannel, times(1)).send(this.messageCaptor.capture());
+		assertThat(messageCaptured("sess1", "sub1", "/foo")).isTrue();
+	}
+
+	@Test
+	public void messagesQueuedBeforeDisconnectAreDelivered() {
+		List<Runnable> pending = new ArrayList<>();
+		this.messageHandler.setDispatchExecutors(pending::add);
+
+		this.messageHandler.start();
+		this.messageHandler.handleMessage(createConnectMessage("sess1", new TestPrincipal("joe"), null));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createMessage("/foo", "message1"));
+
+		SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+		headers.setSessionId("sess1");
+		this.messageHandler.handleMessage(MessageBuilder.createMessage("", headers.getMessageHeaders()));
+		verifyNoMoreInteractions(this.clientOutChannel);
+
+		assertThat(pending).hasSize(1);
+		pending.get(0).run();
+
+		verify(this.clientOutChannel, times(3)).send(this.messageCaptor.capture());
+		List<Message<?>> messages = this.messageCaptor.getAllValues();
+		assertThat(SimpMessageHeaderAccessor.getMessageType(messages.get(0).getHeaders()))
+				.isEqualTo(SimpMessageType.CONNECT_ACK);
+		assertThat(SimpMessageHeaderAccessor.getMessageType(messages.get(1).getHeaders()))
+				.isEqualTo(SimpMessageType.MESSAGE);
+		assertThat(messages.get(1).getPayload()).isEqualTo("message1");
+		assertThat(SimpMessageHeaderAccessor.getMessageType(messages.get(2).getHeaders()))
+				.isEqualTo(SimpMessageType.DISCONNECT_ACK);
+	}
+
 	@Test
 	public void subscribeDisconnectPublish() {
 		String sess1 = "sess1";
@@ -309,6 +396,17 @@ public class SimpleBrokerMessageHandlerTests {
 		return connectMessage;
 	}
 
+	private void startSessionWithDispatchExecutors(String id) {
+		this.messageHandler.start();
+
+		this.messageHandler.setTaskScheduler(this.taskScheduler);
+		this.messageHandler.handleMessage(createConnectMessage(id, new TestPrincipal("joe"), null));
+
+		// The CONNECT_ACK is sent through the dispatch executor of the session
+		verify(this.clientOutChannel, timeout(5000).times(1)).send(this.messageCaptor.capture());
+		reset(this.clientOutChannel);
+	}
+
 	private Message<String> createSubscriptionMessage(String sessionId, String subscriptionId, String destination) {
 		SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
 		headers.setSubscriptionId(subscriptionId);
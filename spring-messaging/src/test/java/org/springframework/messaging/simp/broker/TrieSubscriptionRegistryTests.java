@@ -0,0 +1,218 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test fixture for {@link TrieSubscriptionRegistry}.
+ */
+public class TrieSubscriptionRegistryTests {
+
+	private final TrieSubscriptionRegistry registry = new TrieSubscriptionRegistry();
+
+
+	@Test
+	public void registerSubscription() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/foo"));
+		assertThat(actual.size()).isEqualTo(1);
+		assertThat(actual.get("sess01")).isEqualTo(Collections.singletonList("subs01"));
+
+		assertThat(this.registry.findSubscriptions(createMessage("/foo/bar"))).isEmpty();
+		assertThat(this.registry.findSubscriptions(createMessage("foo"))).isEmpty();
+	}
+
+	@Test
+	public void registerSubscriptionMultipleSessions() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/foo"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/foo"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/foo"));
+		assertThat(actual.size()).isEqualTo(2);
+		assertThat(actual.get("sess01")).containsExactlyInAnyOrder("subs01", "subs02");
+		assertThat(actual.get("sess02")).containsExactly("subs01");
+	}
+
+	@Test
+	public void registerSubscriptionWithWildcards() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/*/ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/topic/**"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs03", "/topic/**/ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs04", "/topic/nasdaq/ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs05", "/topic/nasdaq/goog"));
+
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/nasdaq/ibm")).get("sess01"))
+				.containsExactlyInAnyOrder("subs01", "subs02", "subs03", "subs04");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/nyse/ibm")).get("sess01"))
+				.containsExactlyInAnyOrder("subs01", "subs02", "subs03");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/a/b/ibm")).get("sess01"))
+				.containsExactlyInAnyOrder("subs02", "subs03");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/ibm")).get("sess01"))
+				.containsExactlyInAnyOrder("subs02", "subs03");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic")).get("sess01"))
+				.containsExactly("subs02");
+		assertThat(this.registry.findSubscriptions(createMessage("/queue/ibm"))).isEmpty();
+	}
+
+	@Test
+	public void registerSubscriptionWithDestinationPatternRegex() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/PRICE.STOCK.*.{ticker:(IBM|MSFT)}"));
+
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/PRICE.STOCK.NASDAQ.IBM")).size()).isEqualTo(1);
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/PRICE.STOCK.NASDAQ.MSFT")).size()).isEqualTo(1);
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/PRICE.STOCK.NASDAQ.VMW"))).isEmpty();
+	}
+
+	@Test
+	public void registerSubscriptionWithTrailingOrDoubledSeparator() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/a"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/topic/a/"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs03", "/topic/**"));
+
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/a")).get("sess01"))
+				.containsExactlyInAnyOrder("subs01", "subs03");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/a/")).get("sess01"))
+				.containsExactlyInAnyOrder("subs02", "subs03");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic//a")).get("sess01"))
+				.containsExactlyInAnyOrder("subs01", "subs03");
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess01", "subs02"));
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/a/")).get("sess01"))
+				.containsExactly("subs03");
+	}
+
+	@Test
+	public void registerSubscriptionWithCustomPathSeparator() {
+		this.registry.setPathSeparator(".");
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "price.stock.*.ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "price.**"));
+
+		assertThat(this.registry.findSubscriptions(createMessage("price.stock.nasdaq.ibm")).get("sess01"))
+				.containsExactlyInAnyOrder("subs01", "subs02");
+		assertThat(this.registry.findSubscriptions(createMessage("price.stock.nasdaq.goog")).get("sess01"))
+				.containsExactly("subs02");
+	}
+
+	@Test
+	public void registerSubscriptionWithSelector() {
+		String selector = "headers.foo == 'bar'";
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo", selector));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/foo"));
+
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+		accessor.setDestination("/foo");
+		accessor.setNativeHeader("foo", "bar");
+		Message<?> message = MessageBuilder.createMessage("", accessor.getMessageHeaders());
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message);
+		assertThat(actual.size()).isEqualTo(2);
+
+		actual = this.registry.findSubscriptions(createMessage("/foo"));
+		assertThat(actual.size()).isEqualTo(1);
+		assertThat(actual.get("sess02")).containsExactly("subs01");
+	}
+
+	@Test
+	public void unregisterSubscription() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo/*"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/foo/bar"));
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess01", "subs01"));
+		assertThat(this.registry.findSubscriptions(createMessage("/foo/bar")).get("sess01")).containsExactly("subs02");
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess01", "subs02"));
+		assertThat(this.registry.findSubscriptions(createMessage("/foo/bar"))).isEmpty();
+	}
+
+	@Test
+	public void unregisterAllSubscriptions() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/**"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/foo"));
+
+		this.registry.unregisterAllSubscriptions("sess01");
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/foo"));
+		assertThat(actual.size()).isEqualTo(1);
+		assertThat(actual.get("sess02")).containsExactly("subs01");
+
+		this.registry.unregisterAllSubscriptions("bogus");
+	}
+
+	@Test
+	public void findSubscriptionsReturnsMapSafeToIterate() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/foo"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "1", "/foo"));
+
+		MultiValueMap<String, String> subscriptions = this.registry.findSubscriptions(createMessage("/foo"));
+		assertThat(subscriptions.size()).isEqualTo(2);
+
+		Iterator<Map.Entry<String, List<String>>> iterator = subscriptions.entrySet().iterator();
+		iterator.next();
+
+		this.registry.registerSubscription(subscribeMessage("sess3", "1", "/foo"));
+
+		iterator.next();
+		// no ConcurrentModificationException
+	}
+
+
+	private Message<?> createMessage(String destination) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+		accessor.setDestination(destination);
+		return MessageBuilder.createMessage("", accessor.getMessageHeaders());
+	}
+
+	private Message<?> subscribeMessage(String sessionId, String subscriptionId, String destination) {
+		return subscribeMessage(sessionId, subscriptionId, destination, null);
+	}
+
+	private Message<?> subscribeMessage(String sessionId, String subscriptionId, String dest, String selector) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		accessor.setDestination(dest);
+		if (selector != null) {
+			accessor.setNativeHeader("selector", selector);
+		}
+		return MessageBuilder.createMessage("", accessor.getMessageHeaders());
+	}
+
+	private Message<?> unsubscribeMessage(String sessionId, String subscriptionId) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		return MessageBuilder.createMessage("", accessor.getMessageHeaders());
+	}
+
+}
@@ -18,6 +18,7 @@ package org.springframework.transaction.interceptor;
 
 import java.lang.reflect.Method;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import io.vavr.control.Try;
@@ -46,6 +47,7 @@ import org.springframework.transaction.support.CallbackPreferringPlatformTransac
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -92,6 +94,11 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	private static final Object DEFAULT_TRANSACTION_MANAGER_KEY = new Object();
 
+	/**
+	 * Key to use to store transaction plans for invocations without target class.
+	 */
+	private static final Object NO_TARGET_CLASS_KEY = new Object();
+
 	/**
 	 * Vavr library present on the classpath?
 	 */
@@ -171,6 +178,11 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 
 	private final ConcurrentMap<Object, Object> transactionManagerCache = new ConcurrentReferenceHashMap<>(4);
 
+	private final ConcurrentMap<Object, ConcurrentMap<Method, TransactionPlan>> transactionPlanCache =
+			new ConcurrentReferenceHashMap<>(64);
+
+	private final boolean defaultMethodIdentification;
+
 
 	protected TransactionAspectSupport() {
 		if (reactiveStreamsPresent) {
@@ -179,6 +191,10 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		else {
 			this.reactiveAdapterRegistry = null;
 		}
+		Method identificationMethod =
+				ReflectionUtils.findMethod(getClass(), "methodIdentification", Method.class, Class.class);
+		this.defaultMethodIdentification = (identificationMethod != null &&
+				identificationMethod.getDeclaringClass() == TransactionAspectSupport.class);
 	}
 
 
@@ -237,7 +253,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	public void setTransactionAttributes(Properties transactionAttributes) {
 		NameMatchTransactionAttributeSource tas = new NameMatchTransactionAttributeSource();
 		tas.setProperties(transactionAttributes);
-		this.transactionAttributeSource = tas;
+		setTransactionAttributeSource(tas);
 	}
 
 	/**
@@ -249,7 +265,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 * @see org.springframework.transaction.annotation.AnnotationTransactionAttributeSource
 	 */
 	public void setTransactionAttributeSources(TransactionAttributeSource... transactionAttributeSources) {
-		this.transactionAttributeSource = new CompositeTransactionAttributeSource(transactionAttributeSources);
+		setTransactionAttributeSource(new CompositeTransactionAttributeSource(transactionAttributeSources));
 	}
 
 	/**
@@ -263,6 +279,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionAttributeSource(@Nullable TransactionAttributeSource transactionAttributeSource) {
 		this.transactionAttributeSource = transactionAttributeSource;
+		this.transactionPlanCache.clear();
 	}
 
 	/**
@@ -311,6 +328,11 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 * General delegate for around-advice-based subclasses, delegating to several other template
 	 * methods on this class. Able to handle {@link CallbackPreferringPlatformTransactionManager}
 	 * as well as regular {@link PlatformTransactionManager} implementations.
+	 * <p>The transaction attribute and the joinpoint identification are resolved
+	 * once per method and target class if the transaction attribute source caches
+	 * its results anyway (i.e. is an {@link AbstractFallbackTransactionAttributeSource})
+	 * and {@link #methodIdentification(Method, Class)} is not overridden.
+	 * The transaction manager is determined on every invocation.
 	 * @param method the Method being invoked
 	 * @param targetClass the target class that we're invoking the method on
 	 * @param invocation the callback to use for proceeding with the target invocation
@@ -321,35 +343,25 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	protected Object invokeWithinTransaction(Method method, @Nullable Class<?> targetClass,
 			final InvocationCallback invocation) throws Throwable {
 
-		if (this.reactiveAdapterRegistry != null) {
-			ReactiveAdapter adapter = this.reactiveAdapterRegistry.getAdapter(method.getReturnType());
-			if (adapter != null) {
-				return new ReactiveTransactionSupport(adapter).invokeWithinTransaction(method, targetClass, invocation);
-			}
+		TransactionPlan plan = getTransactionPlan(method, targetClass);
+		if (plan.reactiveTransactionSupport != null) {
+			return plan.reactiveTransactionSupport.invokeWithinTransaction(method, targetClass, invocation);
 		}
 
 		// If the transaction attribute is null, the method is non-transactional.
-		// 获得TransactionAttributeSource对象， 就是标签 <tx:attributes>
-		TransactionAttributeSource tas = getTransactionAttributeSource();
-		/*
-		* 调用tas.getTransactionAttribute()，实际上就是在循环遍历获取匹配度最好的txAttr
-		*
-		* 获得的TransactionAttribute对象就是 标签 <tx:method name="get*" read-only="true"/>
-		* tas这个对象，在xml中默认为NameMatchTransactionAttributeSource
-		* */
-		final TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
+		final TransactionAttribute txAttr = plan.transactionAttribute;
 
 		// 获得tx(事务管理器)
 		final PlatformTransactionManager tm = determineTransactionManager(txAttr);
 
-		// 调用methodIdentification()，主要是定义连接点信息，事务执行的哪个方法， 默认就是事务执行的哪个方法
-		final String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+		final String joinpointIdentification = plan.joinpointIdentification;
 
 		// txAttr为空，说明要新建一个事务，默认的事务传播类型就是request，
 		if (txAttr == null || !(tm instanceof CallbackPreferringPlatformTransactionManager)) {
 			// Standard transaction demarcation with getTransaction and commit/rollback calls.
 			// 创建一个标准的事务
-			TransactionInfo txInfo = createTransactionIfNecessary(tm, txAttr, joinpointIdentification);
+			TransactionInfo txInfo = createTransactionIfNecessary(
+					tm, plan.namedTransactionAttribute, joinpointIdentification);
 
 			Object retVal;
 			try {
@@ -447,11 +459,74 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		}
 	}
 
+	/**
+	 * Return the transaction plan for the given method and target class,
+	 * creating and caching it on first invocation where the plan only
+	 * depends on the method and target class.
+	 */
+	private TransactionPlan getTransactionPlan(Method method, @Nullable Class<?> targetClass) {
+		if (!this.defaultMethodIdentification ||
+				!(getTransactionAttributeSource() instanceof AbstractFallbackTransactionAttributeSource)) {
+			// Custom hooks may yield different results for each invocation
+			return createTransactionPlan(method, targetClass);
+		}
+		Object classKey = (targetClass != null ? targetClass : NO_TARGET_CLASS_KEY);
+		ConcurrentMap<Method, TransactionPlan> plans = this.transactionPlanCache.get(classKey);
+		TransactionPlan plan = (plans != null ? plans.get(method) : null);
+		if (plan == null) {
+			plan = createTransactionPlan(method, targetClass);
+			if (plans == null) {
+				plans = new ConcurrentHashMap<>(16);
+				ConcurrentMap<Method, TransactionPlan> existing = this.transactionPlanCache.putIfAbsent(classKey, plans);
+				if (existing != null) {
+					plans = existing;
+				}
+			}
+			plans.put(method, plan);
+		}
+		return plan;
+	}
+
+	@SuppressWarnings("serial")
+	private TransactionPlan createTransactionPlan(Method method, @Nullable Class<?> targetClass) {
+		if (this.reactiveAdapterRegistry != null) {
+			ReactiveAdapter adapter = this.reactiveAdapterRegistry.getAdapter(method.getReturnType());
+			if (adapter != null) {
+				return new TransactionPlan(new ReactiveTransactionSupport(adapter));
+			}
+		}
+
+		// 获得TransactionAttributeSource对象， 就是标签 <tx:attributes>
+		TransactionAttributeSource tas = getTransactionAttributeSource();
+		/*
+		* 调用tas.getTransactionAttribute()，实际上就是在循环遍历获取匹配度最好的txAttr
+		*
+		* 获得的TransactionAttribute对象就是 标签 <tx:method name="get*" read-only="true"/>
+		* tas这个对象，在xml中默认为NameMatchTransactionAttributeSource
+		* */
+		TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
+		// 调用methodIdentification()，主要是定义连接点信息，事务执行的哪个方法， 默认就是事务执行的哪个方法
+		String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+
+		// If no name specified, apply method identification as transaction name.
+		TransactionAttribute namedTxAttr = txAttr;
+		if (txAttr != null && txAttr.getName() == null) {
+			namedTxAttr = new DelegatingTransactionAttribute(txAttr) {
+				@Override
+				public String getName() {
+					return joinpointIdentification;
+				}
+			};
+		}
+		return new TransactionPlan(txAttr, namedTxAttr, joinpointIdentification);
+	}
+
 	/**
 	 * Clear the cache.
 	 */
 	protected void clearTransactionManagerCache() {
 		this.transactionManagerCache.clear();
+		this.transactionPlanCache.clear();
 		this.beanFactory = null;
 	}
 
@@ -706,6 +781,41 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	}
 
 
+	/**
+	 * The invocation-independent state for invoking a particular method
+	 * within a transaction.
+	 */
+	private static final class TransactionPlan {
+
+		@Nullable
+		final ReactiveTransactionSupport reactiveTransactionSupport;
+
+		@Nullable
+		final TransactionAttribute transactionAttribute;
+
+		@Nullable
+		final TransactionAttribute namedTransactionAttribute;
+
+		final String joinpointIdentification;
+
+		TransactionPlan(ReactiveTransactionSupport reactiveTransactionSupport) {
+			this.reactiveTransactionSupport = reactiveTransactionSupport;
+			this.transactionAttribute = null;
+			this.namedTransactionAttribute = null;
+			this.joinpointIdentification = "";
+		}
+
+		TransactionPlan(@Nullable TransactionAttribute transactionAttribute,
+				@Nullable TransactionAttribute namedTransactionAttribute, String joinpointIdentification) {
+
+			this.reactiveTransactionSupport = null;
+			this.transactionAttribute = transactionAttribute;
+			this.namedTransactionAttribute = namedTransactionAttribute;
+			this.joinpointIdentification = joinpointIdentification;
+		}
+	}
+
+
 	/**
 	 * Opaque object used to hold transaction information. Subclasses
 	 * must pass it back to methods on this class, but not see its internals.
@@ -17,7 +17,9 @@
 package org.springframework.transaction.interceptor;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -25,6 +27,8 @@ import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.lang.Nullable;
+import org.springframework.tests.sample.beans.ITestBean;
+import org.springframework.tests.sample.beans.TestBean;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionException;
@@ -33,6 +37,8 @@ import org.springframework.util.SerializationTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -260,6 +266,105 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 		verify(beanFactory, times(1)).getBean(PlatformTransactionManager.class);
 	}
 
+	@Test
+	public void customTransactionAttributeSourceConsultedOnEveryInvocation() {
+		TransactionAttribute txatt = new DefaultTransactionAttribute();
+		TransactionAttribute otherTxatt = new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		TransactionAttributeSource tas = mock(TransactionAttributeSource.class);
+		given(tas.getTransactionAttribute(getNameMethod, TestBean.class)).willReturn(txatt, otherTxatt);
+		TransactionStatus status = mock(TransactionStatus.class);
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		given(ptm.getTransaction(any())).willReturn(status);
+
+		ITestBean itb = (ITestBean) advised(new TestBean(), ptm, tas);
+		itb.getName();
+		itb.getName();
+
+		verify(tas, times(2)).getTransactionAttribute(getNameMethod, TestBean.class);
+		verify(ptm).getTransaction(argThat(definition ->
+				definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+		verify(ptm, times(2)).commit(status);
+	}
+
+	@Test
+	public void transactionManagerDeterminedOnEveryInvocation() {
+		TransactionAttribute txatt = new DefaultTransactionAttribute();
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		tas.register(getNameMethod, txatt);
+		TransactionStatus status = mock(TransactionStatus.class);
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		given(ptm.getTransaction(any())).willReturn(status);
+		PlatformTransactionManager otherPtm = mock(PlatformTransactionManager.class);
+		given(otherPtm.getTransaction(any())).willReturn(status);
+		AtomicInteger invocations = new AtomicInteger();
+
+		TransactionInterceptor ti = new TransactionInterceptor() {
+			@Override
+			protected PlatformTransactionManager determineTransactionManager(@Nullable TransactionAttribute txAttr) {
+				return (invocations.incrementAndGet() == 1 ? ptm : otherPtm);
+			}
+		};
+		ti.setTransactionAttributeSource(tas);
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.addAdvice(ti);
+		ITestBean itb = (ITestBean) pf.getProxy();
+		itb.getName();
+		itb.getName();
+
+		verify(ptm).commit(status);
+		verify(otherPtm).commit(status);
+	}
+
+	@Test
+	public void overriddenMethodIdentificationUsedOnEveryInvocation() {
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		tas.register(getNameMethod, new DefaultTransactionAttribute());
+		TransactionStatus status = mock(TransactionStatus.class);
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		given(ptm.getTransaction(any())).willReturn(status);
+		AtomicInteger invocations = new AtomicInteger();
+
+		TransactionInterceptor ti = new TransactionInterceptor() {
+			@Override
+			protected String methodIdentification(Method method, @Nullable Class<?> targetClass) {
+				return "invocation" + invocations.incrementAndGet();
+			}
+		};
+		ti.setTransactionManager(ptm);
+		ti.setTransactionAttributeSource(tas);
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.addAdvice(ti);
+		ITestBean itb = (ITestBean) pf.getProxy();
+		itb.getName();
+		itb.getName();
+
+		verify(ptm).getTransaction(argThat(definition -> "invocation1".equals(definition.getName())));
+		verify(ptm).getTransaction(argThat(definition -> "invocation2".equals(definition.getName())));
+	}
+
+	@Test
+	public void transactionPlanResetOnConfigurationChange() {
+		TransactionAttribute txatt = new DefaultTransactionAttribute();
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		tas.register(getNameMethod, txatt);
+		TransactionStatus status = mock(TransactionStatus.class);
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		given(ptm.getTransaction(txatt)).willReturn(status);
+		PlatformTransactionManager otherPtm = mock(PlatformTransactionManager.class);
+		given(otherPtm.getTransaction(txatt)).willReturn(status);
+
+		TransactionInterceptor ti = new TransactionInterceptor(ptm, tas);
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.addAdvice(ti);
+		ITestBean itb = (ITestBean) pf.getProxy();
+		itb.getName();
+		ti.setTransactionManager(otherPtm);
+		itb.getName();
+
+		verify(ptm).commit(status);
+		verify(otherPtm).commit(status);
+	}
+
 
 	private TransactionInterceptor createTransactionInterceptor(BeanFactory beanFactory,
 			String transactionManagerName, PlatformTransactionManager transactionManager) {
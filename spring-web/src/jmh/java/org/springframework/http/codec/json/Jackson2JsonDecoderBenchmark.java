@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Benchmarks for {@link Jackson2JsonDecoder}, decoding a JSON array of small
+ * objects as a stream of elements and as a single list. Streaming is measured
+ * with and without {@link AbstractJackson2Decoder#setDirectElementBinding
+ * direct element binding}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Jackson2JsonDecoderBenchmark {
+
+	@Benchmark
+	public void decodeArrayElements(DecoderState state, Blackhole blackhole) {
+		state.decoder.decode(state.input(), DecoderState.ELEMENT_TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap())
+				.doOnNext(blackhole::consume)
+				.blockLast();
+	}
+
+	@Benchmark
+	public Object decodeToList(DecoderState state) {
+		return state.decoder.decodeToMono(state.input(), DecoderState.LIST_TYPE, MediaType.APPLICATION_JSON,
+				Collections.emptyMap()).block();
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class DecoderState {
+
+		static final ResolvableType ELEMENT_TYPE = ResolvableType.forClass(Item.class);
+
+		static final ResolvableType LIST_TYPE = ResolvableType.forClassWithGenerics(List.class, Item.class);
+
+		@Param({"10000"})
+		int elementCount;
+
+		@Param({"8192"})
+		int chunkSize;
+
+		@Param({"false", "true"})
+		boolean directElementBinding;
+
+		final Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
+
+		final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		List<byte[]> chunks;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.decoder.setDirectElementBinding(this.directElementBinding);
+			StringBuilder builder = new StringBuilder("[");
+			for (int i = 0; i < this.elementCount; i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+				builder.append("{\"id\":").append(i).append(",\"name\":\"item").append(i)
+						.append("\",\"price\":").append(i * 1.5).append(",\"available\":true}");
+			}
+			builder.append(']');
+			byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+			this.chunks = new ArrayList<>();
+			for (int offset = 0; offset < bytes.length; offset += this.chunkSize) {
+				byte[] chunk = new byte[Math.min(this.chunkSize, bytes.length - offset)];
+				System.arraycopy(bytes, offset, chunk, 0, chunk.length);
+				this.chunks.add(chunk);
+			}
+		}
+
+		Flux<DataBuffer> input() {
+			return Flux.fromIterable(this.chunks).map(this.bufferFactory::wrap);
+		}
+	}
+
+
+	public static class Item {
+
+		private long id;
+
+		private String name;
+
+		private double price;
+
+		private boolean available;
+
+		public long getId() {
+			return this.id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public double getPrice() {
+			return this.price;
+		}
+
+		public void setPrice(double price) {
+			this.price = price;
+		}
+
+		public boolean isAvailable() {
+			return this.available;
+		}
+
+		public void setAvailable(boolean available) {
+			this.available = available;
+		}
+	}
+
+}
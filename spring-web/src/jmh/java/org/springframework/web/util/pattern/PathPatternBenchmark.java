@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * Benchmarks for {@link PathPattern} matching, with {@link AntPathMatcher}
+ * matching of the same patterns as a baseline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathPatternBenchmark {
+
+	@Benchmark
+	public void matchPathPatterns(PatternState state, Blackhole blackhole) {
+		for (PathContainer path : state.parsedPaths) {
+			for (PathPattern pattern : state.pathPatterns) {
+				blackhole.consume(pattern.matches(path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void parseAndMatchPathPatterns(PatternState state, Blackhole blackhole) {
+		for (String path : state.paths) {
+			PathContainer parsedPath = PathContainer.parsePath(path);
+			for (PathPattern pattern : state.pathPatterns) {
+				blackhole.consume(pattern.matches(parsedPath));
+			}
+		}
+	}
+
+	@Benchmark
+	public void matchAntPathMatcher(PatternState state, Blackhole blackhole) {
+		for (String path : state.paths) {
+			for (String pattern : state.patterns) {
+				blackhole.consume(state.antPathMatcher.match(pattern, path));
+			}
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class PatternState {
+
+		final String[] patterns = {
+				"/", "/static/**", "/api/users", "/api/users/{id}", "/api/users/{id}/orders/{orderId}",
+				"/api/products/*.json", "/api/{version:v\\d+}/catalog/**", "/admin/**/settings", "/docs/*/index.html"};
+
+		final String[] paths = {
+				"/", "/static/css/site.css", "/api/users/42", "/api/users/42/orders/1337",
+				"/api/products/tv.json", "/api/v2/catalog/books/fiction", "/admin/a/b/settings", "/unknown/path"};
+
+		final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+		List<PathPattern> pathPatterns;
+
+		List<PathContainer> parsedPaths;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			PathPatternParser parser = new PathPatternParser();
+			this.pathPatterns = new ArrayList<>();
+			for (String pattern : this.patterns) {
+				this.pathPatterns.add(parser.parse(pattern));
+			}
+			this.parsedPaths = new ArrayList<>();
+			for (String path : this.paths) {
+				this.parsedPaths.add(PathContainer.parsePath(path));
+			}
+		}
+	}
+
+}
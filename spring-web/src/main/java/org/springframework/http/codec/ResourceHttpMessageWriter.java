@@ -36,6 +36,7 @@ import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpLogging;
@@ -73,6 +74,9 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 
 	private static final Log logger = HttpLogging.forLogName(ResourceHttpMessageWriter.class);
 
+	// Same region size as for memory-mapped reads in ResourceRegionEncoder
+	private static final int MAPPED_REGION_SIZE = 4 * 1024 * 1024;
+
 
 	private final ResourceEncoder encoder;
 
@@ -80,6 +84,8 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 
 	private final List<MediaType> mediaTypes;
 
+	private long mappedReadThreshold = -1;
+
 
 	public ResourceHttpMessageWriter() {
 		this(ResourceEncoder.DEFAULT_BUFFER_SIZE);
@@ -92,6 +98,32 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 	}
 
 
+	/**
+	 * Set the size, in bytes, from which file-based resources and resource
+	 * regions are written from memory-mapped file regions, when zero-copy
+	 * transfer is not supported by the target message. This avoids copying
+	 * the file contents into allocated buffers.
+	 * <p>By default this is set to -1, in which case memory-mapped reads are
+	 * not used.
+	 * @param mappedReadThreshold the minimum size, or -1 to disable
+	 * @since 5.2
+	 * @see org.springframework.core.io.buffer.DataBufferUtils#readMapped
+	 * @see ResourceRegionEncoder#setMappedReadThreshold
+	 */
+	public void setMappedReadThreshold(long mappedReadThreshold) {
+		this.mappedReadThreshold = mappedReadThreshold;
+		this.regionEncoder.setMappedReadThreshold(mappedReadThreshold);
+	}
+
+	/**
+	 * Return the configured {@link #setMappedReadThreshold mapped read threshold}.
+	 * @since 5.2
+	 */
+	public long getMappedReadThreshold() {
+		return this.mappedReadThreshold;
+	}
+
+
 	@Override
 	public boolean canWrite(ResolvableType elementType, @Nullable MediaType mediaType) {
 		return this.encoder.canEncode(elementType, mediaType);
@@ -128,12 +160,12 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 		}
 
 		return zeroCopy(resource, null, message, hints)
-				.orElseGet(() -> {
+				.orElseGet(() -> mappedRead(resource, message, hints).orElseGet(() -> {
 					Mono<Resource> input = Mono.just(resource);
 					DataBufferFactory factory = message.bufferFactory();
 					Flux<DataBuffer> body = this.encoder.encode(input, factory, type, resourceMediaType, hints);
 					return message.writeWith(body);
-				});
+				}));
 	}
 
 	private static MediaType getResourceMediaType(
@@ -182,6 +214,28 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 		return Optional.empty();
 	}
 
+	private Optional<Mono<Void>> mappedRead(Resource resource, ReactiveHttpOutputMessage message,
+			Map<String, Object> hints) {
+
+		if (this.mappedReadThreshold >= 0 && resource.isFile()) {
+			try {
+				File file = resource.getFile();
+				if (file.length() >= this.mappedReadThreshold) {
+					if (logger.isDebugEnabled()) {
+						logger.debug(Hints.getLogPrefix(hints) + "Memory-mapped [" + resource + "]");
+					}
+					Flux<DataBuffer> body = DataBufferUtils.readMapped(
+							file.toPath(), 0, -1, message.bufferFactory(), MAPPED_REGION_SIZE);
+					return Optional.of(message.writeWith(body));
+				}
+			}
+			catch (IOException ex) {
+				return Optional.of(Mono.error(ex));
+			}
+		}
+		return Optional.empty();
+	}
+
 
 	// Server-side only: single Resource or sub-regions...
 
@@ -18,6 +18,8 @@ package org.springframework.http.codec.json;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -64,6 +66,8 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 	 */
 	private final JsonFactory jsonFactory;
 
+	private boolean directElementBinding = false;
+
 
 	/**
 	 * Constructor with a Jackson {@link ObjectMapper} to use.
@@ -75,6 +79,31 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 	}
 
 
+	/**
+	 * Whether to bind each top-level value, or each element of a top-level
+	 * array, directly from its bytes as soon as it has been fully received,
+	 * rather than tokenizing it into an intermediate {@link TokenBuffer} first.
+	 * <p>This avoids buffering and replaying every token, which is noticeable
+	 * when streaming large arrays of small objects. It only applies to UTF-8
+	 * (or US-ASCII) encoded JSON input, and has no effect for other charsets
+	 * or data formats such as Smile, which are tokenized as usual.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.2
+	 */
+	public void setDirectElementBinding(boolean directElementBinding) {
+		this.directElementBinding = directElementBinding;
+	}
+
+	/**
+	 * Whether values are bound directly from their bytes.
+	 * @since 5.2
+	 * @see #setDirectElementBinding
+	 */
+	public boolean isDirectElementBinding() {
+		return this.directElementBinding;
+	}
+
+
 	@Override
 	public boolean canDecode(ResolvableType elementType, @Nullable MimeType mimeType) {
 		JavaType javaType = getObjectMapper().getTypeFactory().constructType(elementType.getType());
@@ -87,11 +116,36 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 	public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
+		ObjectReader reader = getObjectReader(elementType, hints);
+
+		if (this.directElementBinding && JsonFactory.FORMAT_NAME_JSON.equals(this.jsonFactory.getFormatName()) &&
+				isUtf8Compatible(mimeType)) {
+			return Flux.defer(() -> {
+				JsonElementSplitter splitter = new JsonElementSplitter(reader);
+				return Flux.from(input)
+						.concatMapIterable(dataBuffer -> {
+							try {
+								return splitter.split(dataBuffer);
+							}
+							catch (IOException ex) {
+								throw processException(ex);
+							}
+						})
+						.concatWith(Flux.defer(() -> {
+							try {
+								return Flux.fromIterable(splitter.endOfInput());
+							}
+							catch (IOException ex) {
+								return Flux.error(processException(ex));
+							}
+						}))
+						.doOnNext(value -> logValue(value, hints));
+			});
+		}
+
 		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(
 				Flux.from(input), this.jsonFactory, getObjectMapper(), true);
 
-		ObjectReader reader = getObjectReader(elementType, hints);
-
 		return tokens.handle((tokenBuffer, sink) -> {
 			try {
 				Object value = reader.readValue(tokenBuffer.asParser(getObjectMapper()));
@@ -106,6 +160,13 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 		});
 	}
 
+	private static boolean isUtf8Compatible(@Nullable MimeType mimeType) {
+		// The element splitter scans raw bytes for structural characters
+		Charset charset = (mimeType != null ? mimeType.getCharset() : null);
+		return (charset == null || StandardCharsets.UTF_8.equals(charset) ||
+				StandardCharsets.US_ASCII.equals(charset));
+	}
+
 	@Override
 	public Mono<Object> decodeToMono(Publisher<DataBuffer> input, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * Split a UTF-8 encoded JSON stream of arbitrary size, byte array chunks into
+ * its top-level values, or into the elements of a top-level array, and bind
+ * each one with an {@link ObjectReader} as soon as it is complete.
+ *
+ * <p>Unlike {@link Jackson2Tokenizer}, this does not tokenize the input into an
+ * intermediate {@code TokenBuffer}: a lightweight scan only tracks strings and
+ * nesting to find where each value ends, and the bytes of the value are then
+ * parsed and bound in a single pass by Jackson.
+ *
+ * @since 5.2
+ * @see AbstractJackson2Decoder#setDirectElementBinding
+ */
+final class JsonElementSplitter {
+
+	private static final byte[] EMPTY_BYTES = new byte[0];
+
+	/** Buffer capacity kept once a larger value has been bound. */
+	private static final int MAX_RETAINED_CAPACITY = 8192;
+
+	/** Top-level array state: after the opening bracket. */
+	private static final int ARRAY_START = 0;
+
+	/** Top-level array state: after an element. */
+	private static final int ARRAY_ELEMENT = 1;
+
+	/** Top-level array state: after a comma. */
+	private static final int ARRAY_SEPARATOR = 2;
+
+
+	private final ObjectReader reader;
+
+	private byte[] buffer = EMPTY_BYTES;
+
+	/** Number of buffered bytes. */
+	private int length;
+
+	/** Position of the next byte to scan. */
+	private int position;
+
+	/** Start of the value in progress, or -1 if between values. */
+	private int valueStart = -1;
+
+	/** Object and array nesting within the value in progress. */
+	private int depth;
+
+	private boolean inTopLevelArray;
+
+	private int arrayState;
+
+	private boolean inString;
+
+	private boolean escaped;
+
+	private boolean inScalar;
+
+
+	public JsonElementSplitter(ObjectReader reader) {
+		this.reader = reader;
+	}
+
+
+	/**
+	 * Bind the values completed by the given buffer, and keep the bytes of the
+	 * value in progress, if any. The given buffer is released.
+	 */
+	public List<Object> split(DataBuffer dataBuffer) throws IOException {
+		try {
+			append(dataBuffer);
+		}
+		finally {
+			DataBufferUtils.release(dataBuffer);
+		}
+		List<Object> result = scan();
+		compact();
+		return result;
+	}
+
+	/**
+	 * Bind a trailing top-level scalar, and check that no value is incomplete.
+	 */
+	public List<Object> endOfInput() throws IOException {
+		List<Object> result = Collections.emptyList();
+		if (this.inScalar) {
+			result = new ArrayList<>(1);
+			this.inScalar = false;
+			bind(this.length, result);
+		}
+		if (this.valueStart != -1 || this.inTopLevelArray) {
+			throw new DecodingException("JSON decoding error: Unexpected end of input");
+		}
+		return result;
+	}
+
+	private void append(DataBuffer dataBuffer) {
+		int count = dataBuffer.readableByteCount();
+		if (this.length + count > this.buffer.length) {
+			byte[] newBuffer = new byte[Math.max(this.length + count, this.buffer.length * 2)];
+			System.arraycopy(this.buffer, 0, newBuffer, 0, this.length);
+			this.buffer = newBuffer;
+		}
+		dataBuffer.read(this.buffer, this.length, count);
+		this.length += count;
+	}
+
+	private List<Object> scan() throws IOException {
+		List<Object> result = new ArrayList<>();
+		byte[] bytes = this.buffer;
+		for (int i = this.position; i < this.length; i++) {
+			byte b = bytes[i];
+			if (this.inString) {
+				if (this.escaped) {
+					this.escaped = false;
+				}
+				else if (b == '\\') {
+					this.escaped = true;
+				}
+				else if (b == '"') {
+					this.inString = false;
+					if (this.depth == 0) {
+						bind(i + 1, result);
+					}
+				}
+				continue;
+			}
+			if (this.inScalar) {
+				if (!isScalarEnd(b)) {
+					continue;
+				}
+				this.inScalar = false;
+				bind(i, result);
+			}
+			if (this.valueStart != -1) {
+				if (b == '"') {
+					this.inString = true;
+				}
+				else if (b == '{' || b == '[') {
+					this.depth++;
+				}
+				else if ((b == '}' || b == ']') && --this.depth == 0) {
+					bind(i + 1, result);
+				}
+				continue;
+			}
+			// Between values
+			if (isWhitespace(b)) {
+				continue;
+			}
+			if (this.inTopLevelArray) {
+				if (b == ',' && this.arrayState == ARRAY_ELEMENT) {
+					this.arrayState = ARRAY_SEPARATOR;
+					continue;
+				}
+				if (b == ']' && this.arrayState != ARRAY_SEPARATOR) {
+					this.inTopLevelArray = false;
+					continue;
+				}
+				if (this.arrayState == ARRAY_ELEMENT) {
+					throw unexpectedCharacter(b, "was expecting comma to separate array entries");
+				}
+			}
+			else if (b == '[') {
+				this.inTopLevelArray = true;
+				this.arrayState = ARRAY_START;
+				continue;
+			}
+			if (b == ',' || b == '}' || b == ']') {
+				throw unexpectedCharacter(b, "was expecting a value");
+			}
+			this.valueStart = i;
+			if (b == '{' || b == '[') {
+				this.depth = 1;
+			}
+			else if (b == '"') {
+				this.inString = true;
+			}
+			else {
+				this.inScalar = true;
+			}
+		}
+		this.position = this.length;
+		return result;
+	}
+
+	private void bind(int end, List<Object> result) throws IOException {
+		int start = this.valueStart;
+		this.valueStart = -1;
+		this.arrayState = ARRAY_ELEMENT;
+		Object value = this.reader.readValue(this.buffer, start, end - start);
+		if (value != null) {
+			result.add(value);
+		}
+	}
+
+	private void compact() {
+		int start = (this.valueStart != -1 ? this.valueStart : this.length);
+		int remaining = this.length - start;
+		if (this.buffer.length > MAX_RETAINED_CAPACITY && remaining < MAX_RETAINED_CAPACITY) {
+			// Give back the capacity grown for values that have been bound
+			byte[] newBuffer = (remaining != 0 ? new byte[MAX_RETAINED_CAPACITY] : EMPTY_BYTES);
+			System.arraycopy(this.buffer, start, newBuffer, 0, remaining);
+			this.buffer = newBuffer;
+		}
+		else if (start > 0 && remaining > 0) {
+			System.arraycopy(this.buffer, start, this.buffer, 0, remaining);
+		}
+		this.position -= start;
+		this.length = remaining;
+		if (this.valueStart != -1) {
+			this.valueStart = 0;
+		}
+	}
+
+	private static DecodingException unexpectedCharacter(byte b, String expected) {
+		return new DecodingException(
+				"JSON decoding error: Unexpected character ('" + (char) b + "'): " + expected);
+	}
+
+	private static boolean isScalarEnd(byte b) {
+		return (isWhitespace(b) || b == ',' || b == ']' || b == '}' || b == '[' || b == '{' || b == '"');
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return (b == ' ' || b == '\n' || b == '\r' || b == '\t');
+	}
+
+}
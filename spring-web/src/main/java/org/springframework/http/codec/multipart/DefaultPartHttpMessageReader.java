@@ -0,0 +1,334 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.codec.Hints;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.log.LogFormatUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.codec.LoggingCodecSupport;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Default {@code HttpMessageReader} for parsing {@code "multipart/form-data"}
+ * requests to a stream of {@link Part Parts}, without third-party dependencies.
+ *
+ * <p>The request body is parsed incrementally and without blocking. The content
+ * of each part is held in memory up to the {@linkplain #setMaxInMemorySize
+ * maximum in-memory size}, and beyond that it is written to a temporary file in
+ * the {@linkplain #setFileStorageDirectory file storage directory}, so that
+ * large uploads are handled with constant memory. All file operations are
+ * performed on the {@linkplain #setBlockingOperationScheduler blocking
+ * operation scheduler}. Each part is emitted once its content is complete.
+ *
+ * <p>Temporary files are scoped to the request: if reading fails, all files
+ * created for the request are deleted, including those of parts that were
+ * already emitted. If reading is cancelled, e.g. once the part of interest has
+ * been found, only the files of parts that were not emitted yet are deleted.
+ * The files of emitted file parts can be removed via {@link Part#delete()}.
+ *
+ * <p>Since temporary files are not deleted on completion of the exchange,
+ * this reader is not registered by default, and is meant to be configured
+ * explicitly by applications that take care of deleting them.
+ *
+ * <p>This reader can be provided to {@link MultipartHttpMessageReader} in order
+ * to aggregate all parts into a Map.
+ *
+ * @since 5.2
+ * @see MultipartHttpMessageReader
+ */
+public class DefaultPartHttpMessageReader extends LoggingCodecSupport implements HttpMessageReader<Part> {
+
+	private static final int DEFAULT_MAX_IN_MEMORY_SIZE = 256 * 1024;
+
+	private static final int DEFAULT_MAX_HEADERS_SIZE = 8 * 1024;
+
+	private static final String FILE_STORAGE_DIRECTORY_PREFIX = "spring-multipart-";
+
+	@Nullable
+	private static volatile Scheduler defaultScheduler;
+
+
+	private int maxInMemorySize = DEFAULT_MAX_IN_MEMORY_SIZE;
+
+	private int maxHeadersSize = DEFAULT_MAX_HEADERS_SIZE;
+
+	private long maxTotalSize = -1;
+
+	private int maxParts = -1;
+
+	@Nullable
+	private Scheduler blockingOperationScheduler;
+
+	@Nullable
+	private Path fileStorageDirectory;
+
+	@Nullable
+	private Mono<Path> fileStorageDirectoryMono;
+
+
+	/**
+	 * Configure the maximum amount of memory allowed per part. Parts that
+	 * exceed this size are written to a temporary file, with the exception of
+	 * form fields, which are rejected.
+	 * <p>By default this is set to 256K.
+	 * @param maxInMemorySize the in-memory limit in bytes
+	 */
+	public void setMaxInMemorySize(int maxInMemorySize) {
+		Assert.isTrue(maxInMemorySize >= 0, "'maxInMemorySize' must be >= 0");
+		this.maxInMemorySize = maxInMemorySize;
+	}
+
+	/**
+	 * Return the configured {@link #setMaxInMemorySize maximum in-memory size}.
+	 */
+	public int getMaxInMemorySize() {
+		return this.maxInMemorySize;
+	}
+
+	/**
+	 * Configure the maximum size of the headers of each part.
+	 * <p>By default this is set to 8K.
+	 * @param maxHeadersSize the header size limit in bytes
+	 */
+	public void setMaxHeadersSize(int maxHeadersSize) {
+		Assert.isTrue(maxHeadersSize > 0, "'maxHeadersSize' must be > 0");
+		this.maxHeadersSize = maxHeadersSize;
+	}
+
+	/**
+	 * Return the configured {@link #setMaxHeadersSize maximum headers size}.
+	 */
+	public int getMaxHeadersSize() {
+		return this.maxHeadersSize;
+	}
+
+	/**
+	 * Configure the maximum size of the entire multipart content, including
+	 * part headers and boundaries.
+	 * <p>By default this is set to -1, meaning that there is no limit.
+	 * @param maxTotalSize the total size limit in bytes, or -1 for unlimited
+	 */
+	public void setMaxTotalSize(long maxTotalSize) {
+		this.maxTotalSize = maxTotalSize;
+	}
+
+	/**
+	 * Return the configured {@link #setMaxTotalSize maximum total size}.
+	 */
+	public long getMaxTotalSize() {
+		return this.maxTotalSize;
+	}
+
+	/**
+	 * Configure the maximum number of parts allowed in a multipart request.
+	 * <p>By default this is set to -1, meaning that there is no limit.
+	 * @param maxParts the maximum number of parts, or -1 for unlimited
+	 */
+	public void setMaxParts(int maxParts) {
+		this.maxParts = maxParts;
+	}
+
+	/**
+	 * Return the configured {@link #setMaxParts maximum number of parts}.
+	 */
+	public int getMaxParts() {
+		return this.maxParts;
+	}
+
+	/**
+	 * Set the directory used to store parts larger than the
+	 * {@linkplain #setMaxInMemorySize maximum in-memory size}. The directory is
+	 * created if it does not exist yet.
+	 * <p>By default a new temporary directory is created.
+	 * @param fileStorageDirectory the directory to store parts in
+	 */
+	public void setFileStorageDirectory(Path fileStorageDirectory) {
+		Assert.notNull(fileStorageDirectory, "FileStorageDirectory must not be null");
+		this.fileStorageDirectory = fileStorageDirectory;
+		this.fileStorageDirectoryMono = null;
+	}
+
+	/**
+	 * Set the {@link Scheduler} used to create, write, and delete temporary
+	 * files, which should allow blocking operations.
+	 * <p>By default, a shared scheduler backed by a bounded thread pool with
+	 * one thread per available processor is used.
+	 * @param blockingOperationScheduler the scheduler for file operations
+	 */
+	public void setBlockingOperationScheduler(Scheduler blockingOperationScheduler) {
+		Assert.notNull(blockingOperationScheduler, "BlockingOperationScheduler must not be null");
+		this.blockingOperationScheduler = blockingOperationScheduler;
+		this.fileStorageDirectoryMono = null;
+	}
+
+
+	@Override
+	public List<MediaType> getReadableMediaTypes() {
+		return Collections.singletonList(MediaType.MULTIPART_FORM_DATA);
+	}
+
+	@Override
+	public boolean canRead(ResolvableType elementType, @Nullable MediaType mediaType) {
+		return Part.class.equals(elementType.toClass()) &&
+				(mediaType == null || MediaType.MULTIPART_FORM_DATA.isCompatibleWith(mediaType));
+	}
+
+
+	@Override
+	public Flux<Part> read(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Flux.defer(() -> {
+			MediaType contentType = message.getHeaders().getContentType();
+			byte[] boundary = getBoundary(contentType);
+			if (contentType == null || boundary == null) {
+				return Flux.error(new DecodingException(
+						"No multipart boundary found in Content-Type: \"" + contentType + "\""));
+			}
+			Scheduler scheduler = getBlockingOperationScheduler();
+			MultipartParser parser = new MultipartParser(
+					boundary, this.maxHeadersSize, this.maxTotalSize, getHeadersCharset(contentType));
+			PartGenerator generator = new PartGenerator(
+					this.maxInMemorySize, this.maxParts, getFileStorageDirectory(), scheduler);
+
+			return message.getBody()
+					.concatMapIterable(parser::parse)
+					.concatWith(Mono.fromRunnable(parser::complete))
+					.concatMap(generator::next)
+					.concatWith(Mono.defer(generator::complete))
+					.doOnDiscard(MultipartParser.BodyToken.class, token -> DataBufferUtils.release(token.buffer()))
+					.doFinally(signalType -> {
+						if (signalType != SignalType.ON_COMPLETE) {
+							generator.discard(signalType == SignalType.ON_ERROR);
+						}
+					})
+					.doOnNext(part -> {
+						if (!Hints.isLoggingSuppressed(hints)) {
+							LogFormatUtils.traceDebug(logger, traceOn -> Hints.getLogPrefix(hints) + "Parsed " +
+									(isEnableLoggingRequestDetails() ?
+											LogFormatUtils.formatValue(part, !traceOn) :
+											"parts '" + part.name() + "' (content masked)"));
+						}
+					})
+					.doOnNext(generator::emitted);
+		});
+	}
+
+	@Override
+	public Mono<Part> readMono(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Mono.error(new UnsupportedOperationException("Cannot read multipart request body into single Part"));
+	}
+
+
+	@Nullable
+	private static byte[] getBoundary(@Nullable MediaType contentType) {
+		if (contentType == null) {
+			return null;
+		}
+		String boundary = contentType.getParameter("boundary");
+		if (boundary == null) {
+			return null;
+		}
+		int length = boundary.length();
+		if (length > 2 && boundary.charAt(0) == '"' && boundary.charAt(length - 1) == '"') {
+			boundary = boundary.substring(1, length - 1);
+		}
+		return boundary.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	private static Charset getHeadersCharset(MediaType contentType) {
+		// RFC 7578: part headers (e.g. filenames) are UTF-8 unless specified otherwise
+		Charset charset = contentType.getCharset();
+		return (charset != null ? charset : StandardCharsets.UTF_8);
+	}
+
+	private Scheduler getBlockingOperationScheduler() {
+		Scheduler scheduler = this.blockingOperationScheduler;
+		if (scheduler == null) {
+			scheduler = defaultScheduler;
+			if (scheduler == null) {
+				synchronized (DefaultPartHttpMessageReader.class) {
+					scheduler = defaultScheduler;
+					if (scheduler == null) {
+						scheduler = createDefaultScheduler();
+						defaultScheduler = scheduler;
+					}
+				}
+			}
+		}
+		return scheduler;
+	}
+
+	private static Scheduler createDefaultScheduler() {
+		int threads = Runtime.getRuntime().availableProcessors();
+		AtomicInteger counter = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "multipart-storage-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return Schedulers.fromExecutorService(executor);
+	}
+
+	private Mono<Path> getFileStorageDirectory() {
+		Mono<Path> result = this.fileStorageDirectoryMono;
+		if (result == null) {
+			Path directory = this.fileStorageDirectory;
+			result = Mono.fromCallable(() -> createFileStorageDirectory(directory))
+					.subscribeOn(getBlockingOperationScheduler())
+					.cache();
+			this.fileStorageDirectoryMono = result;
+		}
+		return result;
+	}
+
+	private static Path createFileStorageDirectory(@Nullable Path directory) throws IOException {
+		if (directory == null) {
+			return Files.createTempDirectory(FILE_STORAGE_DIRECTORY_PREFIX);
+		}
+		if (!Files.exists(directory)) {
+			Files.createDirectories(directory);
+		}
+		return directory;
+	}
+
+}
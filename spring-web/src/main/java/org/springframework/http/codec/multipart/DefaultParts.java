@@ -0,0 +1,270 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+/**
+ * Default implementations of {@link Part} and subtypes, as created by
+ * {@link DefaultPartHttpMessageReader}.
+ *
+ * @since 5.2
+ */
+abstract class DefaultParts {
+
+	private static final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private static final int FILE_BUFFER_SIZE = 8192;
+
+
+	/**
+	 * Create a part with content held in memory.
+	 */
+	public static Part inMemoryPart(HttpHeaders headers, byte[] content) {
+		String filename = headers.getContentDisposition().getFilename();
+		if (filename != null) {
+			return new DefaultFilePart(headers, filename, new InMemoryContent(content));
+		}
+		else if (isFormField(headers)) {
+			return new DefaultFormFieldPart(headers, new String(content, charset(headers)));
+		}
+		else {
+			return new DefaultPart(headers, new InMemoryContent(content));
+		}
+	}
+
+	/**
+	 * Create a part with content stored in the given file.
+	 */
+	public static Part filePart(HttpHeaders headers, Path file, Scheduler scheduler) {
+		FileContent content = new FileContent(file, scheduler);
+		String filename = headers.getContentDisposition().getFilename();
+		if (filename != null) {
+			return new DefaultFilePart(headers, filename, content);
+		}
+		else {
+			return new DefaultPart(headers, content);
+		}
+	}
+
+	/**
+	 * Whether the given part headers are those of a form field, i.e. without
+	 * a filename and without a content type, or with plain text.
+	 */
+	public static boolean isFormField(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		return ((contentType == null || MediaType.TEXT_PLAIN.equalsTypeAndSubtype(contentType)) &&
+				headers.getContentDisposition().getFilename() == null);
+	}
+
+	private static Charset charset(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		Charset charset = (contentType != null ? contentType.getCharset() : null);
+		return (charset != null ? charset : StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Storage of the content of a part.
+	 */
+	private interface Content {
+
+		Flux<DataBuffer> content();
+
+		Mono<Void> transferTo(Path dest);
+
+		Mono<Void> delete();
+	}
+
+
+	private static final class InMemoryContent implements Content {
+
+		private final byte[] content;
+
+		InMemoryContent(byte[] content) {
+			this.content = content;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.defer(() -> Flux.just(bufferFactory.wrap(this.content)));
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return DataBufferUtils.write(content(), dest);
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return Mono.empty();
+		}
+	}
+
+
+	private static final class FileContent implements Content {
+
+		private final Path file;
+
+		private final Scheduler scheduler;
+
+		FileContent(Path file, Scheduler scheduler) {
+			this.file = file;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return DataBufferUtils.read(this.file, bufferFactory, FILE_BUFFER_SIZE);
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.<Void>fromCallable(() -> {
+				Files.copy(this.file, dest, StandardCopyOption.REPLACE_EXISTING);
+				return null;
+			}).subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return Mono.<Void>fromCallable(() -> {
+				Files.deleteIfExists(this.file);
+				return null;
+			}).subscribeOn(this.scheduler);
+		}
+	}
+
+
+	private abstract static class AbstractPart implements Part {
+
+		private final HttpHeaders headers;
+
+		AbstractPart(HttpHeaders headers) {
+			this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+		}
+
+		@Override
+		public String name() {
+			String name = this.headers.getContentDisposition().getName();
+			return (name != null ? name : "");
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+	}
+
+
+	private static class DefaultPart extends AbstractPart {
+
+		private final Content content;
+
+		DefaultPart(HttpHeaders headers, Content content) {
+			super(headers);
+			this.content = content;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return this.content.content();
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return this.content.delete();
+		}
+
+		Content getContent() {
+			return this.content;
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "', headers=" + headers();
+		}
+	}
+
+
+	private static final class DefaultFilePart extends DefaultPart implements FilePart {
+
+		private final String filename;
+
+		DefaultFilePart(HttpHeaders headers, String filename, Content content) {
+			super(headers, content);
+			this.filename = filename;
+		}
+
+		@Override
+		public String filename() {
+			return this.filename;
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return getContent().transferTo(dest);
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "', filename='" + this.filename + "'";
+		}
+	}
+
+
+	private static final class DefaultFormFieldPart extends AbstractPart implements FormFieldPart {
+
+		private final String value;
+
+		DefaultFormFieldPart(HttpHeaders headers, String value) {
+			super(headers);
+			this.value = value;
+		}
+
+		@Override
+		public String value() {
+			return this.value;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.defer(() -> Flux.just(bufferFactory.wrap(this.value.getBytes(charset(headers())))));
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "=" + this.value + "'";
+		}
+	}
+
+}
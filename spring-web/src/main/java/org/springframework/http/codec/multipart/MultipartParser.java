@@ -0,0 +1,339 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Incremental, non-blocking parser for the body of a multipart message, that
+ * turns arbitrarily split chunks of input into {@linkplain HeadersToken headers}
+ * and {@linkplain BodyToken body} tokens.
+ *
+ * <p>Body tokens are slices of the input buffers, rather than copies, so that
+ * part bodies are streamed through the parser. A delimiter that is split across
+ * input buffers is recognized without joining the buffers: the bytes of a
+ * potential delimiter are held back, and emitted as body content if the
+ * delimiter turns out not to match.
+ *
+ * <p>Not thread-safe: input is expected to be provided sequentially.
+ *
+ * @since 5.2
+ * @see DefaultPartHttpMessageReader
+ */
+final class MultipartParser {
+
+	private static final byte[] HEADERS_END = {'\r', '\n', '\r', '\n'};
+
+
+	private enum State {PREAMBLE, AFTER_BOUNDARY, HEADERS, BODY, EPILOGUE}
+
+
+	private final BytePattern delimiter;
+
+	private final BytePattern headersEnd = new BytePattern(HEADERS_END);
+
+	private final int maxHeadersSize;
+
+	private final long maxTotalSize;
+
+	private final Charset headersCharset;
+
+	private State state = State.PREAMBLE;
+
+	/** Number of delimiter or headers end bytes matched so far. */
+	private int matched;
+
+	private boolean boundaryDash;
+
+	private final ByteArrayOutputStream headers = new ByteArrayOutputStream();
+
+	private long totalSize;
+
+
+	/**
+	 * Create a new parser.
+	 * @param boundary the multipart boundary
+	 * @param maxHeadersSize the maximum size of the headers of each part
+	 * @param maxTotalSize the maximum size of the entire input, or -1 for unlimited
+	 * @param headersCharset the charset to decode part headers with
+	 */
+	public MultipartParser(byte[] boundary, int maxHeadersSize, long maxTotalSize, Charset headersCharset) {
+		byte[] delimiter = new byte[boundary.length + 4];
+		delimiter[0] = '\r';
+		delimiter[1] = '\n';
+		delimiter[2] = '-';
+		delimiter[3] = '-';
+		System.arraycopy(boundary, 0, delimiter, 4, boundary.length);
+		this.delimiter = new BytePattern(delimiter);
+		this.maxHeadersSize = maxHeadersSize;
+		this.maxTotalSize = maxTotalSize;
+		this.headersCharset = headersCharset;
+		// The first boundary may be at the very start, so consider the CRLF matched
+		this.matched = 2;
+	}
+
+
+	/**
+	 * Parse the given buffer, and return the tokens it completes.
+	 * The given buffer is released.
+	 * @throws DecodingException if the input is malformed or exceeds a limit
+	 */
+	public List<Token> parse(DataBuffer buffer) {
+		List<Token> result = new ArrayList<>(2);
+		try {
+			this.totalSize += buffer.readableByteCount();
+			if (this.maxTotalSize >= 0 && this.totalSize > this.maxTotalSize) {
+				throw new DecodingException(
+						"Multipart content exceeded the limit of " + this.maxTotalSize + " bytes");
+			}
+			int end = buffer.writePosition();
+			int position = buffer.readPosition();
+			while (position < end) {
+				switch (this.state) {
+					case PREAMBLE:
+					case BODY:
+						position = parseBody(buffer, position, end, result);
+						break;
+					case AFTER_BOUNDARY:
+						position = parseAfterBoundary(buffer, position, end);
+						break;
+					case HEADERS:
+						position = parseHeaders(buffer, position, end, result);
+						break;
+					default:
+						position = end;
+				}
+			}
+			return result;
+		}
+		catch (RuntimeException ex) {
+			for (Token token : result) {
+				if (token instanceof BodyToken) {
+					DataBufferUtils.release(((BodyToken) token).buffer());
+				}
+			}
+			throw ex;
+		}
+		finally {
+			DataBufferUtils.release(buffer);
+		}
+	}
+
+	/**
+	 * Signal the end of the input.
+	 * @throws DecodingException if the end boundary has not been found
+	 */
+	public void complete() {
+		if (this.state != State.EPILOGUE) {
+			throw new DecodingException("Could not find end of multipart content");
+		}
+	}
+
+	private int parseBody(DataBuffer buffer, int start, int end, List<Token> result) {
+		int held = this.matched;
+		for (int i = start; i < end; i++) {
+			this.matched = this.delimiter.next(this.matched, buffer.getByte(i));
+			if (this.matched == this.delimiter.length()) {
+				emitBody(buffer, start, held, i + 1 - this.delimiter.length(), result);
+				this.state = State.AFTER_BOUNDARY;
+				this.boundaryDash = false;
+				this.matched = 0;
+				return i + 1;
+			}
+		}
+		emitBody(buffer, start, held, end - this.matched, result);
+		return end;
+	}
+
+	/**
+	 * Emit the body bytes before {@code bodyEnd}, which may be negative if the
+	 * body ends within the bytes held back from previous buffers.
+	 */
+	private void emitBody(DataBuffer buffer, int start, int held, int bodyEnd, List<Token> result) {
+		if (this.state != State.BODY) {
+			return;
+		}
+		int heldLength = held + Math.min(bodyEnd - start, 0);
+		if (heldLength > 0) {
+			byte[] heldBytes = Arrays.copyOf(this.delimiter.bytes(), heldLength);
+			result.add(new BodyToken(buffer.factory().wrap(heldBytes)));
+		}
+		if (bodyEnd > start) {
+			result.add(new BodyToken(buffer.retainedSlice(start, bodyEnd - start)));
+		}
+	}
+
+	private int parseAfterBoundary(DataBuffer buffer, int start, int end) {
+		for (int i = start; i < end; i++) {
+			byte b = buffer.getByte(i);
+			if (this.boundaryDash) {
+				if (b != '-') {
+					throw new DecodingException("Invalid multipart boundary");
+				}
+				this.state = State.EPILOGUE;
+				return end;
+			}
+			else if (b == '-') {
+				this.boundaryDash = true;
+			}
+			else if (b == '\n') {
+				this.state = State.HEADERS;
+				// The CRLF of the boundary line also starts the end of empty headers
+				this.matched = 2;
+				this.headers.reset();
+				return i + 1;
+			}
+			else if (b != '\r' && b != ' ' && b != '\t') {
+				throw new DecodingException("Invalid multipart boundary");
+			}
+		}
+		return end;
+	}
+
+	private int parseHeaders(DataBuffer buffer, int start, int end, List<Token> result) {
+		for (int i = start; i < end; i++) {
+			byte b = buffer.getByte(i);
+			this.matched = this.headersEnd.next(this.matched, b);
+			this.headers.write(b);
+			if (this.headers.size() > this.maxHeadersSize) {
+				throw new DecodingException(
+						"Part headers exceeded the limit of " + this.maxHeadersSize + " bytes");
+			}
+			if (this.matched == HEADERS_END.length) {
+				result.add(new HeadersToken(parseHeaders()));
+				this.state = State.BODY;
+				this.matched = 0;
+				return i + 1;
+			}
+		}
+		return end;
+	}
+
+	private HttpHeaders parseHeaders() {
+		HttpHeaders result = new HttpHeaders();
+		String content = new String(this.headers.toByteArray(), this.headersCharset);
+		for (String line : content.split("\r\n")) {
+			int index = line.indexOf(':');
+			if (index > 0) {
+				result.add(line.substring(0, index).trim(), line.substring(index + 1).trim());
+			}
+			else if (!line.isEmpty()) {
+				throw new DecodingException("Invalid multipart header: " + line);
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Byte pattern that is matched one byte at a time, using the
+	 * Knuth-Morris-Pratt failure table to fall back on partial matches.
+	 */
+	private static final class BytePattern {
+
+		private final byte[] bytes;
+
+		private final int[] failure;
+
+		BytePattern(byte[] bytes) {
+			this.bytes = bytes;
+			this.failure = new int[bytes.length];
+			for (int i = 1, j = 0; i < bytes.length; i++) {
+				while (j > 0 && bytes[i] != bytes[j]) {
+					j = this.failure[j - 1];
+				}
+				if (bytes[i] == bytes[j]) {
+					j++;
+				}
+				this.failure[i] = j;
+			}
+		}
+
+		byte[] bytes() {
+			return this.bytes;
+		}
+
+		int length() {
+			return this.bytes.length;
+		}
+
+		/**
+		 * Return the number of bytes matched after the given byte, given the
+		 * number of bytes matched before it.
+		 */
+		int next(int matched, byte b) {
+			if (matched == this.bytes.length) {
+				matched = this.failure[matched - 1];
+			}
+			while (matched > 0 && b != this.bytes[matched]) {
+				matched = this.failure[matched - 1];
+			}
+			return (b == this.bytes[matched] ? matched + 1 : 0);
+		}
+	}
+
+
+	/**
+	 * Token emitted by the parser.
+	 */
+	abstract static class Token {
+	}
+
+
+	/**
+	 * Token for the headers of a part, which starts the part.
+	 */
+	static final class HeadersToken extends Token {
+
+		private final HttpHeaders headers;
+
+		HeadersToken(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+	}
+
+
+	/**
+	 * Token for a chunk of the body of the current part.
+	 */
+	static final class BodyToken extends Token {
+
+		private final DataBuffer buffer;
+
+		BodyToken(DataBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		public DataBuffer buffer() {
+			return this.buffer;
+		}
+	}
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+
+/**
+ * Turn the {@linkplain MultipartParser.Token tokens} of a multipart message
+ * into {@link Part Parts}, holding the content of each part in memory until it
+ * exceeds a threshold, and then writing it to a temporary file instead.
+ *
+ * <p>All file operations are performed on the given {@link Scheduler}, which
+ * is expected to allow blocking. The methods of this class are expected to be
+ * invoked sequentially, for example via {@code concatMap}, waiting for each
+ * returned {@code Mono} to complete. Each part is returned once its content
+ * is complete, so the content of parts is not streamed.
+ *
+ * <p>The temporary files created for parts are tracked, so that they can be
+ * deleted when the generator is {@linkplain #discard(boolean) discarded}.
+ * The files of parts that were already {@linkplain #emitted(Part) emitted}
+ * to the consumer are only deleted on request, since the consumer may still
+ * be using them.
+ *
+ * @since 5.2
+ * @see DefaultPartHttpMessageReader
+ */
+final class PartGenerator {
+
+	private final int maxInMemorySize;
+
+	private final int maxParts;
+
+	private final Mono<Path> fileStorageDirectory;
+
+	private final Scheduler scheduler;
+
+	private int partCount;
+
+	@Nullable
+	private HttpHeaders headers;
+
+	private final List<DataBuffer> content = new ArrayList<>();
+
+	private long size;
+
+	@Nullable
+	private volatile Path file;
+
+	@Nullable
+	private volatile FileChannel channel;
+
+	private final Queue<Path> storageFiles = new ConcurrentLinkedQueue<>();
+
+	private final Map<Part, Path> partFiles = new ConcurrentHashMap<>();
+
+	private final Queue<Path> emittedFiles = new ConcurrentLinkedQueue<>();
+
+	private volatile boolean discarded;
+
+
+	public PartGenerator(int maxInMemorySize, int maxParts, Mono<Path> fileStorageDirectory, Scheduler scheduler) {
+		this.maxInMemorySize = maxInMemorySize;
+		this.maxParts = maxParts;
+		this.fileStorageDirectory = fileStorageDirectory;
+		this.scheduler = scheduler;
+	}
+
+
+	/**
+	 * Handle the next token, and return the part that it completes, if any.
+	 */
+	public Mono<Part> next(MultipartParser.Token token) {
+		if (token instanceof MultipartParser.HeadersToken) {
+			if (this.maxParts >= 0 && ++this.partCount > this.maxParts) {
+				return Mono.error(new DecodingException("Too many parts (" + this.maxParts + " allowed)"));
+			}
+			Mono<Part> previous = completePart();
+			this.headers = ((MultipartParser.HeadersToken) token).headers();
+			return previous;
+		}
+		DataBuffer buffer = ((MultipartParser.BodyToken) token).buffer();
+		HttpHeaders headers = this.headers;
+		if (headers == null) {
+			DataBufferUtils.release(buffer);
+			return Mono.empty();
+		}
+		FileChannel channel = this.channel;
+		if (channel != null) {
+			return write(channel, Collections.singletonList(buffer));
+		}
+		this.content.add(buffer);
+		this.size += buffer.readableByteCount();
+		if (this.size <= this.maxInMemorySize) {
+			return Mono.empty();
+		}
+		if (DefaultParts.isFormField(headers)) {
+			return Mono.error(new DecodingException(
+					"Form field value exceeded the memory usage limit of " + this.maxInMemorySize + " bytes"));
+		}
+		return spillToDisk();
+	}
+
+	/**
+	 * Signal the end of the tokens, and return the last part, if any.
+	 */
+	public Mono<Part> complete() {
+		return completePart();
+	}
+
+	/**
+	 * Mark the given part as emitted to the consumer, which is then responsible
+	 * for deleting its file, if any, via {@link Part#delete()}.
+	 */
+	public void emitted(Part part) {
+		Path file = this.partFiles.remove(part);
+		if (file != null) {
+			this.emittedFiles.add(file);
+		}
+	}
+
+	/**
+	 * Discard the part in progress after an error or cancellation, and delete
+	 * the temporary files created for the request.
+	 * @param includeEmitted whether to also delete the files of parts that
+	 * were already {@linkplain #emitted(Part) emitted}
+	 */
+	public void discard(boolean includeEmitted) {
+		this.discarded = true;
+		this.headers = null;
+		this.content.forEach(DataBufferUtils::release);
+		this.content.clear();
+		FileChannel channel = this.channel;
+		this.channel = null;
+		this.file = null;
+		List<Path> files = new ArrayList<>(this.storageFiles);
+		if (!includeEmitted) {
+			files.removeAll(this.emittedFiles);
+		}
+		if (channel != null || !files.isEmpty()) {
+			this.scheduler.schedule(() -> {
+				if (channel != null) {
+					closeChannel(channel);
+				}
+				files.forEach(PartGenerator::deleteFile);
+			});
+		}
+	}
+
+	private Mono<Part> completePart() {
+		HttpHeaders headers = this.headers;
+		if (headers == null) {
+			return Mono.empty();
+		}
+		this.headers = null;
+		FileChannel channel = this.channel;
+		Path file = this.file;
+		if (channel == null || file == null) {
+			byte[] bytes = new byte[(int) this.size];
+			int offset = 0;
+			for (DataBuffer buffer : this.content) {
+				int count = buffer.readableByteCount();
+				buffer.read(bytes, offset, count);
+				offset += count;
+				DataBufferUtils.release(buffer);
+			}
+			this.content.clear();
+			this.size = 0;
+			return Mono.just(DefaultParts.inMemoryPart(headers, bytes));
+		}
+		this.channel = null;
+		this.file = null;
+		this.size = 0;
+		return Mono.fromCallable(() -> {
+			channel.close();
+			Part part = DefaultParts.filePart(headers, file, this.scheduler);
+			this.partFiles.put(part, file);
+			return part;
+		}).subscribeOn(this.scheduler);
+	}
+
+	private Mono<Part> spillToDisk() {
+		List<DataBuffer> buffers = new ArrayList<>(this.content);
+		this.content.clear();
+		return this.fileStorageDirectory.flatMap(directory -> Mono.<Part>fromCallable(() -> {
+			Path file;
+			FileChannel channel;
+			try {
+				file = Files.createTempFile(directory, null, ".multipart");
+				// Track the file before checking for a concurrent discard
+				this.storageFiles.add(file);
+				channel = FileChannel.open(file, StandardOpenOption.WRITE);
+				this.file = file;
+				this.channel = channel;
+			}
+			catch (IOException | RuntimeException ex) {
+				buffers.forEach(DataBufferUtils::release);
+				throw ex;
+			}
+			if (this.discarded) {
+				buffers.forEach(DataBufferUtils::release);
+				closeChannel(channel);
+				deleteFile(file);
+				return null;
+			}
+			writeBuffers(channel, buffers);
+			return null;
+		}).subscribeOn(this.scheduler));
+	}
+
+	private Mono<Part> write(FileChannel channel, List<DataBuffer> buffers) {
+		return Mono.<Part>fromCallable(() -> {
+			writeBuffers(channel, buffers);
+			return null;
+		}).subscribeOn(this.scheduler);
+	}
+
+	private static void writeBuffers(FileChannel channel, List<DataBuffer> buffers) throws IOException {
+		try {
+			for (DataBuffer buffer : buffers) {
+				ByteBuffer byteBuffer = buffer.asByteBuffer();
+				while (byteBuffer.hasRemaining()) {
+					channel.write(byteBuffer);
+				}
+			}
+		}
+		finally {
+			buffers.forEach(DataBufferUtils::release);
+		}
+	}
+
+	private static void closeChannel(FileChannel channel) {
+		try {
+			channel.close();
+		}
+		catch (IOException ex) {
+			// ignore
+		}
+	}
+
+	private static void deleteFile(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		}
+		catch (IOException ex) {
+			// ignore
+		}
+	}
+
+}
@@ -108,6 +108,12 @@ public class ServletHttpHandlerAdapter implements Servlet {
 		return this.servletPath;
 	}
 
+	/**
+	 * Set the {@link DataBufferFactory} to use for request and response bodies.
+	 * <p>By default this is a {@link DefaultDataBufferFactory}. Consider a
+	 * {@link org.springframework.core.io.buffer.PooledDataBufferFactory} to
+	 * recycle buffer memory rather than allocating new buffers for every read.
+	 */
 	public void setDataBufferFactory(DataBufferFactory dataBufferFactory) {
 		Assert.notNull(dataBufferFactory, "DataBufferFactory must not be null");
 		this.dataBufferFactory = dataBufferFactory;
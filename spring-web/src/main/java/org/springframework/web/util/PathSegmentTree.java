@@ -0,0 +1,198 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * A tree of literal path segments that narrows down which values, each
+ * registered with a set of path patterns, may match a given lookup path.
+ *
+ * <p>A value is stored under the literal leading segments that all of its
+ * patterns have in common, excluding the last segment of each pattern which
+ * may be subject to suffix or trailing slash matching. A lookup returns the
+ * values stored along the path of the lookup path's segments, i.e. a superset
+ * of the values with a pattern that matches. Values without patterns, or
+ * without literal leading segments, are returned for every lookup path.
+ *
+ * <p>Segments are separated by "/", trimmed, and compared case-insensitively,
+ * which makes this index suitable for both {@link org.springframework.util.AntPathMatcher}
+ * and {@link org.springframework.web.util.pattern.PathPattern} patterns,
+ * independent of their case sensitivity settings.
+ *
+ * <p>This class is not thread-safe: concurrent modification and lookups
+ * require external synchronization.
+ *
+ * @since 5.2
+ * @param <T> the type of values
+ */
+public class PathSegmentTree<T> {
+
+	private final Node<T> root = new Node<>();
+
+
+	/**
+	 * Add a value for the given path patterns.
+	 * @param patterns the path patterns of the value, or an empty collection
+	 * for a value that may match any lookup path
+	 * @param value the value to add
+	 */
+	public void add(Collection<String> patterns, T value) {
+		Node<T> node = this.root;
+		for (String segment : getLiteralPrefix(patterns)) {
+			node = node.getOrCreateChild(segment);
+		}
+		node.values.add(value);
+	}
+
+	/**
+	 * Remove a value that was added for the given path patterns.
+	 * @param patterns the path patterns the value was added with
+	 * @param value the value to remove
+	 * @return {@code true} if the value was found and removed
+	 */
+	public boolean remove(Collection<String> patterns, T value) {
+		return this.root.remove(getLiteralPrefix(patterns), 0, value);
+	}
+
+	/**
+	 * Return the values which may match the given lookup path.
+	 * @param lookupPath the lookup path, with segments separated by "/"
+	 * @return the candidate values, possibly empty
+	 */
+	public List<T> getCandidates(String lookupPath) {
+		return getCandidates(Arrays.asList(StringUtils.tokenizeToStringArray(lookupPath, "/")));
+	}
+
+	/**
+	 * Return the values which may match the given parsed lookup path,
+	 * based on the {@link PathContainer.PathSegment#valueToMatch() decoded}
+	 * values of its segments.
+	 * @param lookupPath the parsed lookup path
+	 * @return the candidate values, possibly empty
+	 */
+	public List<T> getCandidates(PathContainer lookupPath) {
+		List<String> segments = new ArrayList<>(lookupPath.elements().size() / 2 + 1);
+		for (PathContainer.Element element : lookupPath.elements()) {
+			if (element instanceof PathContainer.PathSegment) {
+				segments.add(((PathContainer.PathSegment) element).valueToMatch());
+			}
+		}
+		return getCandidates(segments);
+	}
+
+	/**
+	 * Return the values which may match a lookup path with the given segments.
+	 * @param pathSegments the segments of the lookup path, in order
+	 * @return the candidate values, possibly empty
+	 */
+	public List<T> getCandidates(List<String> pathSegments) {
+		Node<T> node = this.root;
+		List<T> candidates = new ArrayList<>(node.values);
+		for (String segment : pathSegments) {
+			String segmentToUse = segment.trim();
+			if (segmentToUse.isEmpty()) {
+				continue;
+			}
+			node = node.getChild(segmentToUse);
+			if (node == null) {
+				break;
+			}
+			candidates.addAll(node.values);
+		}
+		return candidates;
+	}
+
+
+	/**
+	 * Determine the literal leading segments which the given patterns have in
+	 * common, ignoring the last segment of each pattern.
+	 */
+	private static List<String> getLiteralPrefix(Collection<String> patterns) {
+		List<String> prefix = null;
+		for (String pattern : patterns) {
+			String[] segments = StringUtils.tokenizeToStringArray(pattern, "/");
+			int length = 0;
+			int max = (prefix != null ? Math.min(prefix.size(), segments.length - 1) : segments.length - 1);
+			while (length < max && isLiteral(segments[length]) &&
+					(prefix == null || prefix.get(length).equalsIgnoreCase(segments[length]))) {
+				length++;
+			}
+			if (length == 0) {
+				return Collections.emptyList();
+			}
+			prefix = (prefix != null ? prefix.subList(0, length) : Arrays.asList(segments).subList(0, length));
+		}
+		return (prefix != null ? prefix : Collections.emptyList());
+	}
+
+	private static boolean isLiteral(String segment) {
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c == '*' || c == '?' || c == '{') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private static class Node<T> {
+
+		private final List<T> values = new ArrayList<>(1);
+
+		@Nullable
+		private Map<String, Node<T>> children;
+
+		@Nullable
+		Node<T> getChild(String segment) {
+			return (this.children != null ? this.children.get(segment) : null);
+		}
+
+		Node<T> getOrCreateChild(String segment) {
+			if (this.children == null) {
+				this.children = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+			}
+			return this.children.computeIfAbsent(segment, key -> new Node<>());
+		}
+
+		boolean remove(List<String> prefix, int index, T value) {
+			if (index == prefix.size()) {
+				return this.values.remove(value);
+			}
+			Node<T> child = getChild(prefix.get(index));
+			if (child == null || !child.remove(prefix, index + 1, value)) {
+				return false;
+			}
+			if (child.values.isEmpty() && (child.children == null || child.children.isEmpty())) {
+				this.children.remove(prefix.get(index));
+			}
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import java.util.List;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Utility class to parse the path of an {@link HttpServletRequest} into a
+ * {@link RequestPath} once per request and cache it in a request attribute,
+ * for matching against parsed {@link org.springframework.web.util.pattern.PathPattern}s.
+ *
+ * <p>The servlet path of a prefix-mapped Servlet (e.g. "/app/*") is treated as
+ * part of the context path, so that {@link RequestPath#pathWithinApplication()}
+ * represents the path within the Servlet mapping, consistent with
+ * {@link UrlPathHelper#getLookupPathForRequest}.
+ *
+ * @since 5.2
+ * @see org.springframework.web.util.pattern.PathPattern
+ */
+public abstract class ServletRequestPathUtils {
+
+	/**
+	 * Name of the request attribute that holds the parsed {@link RequestPath}.
+	 */
+	public static final String PATH_ATTRIBUTE = ServletRequestPathUtils.class.getName() + ".PATH";
+
+
+	/**
+	 * Parse the request URI of the given request into a {@link RequestPath}
+	 * and cache it in the {@link #PATH_ATTRIBUTE} request attribute.
+	 * <p>For an include request, the URI and paths of the included resource
+	 * are used.
+	 * @param request the current request
+	 * @return the parsed path
+	 */
+	public static RequestPath parseAndCache(HttpServletRequest request) {
+		RequestPath requestPath = parse(request);
+		request.setAttribute(PATH_ATTRIBUTE, requestPath);
+		return requestPath;
+	}
+
+	/**
+	 * Return the {@link RequestPath} cached for the current request URI,
+	 * parsing and caching it first if necessary, e.g. for the first lookup
+	 * or after a forward or include to a different URI.
+	 * @param request the current request
+	 * @return the parsed path
+	 */
+	public static RequestPath getParsedRequestPath(HttpServletRequest request) {
+		Object path = request.getAttribute(PATH_ATTRIBUTE);
+		if (path instanceof RequestPath && ((RequestPath) path).value().equals(getRequestUri(request))) {
+			return (RequestPath) path;
+		}
+		return parseAndCache(request);
+	}
+
+	/**
+	 * Check whether a parsed {@link RequestPath} is cached for the given request.
+	 * @param request the current request
+	 */
+	public static boolean hasParsedRequestPath(ServletRequest request) {
+		return (request.getAttribute(PATH_ATTRIBUTE) != null);
+	}
+
+	/**
+	 * Remove the cached {@link RequestPath}, if any, from the given request.
+	 * @param request the current request
+	 */
+	public static void clearParsedRequestPath(ServletRequest request) {
+		request.removeAttribute(PATH_ATTRIBUTE);
+	}
+
+
+	private static RequestPath parse(HttpServletRequest request) {
+		boolean include = WebUtils.isIncludeRequest(request);
+		String contextPath = (include ?
+				(String) request.getAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE) : request.getContextPath());
+		RequestPath requestPath = RequestPath.parse(getRequestUri(request), contextPath);
+
+		String servletPath = (include ?
+				(String) request.getAttribute(WebUtils.INCLUDE_SERVLET_PATH_ATTRIBUTE) : request.getServletPath());
+		String pathInfo = (include ?
+				(String) request.getAttribute(WebUtils.INCLUDE_PATH_INFO_ATTRIBUTE) : request.getPathInfo());
+		if (pathInfo != null && StringUtils.hasLength(servletPath) && !"/".equals(servletPath)) {
+			// Prefix-mapped Servlet: the servlet path is not part of the lookup path
+			String servletPrefix = getServletPrefix(requestPath.pathWithinApplication(), servletPath);
+			if (servletPrefix != null) {
+				requestPath = requestPath.modifyContextPath(requestPath.contextPath().value() + servletPrefix);
+			}
+		}
+		return requestPath;
+	}
+
+	private static String getRequestUri(HttpServletRequest request) {
+		String uri = (String) request.getAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE);
+		return (uri != null ? uri : request.getRequestURI());
+	}
+
+	/**
+	 * Return the raw leading portion of the given path that corresponds to the
+	 * given (decoded) servlet path, or {@code null} if it does not match.
+	 */
+	@Nullable
+	private static String getServletPrefix(PathContainer path, String servletPath) {
+		String[] servletSegments = StringUtils.tokenizeToStringArray(servletPath, "/");
+		List<PathContainer.Element> elements = path.elements();
+		if (elements.size() < servletSegments.length * 2) {
+			return null;
+		}
+		for (int i = 0; i < servletSegments.length; i++) {
+			PathContainer.Element separator = elements.get(i * 2);
+			PathContainer.Element segment = elements.get(i * 2 + 1);
+			if (!(separator instanceof PathContainer.Separator) || !(segment instanceof PathContainer.PathSegment) ||
+					!((PathContainer.PathSegment) segment).valueToMatch().equals(servletSegments[i])) {
+				return null;
+			}
+		}
+		return path.subPath(0, servletSegments.length * 2).value();
+	}
+
+}
@@ -78,6 +78,27 @@ public class ResourceHttpMessageWriterTests {
 		StepVerifier.create(this.response.getBodyAsString()).expectNext(content).expectComplete().verify();
 	}
 
+	@Test
+	public void writeResourceMemoryMapped() throws Exception {
+		this.writer.setMappedReadThreshold(0);
+
+		testWrite(get("/").build());
+
+		assertThat(this.response.getHeaders().getContentLength()).isEqualTo(39L);
+		String content = "Spring Framework test resource content.";
+		StepVerifier.create(this.response.getBodyAsString()).expectNext(content).expectComplete().verify();
+	}
+
+	@Test
+	public void writeSingleRegionMemoryMapped() throws Exception {
+		this.writer.setMappedReadThreshold(0);
+
+		testWrite(get("/").range(of(7, 15)).build());
+
+		assertThat(this.response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 7-15/39");
+		StepVerifier.create(this.response.getBodyAsString()).expectNext("Framework").expectComplete().verify();
+	}
+
 	@Test
 	public void writeSingleRegion() throws Exception {
 
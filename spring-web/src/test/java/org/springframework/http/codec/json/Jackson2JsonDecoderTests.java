@@ -129,6 +129,93 @@ public class Jackson2JsonDecoderTests extends AbstractDecoderTestCase<Jackson2Js
 	}
 
 
+	@Test
+	public void decodeWithDirectElementBinding() {
+		this.decoder.setDirectElementBinding(true);
+		Flux<DataBuffer> input = Flux.concat(
+				stringBuffer("[{\"bar\":\"b1\",\"foo\":\"f1\"}, {\"bar\":\"b\\\"]"),
+				stringBuffer("2\",\"fo"),
+				stringBuffer("o\":\"f2\"}]"));
+
+		testDecodeAll(input, Pojo.class, step -> step
+				.expectNext(pojo1)
+				.expectNext(new Pojo("f2", "b\"]2"))
+				.verifyComplete());
+	}
+
+	@Test
+	public void decodeStreamWithDirectElementBinding() {
+		this.decoder.setDirectElementBinding(true);
+		Flux<DataBuffer> input = Flux.concat(
+				stringBuffer("{\"bar\":\"b1\",\"foo\":\"f1\"}\n{\"bar\":"),
+				stringBuffer("\"b2\",\"foo\":\"f2\"}\n"));
+
+		testDecode(input, Pojo.class, step -> step
+				.expectNext(pojo1)
+				.expectNext(pojo2)
+				.verifyComplete());
+	}
+
+	@Test
+	public void decodeScalarsWithDirectElementBinding() {
+		this.decoder.setDirectElementBinding(true);
+		Flux<DataBuffer> input = Flux.concat(stringBuffer("[1"), stringBuffer(",2,"), stringBuffer("3]"));
+
+		testDecode(input, Integer.class, step -> step
+				.expectNext(1, 2, 3)
+				.verifyComplete());
+	}
+
+	@Test
+	public void decodeLargeElementsWithDirectElementBinding() {
+		this.decoder.setDirectElementBinding(true);
+		StringBuilder large = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			large.append('b');
+		}
+		Flux<DataBuffer> input = Flux.concat(
+				stringBuffer("[{\"bar\":\"" + large + "\",\"foo\":\"f1\"},"),
+				stringBuffer("{\"bar\":\"b2\",\"fo"),
+				stringBuffer("o\":\"f2\"}]"));
+
+		testDecode(input, Pojo.class, step -> step
+				.expectNext(new Pojo("f1", large.toString()))
+				.expectNext(pojo2)
+				.verifyComplete());
+	}
+
+	@Test
+	public void decodeWithDirectElementBindingAndNonUtf8Charset() {
+		this.decoder.setDirectElementBinding(true);
+		Flux<DataBuffer> input = Flux.concat(
+				stringBuffer("[{\"bar\":\"b1\",\"foo\":\"f1\"},"),
+				stringBuffer("{\"bar\":\"b2\",\"foo\":\"f2\"}]"));
+		MimeType mimeType = new MimeType("application", "json", StandardCharsets.ISO_8859_1);
+
+		testDecode(input, forClass(Pojo.class), step -> step
+				.expectNext(pojo1)
+				.expectNext(pojo2)
+				.verifyComplete(), mimeType, null);
+	}
+
+	@Test
+	public void malformedArrayWithDirectElementBinding() {
+		this.decoder.setDirectElementBinding(true);
+		for (String json : new String[] {"[1 2]", "[1,,2]", "[1,2,]", "[,1]", "[1\"a\"]", "[{} {}]"}) {
+			testDecode(Flux.from(stringBuffer(json)), Object.class, step -> step
+					.verifyError(DecodingException.class));
+		}
+	}
+
+	@Test
+	public void invalidDataWithDirectElementBinding() {
+		this.decoder.setDirectElementBinding(true);
+		Flux<DataBuffer> input =
+				Flux.from(stringBuffer("{\"foofoo\": \"foofoo\", \"barbar\": \"barbar\""));
+		testDecode(input, Pojo.class, step -> step
+				.verifyError(DecodingException.class));
+	}
+
 	@Test
 	public void decodeEmptyArrayToFlux() {
 		Flux<DataBuffer> input = Flux.from(stringBuffer("[]"));
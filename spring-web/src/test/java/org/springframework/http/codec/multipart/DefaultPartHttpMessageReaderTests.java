@@ -0,0 +1,300 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.test.MockClientHttpRequest;
+import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.MultiValueMap;
+
+import static java.util.Collections.emptyMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.core.ResolvableType.forClass;
+import static org.springframework.core.ResolvableType.forClassWithGenerics;
+
+/**
+ * Unit tests for {@link DefaultPartHttpMessageReader}.
+ */
+public class DefaultPartHttpMessageReaderTests {
+
+	private static final String BOUNDARY = "simple-boundary";
+
+	private static final String BODY = "preamble\r\n" +
+			"--" + BOUNDARY + "\r\n" +
+			"Content-Disposition: form-data; name=\"field\"\r\n" +
+			"\r\n" +
+			"value\r\n" +
+			"--" + BOUNDARY + "\r\n" +
+			"Content-Disposition: form-data; name=\"file\"; filename=\"foo.txt\"\r\n" +
+			"Content-Type: text/plain\r\n" +
+			"\r\n" +
+			"Lorem\r\n-Ipsum\r\n--simple\r\n" +
+			"--" + BOUNDARY + "--\r\n" +
+			"epilogue";
+
+
+	private final DefaultPartHttpMessageReader reader = new DefaultPartHttpMessageReader();
+
+	private Path storageDirectory;
+
+
+	@Before
+	public void setUp() throws Exception {
+		this.storageDirectory = Files.createTempDirectory("DefaultPartHttpMessageReaderTests");
+		this.reader.setFileStorageDirectory(this.storageDirectory);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileSystemUtils.deleteRecursively(this.storageDirectory);
+	}
+
+
+	@Test
+	public void canRead() {
+		assertThat(this.reader.canRead(forClass(Part.class), MediaType.MULTIPART_FORM_DATA)).isTrue();
+		assertThat(this.reader.canRead(forClass(Part.class), null)).isTrue();
+		assertThat(this.reader.canRead(forClass(Part.class), MediaType.APPLICATION_JSON)).isFalse();
+		assertThat(this.reader.canRead(forClass(String.class), MediaType.MULTIPART_FORM_DATA)).isFalse();
+	}
+
+	@Test
+	public void readParts() {
+		verifyParts(read(request(BODY, Integer.MAX_VALUE)));
+	}
+
+	@Test
+	public void readPartsSingleByteBuffers() {
+		verifyParts(read(request(BODY, 1)));
+	}
+
+	@Test
+	public void readPartsAcrossBuffers() {
+		for (int chunkSize = 2; chunkSize < 40; chunkSize++) {
+			verifyParts(read(request(BODY, chunkSize)));
+		}
+	}
+
+	@Test
+	public void readLargePartToDisk() throws Exception {
+		this.reader.setMaxInMemorySize(5);
+		List<Part> parts = read(request(BODY, 3)).collectList().block(Duration.ofSeconds(5));
+
+		verifyParts(Flux.fromIterable(parts));
+		FilePart filePart = (FilePart) parts.get(1);
+		assertThat(Files.list(this.storageDirectory).count()).isEqualTo(1);
+
+		Path dest = this.storageDirectory.resolve("dest.txt");
+		filePart.transferTo(dest).block(Duration.ofSeconds(5));
+		assertThat(new String(Files.readAllBytes(dest), StandardCharsets.UTF_8))
+				.isEqualTo("Lorem\r\n-Ipsum\r\n--simple");
+
+		filePart.delete().block(Duration.ofSeconds(5));
+		assertThat(Files.list(this.storageDirectory).count()).isEqualTo(1);
+	}
+
+	@Test
+	public void storageFilesDeletedOnError() throws Exception {
+		this.reader.setMaxInMemorySize(5);
+		String body = BODY.replace("--" + BOUNDARY + "--", "--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"other\"\r\n" +
+				"\r\n" +
+				"value exceeding max in-memory size\r\n" +
+				"--" + BOUNDARY + "--");
+
+		StepVerifier.create(read(request(body, 3)))
+				.expectNextCount(2)
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (Files.list(this.storageDirectory).count() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(Files.list(this.storageDirectory).count()).isEqualTo(0);
+	}
+
+	@Test
+	public void storageFilesOfEmittedPartsKeptOnCancel() throws Exception {
+		this.reader.setMaxInMemorySize(5);
+		String body = BODY.replace("--" + BOUNDARY + "--", "--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"other\"; filename=\"bar.txt\"\r\n" +
+				"\r\n" +
+				"content exceeding max in-memory size\r\n" +
+				"--" + BOUNDARY + "--");
+
+		Part part = read(request(body, 3)).filter(FilePart.class::isInstance).next().block(Duration.ofSeconds(5));
+		assertThat(part.name()).isEqualTo("file");
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (Files.list(this.storageDirectory).count() > 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(Files.list(this.storageDirectory).count()).isEqualTo(1);
+		assertThat(contentAsString(part)).isEqualTo("Lorem\r\n-Ipsum\r\n--simple");
+
+		part.delete().block(Duration.ofSeconds(5));
+		assertThat(Files.list(this.storageDirectory).count()).isEqualTo(0);
+	}
+
+	@Test
+	public void formFieldExceedsMaxInMemorySize() {
+		this.reader.setMaxInMemorySize(2);
+		StepVerifier.create(read(request(BODY, 1)))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void tooManyParts() {
+		this.reader.setMaxParts(1);
+		StepVerifier.create(read(request(BODY, 5)))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void headersTooLarge() {
+		this.reader.setMaxHeadersSize(32);
+		StepVerifier.create(read(request(BODY, 5)))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void totalSizeTooLarge() {
+		this.reader.setMaxTotalSize(100);
+		StepVerifier.create(read(request(BODY, 16)))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void missingEndBoundary() {
+		String body = BODY.substring(0, BODY.indexOf("--" + BOUNDARY + "--"));
+		StepVerifier.create(read(request(body, 8)))
+				.expectNextCount(1)
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void missingBoundaryParameter() {
+		ServerHttpRequest request = MockServerHttpRequest.post("/")
+				.contentType(MediaType.MULTIPART_FORM_DATA)
+				.body(Flux.just(new DefaultDataBufferFactory().wrap("invalid content".getBytes())));
+		StepVerifier.create(read(request))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void readWrittenParts() {
+		MultipartBodyBuilder partsBuilder = new MultipartBodyBuilder();
+		partsBuilder.part("fooPart", new ClassPathResource("org/springframework/http/codec/multipart/foo.txt"));
+		partsBuilder.part("barPart", "bar");
+
+		MockClientHttpRequest outputMessage = new MockClientHttpRequest(HttpMethod.POST, "/");
+		new MultipartHttpMessageWriter()
+				.write(Mono.just(partsBuilder.build()), null, MediaType.MULTIPART_FORM_DATA, outputMessage, null)
+				.block(Duration.ofSeconds(5));
+		ServerHttpRequest request = MockServerHttpRequest.post("/")
+				.contentType(outputMessage.getHeaders().getContentType())
+				.body(outputMessage.getBody());
+
+		MultipartHttpMessageReader multipartReader = new MultipartHttpMessageReader(this.reader);
+		ResolvableType elementType = forClassWithGenerics(MultiValueMap.class, String.class, Part.class);
+		MultiValueMap<String, Part> parts = multipartReader.readMono(elementType, request, emptyMap()).block();
+
+		assertThat(parts).hasSize(2);
+		FilePart fooPart = (FilePart) parts.getFirst("fooPart");
+		assertThat(fooPart.filename()).isEqualTo("foo.txt");
+		assertThat(contentAsString(fooPart)).isEqualTo("Lorem Ipsum.");
+		assertThat(((FormFieldPart) parts.getFirst("barPart")).value()).isEqualTo("bar");
+	}
+
+
+	private Flux<Part> read(ServerHttpRequest request) {
+		return this.reader.read(forClass(Part.class), request, emptyMap());
+	}
+
+	private void verifyParts(Flux<Part> parts) {
+		StepVerifier.create(parts)
+				.consumeNextWith(part -> {
+					assertThat(part).isInstanceOf(FormFieldPart.class);
+					assertThat(part.name()).isEqualTo("field");
+					assertThat(((FormFieldPart) part).value()).isEqualTo("value");
+				})
+				.consumeNextWith(part -> {
+					assertThat(part).isInstanceOf(FilePart.class);
+					assertThat(part.name()).isEqualTo("file");
+					assertThat(((FilePart) part).filename()).isEqualTo("foo.txt");
+					assertThat(part.headers().getContentType()).isEqualTo(MediaType.TEXT_PLAIN);
+					assertThat(contentAsString(part)).isEqualTo("Lorem\r\n-Ipsum\r\n--simple");
+				})
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	private static String contentAsString(Part part) {
+		DataBuffer buffer = DataBufferUtils.join(part.content()).block(Duration.ofSeconds(5));
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		DataBufferUtils.release(buffer);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static ServerHttpRequest request(String body, int chunkSize) {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+		List<DataBuffer> buffers = new ArrayList<>();
+		for (int i = 0; i < bytes.length; i += chunkSize) {
+			int length = Math.min(chunkSize, bytes.length - i);
+			DataBuffer buffer = bufferFactory.allocateBuffer(length);
+			buffer.write(bytes, i, length);
+			buffers.add(buffer);
+		}
+		return MockServerHttpRequest.post("/")
+				.contentType(MediaType.parseMediaType("multipart/form-data;boundary=" + BOUNDARY))
+				.body(Flux.fromIterable(buffers));
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link PathSegmentTree}.
+ */
+public class PathSegmentTreeTests {
+
+	private final PathSegmentTree<String> tree = new PathSegmentTree<>();
+
+
+	@Test
+	public void candidatesByLiteralSegments() {
+		this.tree.add(Collections.singleton("/users/{id}"), "user");
+		this.tree.add(Collections.singleton("/users/{id}/orders/*"), "orders");
+		this.tree.add(Collections.singleton("/accounts/**"), "accounts");
+
+		assertThat(this.tree.getCandidates("/users/1")).containsExactly("user", "orders");
+		assertThat(this.tree.getCandidates("/accounts")).containsExactly("accounts");
+		assertThat(this.tree.getCandidates("/accounts/1/details")).containsExactly("accounts");
+		assertThat(this.tree.getCandidates("/other/1")).isEmpty();
+		assertThat(this.tree.getCandidates("/")).isEmpty();
+	}
+
+	@Test
+	public void lastSegmentNotIndexed() {
+		this.tree.add(Collections.singleton("/users"), "users");
+		this.tree.add(Collections.singleton("/users/list"), "list");
+
+		assertThat(this.tree.getCandidates("/users.json")).containsExactly("users");
+		assertThat(this.tree.getCandidates("/users/list.json")).containsExactly("users", "list");
+		assertThat(this.tree.getCandidates("/users/list/")).containsExactly("users", "list");
+	}
+
+	@Test
+	public void commonPrefixOfMultiplePatterns() {
+		this.tree.add(Arrays.asList("/api/users/{id}", "/api/members/{id}"), "user");
+		this.tree.add(Arrays.asList("/api/users/{id}", "/other/{id}"), "any");
+
+		assertThat(this.tree.getCandidates("/api/users/1")).containsExactly("any", "user");
+		assertThat(this.tree.getCandidates("/api/members/1")).containsExactly("any", "user");
+		assertThat(this.tree.getCandidates("/other/1")).containsExactly("any");
+	}
+
+	@Test
+	public void wildcardsEndLiteralPrefix() {
+		this.tree.add(Collections.singleton("/api/v*/users/{id}"), "wildcard");
+		this.tree.add(Collections.singleton("/api/{version}/users/{id}"), "variable");
+		this.tree.add(Collections.singleton("/api/v?/users/{id}"), "single");
+
+		assertThat(this.tree.getCandidates("/api/v1/users/1")).containsExactly("wildcard", "variable", "single");
+		assertThat(this.tree.getCandidates("/other")).isEmpty();
+	}
+
+	@Test
+	public void unconstrainedValues() {
+		this.tree.add(Collections.emptySet(), "empty");
+		this.tree.add(Collections.singleton("/**"), "all");
+		this.tree.add(Collections.singleton("/users/{id}"), "user");
+
+		assertThat(this.tree.getCandidates("/users/1")).containsExactly("empty", "all", "user");
+		assertThat(this.tree.getCandidates("/other")).containsExactly("empty", "all");
+	}
+
+	@Test
+	public void segmentsNormalized() {
+		this.tree.add(Collections.singleton("/Users/{id}"), "user");
+
+		assertThat(this.tree.getCandidates("/users/1")).containsExactly("user");
+		assertThat(this.tree.getCandidates("//USERS/1")).containsExactly("user");
+		assertThat(this.tree.getCandidates(Arrays.asList("", " users ", "1"))).containsExactly("user");
+	}
+
+	@Test
+	public void remove() {
+		this.tree.add(Collections.singleton("/users/{id}"), "user");
+		this.tree.add(Collections.singleton("/users/{id}/orders/*"), "orders");
+
+		assertThat(this.tree.remove(Collections.singleton("/users/{id}/orders/*"), "orders")).isTrue();
+		assertThat(this.tree.remove(Collections.singleton("/users/{id}/orders/*"), "orders")).isFalse();
+		assertThat(this.tree.getCandidates("/users/1/orders/1")).containsExactly("user");
+
+		assertThat(this.tree.remove(Collections.singleton("/users/{id}"), "user")).isTrue();
+		assertThat(this.tree.getCandidates("/users/1")).isEmpty();
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import org.junit.Test;
+
+import org.springframework.http.server.RequestPath;
+import org.springframework.mock.web.test.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ServletRequestPathUtils}.
+ */
+public class ServletRequestPathUtilsTests {
+
+	private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+
+	@Test
+	public void parseAndCache() {
+		testParseAndCache("/app/welcome.html", "/app", "", null, "/app", "/welcome.html");
+		testParseAndCache("/welcome.html", "", "/welcome.html", null, "", "/welcome.html");
+		testParseAndCache("/app/a%20b;c=d/e", "/app", "", null, "/app", "/a%20b;c=d/e");
+	}
+
+	@Test
+	public void parseAndCacheWithPrefixMappedServlet() {
+		testParseAndCache("/app/main/welcome.html", "/app", "/main", "/welcome.html", "/app/main", "/welcome.html");
+		testParseAndCache("/app/main/sub/", "/app", "/main/sub", "/", "/app/main/sub", "/");
+		testParseAndCache("/main%20path/x", "", "/main path", "/x", "/main%20path", "/x");
+		testParseAndCache("/app/other/x", "/app", "/main", "/x", "/app", "/other/x");
+	}
+
+	@Test
+	public void getParsedRequestPathReparsedForNewUri() {
+		this.request.setRequestURI("/welcome.html");
+		RequestPath path = ServletRequestPathUtils.getParsedRequestPath(this.request);
+		assertThat(ServletRequestPathUtils.hasParsedRequestPath(this.request)).isTrue();
+		assertThat(ServletRequestPathUtils.getParsedRequestPath(this.request)).isSameAs(path);
+
+		this.request.setRequestURI("/forwarded.html");
+		assertThat(ServletRequestPathUtils.getParsedRequestPath(this.request).value()).isEqualTo("/forwarded.html");
+
+		this.request.setAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE, "/app/included.html");
+		this.request.setAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE, "/app");
+		path = ServletRequestPathUtils.getParsedRequestPath(this.request);
+		assertThat(path.value()).isEqualTo("/app/included.html");
+		assertThat(path.pathWithinApplication().value()).isEqualTo("/included.html");
+
+		ServletRequestPathUtils.clearParsedRequestPath(this.request);
+		assertThat(ServletRequestPathUtils.hasParsedRequestPath(this.request)).isFalse();
+	}
+
+
+	private void testParseAndCache(String requestUri, String contextPath, String servletPath,
+			String pathInfo, String expectedContextPath, String expectedPathWithinApplication) {
+
+		this.request.setRequestURI(requestUri);
+		this.request.setContextPath(contextPath);
+		this.request.setServletPath(servletPath);
+		this.request.setPathInfo(pathInfo);
+
+		RequestPath requestPath = ServletRequestPathUtils.parseAndCache(this.request);
+		assertThat(requestPath.contextPath().value()).isEqualTo(expectedContextPath);
+		assertThat(requestPath.pathWithinApplication().value()).isEqualTo(expectedPathWithinApplication);
+		assertThat(this.request.getAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE)).isSameAs(requestPath);
+	}
+
+}
@@ -37,6 +37,7 @@ import reactor.core.publisher.Mono;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
+import org.springframework.http.server.PathContainer;
 import org.springframework.http.server.RequestPath;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -47,6 +48,7 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.handler.AbstractHandlerMapping;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.PathSegmentTree;
 
 /**
  * Abstract base class for {@link HandlerMapping} implementations that define
@@ -311,7 +313,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	@Nullable
 	protected HandlerMethod lookupHandlerMethod(ServerWebExchange exchange) throws Exception {
 		List<Match> matches = new ArrayList<>();
-		addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, exchange);
+		PathContainer lookupPath = exchange.getRequest().getPath().pathWithinApplication();
+		addMatchingMappings(this.mappingRegistry.getMappingsByPathSegments(lookupPath), matches, exchange);
 
 		if (!matches.isEmpty()) {
 			Comparator<Match> comparator = new MatchComparator(getMappingComparator(exchange));
@@ -371,6 +374,22 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		return null;
 	}
 
+	/**
+	 * Return the path patterns of the given mapping, used to index mappings
+	 * by the literal leading segments of their patterns in order to narrow
+	 * down the mappings to check for a lookup path.
+	 * <p>This is only valid if {@link #getMatchingMapping} never matches a
+	 * mapping with patterns unless one of them matches the lookup path.
+	 * <p>The default implementation returns an empty set, checking all mappings.
+	 * @param mapping the mapping to get the path patterns for
+	 * @return the path patterns, or an empty set if none apply
+	 * @since 5.2
+	 * @see PathSegmentTree
+	 */
+	protected Set<String> getMappingPathPatterns(T mapping) {
+		return Collections.emptySet();
+	}
+
 	@Override
 	protected boolean hasCorsConfigurationSource(Object handler) {
 		return super.hasCorsConfigurationSource(handler) ||
@@ -444,6 +463,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final Map<T, HandlerMethod> mappingLookup = new LinkedHashMap<>();
 
+		private final PathSegmentTree<T> pathLookup = new PathSegmentTree<>();
+
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
 
 		private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
@@ -456,6 +477,17 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.mappingLookup;
 		}
 
+		/**
+		 * Return the mappings which may match the given lookup path based on the
+		 * literal leading segments of their path patterns. Not thread-safe.
+		 * @since 5.2
+		 * @see #acquireReadLock()
+		 * @see #getMappingPathPatterns
+		 */
+		public List<T> getMappingsByPathSegments(PathContainer lookupPath) {
+			return this.pathLookup.getCandidates(lookupPath);
+		}
+
 		/**
 		 * Return CORS configuration. Thread-safe for concurrent use.
 		 */
@@ -486,12 +518,15 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				validateMethodMapping(handlerMethod, mapping);
 				this.mappingLookup.put(mapping, handlerMethod);
 
+				Set<String> indexedPatterns = getMappingPathPatterns(mapping);
+				this.pathLookup.add(indexedPatterns, mapping);
+
 				CorsConfiguration corsConfig = initCorsConfiguration(handler, method, mapping);
 				if (corsConfig != null) {
 					this.corsLookup.put(handlerMethod, corsConfig);
 				}
 
-				this.registry.put(mapping, new MappingRegistration<>(mapping, handlerMethod));
+				this.registry.put(mapping, new MappingRegistration<>(mapping, handlerMethod, indexedPatterns));
 			}
 			finally {
 				this.readWriteLock.writeLock().unlock();
@@ -518,6 +553,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				}
 
 				this.mappingLookup.remove(definition.getMapping());
+				this.pathLookup.remove(definition.getIndexedPatterns(), definition.getMapping());
 				this.corsLookup.remove(definition.getHandlerMethod());
 			}
 			finally {
@@ -533,11 +569,14 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final HandlerMethod handlerMethod;
 
-		public MappingRegistration(T mapping, HandlerMethod handlerMethod) {
+		private final Set<String> indexedPatterns;
+
+		public MappingRegistration(T mapping, HandlerMethod handlerMethod, Set<String> indexedPatterns) {
 			Assert.notNull(mapping, "Mapping must not be null");
 			Assert.notNull(handlerMethod, "HandlerMethod must not be null");
 			this.mapping = mapping;
 			this.handlerMethod = handlerMethod;
+			this.indexedPatterns = indexedPatterns;
 		}
 
 		public T getMapping() {
@@ -548,6 +587,9 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.handlerMethod;
 		}
 
+		public Set<String> getIndexedPatterns() {
+			return this.indexedPatterns;
+		}
 	}
 
 
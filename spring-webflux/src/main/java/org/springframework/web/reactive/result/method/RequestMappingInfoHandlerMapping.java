@@ -68,6 +68,20 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 	}
 
 
+	/**
+	 * Get the URL path patterns associated with the supplied {@link RequestMappingInfo},
+	 * unless patterns are parsed with a separator other than the default "/".
+	 */
+	@Override
+	protected Set<String> getMappingPathPatterns(RequestMappingInfo info) {
+		if (getPathPatternParser().getSeparator() != '/') {
+			return Collections.emptySet();
+		}
+		return info.getPatternsCondition().getPatterns().stream()
+				.map(PathPattern::getPatternString)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+	}
+
 	/**
 	 * Check if the given RequestMappingInfo matches the current request and
 	 * return a (potentially new) instance with conditions that match the
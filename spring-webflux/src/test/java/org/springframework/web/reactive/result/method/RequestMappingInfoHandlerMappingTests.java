@@ -94,6 +94,15 @@ public class RequestMappingInfoHandlerMappingTests {
 	}
 
 
+	@Test
+	public void getMappingPathPatternsOnlyWithDefaultSeparator() {
+		RequestMappingInfo info = paths("/foo/{id}").build();
+		assertThat(this.handlerMapping.getMappingPathPatterns(info)).containsExactly("/foo/{id}");
+
+		this.handlerMapping.getPathPatternParser().setSeparator('.');
+		assertThat(this.handlerMapping.getMappingPathPatterns(info)).isEmpty();
+	}
+
 	@Test
 	public void getHandlerDirectMatch() {
 		Method expected = on(TestController.class).annot(getMapping("/foo").params()).resolveMethod();
@@ -29,6 +29,7 @@ import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.core.Ordered;
+import org.springframework.http.server.RequestPath;
 import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
@@ -45,7 +46,10 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.servlet.HandlerExecutionChain;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Abstract base class for {@link org.springframework.web.servlet.HandlerMapping}
@@ -77,6 +81,9 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	@Nullable
+	private PathPatternParser patternParser;
+
 	private final List<Object> interceptors = new ArrayList<>();
 
 	private final List<HandlerInterceptor> adaptedInterceptors = new ArrayList<>();
@@ -185,6 +192,44 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Enable matching with parsed {@link PathPattern PathPatterns} as an
+	 * alternative to String pattern matching with the {@link #setPathMatcher
+	 * PathMatcher}: patterns are parsed once at startup and matched against
+	 * the request path, parsed once per request through
+	 * {@link ServletRequestPathUtils}.
+	 * <p>In this mode, patterns are matched against the path within the
+	 * application, excluding the servlet path of a prefix-mapped Servlet, and
+	 * the configured {@code PathMatcher} as well as the {@link UrlPathHelper}
+	 * lookup path options such as "alwaysUseFullPath" do not apply.
+	 * <p>By default this is not set.
+	 * @param patternParser the parser to use, or {@code null} for String
+	 * pattern matching with the {@code PathMatcher}
+	 * @since 5.2
+	 */
+	public void setPatternParser(@Nullable PathPatternParser patternParser) {
+		this.patternParser = patternParser;
+	}
+
+	/**
+	 * Return the {@link #setPatternParser configured} {@code PathPatternParser},
+	 * or {@code null} if String pattern matching is used.
+	 * @since 5.2
+	 */
+	@Nullable
+	public PathPatternParser getPatternParser() {
+		return this.patternParser;
+	}
+
+	/**
+	 * Whether this handler mapping matches with parsed {@link PathPattern PathPatterns}.
+	 * @since 5.2
+	 * @see #setPatternParser
+	 */
+	public boolean usesPathPatterns() {
+		return (this.patternParser != null);
+	}
+
 	/**
 	 * Set the interceptors to apply for all handlers mapped by this handler mapping.
 	 * <p>Supported interceptor types are HandlerInterceptor, WebRequestInterceptor, and MappedInterceptor.
@@ -440,6 +485,32 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 	@Nullable
 	protected abstract Object getHandlerInternal(HttpServletRequest request) throws Exception;
 
+	/**
+	 * Determine the lookup path for the given request and expose it in the
+	 * {@link #LOOKUP_PATH} request attribute.
+	 * <p>With {@link #usesPathPatterns() parsed patterns}, the lookup path is
+	 * derived from the path within the application of the parsed
+	 * {@link RequestPath}, with semicolon content removed and decoded according
+	 * to the {@link UrlPathHelper} settings. Otherwise it is resolved through
+	 * {@link UrlPathHelper#getLookupPathForRequest(HttpServletRequest)}.
+	 * @param request current HTTP request
+	 * @return the lookup path
+	 * @since 5.2
+	 */
+	protected String initLookupPath(HttpServletRequest request) {
+		String lookupPath;
+		if (usesPathPatterns()) {
+			RequestPath requestPath = ServletRequestPathUtils.getParsedRequestPath(request);
+			lookupPath = this.urlPathHelper.removeSemicolonContent(requestPath.pathWithinApplication().value());
+			lookupPath = this.urlPathHelper.decodeRequestString(request, lookupPath);
+		}
+		else {
+			lookupPath = this.urlPathHelper.getLookupPathForRequest(request);
+		}
+		request.setAttribute(LOOKUP_PATH, lookupPath);
+		return lookupPath;
+	}
+
 	/**
 	 * Build a {@link HandlerExecutionChain} for the given handler, including
 	 * applicable interceptors.
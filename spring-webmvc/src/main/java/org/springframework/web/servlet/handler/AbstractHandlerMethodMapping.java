@@ -38,6 +38,8 @@ import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -47,6 +49,8 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsUtils;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.PathSegmentTree;
+import org.springframework.web.util.ServletRequestPathUtils;
 
 /**
  * Abstract base class for {@link HandlerMapping} implementations that define
@@ -355,8 +359,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	 */
 	@Override
 	protected HandlerMethod getHandlerInternal(HttpServletRequest request) throws Exception {
-		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
-		request.setAttribute(LOOKUP_PATH, lookupPath);
+		String lookupPath = initLookupPath(request);
 		this.mappingRegistry.acquireReadLock();
 		try {
 			HandlerMethod handlerMethod = lookupHandlerMethod(lookupPath, request);
@@ -384,8 +387,20 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			// No choice but to go through all mappings, or at least all that share
+			// the literal leading path segments of the lookup path...
+			Collection<T> mappings;
+			if (!usePathPatternIndex()) {
+				mappings = this.mappingRegistry.getMappings().keySet();
+			}
+			else if (usesPathPatterns()) {
+				RequestPath path = ServletRequestPathUtils.getParsedRequestPath(request);
+				mappings = this.mappingRegistry.getMappingsByPathSegments(path.pathWithinApplication());
+			}
+			else {
+				mappings = this.mappingRegistry.getMappingsByPathSegments(lookupPath);
+			}
+			addMatchingMappings(mappings, matches, request);
 		}
 
 		if (!matches.isEmpty()) {
@@ -450,6 +465,21 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		return null;
 	}
 
+	/**
+	 * Whether to index mappings by the literal leading segments of their
+	 * {@link #getMappingPathPatterns path patterns}, narrowing down the mappings
+	 * to check for a lookup path without a direct URL match.
+	 * <p>This is only valid if {@link #getMatchingMapping} never matches a
+	 * mapping with patterns unless one of them matches the lookup path, with
+	 * "/" as separator and with suffix or trailing slash matching at most.
+	 * <p>The default implementation returns {@code false}, checking all mappings.
+	 * @since 5.2
+	 * @see PathSegmentTree
+	 */
+	protected boolean usePathPatternIndex() {
+		return false;
+	}
+
 	@Override
 	protected boolean hasCorsConfigurationSource(Object handler) {
 		return super.hasCorsConfigurationSource(handler) ||
@@ -531,6 +561,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> urlLookup = new LinkedMultiValueMap<>();
 
+		private final PathSegmentTree<T> pathLookup = new PathSegmentTree<>();
+
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
@@ -554,6 +586,27 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.urlLookup.get(urlPath);
 		}
 
+		/**
+		 * Return the mappings which may match the given URL path based on the
+		 * literal leading segments of their path patterns. Not thread-safe.
+		 * @since 5.2
+		 * @see #acquireReadLock()
+		 * @see #usePathPatternIndex()
+		 */
+		public List<T> getMappingsByPathSegments(String urlPath) {
+			return this.pathLookup.getCandidates(urlPath);
+		}
+
+		/**
+		 * Variant of {@link #getMappingsByPathSegments(String)} for a parsed
+		 * lookup path. Not thread-safe.
+		 * @since 5.2
+		 * @see #acquireReadLock()
+		 */
+		public List<T> getMappingsByPathSegments(PathContainer lookupPath) {
+			return this.pathLookup.getCandidates(lookupPath);
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -596,6 +649,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					this.urlLookup.add(url, mapping);
 				}
 
+				Set<String> indexedPatterns = (usePathPatternIndex() ?
+						getMappingPathPatterns(mapping) : Collections.emptySet());
+				this.pathLookup.add(indexedPatterns, mapping);
+
 				String name = null;
 				if (getNamingStrategy() != null) {
 					name = getNamingStrategy().getName(handlerMethod, mapping);
@@ -607,7 +664,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					this.corsLookup.put(handlerMethod, corsConfig);
 				}
 
-				this.registry.put(mapping, new MappingRegistration<>(mapping, handlerMethod, directUrls, name));
+				this.registry.put(mapping,
+						new MappingRegistration<>(mapping, handlerMethod, directUrls, indexedPatterns, name));
 			}
 			finally {
 				this.readWriteLock.writeLock().unlock();
@@ -673,6 +731,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					}
 				}
 
+				this.pathLookup.remove(definition.getIndexedPatterns(), definition.getMapping());
+
 				removeMappingName(definition);
 
 				this.corsLookup.remove(definition.getHandlerMethod());
@@ -715,17 +775,20 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final List<String> directUrls;
 
+		private final Set<String> indexedPatterns;
+
 		@Nullable
 		private final String mappingName;
 
-		public MappingRegistration(T mapping, HandlerMethod handlerMethod,
-				@Nullable List<String> directUrls, @Nullable String mappingName) {
+		public MappingRegistration(T mapping, HandlerMethod handlerMethod, @Nullable List<String> directUrls,
+				Set<String> indexedPatterns, @Nullable String mappingName) {
 
 			Assert.notNull(mapping, "Mapping must not be null");
 			Assert.notNull(handlerMethod, "HandlerMethod must not be null");
 			this.mapping = mapping;
 			this.handlerMethod = handlerMethod;
 			this.directUrls = (directUrls != null ? directUrls : Collections.emptyList());
+			this.indexedPatterns = indexedPatterns;
 			this.mappingName = mappingName;
 		}
 
@@ -741,6 +804,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.directUrls;
 		}
 
+		public Set<String> getIndexedPatterns() {
+			return this.indexedPatterns;
+		}
+
 		@Nullable
 		public String getMappingName() {
 			return this.mappingName;
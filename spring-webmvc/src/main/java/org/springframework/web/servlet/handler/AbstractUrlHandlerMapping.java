@@ -27,10 +27,15 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Abstract base class for URL-mapped {@link org.springframework.web.servlet.HandlerMapping}
@@ -47,6 +52,11 @@ import org.springframework.web.servlet.HandlerExecutionChain;
  * current request path. The most exact match is defined as the longest
  * path pattern that matches the current request path.
  *
+ * <p>Alternatively, with a {@link #setPatternParser PathPatternParser} set,
+ * URL patterns are parsed into {@link PathPattern PathPatterns} on registration
+ * and matched against the parsed request path, sorting matches by
+ * {@link PathPattern#SPECIFICITY_COMPARATOR specificity}.
+ *
  * @author Juergen Hoeller
  * @author Arjen Poutsma
  * @since 16.04.2003
@@ -62,6 +72,8 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 
 	private final Map<String, Object> handlerMap = new LinkedHashMap<>();
 
+	private final Map<PathPattern, Object> pathPatternHandlerMap = new LinkedHashMap<>();
+
 
 	/**
 	 * Set the root handler for this handler mapping, that is,
@@ -119,9 +131,10 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 	@Override
 	@Nullable
 	protected Object getHandlerInternal(HttpServletRequest request) throws Exception {
-		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
-		request.setAttribute(LOOKUP_PATH, lookupPath);
-		Object handler = lookupHandler(lookupPath, request);
+		String lookupPath = initLookupPath(request);
+		Object handler = (usesPathPatterns() ?
+				lookupHandler(ServletRequestPathUtils.getParsedRequestPath(request), lookupPath, request) :
+				lookupHandler(lookupPath, request));
 		if (handler == null) {
 			// We need to care for the default handler directly, since we need to
 			// expose the PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE for it as well.
@@ -233,6 +246,74 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 		return null;
 	}
 
+	/**
+	 * Look up a handler instance for the given parsed request path, used
+	 * instead of {@link #lookupHandler(String, HttpServletRequest)} when
+	 * {@link #usesPathPatterns() parsed patterns} are enabled.
+	 * <p>Supports direct matches of the lookup path, and matches against
+	 * the registered {@link PathPattern PathPatterns}, selecting the most
+	 * specific one according to {@link PathPattern#SPECIFICITY_COMPARATOR}.
+	 * Trailing slash matching is determined by the {@code PathPatternParser}.
+	 * @param path the parsed request path
+	 * @param lookupPath the lookup path, as returned from {@link #initLookupPath}
+	 * @param request current HTTP request (to expose the path within the mapping to)
+	 * @return the associated handler instance, or {@code null} if not found
+	 * @since 5.2
+	 * @see #setPatternParser
+	 */
+	@Nullable
+	protected Object lookupHandler(RequestPath path, String lookupPath, HttpServletRequest request)
+			throws Exception {
+
+		// Direct match?
+		Object handler = this.handlerMap.get(lookupPath);
+		if (handler != null) {
+			// Bean name or resolved handler?
+			if (handler instanceof String) {
+				String handlerName = (String) handler;
+				handler = obtainApplicationContext().getBean(handlerName);
+			}
+			validateHandler(handler, request);
+			return buildPathExposingHandler(handler, lookupPath, lookupPath, null);
+		}
+
+		// Pattern match?
+		PathContainer pathWithinApplication = path.pathWithinApplication();
+		List<PathPattern> matches = null;
+		for (PathPattern pattern : this.pathPatternHandlerMap.keySet()) {
+			if (pattern.matches(pathWithinApplication)) {
+				matches = (matches != null ? matches : new ArrayList<>());
+				matches.add(pattern);
+			}
+		}
+		if (matches == null) {
+			return null;
+		}
+		if (matches.size() > 1) {
+			matches.sort(PathPattern.SPECIFICITY_COMPARATOR);
+			if (logger.isTraceEnabled()) {
+				logger.trace("Matching patterns " + matches);
+			}
+		}
+		PathPattern bestMatch = matches.get(0);
+		handler = this.pathPatternHandlerMap.get(bestMatch);
+		// Bean name or resolved handler?
+		if (handler instanceof String) {
+			String handlerName = (String) handler;
+			handler = obtainApplicationContext().getBean(handlerName);
+		}
+		validateHandler(handler, request);
+		String pathWithinMapping = bestMatch.extractPathWithinPattern(pathWithinApplication).value();
+		pathWithinMapping = getUrlPathHelper().removeSemicolonContent(pathWithinMapping);
+		pathWithinMapping = getUrlPathHelper().decodeRequestString(request, pathWithinMapping);
+		PathPattern.PathMatchInfo matchInfo = bestMatch.matchAndExtract(pathWithinApplication);
+		Map<String, String> uriTemplateVariables = (matchInfo != null ? matchInfo.getUriVariables() : null);
+		if (logger.isTraceEnabled() && !CollectionUtils.isEmpty(uriTemplateVariables)) {
+			logger.trace("URI variables " + uriTemplateVariables);
+		}
+		return buildPathExposingHandler(handler, bestMatch.getPatternString(), pathWithinMapping, uriTemplateVariables);
+	}
+
 	/**
 	 * Validate the given handler against the current request.
 	 * <p>The default implementation is empty. Can be overridden in subclasses,
@@ -363,6 +444,10 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 			}
 			else {
 				this.handlerMap.put(urlPath, resolvedHandler);
+				PathPatternParser patternParser = getPatternParser();
+				if (patternParser != null) {
+					this.pathPatternHandlerMap.put(patternParser.parse(urlPath), resolvedHandler);
+				}
 				if (logger.isTraceEnabled()) {
 					logger.trace("Mapped [" + urlPath + "] onto " + getHandlerDescription(handler));
 				}
@@ -385,6 +470,17 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 		return Collections.unmodifiableMap(this.handlerMap);
 	}
 
+	/**
+	 * Return the registered handlers as an unmodifiable Map, with the parsed
+	 * {@link PathPattern} as key, if a {@link #setPatternParser PathPatternParser}
+	 * is set, or an empty Map otherwise.
+	 * @since 5.2
+	 * @see #getHandlerMap()
+	 */
+	public final Map<PathPattern, Object> getPathPatternHandlerMap() {
+		return Collections.unmodifiableMap(this.pathPatternHandlerMap);
+	}
+
 	/**
 	 * Indicates whether this handler mapping support type-level mappings. Default to {@code false}.
 	 */
@@ -16,28 +16,43 @@
 
 package org.springframework.web.servlet.mvc.condition;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.servlet.http.HttpServletRequest;
 
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
 import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
+import org.springframework.util.Assert;
 import org.springframework.util.PathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.UriUtils;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * A logical disjunction (' || ') request condition that matches a request
  * against a set of URL path patterns.
  *
+ * <p>Patterns are matched as Strings with a {@link PathMatcher} by default, or,
+ * if created with a {@link PathPatternParser}, parsed into {@link PathPattern
+ * PathPatterns} once and matched against the parsed request path as exposed by
+ * {@link ServletRequestPathUtils}.
+ *
  * @author Rossen Stoyanchev
  * @since 3.1
  */
@@ -45,6 +60,9 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 
 	private final Set<String> patterns;
 
+	@Nullable
+	private final Map<String, PathPattern> pathPatterns;
+
 	private final UrlPathHelper pathHelper;
 
 	private final PathMatcher pathMatcher;
@@ -62,7 +80,7 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 * @param patterns 0 or more URL patterns; if 0 the condition will match to every request.
 	 */
 	public PatternsRequestCondition(String... patterns) {
-		this(Arrays.asList(patterns), null, null, true, true, null);
+		this(Arrays.asList(patterns), null, null, true, true, null, null);
 	}
 
 	/**
@@ -77,7 +95,7 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	public PatternsRequestCondition(String[] patterns, @Nullable UrlPathHelper urlPathHelper,
 			@Nullable PathMatcher pathMatcher, boolean useSuffixPatternMatch, boolean useTrailingSlashMatch) {
 
-		this(Arrays.asList(patterns), urlPathHelper, pathMatcher, useSuffixPatternMatch, useTrailingSlashMatch, null);
+		this(Arrays.asList(patterns), urlPathHelper, pathMatcher, useSuffixPatternMatch, useTrailingSlashMatch, null, null);
 	}
 
 	/**
@@ -95,17 +113,34 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 			boolean useTrailingSlashMatch, @Nullable List<String> fileExtensions) {
 
 		this(Arrays.asList(patterns), urlPathHelper, pathMatcher, useSuffixPatternMatch,
-				useTrailingSlashMatch, fileExtensions);
+				useTrailingSlashMatch, fileExtensions, null);
+	}
+
+	/**
+	 * Creates a new instance with the given URL patterns, parsed into
+	 * {@link PathPattern PathPatterns} with the given parser.
+	 * Each pattern that is not empty and does not start with "/" is pre-pended with "/".
+	 * <p>Patterns are matched against the path within the application of the
+	 * request path parsed through {@link ServletRequestPathUtils}. Suffix pattern
+	 * matching is not supported, and trailing slash matching is determined by
+	 * the parser's "matchOptionalTrailingSeparator" property.
+	 * @param patterns the URL patterns to use; if 0, the condition will match to every request.
+	 * @param patternParser the parser for the patterns
+	 * @since 5.2
+	 */
+	public PatternsRequestCondition(String[] patterns, PathPatternParser patternParser) {
+		this(Arrays.asList(patterns), null, null, false, false, null, patternParser);
 	}
 
 	/**
 	 * Private constructor accepting a collection of patterns.
 	 */
 	private PatternsRequestCondition(Collection<String> patterns, @Nullable UrlPathHelper urlPathHelper,
-			@Nullable PathMatcher pathMatcher, boolean useSuffixPatternMatch,
-			boolean useTrailingSlashMatch, @Nullable List<String> fileExtensions) {
+			@Nullable PathMatcher pathMatcher, boolean useSuffixPatternMatch, boolean useTrailingSlashMatch,
+			@Nullable List<String> fileExtensions, @Nullable PathPatternParser patternParser) {
 
 		this.patterns = Collections.unmodifiableSet(prependLeadingSlash(patterns));
+		this.pathPatterns = (patternParser != null ? parsePatterns(this.patterns, patternParser) : null);
 		this.pathHelper = urlPathHelper != null ? urlPathHelper : new UrlPathHelper();
 		this.pathMatcher = pathMatcher != null ? pathMatcher : new AntPathMatcher();
 		this.useSuffixPatternMatch = useSuffixPatternMatch;
@@ -124,8 +159,11 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	/**
 	 * Private constructor for use when combining and matching.
 	 */
-	private PatternsRequestCondition(Set<String> patterns, PatternsRequestCondition other) {
+	private PatternsRequestCondition(Set<String> patterns, @Nullable Map<String, PathPattern> pathPatterns,
+			PatternsRequestCondition other) {
+
 		this.patterns = patterns;
+		this.pathPatterns = pathPatterns;
 		this.pathHelper = other.pathHelper;
 		this.pathMatcher = other.pathMatcher;
 		this.useSuffixPatternMatch = other.useSuffixPatternMatch;
@@ -148,10 +186,29 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		return result;
 	}
 
+	private static Map<String, PathPattern> parsePatterns(Set<String> patterns, PathPatternParser parser) {
+		Map<String, PathPattern> result = new LinkedHashMap<>(patterns.size());
+		for (String pattern : patterns) {
+			result.put(pattern, parser.parse(pattern));
+		}
+		return result;
+	}
+
 	public Set<String> getPatterns() {
 		return this.patterns;
 	}
 
+	/**
+	 * Return the parsed patterns, in the same order as {@link #getPatterns()},
+	 * if this condition was created with a {@link PathPatternParser}, or an
+	 * empty collection otherwise.
+	 * @since 5.2
+	 */
+	public Collection<PathPattern> getPathPatterns() {
+		return (this.pathPatterns != null ?
+				Collections.unmodifiableCollection(this.pathPatterns.values()) : Collections.emptySet());
+	}
+
 	@Override
 	protected Collection<String> getContent() {
 		return this.patterns;
@@ -167,13 +224,17 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 * the "other" instance as follows:
 	 * <ul>
 	 * <li>If there are patterns in both instances, combine the patterns in "this" with
-	 * the patterns in "other" using {@link PathMatcher#combine(String, String)}.
+	 * the patterns in "other" using {@link PathMatcher#combine(String, String)},
+	 * or {@link PathPattern#combine(PathPattern)} if both instances use parsed patterns.
 	 * <li>If only one instance has patterns, use them.
 	 * <li>If neither instance has patterns, use an empty String (i.e. "").
 	 * </ul>
 	 */
 	@Override
 	public PatternsRequestCondition combine(PatternsRequestCondition other) {
+		if (this.pathPatterns != null && other.pathPatterns != null) {
+			return combinePathPatterns(this.pathPatterns, other.pathPatterns);
+		}
 		Set<String> result = new LinkedHashSet<>();
 		if (!this.patterns.isEmpty() && !other.patterns.isEmpty()) {
 			for (String pattern1 : this.patterns) {
@@ -191,13 +252,27 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		else {
 			result.add("");
 		}
-		return new PatternsRequestCondition(result, this);
+		return new PatternsRequestCondition(result, null, this);
+	}
+
+	private PatternsRequestCondition combinePathPatterns(
+			Map<String, PathPattern> patterns1, Map<String, PathPattern> patterns2) {
+
+		Map<String, PathPattern> result = new LinkedHashMap<>();
+		for (PathPattern pattern1 : patterns1.values()) {
+			for (PathPattern pattern2 : patterns2.values()) {
+				PathPattern combined = pattern1.combine(pattern2);
+				result.put(combined.getPatternString(), combined);
+			}
+		}
+		return new PatternsRequestCondition(Collections.unmodifiableSet(result.keySet()), result, this);
 	}
 
 	/**
 	 * Checks if any of the patterns match the given request and returns an instance
 	 * that is guaranteed to contain matching patterns, sorted via
-	 * {@link PathMatcher#getPatternComparator(String)}.
+	 * {@link PathMatcher#getPatternComparator(String)}, or via
+	 * {@link PathPattern#SPECIFICITY_COMPARATOR} for parsed patterns.
 	 * <p>A matching pattern is obtained by making checks in the following order:
 	 * <ul>
 	 * <li>Direct match
@@ -216,9 +291,15 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		if (this.patterns.isEmpty()) {
 			return this;
 		}
+		if (this.pathPatterns != null) {
+			RequestPath path = ServletRequestPathUtils.getParsedRequestPath(request);
+			Map<String, PathPattern> matches = getMatchingPathPatterns(path.pathWithinApplication());
+			return (!matches.isEmpty() ?
+					new PatternsRequestCondition(Collections.unmodifiableSet(matches.keySet()), matches, this) : null);
+		}
 		String lookupPath = this.pathHelper.getLookupPathForRequest(request, HandlerMapping.LOOKUP_PATH);
 		List<String> matches = getMatchingPatterns(lookupPath);
-		return !matches.isEmpty() ? new PatternsRequestCondition(new LinkedHashSet<>(matches), this) : null;
+		return !matches.isEmpty() ? new PatternsRequestCondition(new LinkedHashSet<>(matches), null, this) : null;
 	}
 
 	/**
@@ -230,6 +311,9 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 * @return a collection of matching patterns sorted with the closest match at the top
 	 */
 	public List<String> getMatchingPatterns(String lookupPath) {
+		if (this.pathPatterns != null) {
+			return new ArrayList<>(getMatchingPathPatterns(parseLookupPath(lookupPath)).keySet());
+		}
 		List<String> matches = null;
 		for (String pattern : this.patterns) {
 			String match = getMatchingPattern(pattern, lookupPath);
@@ -247,6 +331,38 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		return matches;
 	}
 
+	/**
+	 * Parse the given lookup path, which is decoded already, into a path whose
+	 * decoded segments are the same as those of the lookup path.
+	 */
+	private static PathContainer parseLookupPath(String lookupPath) {
+		// Keep '%' from being decoded twice, and ';' from starting path parameters
+		String encodedPath = UriUtils.encodePath(lookupPath, StandardCharsets.UTF_8).replace(";", "%3B");
+		return PathContainer.parsePath(encodedPath);
+	}
+
+	private Map<String, PathPattern> getMatchingPathPatterns(PathContainer path) {
+		Assert.state(this.pathPatterns != null, "No parsed patterns");
+		List<PathPattern> matches = null;
+		for (PathPattern pattern : this.pathPatterns.values()) {
+			if (pattern.matches(path)) {
+				matches = matches != null ? matches : new ArrayList<>();
+				matches.add(pattern);
+			}
+		}
+		if (matches == null) {
+			return Collections.emptyMap();
+		}
+		if (matches.size() > 1) {
+			matches.sort(PathPattern.SPECIFICITY_COMPARATOR);
+		}
+		Map<String, PathPattern> result = new LinkedHashMap<>(matches.size());
+		for (PathPattern match : matches) {
+			result.put(match.getPatternString(), match);
+		}
+		return result;
+	}
+
 	@Nullable
 	private String getMatchingPattern(String pattern, String lookupPath) {
 		if (pattern.equals(lookupPath)) {
@@ -281,9 +397,10 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	/**
 	 * Compare the two conditions based on the URL patterns they contain.
 	 * Patterns are compared one at a time, from top to bottom via
-	 * {@link PathMatcher#getPatternComparator(String)}. If all compared
-	 * patterns match equally, but one instance has more patterns, it is
-	 * considered a closer match.
+	 * {@link PathMatcher#getPatternComparator(String)}, or via
+	 * {@link PathPattern#SPECIFICITY_COMPARATOR} if both instances use parsed
+	 * patterns. If all compared patterns match equally, but one instance has
+	 * more patterns, it is considered a closer match.
 	 * <p>It is assumed that both instances have been obtained via
 	 * {@link #getMatchingCondition(HttpServletRequest)} to ensure they
 	 * contain only patterns that match the request and are sorted with
@@ -291,10 +408,16 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 */
 	@Override
 	public int compareTo(PatternsRequestCondition other, HttpServletRequest request) {
+		if (this.pathPatterns != null && other.pathPatterns != null) {
+			return compareTo(this.pathPatterns.values().iterator(), other.pathPatterns.values().iterator(),
+					PathPattern.SPECIFICITY_COMPARATOR);
+		}
 		String lookupPath = this.pathHelper.getLookupPathForRequest(request, HandlerMapping.LOOKUP_PATH);
 		Comparator<String> patternComparator = this.pathMatcher.getPatternComparator(lookupPath);
-		Iterator<String> iterator = this.patterns.iterator();
-		Iterator<String> iteratorOther = other.patterns.iterator();
+		return compareTo(this.patterns.iterator(), other.patterns.iterator(), patternComparator);
+	}
+
+	private static <P> int compareTo(Iterator<P> iterator, Iterator<P> iteratorOther, Comparator<P> patternComparator) {
 		while (iterator.hasNext() && iteratorOther.hasNext()) {
 			int result = patternComparator.compare(iterator.next(), iteratorOther.next());
 			if (result != 0) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.web.servlet.mvc.method;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
@@ -32,8 +33,11 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
+import org.springframework.http.server.RequestPath;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
@@ -44,7 +48,10 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.handler.AbstractHandlerMethodMapping;
 import org.springframework.web.servlet.mvc.condition.NameValueExpression;
+import org.springframework.web.util.ServletRequestPathUtils;
 import org.springframework.web.util.WebUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Abstract base class for classes for which {@link RequestMappingInfo} defines
@@ -82,6 +89,25 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		return info.getPatternsCondition().getPatterns();
 	}
 
+	/**
+	 * Index mappings by the literal leading segments of their URL path patterns
+	 * when patterns are matched as parsed {@link PathPattern PathPatterns} or
+	 * with an {@link AntPathMatcher}, in both cases with the default "/"
+	 * separator, narrowing down the mappings to check for a lookup path
+	 * without a direct URL match.
+	 * @since 5.2
+	 */
+	@Override
+	protected boolean usePathPatternIndex() {
+		PathPatternParser patternParser = getPatternParser();
+		if (patternParser != null) {
+			return (patternParser.getSeparator() == '/');
+		}
+		PathMatcher pathMatcher = getPathMatcher();
+		return (pathMatcher instanceof AntPathMatcher &&
+				AntPathMatcher.DEFAULT_PATH_SEPARATOR.equals(((AntPathMatcher) pathMatcher).getPathSeparator()));
+	}
+
 	/**
 	 * Check if the given RequestMappingInfo matches the current request and
 	 * return a (potentially new) instance with conditions that match the
@@ -111,6 +137,12 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 	protected void handleMatch(RequestMappingInfo info, String lookupPath, HttpServletRequest request) {
 		super.handleMatch(info, lookupPath, request);
 
+		Collection<PathPattern> pathPatterns = info.getPatternsCondition().getPathPatterns();
+		if (!pathPatterns.isEmpty()) {
+			handleMatch(info, pathPatterns.iterator().next(), request);
+			return;
+		}
+
 		String bestPattern;
 		Map<String, String> uriVariables;
 
@@ -140,6 +172,30 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		}
 	}
 
+	/**
+	 * Expose URI template variables, matrix variables, and producible media
+	 * types for a match of a parsed {@link PathPattern}.
+	 */
+	private void handleMatch(RequestMappingInfo info, PathPattern bestPattern, HttpServletRequest request) {
+		request.setAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE, bestPattern.getPatternString());
+
+		RequestPath path = ServletRequestPathUtils.getParsedRequestPath(request);
+		PathPattern.PathMatchInfo matchInfo = bestPattern.matchAndExtract(path.pathWithinApplication());
+		Map<String, String> uriVariables = Collections.emptyMap();
+		if (matchInfo != null) {
+			uriVariables = matchInfo.getUriVariables();
+			if (!matchInfo.getMatrixVariables().isEmpty()) {
+				request.setAttribute(HandlerMapping.MATRIX_VARIABLES_ATTRIBUTE, matchInfo.getMatrixVariables());
+			}
+		}
+		request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, uriVariables);
+
+		if (!info.getProducesCondition().getProducibleMediaTypes().isEmpty()) {
+			Set<MediaType> mediaTypes = info.getProducesCondition().getProducibleMediaTypes();
+			request.setAttribute(PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, mediaTypes);
+		}
+	}
+
 	private boolean isMatrixVariableContentAvailable() {
 		return !getUrlPathHelper().shouldRemoveSemicolonContent();
 	}
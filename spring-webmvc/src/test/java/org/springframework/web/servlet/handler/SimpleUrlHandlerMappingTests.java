@@ -31,6 +31,7 @@ import org.springframework.web.servlet.HandlerExecutionChain;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.util.WebUtils;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -87,6 +88,44 @@ public class SimpleUrlHandlerMappingTests {
 		assertThat(hec.getHandler()).isSameAs(controller);
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void urlMappingWithPathPatterns() throws Exception {
+		Object welcome = new Object();
+		Object resources = new Object();
+		Object user = new Object();
+		Map<String, Object> urlMap = new LinkedHashMap<>();
+		urlMap.put("/welcome.html", welcome);
+		urlMap.put("/resources/**", resources);
+		urlMap.put("/users/{id}", user);
+
+		SimpleUrlHandlerMapping handlerMapping = new SimpleUrlHandlerMapping();
+		handlerMapping.setPatternParser(new PathPatternParser());
+		handlerMapping.setUrlMap(urlMap);
+		handlerMapping.setApplicationContext(new StaticApplicationContext());
+		assertThat(handlerMapping.getPathPatternHandlerMap()).hasSize(3);
+
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/welcome.html");
+		HandlerExecutionChain hec = getHandler(handlerMapping, req);
+		assertThat(hec.getHandler()).isSameAs(welcome);
+		assertThat(req.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE)).isEqualTo("/welcome.html");
+
+		req = new MockHttpServletRequest("GET", "/app/resources/css/main%20file.css");
+		req.setContextPath("/app");
+		hec = getHandler(handlerMapping, req);
+		assertThat(hec.getHandler()).isSameAs(resources);
+		assertThat(req.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).isEqualTo("/resources/**");
+		assertThat(req.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE)).isEqualTo("css/main file.css");
+
+		req = new MockHttpServletRequest("GET", "/users/42/");
+		hec = getHandler(handlerMapping, req);
+		assertThat(hec.getHandler()).isSameAs(user);
+		assertThat((Map<String, String>) req.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE))
+				.containsEntry("id", "42");
+
+		assertThat(handlerMapping.getHandler(new MockHttpServletRequest("GET", "/users/42/orders"))).isNull();
+	}
+
 	@SuppressWarnings("resource")
 	private void checkMappings(String beanName) throws Exception {
 		MockServletContext sc = new MockServletContext("");
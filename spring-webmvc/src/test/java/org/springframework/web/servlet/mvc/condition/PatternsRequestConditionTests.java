@@ -23,6 +23,8 @@ import javax.servlet.http.HttpServletRequest;
 import org.junit.Test;
 
 import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -222,4 +224,66 @@ public class PatternsRequestConditionTests {
 		assertThat(match1.compareTo(match2, request)).isEqualTo(1);
 	}
 
+	@Test
+	public void matchPathPatterns() {
+		PathPatternParser parser = new PathPatternParser();
+		String[] patterns = {"/foo/*", "/foo/{id}", "/foo/bar"};
+		PatternsRequestCondition condition = new PatternsRequestCondition(patterns, parser);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/foo/bar");
+		request.setContextPath("/app");
+		PatternsRequestCondition match = condition.getMatchingCondition(request);
+
+		assertThat(match).isNotNull();
+		assertThat(match.getPatterns()).containsExactly("/foo/bar", "/foo/{id}", "/foo/*");
+		assertThat(match.getPathPatterns()).extracting(PathPattern::getPatternString)
+				.containsExactly("/foo/bar", "/foo/{id}", "/foo/*");
+		assertThat(condition.getMatchingPatterns("/foo/bar")).containsExactly("/foo/bar", "/foo/{id}", "/foo/*");
+
+		assertThat(condition.getMatchingCondition(new MockHttpServletRequest("GET", "/foo/bar/"))).isNotNull();
+		match = condition.getMatchingCondition(new MockHttpServletRequest("GET", "/foo/bar.json"));
+		assertThat(match).isNotNull();
+		assertThat(match.getPatterns()).as("No suffix pattern match").containsExactly("/foo/{id}", "/foo/*");
+		assertThat(condition.getMatchingCondition(new MockHttpServletRequest("GET", "/bar"))).isNull();
+		assertThat(new PatternsRequestCondition(new String[0], parser)
+				.getMatchingCondition(new MockHttpServletRequest("GET", "/"))).isNotNull();
+	}
+
+	@Test
+	public void matchPathPatternsWithEncodedLookupPath() {
+		PathPatternParser parser = new PathPatternParser();
+		PatternsRequestCondition condition = new PatternsRequestCondition(new String[] {"/files/100%25"}, parser);
+
+		assertThat(condition.getMatchingCondition(new MockHttpServletRequest("GET", "/files/100%2525"))).isNotNull();
+		assertThat(condition.getMatchingPatterns("/files/100%25")).containsExactly("/files/100%25");
+		assertThat(condition.getMatchingPatterns("/files/100%")).isEmpty();
+
+		condition = new PatternsRequestCondition(new String[] {"/files/{name}"}, parser);
+		assertThat(condition.getMatchingPatterns("/files/a;b")).containsExactly("/files/{name}");
+		assertThat(condition.getMatchingPatterns("/files/a b")).containsExactly("/files/{name}");
+	}
+
+	@Test
+	public void combinePathPatterns() {
+		PathPatternParser parser = new PathPatternParser();
+		PatternsRequestCondition c1 = new PatternsRequestCondition(new String[] {"/t1", "/t2"}, parser);
+		PatternsRequestCondition c2 = new PatternsRequestCondition(new String[] {"/m1", "/{id}"}, parser);
+		PatternsRequestCondition combined = c1.combine(c2);
+
+		assertThat(combined.getPatterns()).containsExactly("/t1/m1", "/t1/{id}", "/t2/m1", "/t2/{id}");
+		assertThat(combined.getPathPatterns()).hasSize(4);
+		assertThat(c1.combine(new PatternsRequestCondition(new String[0], parser)).getPatterns())
+				.containsExactly("/t1", "/t2");
+	}
+
+	@Test
+	public void comparePathPatternSpecificity() {
+		PathPatternParser parser = new PathPatternParser();
+		PatternsRequestCondition c1 = new PatternsRequestCondition(new String[] {"/fo*"}, parser);
+		PatternsRequestCondition c2 = new PatternsRequestCondition(new String[] {"/foo"}, parser);
+
+		assertThat(c1.compareTo(c2, new MockHttpServletRequest("GET", "/foo"))).isEqualTo(1);
+		assertThat(c2.compareTo(c1, new MockHttpServletRequest("GET", "/foo"))).isEqualTo(-1);
+	}
+
 }
@@ -32,6 +32,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.test.MockHttpServletRequest;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
@@ -57,6 +58,7 @@ import org.springframework.web.servlet.mvc.condition.PatternsRequestCondition;
 import org.springframework.web.servlet.mvc.condition.ProducesRequestCondition;
 import org.springframework.web.servlet.mvc.condition.RequestMethodsRequestCondition;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -132,6 +134,69 @@ public class RequestMappingInfoHandlerMappingTests {
 		assertThat(handlerMethod.getMethod()).isEqualTo(this.emptyMethod.getMethod());
 	}
 
+	@Test
+	public void getHandlerPatternMatchByLiteralPathSegments() throws Exception {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		TestRequestMappingInfoHandlerMapping mapping = new TestRequestMappingInfoHandlerMapping();
+		mapping.setPathMatcher(pathMatcher);
+		mapping.registerMapping(new RequestMappingInfo(new PatternsRequestCondition(new String[] {"/users/{id}"},
+				mapping.getUrlPathHelper(), pathMatcher, true, true), null, null, null, null, null, null),
+				this.fooMethod.getBean(), this.fooMethod.getMethod());
+		mapping.registerMapping(new RequestMappingInfo(new PatternsRequestCondition(new String[] {"/users/{id}/orders"},
+				mapping.getUrlPathHelper(), pathMatcher, true, true), null, null, null, null, null, null),
+				this.barMethod.getBean(), this.barMethod.getMethod());
+
+		HandlerExecutionChain chain = mapping.getHandler(new MockHttpServletRequest("GET", "/USERS/1"));
+		assertThat(((HandlerMethod) chain.getHandler()).getMethod()).isEqualTo(this.fooMethod.getMethod());
+
+		chain = mapping.getHandler(new MockHttpServletRequest("GET", "/users/1.json"));
+		assertThat(((HandlerMethod) chain.getHandler()).getMethod()).isEqualTo(this.fooMethod.getMethod());
+
+		chain = mapping.getHandler(new MockHttpServletRequest("GET", "/users/1/orders/"));
+		assertThat(((HandlerMethod) chain.getHandler()).getMethod()).isEqualTo(this.barMethod.getMethod());
+
+		assertThat(mapping.getHandler(new MockHttpServletRequest("GET", "/accounts/1"))).isNull();
+	}
+
+	@Test
+	public void usePathPatternIndexOnlyWithDefaultSeparator() {
+		TestRequestMappingInfoHandlerMapping mapping = new TestRequestMappingInfoHandlerMapping();
+		assertThat(mapping.usePathPatternIndex()).isTrue();
+
+		mapping.setPathMatcher(new AntPathMatcher("."));
+		assertThat(mapping.usePathPatternIndex()).isFalse();
+
+		PathPatternParser patternParser = new PathPatternParser();
+		mapping.setPatternParser(patternParser);
+		assertThat(mapping.usePathPatternIndex()).isTrue();
+
+		patternParser.setSeparator('.');
+		assertThat(mapping.usePathPatternIndex()).isFalse();
+	}
+
+	@Test
+	public void getHandlerWithPathPatterns() throws Exception {
+		TestRequestMappingInfoHandlerMapping mapping = new TestRequestMappingInfoHandlerMapping();
+		mapping.setPatternParser(new PathPatternParser());
+		mapping.registerHandler(new TestController());
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/main/persons/");
+		request.setContextPath("/app");
+		request.setServletPath("/main");
+		request.setPathInfo("/persons/");
+		HandlerExecutionChain chain = mapping.getHandler(request);
+
+		assertThat(((HandlerMethod) chain.getHandler()).getMethod().getName()).isEqualTo("produces");
+		assertThat(request.getAttribute(HandlerMapping.LOOKUP_PATH)).isEqualTo("/persons/");
+		assertThat(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).isEqualTo("/persons");
+
+		chain = mapping.getHandler(new MockHttpServletRequest("GET", "/bar"));
+		assertThat(((HandlerMethod) chain.getHandler()).getMethod()).isEqualTo(this.barMethod.getMethod());
+
+		assertThat(mapping.getHandler(new MockHttpServletRequest("GET", "/foo.json"))).isNull();
+	}
+
 	@Test
 	public void getHandlerBestMatch() throws Exception {
 		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo");
@@ -271,6 +336,19 @@ public class RequestMappingInfoHandlerMappingTests {
 		assertThat(uriVariables.get("identifier")).isEqualTo("a/b");
 	}
 
+	@Test
+	public void handleMatchWithPathPatterns() {
+		RequestMappingInfo.BuilderConfiguration config = new RequestMappingInfo.BuilderConfiguration();
+		config.setPatternParser(new PathPatternParser());
+		RequestMappingInfo key = RequestMappingInfo.paths("/{cars}/{id}").options(config).build();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cars;colors=red,blue/a%2Fb");
+		this.handlerMapping.handleMatch(key, "/cars/a/b", request);
+
+		assertThat(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).isEqualTo("/{cars}/{id}");
+		assertThat(getUriTemplateVariables(request)).containsEntry("cars", "cars").containsEntry("id", "a/b");
+		assertThat(getMatrixVariables(request, "cars").get("colors")).containsExactly("red", "blue");
+	}
+
 	@Test
 	public void handleMatchBestMatchingPatternAttribute() {
 		RequestMappingInfo key = RequestMappingInfo.paths("/{path1}/2", "/**").build();
@@ -507,8 +585,10 @@ public class RequestMappingInfoHandlerMappingTests {
 		protected RequestMappingInfo getMappingForMethod(Method method, Class<?> handlerType) {
 			RequestMapping annot = AnnotationUtils.findAnnotation(method, RequestMapping.class);
 			if (annot != null) {
+				PathPatternParser patternParser = getPatternParser();
 				return new RequestMappingInfo(
-					new PatternsRequestCondition(annot.value(), getUrlPathHelper(), getPathMatcher(), true, true),
+					(patternParser != null ? new PatternsRequestCondition(annot.value(), patternParser) :
+							new PatternsRequestCondition(annot.value(), getUrlPathHelper(), getPathMatcher(), true, true)),
 					new RequestMethodsRequestCondition(annot.method()),
 					new ParamsRequestCondition(annot.params()),
 					new HeadersRequestCondition(annot.headers()),